@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.csv.CSVFormat;
+import org.openjdk.jmh.annotations.*;
+import smile.data.DataFrame;
+import smile.data.vector.IntVector;
+import smile.io.Arrow;
+import smile.io.CSV;
+import smile.io.Write;
+import smile.math.MathEx;
+
+/**
+ * File reading benchmarks. The data files are generated in the
+ * temporary directory for each trial.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOBenchmark {
+    /** The number of rows. */
+    @Param({"100000", "1000000"})
+    public int n;
+    /** The number of double columns. */
+    @Param({"10"})
+    public int d;
+
+    private Path csvFile;
+    private Path arrowFile;
+    private CSV csv;
+
+    @Setup
+    public void setup() throws IOException {
+        MathEx.setSeed(19650218);
+        double[][] x = new double[n][];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = MathEx.random(d);
+            y[i] = MathEx.randomInt(10);
+        }
+        DataFrame data = DataFrame.of(x).merge(IntVector.of("y", y));
+
+        csvFile = Files.createTempFile("smile-bench", ".csv");
+        arrowFile = Files.createTempFile("smile-bench", ".arrow");
+        Write.csv(data, csvFile);
+        Write.arrow(data, arrowFile);
+        csv = new CSV(CSVFormat.DEFAULT.withFirstRecordAsHeader()).schema(data.schema());
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(arrowFile);
+    }
+
+    @Benchmark
+    public DataFrame csv() throws IOException {
+        return csv.read(csvFile);
+    }
+
+    @Benchmark
+    public DataFrame arrow() throws IOException {
+        return new Arrow().read(arrowFile);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.clustering.KMeans;
+import smile.math.MathEx;
+
+/**
+ * K-means clustering benchmarks on a mixture of Gaussians.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KMeansBenchmark {
+    /** The number of samples. */
+    @Param({"10000", "100000"})
+    public int n;
+    /** The dimension of samples. */
+    @Param({"16", "256"})
+    public int d;
+    /** The number of clusters. */
+    @Param({"10", "100"})
+    public int k;
+
+    private double[][] data;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        double[][] centers = new double[k][];
+        for (int i = 0; i < k; i++) {
+            centers[i] = MathEx.random(-10, 10, d);
+        }
+
+        data = new double[n][d];
+        for (int i = 0; i < n; i++) {
+            double[] center = centers[i % k];
+            for (int j = 0; j < d; j++) {
+                data[i][j] = center[j] + MathEx.random(-1, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public KMeans fit() {
+        return KMeans.fit(data, k);
+    }
+
+    @Benchmark
+    public KMeans lloyd() {
+        return KMeans.lloyd(data, k);
+    }
+
+    @Benchmark
+    public KMeans hamerly() {
+        return KMeans.hamerly(data, k);
+    }
+
+    @Benchmark
+    public KMeans minibatch() {
+        return KMeans.minibatch(data, k, 1024, 100);
+    }
+}
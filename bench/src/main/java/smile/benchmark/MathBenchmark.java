@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.MathEx;
+
+/**
+ * Vector operation benchmarks.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark {
+    /** The dimension of vectors. */
+    @Param({"16", "256", "4096"})
+    public int d;
+
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        x = MathEx.random(d);
+        y = MathEx.random(d);
+    }
+
+    @Benchmark
+    public double squaredDistance() {
+        return MathEx.squaredDistance(x, y);
+    }
+
+    @Benchmark
+    public double dot() {
+        return MathEx.dot(x, y);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.MathEx;
+import smile.math.matrix.Matrix;
+
+/**
+ * Dense matrix multiplication benchmarks.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+    /** The size of square matrices. */
+    @Param({"100", "500", "1000"})
+    public int n;
+
+    private Matrix A;
+    private Matrix B;
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        A = Matrix.randn(n, n);
+        B = Matrix.randn(n, n);
+        x = MathEx.random(n);
+        y = new double[n];
+    }
+
+    @Benchmark
+    public Matrix mm() {
+        return A.mm(B);
+    }
+
+    @Benchmark
+    public double[] mv() {
+        A.mv(x, y);
+        return y;
+    }
+}
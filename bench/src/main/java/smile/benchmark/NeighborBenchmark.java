@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import smile.neighbor.CoverTree;
+import smile.neighbor.KDTree;
+import smile.neighbor.LSH;
+import smile.neighbor.Neighbor;
+
+/**
+ * K-nearest neighbor search benchmarks. Each invocation searches
+ * the neighbors of a batch of queries.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeighborBenchmark {
+    /** The number of samples in the database. */
+    @Param({"10000", "100000"})
+    public int n;
+    /** The dimension of samples. */
+    @Param({"8", "32"})
+    public int d;
+    /** The number of neighbors to search. */
+    @Param({"10"})
+    public int k;
+
+    /** The number of queries per invocation. */
+    private static final int QUERIES = 100;
+
+    private double[][] queries;
+    private KDTree<double[]> kdtree;
+    private CoverTree<double[]> covertree;
+    private LSH<double[]> lsh;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        double[][] data = new double[n][];
+        for (int i = 0; i < n; i++) {
+            data[i] = MathEx.random(d);
+        }
+
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = MathEx.random(d);
+        }
+
+        kdtree = new KDTree<>(data, data);
+        covertree = new CoverTree<>(data, new EuclideanDistance());
+        lsh = new LSH<>(data, data, 0.5);
+    }
+
+    @Benchmark
+    public int kdtree() {
+        int count = 0;
+        for (double[] q : queries) {
+            Neighbor<double[], double[]>[] neighbors = kdtree.knn(q, k);
+            count += neighbors.length;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int covertree() {
+        int count = 0;
+        for (double[] q : queries) {
+            Neighbor<double[], double[]>[] neighbors = covertree.knn(q, k);
+            count += neighbors.length;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int lsh() {
+        int count = 0;
+        for (double[] q : queries) {
+            Neighbor<double[], double[]>[] neighbors = lsh.knn(q, k);
+            count += neighbors.length;
+        }
+        return count;
+    }
+}
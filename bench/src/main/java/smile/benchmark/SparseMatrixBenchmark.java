@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.math.MathEx;
+import smile.math.matrix.SparseMatrix;
+
+/**
+ * Sparse matrix multiplication benchmarks.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparseMatrixBenchmark {
+    /** The size of square matrices. */
+    @Param({"1000", "5000"})
+    public int n;
+    /** The fraction of nonzero entries. */
+    @Param({"0.001", "0.01"})
+    public double density;
+
+    private SparseMatrix A;
+    private SparseMatrix B;
+    private double[] x;
+    private double[] y;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        A = random(n, density);
+        B = random(n, density);
+        x = MathEx.random(n);
+        y = new double[n];
+    }
+
+    /** Returns a random sparse matrix. */
+    private static SparseMatrix random(int n, double density) {
+        int nz = (int) Math.max(1, density * n);
+        double[] nonzeros = new double[n * nz];
+        int[] rowIndex = new int[n * nz];
+        int[] colIndex = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            // The distinct sorted row indices of column j.
+            int[] rows = MathEx.permutate(n);
+            Arrays.sort(rows, 0, nz);
+            for (int l = 0; l < nz; l++) {
+                int p = j * nz + l;
+                rowIndex[p] = rows[l];
+                nonzeros[p] = MathEx.random();
+            }
+            colIndex[j + 1] = (j + 1) * nz;
+        }
+        return new SparseMatrix(n, n, nonzeros, rowIndex, colIndex);
+    }
+
+    @Benchmark
+    public double[] mv() {
+        A.mv(x, y);
+        return y;
+    }
+
+    @Benchmark
+    public SparseMatrix mm() {
+        return A.mm(B);
+    }
+}
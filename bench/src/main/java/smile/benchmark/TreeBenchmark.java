@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.benchmark;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import smile.classification.DecisionTree;
+import smile.classification.RandomForest;
+import smile.data.DataFrame;
+import smile.data.formula.Formula;
+import smile.data.vector.IntVector;
+import smile.math.MathEx;
+
+/**
+ * Decision tree training and random forest prediction benchmarks
+ * on a synthetic binary classification problem.
+ *
+ * @author Haifeng Li
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+    /** The number of samples. */
+    @Param({"10000", "100000"})
+    public int n;
+    /** The number of features. */
+    @Param({"10", "50"})
+    public int d;
+
+    private final Formula formula = Formula.lhs("y");
+    private DataFrame data;
+    private RandomForest forest;
+
+    @Setup
+    public void setup() {
+        MathEx.setSeed(19650218);
+        double[][] x = new double[n][];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = MathEx.random(d);
+            double z = x[i][0] + x[i][1] - x[i][2] * x[i][3] + 0.1 * MathEx.random();
+            y[i] = z > 0.8 ? 1 : 0;
+        }
+
+        data = DataFrame.of(x).merge(IntVector.of("y", y));
+
+        Properties params = new Properties();
+        params.setProperty("smile.random_forest.trees", "100");
+        forest = RandomForest.fit(formula, data, params);
+    }
+
+    @Benchmark
+    public DecisionTree cart() {
+        return DecisionTree.fit(formula, data);
+    }
+
+    @Benchmark
+    public int[] predict() {
+        return forest.predict(data);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+/**
+ * JMH benchmarks of the hot paths of Smile. The suites are parameterized
+ * by the problem sizes, which can be overridden on the command line with
+ * {@code -p}. To compare the performance across commits, write the results
+ * to a JSON report, e.g.
+ * <pre>
+ * sbt "bench/Jmh/run -rf json -rff $(git rev-parse --short HEAD).json"
+ * sbt "bench/Jmh/run -p n=1000 -rf json -rff matrix.json MatrixBenchmark"
+ * </pre>
+ * The reports can be compared with tools such as JMH Visualizer.
+ * On Java 9 or later, the Arrow benchmarks need the JVM option
+ * {@code -jvmArgsAppend --add-opens=java.base/java.nio=ALL-UNNAMED}.
+ *
+ * @author Haifeng Li
+ */
+package smile.benchmark;
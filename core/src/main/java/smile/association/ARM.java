@@ -18,6 +18,8 @@
 package smile.association;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import smile.association.TotalSupportTree.Node;
@@ -67,6 +69,10 @@ public class ARM implements Iterable<AssociationRule> {
      * The buffer to collect mining results.
      */
     private final Queue<AssociationRule> buffer = new LinkedList<>();
+    /**
+     * The consumer of mining results.
+     */
+    private final Consumer<AssociationRule> sink;
 
     /**
      * Constructor.
@@ -76,6 +82,19 @@ public class ARM implements Iterable<AssociationRule> {
         this.size = ttree.size();
         this.confidence = confidence;
         this.ttree = ttree;
+        this.sink = buffer::offer;
+    }
+
+    /**
+     * Constructor.
+     * @param confidence the confidence threshold for association rules.
+     * @param sink the consumer of mining results.
+     */
+    ARM(double confidence, TotalSupportTree ttree, Consumer<AssociationRule> sink) {
+        this.size = ttree.size();
+        this.confidence = confidence;
+        this.ttree = ttree;
+        this.sink = sink;
     }
 
     @Override
@@ -123,6 +142,37 @@ public class ARM implements Iterable<AssociationRule> {
         return StreamSupport.stream(arm.spliterator(), false);
     }
 
+    /**
+     * Mines the association rules in parallel. Both the frequent item sets
+     * and the association rules are mined in the partitions of the items
+     * of header table, one fork-join task per partition. The rules of a
+     * partition are passed downstream as they are generated. See
+     * {@link FPGrowth#parallel(FPTree)} for the memory bound.
+     *
+     * @param confidence the confidence threshold for association rules.
+     * @param tree the FP-tree.
+     * @return the stream of association rules.
+     */
+    public static Stream<AssociationRule> parallel(double confidence, FPTree tree) {
+        TotalSupportTree ttree = new TotalSupportTree(tree, true);
+        Node root = ttree.root();
+        return IntStream.range(0, root.children.length).parallel()
+                .filter(i -> root.children[i] != null)
+                .mapToObj(i -> FPGrowth.<AssociationRule>stream(sink -> new ARM(confidence, ttree, sink).generate(i)))
+                .flatMap(s -> s);
+    }
+
+    /**
+     * Generates the association rules of the item sets in the i-th
+     * subtree of T-tree root. The rules are passed to the sink of
+     * this object.
+     * @param i the index of child of root.
+     */
+    private void generate(int i) {
+        Node child = ttree.root().children[i];
+        generate(new int[]{child.id}, i, child);
+    }
+
     /**
      * Generates association rules from a T-tree.
      * @param itemset the label for a T-tree node as generated so far.
@@ -168,7 +218,7 @@ public class ARM implements Iterable<AssociationRule> {
                     double lift = support / (antecedentSupport * consequentSupport / size);
                     double leverage = supp - (antecedentSupport / size) * (consequentSupport / size);
                     AssociationRule ar = new AssociationRule(combination, complement, supp, arc, lift, leverage);
-                    buffer.offer(ar);
+                    sink.accept(ar);
                 }
             }
         }
@@ -18,6 +18,8 @@
 package smile.association;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import smile.association.FPTree.HeaderTableItem;
@@ -71,6 +73,10 @@ public class FPGrowth implements Iterable<ItemSet> {
      * The buffer to collect mining results.
      */
     private final Queue<ItemSet> buffer = new LinkedList<>();
+    /**
+     * The consumer of mining results.
+     */
+    private final Consumer<ItemSet> sink;
 
     /**
      * Constructor.
@@ -79,6 +85,18 @@ public class FPGrowth implements Iterable<ItemSet> {
      */
     FPGrowth(FPTree tree) {
         this.minSupport = tree.minSupport;
+        this.sink = buffer::offer;
+        T0 = tree;
+    }
+
+    /**
+     * Constructor.
+     * @param tree the FP-tree.
+     * @param sink the consumer of mining results.
+     */
+    FPGrowth(FPTree tree, Consumer<ItemSet> sink) {
+        this.minSupport = tree.minSupport;
+        this.sink = sink;
         T0 = tree;
     }
 
@@ -138,6 +156,84 @@ public class FPGrowth implements Iterable<ItemSet> {
         return StreamSupport.stream(growth.spliterator(), false);
     }
 
+    /**
+     * Mines the frequent item sets in parallel. The mining is partitioned
+     * by the items of header table. Each partition grows the frequent item
+     * sets ending with an item from its conditional pattern base, which is
+     * mined in a separate task of fork-join pool. As the FP-tree is read-only
+     * during the mining, the partitions share the tree without locking.
+     * The item sets are streamed in the same order as {@link #apply(FPTree)}.
+     * <p>
+     * A partition passes the item sets to the downstream operations as
+     * they are mined. With an unordered terminal operation such as
+     * {@code forEach} or {@code count}, the memory is bounded by the
+     * FP-tree and the conditional FP-trees on the recursion stack of each
+     * worker. Order-preserving terminal operations, e.g.
+     * {@code collect} and {@code forEachOrdered}, buffer the item sets
+     * of a partition until the preceding ones are done.
+     *
+     * @param tree the FP-tree of item sets.
+     * @return the stream of frequent item sets.
+     */
+    public static Stream<ItemSet> parallel(FPTree tree) {
+        int n = tree.headerTable.length;
+        return IntStream.range(0, n).parallel()
+                .mapToObj(i -> FPGrowth.<ItemSet>stream(sink -> new FPGrowth(tree, sink).grow(n - 1 - i)))
+                .flatMap(s -> s);
+    }
+
+    /**
+     * Returns the stream of results of a mining task. When the stream
+     * is consumed by a traversal, the task passes the results to the
+     * action as they are mined without buffering.
+     * @param task the mining task, which takes the consumer of results.
+     * @param <T> the type of results.
+     * @return the stream of results.
+     */
+    static <T> Stream<T> stream(Consumer<Consumer<T>> task) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            /** The results buffered for element-wise traversal. */
+            private Queue<T> buffer;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (buffer == null) {
+                    Queue<T> queue = new LinkedList<>();
+                    task.accept(queue::offer);
+                    buffer = queue;
+                }
+
+                T result = buffer.poll();
+                if (result == null) return false;
+                action.accept(result);
+                return true;
+            }
+
+            @Override
+            public void forEachRemaining(Consumer<? super T> action) {
+                if (buffer == null) {
+                    buffer = new LinkedList<>();
+                    task.accept(action::accept);
+                } else {
+                    super.forEachRemaining(action);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Mines the frequent item sets ending with an item of header table.
+     * The item sets are passed to the sink of this object.
+     * @param i the index of item in the header table.
+     */
+    void grow(int i) {
+        int[] prefixItemset = new int[T0.maxItemSetSize];
+        int[] localItemSupport = new int[T0.numItems];
+        grow(T0.headerTable[i], null, localItemSupport, prefixItemset);
+    }
+
     /**
      * Mines frequent item sets. Start with the bottom of the header table and
      * work upwards. For each available FP tree node:
@@ -163,7 +259,7 @@ public class FPGrowth implements Iterable<ItemSet> {
      * Adds an item set to the result.
      */
     private void collect(int[] itemset, int support) {
-        buffer.offer(new ItemSet(itemset, support));
+        sink.accept(new ItemSet(itemset, support));
     }
 
     /**
@@ -20,6 +20,7 @@ package smile.association;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -90,11 +91,29 @@ class TotalSupportTree implements Iterable<ItemSet> {
      * Constructor.
      */
     public TotalSupportTree(FPTree tree) {
+        this(tree, false);
+    }
+
+    /**
+     * Constructor.
+     * @param tree the FP-tree.
+     * @param parallel if true, mine the frequent item sets in parallel.
+     *                 The item sets ending with the i-th item of header
+     *                 table all go to the i-th child of root, so that
+     *                 the partitions build disjoint subtrees.
+     */
+    public TotalSupportTree(FPTree tree, boolean parallel) {
         this.numTransactions = tree.numTransactions;
         this.minSupport = tree.minSupport;
         this.order = tree.order;
         root.children = new Node[tree.numFreqItems];
-        FPGrowth.apply(tree).forEach(itemset -> add(itemset.items, itemset.support));
+        if (parallel) {
+            IntStream.range(0, tree.numFreqItems).parallel().forEach(i ->
+                new FPGrowth(tree, itemset -> add(itemset.items, itemset.support)).grow(i)
+            );
+        } else {
+            FPGrowth.apply(tree).forEach(itemset -> add(itemset.items, itemset.support));
+        }
     }
 
     /**
@@ -107,11 +107,35 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected transient int[][] order;
 
+    /**
+     * The quantized numeric columns for histogram-based split finding.
+     * If not null, {@link #order} is not used.
+     */
+    protected transient Bins bins;
+
+    /**
+     * The histograms of leaf nodes to split. histograms.get(node)[j] is
+     * the histogram of column j in the node, which is passed down to
+     * the children so that the histogram of larger child is derived by
+     * subtracting the smaller child's histogram from the parent's.
+     * It is null if the histograms are not cached, e.g. in random forest
+     * where each node picks a random subset of columns. A node's entry is
+     * evicted once its children are derived or it won't be split, so that
+     * the cache holds at most one set of histograms per queued leaf.
+     */
+    private transient Map<LeafNode, double[][]> histograms;
+
     /**
      * The working buffer for reordering {@link #index} array.
      */
     private transient int[] buffer;
 
+    /**
+     * The tree compiled into flat arrays for batch prediction,
+     * which is built on the first use.
+     */
+    private transient volatile FlatForest flat;
+
     /** Private constructor for deserialization. */
     private CART() {
 
@@ -149,6 +173,50 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *              that only numeric attributes need be sorted.
      */
     public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, int[][] order) {
+        this(x, y, maxDepth, maxNodes, nodeSize, mtry, samples);
+
+        if (order == null) {
+            this.order = order(x);
+        } else {
+            this.order = new int[order.length][];
+            for (int i = 0; i < order.length; i++) {
+                if (order[i] != null) {
+                    this.order[i] = Arrays.stream(order[i]).filter(o -> this.samples[o] > 0).toArray();
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor. The splits on numeric columns are searched
+     * on the histograms of quantized values.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param bins the quantized numeric columns.
+     */
+    public CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, Bins bins) {
+        this(x, y, maxDepth, maxNodes, nodeSize, mtry, samples);
+        this.bins = bins;
+
+        // With random subset of columns at each node, the parent
+        // histograms of most columns are not available to subtract.
+        if (this.mtry == x.ncol()) {
+            histograms = new IdentityHashMap<>();
+        }
+    }
+
+    /**
+     * Initializes the common workspace of building tree.
+     */
+    private CART(DataFrame x, StructField y, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples) {
         this.x = x;
         this.response = y;
         this.schema = x.schema();
@@ -189,17 +257,6 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         this.index = idx.toArray();
 
         buffer  = new int[index.length];
-
-        if (order == null) {
-            this.order = order(x);
-        } else {
-            this.order = new int[order.length][];
-            for (int i = 0; i < order.length; i++) {
-                if (order[i] != null) {
-                    this.order[i] = Arrays.stream(order[i]).filter(o -> this.samples[o] > 0).toArray();
-                }
-            }
-        }
     }
 
     /**
@@ -252,6 +309,15 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         return formula == null ? x : formula.x(x);
     }
 
+    /**
+     * Returns the predictors by applying the model formula.
+     * @param data the input data frame.
+     * @return the predictors.
+     */
+    protected DataFrame predictors(DataFrame data) {
+        return formula == null ? data : formula.x(data);
+    }
+
     /** Clear the workspace of building tree. */
     protected void clear() {
         this.x = null;
@@ -259,6 +325,8 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         this.index = null;
         this.samples = null;
         this.buffer = null;
+        this.bins = null;
+        this.histograms = null;
     }
 
     /**
@@ -275,12 +343,14 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
 
         if (split.depth >= maxDepth) {
             logger.debug("Reach maximum depth");
+            if (histograms != null) histograms.remove(split.leaf);
             return false;
         }
 
         if (split.trueCount < nodeSize || split.falseCount < nodeSize) {
             // We should not reach here as findBestSplit filters this situation out.
             logger.debug("Node size is too small after splitting");
+            if (histograms != null) histograms.remove(split.leaf);
             return false;
         }
 
@@ -303,10 +373,17 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         InternalNode node = split.toNode(trueChild, falseChild);
 
         shuffle(split.lo, mid, split.hi, trues);
+        histogram(split, trueChild, falseChild, mid);
 
         Optional<Split> trueSplit = findBestSplit(trueChild, split.lo, mid, split.unsplittable.clone());
         Optional<Split> falseSplit = findBestSplit(falseChild, mid, split.hi, split.unsplittable); // reuse parent's array
 
+        if (histograms != null && split.depth + 1 >= maxDepth) {
+            // The children won't be split further.
+            histograms.remove(trueChild);
+            histograms.remove(falseChild);
+        }
+
         // Prune the branch if both children are leaf nodes and of same output value.
         if (trueChild.equals(falseChild) && !trueSplit.isPresent() && !falseSplit.isPresent()) {
             return false;
@@ -350,14 +427,21 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      */
     protected Optional<Split> findBestSplit(LeafNode node, int lo, int hi, boolean[] unsplittable) {
         if (node.size() < 2 * nodeSize) {
+            if (histograms != null) histograms.remove(node);
             return Optional.empty(); // one child will has less than nodeSize samples.
         }
 
         final double impurity = impurity(node);
         if (impurity == 0.0) {
+            if (histograms != null) histograms.remove(node);
             return Optional.empty(); // all the samples in the node have the same response
         }
 
+        if (histograms != null) {
+            // Allocates the cache before the parallel search on columns.
+            histograms.computeIfAbsent(node, leaf -> new double[schema.length()][]);
+        }
+
         // skip the unsplittable columns
         int p = schema.length();
         int[] columns = IntStream.range(0, p).filter(i -> !unsplittable[i]).toArray();
@@ -379,9 +463,100 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
                 .max(Split.comparator);
 
         split.ifPresent(s -> s.unsplittable = unsplittable);
+        if (histograms != null && !split.isPresent()) histograms.remove(node);
         return split;
     }
 
+    /**
+     * Returns the number of statistics per bin in the histograms
+     * of histogram-based split finding.
+     * @return the number of statistics per bin.
+     */
+    protected abstract int histogramWidth();
+
+    /**
+     * Accumulates the statistics of a sample into a bin of histogram.
+     * The statistics must be additive so that the histogram of a node
+     * equals the sum of histograms of its children.
+     * @param histogram the histogram, of which each bin takes
+     *                  {@link #histogramWidth()} consecutive elements.
+     * @param offset the offset of bin in the histogram.
+     * @param i the index of sample.
+     */
+    protected abstract void accumulate(double[] histogram, int offset, int i);
+
+    /**
+     * Returns the histogram of a quantized column in the node.
+     * @param node the node to split.
+     * @param column the column to split on.
+     * @param lo the lower bound of sample index in the node.
+     * @param hi the upper bound of sample index in the node.
+     * @return the histogram.
+     */
+    protected double[] histogram(LeafNode node, int column, int lo, int hi) {
+        double[][] cache = histograms == null ? null : histograms.get(node);
+        if (cache != null && cache[column] != null) {
+            return cache[column];
+        }
+
+        double[] histogram = histogram(column, lo, hi);
+        if (cache != null) cache[column] = histogram;
+        return histogram;
+    }
+
+    /**
+     * Computes the histogram of a quantized column by scanning the samples.
+     * @param column the column index.
+     * @param lo the lower bound of sample index.
+     * @param hi the upper bound of sample index.
+     * @return the histogram.
+     */
+    private double[] histogram(int column, int lo, int hi) {
+        int width = histogramWidth();
+        double[] histogram = new double[bins.size(column) * width];
+        for (int i = lo; i < hi; i++) {
+            int o = index[i];
+            accumulate(histogram, bins.bin(column, o) * width, o);
+        }
+        return histogram;
+    }
+
+    /**
+     * Passes the cached histograms of a split node down to its children.
+     * The histograms of smaller child are computed by scanning its samples,
+     * and those of the larger child by subtraction from the parent's.
+     *
+     * @param split the split of node.
+     * @param trueChild the child node of true branch.
+     * @param falseChild the child node of false branch.
+     * @param mid the boundary of children in the reordered sample index array.
+     */
+    private void histogram(Split split, LeafNode trueChild, LeafNode falseChild, int mid) {
+        if (histograms == null) return;
+
+        double[][] parent = histograms.remove(split.leaf);
+        if (parent == null) return;
+
+        boolean smallTrue = mid - split.lo <= split.hi - mid;
+        int lo = smallTrue ? split.lo : mid;
+        int hi = smallTrue ? mid : split.hi;
+
+        double[][] small = new double[parent.length][];
+        IntStream.range(0, parent.length).parallel().forEach(j -> {
+            double[] h = parent[j];
+            if (h != null) {
+                small[j] = histogram(j, lo, hi);
+                // reuses the parent's histogram for the larger child.
+                for (int b = 0; b < h.length; b++) {
+                    h[b] -= small[j][b];
+                }
+            }
+        });
+
+        histograms.put(trueChild, smallTrue ? small : parent);
+        histograms.put(falseChild, smallTrue ? parent : small);
+    }
+
     /**
      * Returns the impurity of node.
      * @param node the node to calculate the impurity.
@@ -428,6 +603,21 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
         return root;
     }
 
+    /**
+     * Returns the tree compiled into flat arrays for batch prediction,
+     * which is compiled on the first call and cached.
+     * @param k the number of outputs.
+     * @return the compiled tree.
+     */
+    protected FlatForest flat(int k) {
+        FlatForest tree = flat;
+        if (tree == null) {
+            tree = new FlatForest(new Node[]{root}, new int[1], new double[]{1.0}, new double[k]);
+            flat = tree;
+        }
+        return tree;
+    }
+
     /**
      * Returns the graphic representation in Graphviz dot format.
      * Try <a href="http://viz-js.com/">http://viz-js.com/</a>
@@ -492,7 +682,9 @@ public abstract class CART implements SHAP<Tuple>, Serializable {
      *                  the right side of the partition.
      */
     private void shuffle(int low, int split, int high, boolean[] predicate) {
-        Arrays.stream(order).filter(Objects::nonNull).forEach(o -> shuffle(o, low, split, high, predicate));
+        if (order != null) {
+            Arrays.stream(order).filter(Objects::nonNull).forEach(o -> shuffle(o, low, split, high, predicate));
+        }
         shuffle(index, low, split, high, predicate);
     }
 
@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.base.cart;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.data.DataFrame;
+import smile.data.vector.BaseVector;
+import smile.util.DoubleArrayList;
+import smile.util.IntArrayList;
+
+/**
+ * A tree ensemble compiled into flat arrays for fast inference.
+ * The nodes of all trees are laid out in preorder in primitive arrays
+ * (struct of arrays) so that the true child of a node immediately
+ * follows it. The evaluation of a tree is a tight loop of array reads
+ * without virtual calls or {@link smile.data.Tuple} lookups.
+ * <p>
+ * The ensemble computes a vector of scores. Each tree adds its leaf
+ * value, multiplied by the tree weight, to the scores starting at
+ * the tree's output group. The leaf value of regression tree is a
+ * scalar. The leaf value of decision tree is the vector of posteriori
+ * probabilities, or the one-hot vector of its output class for hard
+ * voting. The scores are initialized with the intercepts.
+ * It is up to the model to map the scores into the prediction.
+ * <p>
+ * The input row must be in the order of the model's predictor
+ * schema. Nominal variables are given as their integer codes.
+ *
+ * @author Haifeng Li
+ */
+public class FlatForest implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /** The number of rows that are evaluated together on a tree. */
+    private static final int BLOCK = 64;
+    /** The number of rows in a parallel task of data frame scoring. */
+    private static final int CHUNK = 4096;
+
+    /** The root node of each tree. */
+    private final int[] root;
+    /** The output group of each tree. */
+    private final int[] group;
+    /** The weight of each tree. */
+    private final double[] weight;
+    /** The initial scores. */
+    private final double[] intercept;
+    /** The split feature of node. -1 for leaf nodes. */
+    private final int[] feature;
+    /** True if the node splits on a nominal feature. */
+    private final boolean[] nominal;
+    /** The split value of internal node. */
+    private final double[] value;
+    /** The false child of internal node, or the leaf index of leaf node. */
+    private final int[] next;
+    /** The number of values of each leaf. */
+    private final int width;
+    /** The leaf values. */
+    private final double[] leaf;
+
+    /**
+     * Constructor.
+     * @param trees the root nodes of trees.
+     * @param group the output group of each tree.
+     * @param weight the weight of each tree.
+     * @param intercept the initial scores.
+     */
+    public FlatForest(Node[] trees, int[] group, double[] weight, double[] intercept) {
+        this(trees, group, weight, intercept, false);
+    }
+
+    /**
+     * Constructor.
+     * @param trees the root nodes of trees.
+     * @param group the output group of each tree.
+     * @param weight the weight of each tree.
+     * @param intercept the initial scores.
+     * @param vote if true, the leaf value of decision tree is the one-hot
+     *             vector of its output class. Otherwise, it is the vector
+     *             of posteriori probabilities.
+     */
+    public FlatForest(Node[] trees, int[] group, double[] weight, double[] intercept, boolean vote) {
+        if (trees.length == 0) {
+            throw new IllegalArgumentException("Empty forest");
+        }
+
+        if (group.length != trees.length || weight.length != trees.length) {
+            throw new IllegalArgumentException("The number of trees, groups and weights don't match");
+        }
+
+        Node node = trees[0];
+        while (node instanceof InternalNode) {
+            node = ((InternalNode) node).trueChild;
+        }
+        this.width = node instanceof DecisionNode ? ((DecisionNode) node).count().length : 1;
+
+        for (int g : group) {
+            if (g < 0 || g + width > intercept.length) {
+                throw new IllegalArgumentException("Invalid output group: " + g);
+            }
+        }
+
+        this.group = group;
+        this.weight = weight;
+        this.intercept = intercept;
+        this.root = new int[trees.length];
+
+        Builder builder = new Builder(width, vote);
+        for (int t = 0; t < trees.length; t++) {
+            root[t] = builder.add(trees[t]);
+        }
+
+        this.feature = builder.feature.toArray();
+        this.value = builder.value.toArray();
+        this.next = builder.next.toArray();
+        this.leaf = builder.leaf.toArray();
+        this.nominal = new boolean[feature.length];
+        for (int i = 0; i < feature.length; i++) {
+            nominal[i] = builder.nominal.get(i) == 1;
+        }
+    }
+
+    /** Lays out the nodes in preorder. */
+    private static class Builder {
+        final IntArrayList feature = new IntArrayList();
+        final IntArrayList nominal = new IntArrayList();
+        final DoubleArrayList value = new DoubleArrayList();
+        final IntArrayList next = new IntArrayList();
+        final DoubleArrayList leaf = new DoubleArrayList();
+        final double[] prob;
+        final boolean vote;
+
+        Builder(int width, boolean vote) {
+            this.prob = new double[width];
+            this.vote = vote;
+        }
+
+        /** Adds the subtree and returns the index of its root. */
+        int add(Node node) {
+            int i = feature.size();
+            if (node instanceof InternalNode) {
+                InternalNode parent = (InternalNode) node;
+                feature.add(parent.feature);
+                if (parent instanceof NominalNode) {
+                    nominal.add(1);
+                    value.add(((NominalNode) parent).value);
+                } else {
+                    nominal.add(0);
+                    value.add(((OrdinalNode) parent).value);
+                }
+                next.add(-1);
+
+                add(parent.trueChild);
+                next.set(i, add(parent.falseChild));
+            } else {
+                feature.add(-1);
+                nominal.add(0);
+                value.add(0.0);
+                next.add(leaf.size() / prob.length);
+
+                if (node instanceof DecisionNode) {
+                    DecisionNode decision = (DecisionNode) node;
+                    if (vote) {
+                        Arrays.fill(prob, 0.0);
+                        prob[decision.output()] = 1.0;
+                    } else {
+                        decision.posteriori(prob);
+                    }
+                    leaf.add(prob);
+                } else {
+                    leaf.add(((RegressionNode) node).output());
+                }
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Returns the number of trees.
+     * @return the number of trees.
+     */
+    public int size() {
+        return root.length;
+    }
+
+    /**
+     * Returns the number of scores.
+     * @return the number of scores.
+     */
+    public int outputs() {
+        return intercept.length;
+    }
+
+    /**
+     * Returns the leaf that a row falls into.
+     * @param tree the tree index.
+     * @param x the row.
+     * @return the leaf index.
+     */
+    private int leaf(int tree, double[] x) {
+        int node = root[tree];
+        while (feature[node] >= 0) {
+            double xj = x[feature[node]];
+            boolean branch = nominal[node] ? xj == value[node] : xj <= value[node];
+            node = branch ? node + 1 : next[node];
+        }
+        return next[node];
+    }
+
+    /**
+     * Returns the leaf that a row falls into.
+     * @param tree the tree index.
+     * @param x the row.
+     * @return the leaf index.
+     */
+    private int leaf(int tree, float[] x) {
+        int node = root[tree];
+        while (feature[node] >= 0) {
+            double xj = x[feature[node]];
+            boolean branch = nominal[node] ? xj == value[node] : xj <= value[node];
+            node = branch ? node + 1 : next[node];
+        }
+        return next[node];
+    }
+
+    /** Adds the weighted leaf value of a tree to the scores starting at offset. */
+    private void add(int tree, int leaf, double[] y, int offset) {
+        int g = offset + group[tree];
+        double w = weight[tree];
+        int l = leaf * width;
+        for (int c = 0; c < width; c++) {
+            y[g + c] += w * this.leaf[l + c];
+        }
+    }
+
+    /**
+     * Advances the rows of a block through a tree in lockstep
+     * and returns their leaves in the node buffer.
+     */
+    private void leaves(int tree, double[][] columns, int offset, int length, int[] nodes) {
+        Arrays.fill(nodes, 0, length, root[tree]);
+
+        // Advances all rows by one level until every row reaches a leaf.
+        for (boolean active = true; active; ) {
+            active = false;
+            for (int i = 0; i < length; i++) {
+                int node = nodes[i];
+                int j = feature[node];
+                if (j >= 0) {
+                    double xj = columns[j][offset + i];
+                    boolean branch = nominal[node] ? xj == value[node] : xj <= value[node];
+                    nodes[i] = branch ? node + 1 : next[node];
+                    active = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            nodes[i] = next[nodes[i]];
+        }
+    }
+
+    /**
+     * Computes the scores of a row.
+     * @param x the row.
+     * @param y the output scores.
+     */
+    public void score(double[] x, double[] y) {
+        System.arraycopy(intercept, 0, y, 0, intercept.length);
+        for (int t = 0; t < root.length; t++) {
+            add(t, leaf(t, x), y, 0);
+        }
+    }
+
+    /**
+     * Computes the scores of a row.
+     * @param x the row.
+     * @param y the output scores.
+     */
+    public void score(float[] x, double[] y) {
+        System.arraycopy(intercept, 0, y, 0, intercept.length);
+        for (int t = 0; t < root.length; t++) {
+            add(t, leaf(t, x), y, 0);
+        }
+    }
+
+    /**
+     * Computes the scores of a batch of rows. The rows are processed
+     * in blocks and each tree is evaluated on all the rows of a block
+     * in one pass, which keeps the tree in the cache.
+     * @param x the rows.
+     * @param y the output scores of each row.
+     */
+    public void score(double[][] x, double[][] y) {
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(intercept, 0, y[i], 0, intercept.length);
+        }
+
+        for (int from = 0; from < n; from += BLOCK) {
+            int to = Math.min(from + BLOCK, n);
+            for (int t = 0; t < root.length; t++) {
+                for (int i = from; i < to; i++) {
+                    add(t, leaf(t, x[i]), y[i], 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the scores of a batch of rows. The rows are processed
+     * in blocks and each tree is evaluated on all the rows of a block
+     * in one pass, which keeps the tree in the cache.
+     * @param x the rows.
+     * @param y the output scores of each row.
+     */
+    public void score(float[][] x, double[][] y) {
+        int n = x.length;
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(intercept, 0, y[i], 0, intercept.length);
+        }
+
+        for (int from = 0; from < n; from += BLOCK) {
+            int to = Math.min(from + BLOCK, n);
+            for (int t = 0; t < root.length; t++) {
+                for (int i = from; i < to; i++) {
+                    add(t, leaf(t, x[i]), y[i], 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the scores of a range of rows in the columnar layout.
+     * The rows of each block advance through a tree in lockstep.
+     * @param columns the columns of predictors. The feature j of
+     *                row i is columns[j][i].
+     * @param offset the index of first row.
+     * @param length the number of rows.
+     * @param y the output scores of each row, i.e. y[i] for the row i.
+     */
+    public void score(double[][] columns, int offset, int length, double[][] y) {
+        for (int i = offset; i < offset + length; i++) {
+            System.arraycopy(intercept, 0, y[i], 0, intercept.length);
+        }
+
+        int[] nodes = new int[Math.min(BLOCK, length)];
+        for (int from = offset; from < offset + length; from += BLOCK) {
+            int m = Math.min(BLOCK, offset + length - from);
+            for (int t = 0; t < root.length; t++) {
+                leaves(t, columns, from, m, nodes);
+                for (int i = 0; i < m; i++) {
+                    add(t, nodes[i], y[from + i], 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the scores of the rows of a data frame. The data frame
+     * is processed in parallel by chunks of rows, which are read from
+     * the column vectors directly.
+     * @param x the data frame of predictors.
+     * @return the output scores in the row major order, i.e. the score
+     *         c of row i is at {@code i * outputs() + c}.
+     */
+    public double[] score(DataFrame x) {
+        int n = x.size();
+        int p = x.ncol();
+        int k = intercept.length;
+        BaseVector<?, ?, ?>[] vectors = new BaseVector[p];
+        for (int j = 0; j < p; j++) {
+            vectors[j] = x.column(j);
+        }
+
+        double[] y = new double[n * k];
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK;
+            int length = Math.min(CHUNK, n - from);
+
+            // Only the columns used by the trees are read.
+            double[][] columns = new double[p][];
+            for (int node = 0; node < feature.length; node++) {
+                int j = feature[node];
+                if (j >= 0 && columns[j] == null) {
+                    double[] column = new double[length];
+                    BaseVector<?, ?, ?> vector = vectors[j];
+                    for (int i = 0; i < length; i++) {
+                        column[i] = vector.getDouble(from + i);
+                    }
+                    columns[j] = column;
+                }
+            }
+
+            for (int i = 0; i < length; i++) {
+                System.arraycopy(intercept, 0, y, (from + i) * k, k);
+            }
+
+            int[] nodes = new int[BLOCK];
+            for (int block = 0; block < length; block += BLOCK) {
+                int m = Math.min(BLOCK, length - block);
+                for (int t = 0; t < root.length; t++) {
+                    leaves(t, columns, block, m, nodes);
+                    for (int i = 0; i < m; i++) {
+                        add(t, nodes[i], y, (from + block + i) * k);
+                    }
+                }
+            }
+        });
+
+        return y;
+    }
+}
@@ -19,35 +19,15 @@ package smile.base.mlp;
 
 import smile.math.MathEx;
 
-import java.io.Serializable;
-
 /**
- * The activation function in hidden layers.
+ * The activation function in hidden layers. The functions are applied
+ * element-wise so that the batched functions inherited from
+ * {@link smile.deep.activation.ActivationFunction} apply to a mini-batch
+ * as a whole.
  *
  * @author Haifeng Li
  */
-public interface ActivationFunction extends Serializable {
-
-    /**
-     * Returns the name of activation function.
-     * @return the name of activation function.
-     */
-    String name();
-
-    /**
-     * The output function.
-     * @param x the input vector.
-     */
-    void f(double[] x);
-
-    /**
-     * The gradient function.
-     * @param g the gradient vector. On input, it holds W'*g, where W and g are the
-     *          weight matrix and gradient of upper layer, respectively.
-     *          On output, it is the gradient of this layer.
-     * @param y the output vector.
-     */
-    void g(double[] g, double[] y);
+public interface ActivationFunction extends smile.deep.activation.ActivationFunction {
 
     /**
      * Linear/Identity activation function.
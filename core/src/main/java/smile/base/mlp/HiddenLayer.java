@@ -17,6 +17,9 @@
 
 package smile.base.mlp;
 
+import smile.math.blas.Transpose;
+import smile.math.matrix.Matrix;
+
 /**
  * A hidden layer in the neural network.
  *
@@ -53,6 +56,11 @@ public class HiddenLayer extends Layer {
         activation.f(x);
     }
 
+    @Override
+    public void transform(double[] x, int m) {
+        activation.f(x, n);
+    }
+
     @Override
     public void backpropagate(double[] lowerLayerGradient) {
         double[] output = this.output.get();
@@ -63,4 +71,16 @@ public class HiddenLayer extends Layer {
             weight.tv(outputGradient, lowerLayerGradient);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void backpropagate(Matrix lowerLayerGradient) {
+        double[] output = batchOutput.get();
+        double[] outputGradient = batchOutputGradient.get();
+
+        activation.g(outputGradient, output, n);
+        if (lowerLayerGradient != null) {
+            Matrix G = new Matrix(n, output.length / n, n, outputGradient);
+            lowerLayerGradient.mm(Transpose.TRANSPOSE, weight, Transpose.NO_TRANSPOSE, G);
+        }
+    }
+}
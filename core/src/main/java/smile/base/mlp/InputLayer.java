@@ -18,6 +18,7 @@
 package smile.base.mlp;
 
 import java.io.IOException;
+import smile.math.matrix.Matrix;
 
 /**
  * An input layer in the neural network.
@@ -53,9 +54,11 @@ public class InputLayer extends Layer {
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         output = ThreadLocal.withInitial(() -> new double[n]);
+        batchOutput = ThreadLocal.withInitial(() -> new double[0]);
 
         if (dropout > 0.0) {
             mask = ThreadLocal.withInitial(() -> new byte[n]);
+            batchMask = ThreadLocal.withInitial(() -> new byte[0]);
         }
     }
 
@@ -73,21 +76,47 @@ public class InputLayer extends Layer {
         System.arraycopy(x, 0, output.get(), 0, p);
     }
 
+    @Override
+    public void propagate(Matrix x) {
+        int m = x.ncol();
+        double[] output = buffer(batchOutput, n * m);
+        for (int j = 0, k = 0; j < m; j++) {
+            for (int i = 0; i < n; i++, k++) {
+                output[k] = x.get(i, j);
+            }
+        }
+    }
+
     @Override
     public void backpropagate(double[] lowerLayerGradient) {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void backpropagate(Matrix lowerLayerGradient) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void transform(double[] x) {
         // identity activation function
     }
 
+    @Override
+    public void transform(double[] x, int m) {
+        // identity activation function
+    }
+
     @Override
     public void computeGradient(double[] x) {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void computeGradient(Matrix x) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public void computeGradientUpdate(double[] x, double learningRate, double momentum, double decay) {
         throw new UnsupportedOperationException();
@@ -97,4 +126,9 @@ public class InputLayer extends Layer {
     public void update(int m, double learningRate, double momentum, double decay, double rho, double epsilon) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public void adam(int m, int t, double learningRate, double beta1, double beta2, double epsilon) {
+        throw new UnsupportedOperationException();
+    }
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import smile.math.MathEx;
+import smile.math.blas.Transpose;
 import smile.math.matrix.Matrix;
 import smile.util.Regex;
 
@@ -101,6 +102,19 @@ public abstract class Layer implements Serializable {
      * The dropout mask.
      */
     protected transient ThreadLocal<byte[]> mask;
+    /**
+     * The output matrix of mini-batch in column-major order,
+     * of which each column is the output vector of a sample.
+     */
+    protected transient ThreadLocal<double[]> batchOutput;
+    /**
+     * The output gradient matrix of mini-batch in column-major order.
+     */
+    protected transient ThreadLocal<double[]> batchOutputGradient;
+    /**
+     * The dropout mask of mini-batch.
+     */
+    protected transient ThreadLocal<byte[]> batchMask;
 
     /**
      * Constructor for input layer.
@@ -118,9 +132,11 @@ public abstract class Layer implements Serializable {
         this.dropout = dropout;
 
         output = ThreadLocal.withInitial(() -> new double[n]);
+        batchOutput = ThreadLocal.withInitial(() -> new double[0]);
 
         if (dropout > 0.0) {
             mask = ThreadLocal.withInitial(() -> new byte[n]);
+            batchMask = ThreadLocal.withInitial(() -> new byte[0]);
         }
     }
 
@@ -199,10 +215,29 @@ public abstract class Layer implements Serializable {
         biasGradientMoment2 = ThreadLocal.withInitial(() -> new double[n]);
         weightUpdate = ThreadLocal.withInitial(() -> new Matrix(n, p));
         biasUpdate = ThreadLocal.withInitial(() -> new double[n]);
+        batchOutput = ThreadLocal.withInitial(() -> new double[0]);
+        batchOutputGradient = ThreadLocal.withInitial(() -> new double[0]);
 
         if (dropout > 0.0) {
             mask = ThreadLocal.withInitial(() -> new byte[n]);
+            batchMask = ThreadLocal.withInitial(() -> new byte[0]);
+        }
+    }
+
+    /**
+     * Returns the thread local buffer of given size. The buffer
+     * is reallocated only if the size of mini-batch changes.
+     * @param buffer the thread local buffer.
+     * @param size the size of buffer.
+     * @return the buffer.
+     */
+    static double[] buffer(ThreadLocal<double[]> buffer, int size) {
+        double[] a = buffer.get();
+        if (a.length != size) {
+            a = new double[size];
+            buffer.set(a);
         }
+        return a;
     }
 
     /**
@@ -237,6 +272,24 @@ public abstract class Layer implements Serializable {
         return outputGradient.get();
     }
 
+    /**
+     * Returns the output matrix of mini-batch.
+     * @return the output matrix, of which each column is a sample.
+     */
+    public Matrix batchOutput() {
+        double[] output = batchOutput.get();
+        return new Matrix(n, output.length / n, n, output);
+    }
+
+    /**
+     * Returns the output gradient matrix of mini-batch.
+     * @return the output gradient matrix, of which each column is a sample.
+     */
+    public Matrix batchGradient() {
+        double[] gradient = batchOutputGradient.get();
+        return new Matrix(n, gradient.length / n, n, gradient);
+    }
+
     /**
      * Propagates the signals from a lower layer to this layer.
      * @param x the lower layer signals.
@@ -266,18 +319,73 @@ public abstract class Layer implements Serializable {
         }
     }
 
+    /**
+     * Propagates the signals of a mini-batch from a lower layer to this
+     * layer with one matrix multiplication {@code W * X + b}.
+     * @param x the lower layer signals, of which each column is a sample.
+     */
+    public void propagate(Matrix x) {
+        int m = x.ncol();
+        double[] output = buffer(batchOutput, n * m);
+        buffer(batchOutputGradient, n * m);
+        for (int j = 0; j < m; j++) {
+            System.arraycopy(bias, 0, output, j * n, n);
+        }
+
+        Matrix Y = new Matrix(n, m, n, output);
+        Y.mm(Transpose.NO_TRANSPOSE, weight, Transpose.NO_TRANSPOSE, x, 1.0, 1.0);
+        transform(output, m);
+    }
+
+    /**
+     * Propagates the output signals of mini-batch through the implicit
+     * dropout layer. It should only be applied during training.
+     */
+    public void propagateBatchDropout() {
+        if (dropout > 0.0) {
+            double[] output = batchOutput.get();
+            byte[] mask = batchMask.get();
+            if (mask.length != output.length) {
+                mask = new byte[output.length];
+                batchMask.set(mask);
+            }
+
+            double scale = 1.0 / (1.0 - dropout);
+            for (int i = 0; i < output.length; i++) {
+                byte retain = (byte) (MathEx.random() < dropout ? 0 : 1);
+                mask[i] = retain;
+                output[i] *= retain * scale;
+            }
+        }
+    }
+
     /**
      * The activation or output function.
      * @param x the input and output values.
      */
     public abstract void transform(double[] x);
 
+    /**
+     * The activation or output function on a mini-batch.
+     * @param x the input and output values in column-major order,
+     *          of which each column is a sample.
+     * @param m the size of mini-batch.
+     */
+    public abstract void transform(double[] x, int m);
+
     /**
      * Propagates the errors back to a lower layer.
      * @param lowerLayerGradient the gradient vector of lower layer.
      */
     public abstract void backpropagate(double[] lowerLayerGradient);
 
+    /**
+     * Propagates the errors of mini-batch back to a lower layer.
+     * @param lowerLayerGradient the gradient matrix of lower layer,
+     *                           or null for the first hidden layer.
+     */
+    public abstract void backpropagate(Matrix lowerLayerGradient);
+
     /**
      * Propagates the errors back through the (implicit) dropout layer.
      */
@@ -292,6 +400,21 @@ public abstract class Layer implements Serializable {
         }
     }
 
+    /**
+     * Propagates the errors of mini-batch back through the (implicit)
+     * dropout layer.
+     */
+    public void backpropagateBatchDropout() {
+        if (dropout > 0.0) {
+            double[] gradient = batchOutputGradient.get();
+            byte[] mask = batchMask.get();
+            double scale = 1.0 / (1.0 - dropout);
+            for (int i = 0; i < gradient.length; i++) {
+                gradient[i] *= mask[i] * scale;
+            }
+        }
+    }
+
     /**
      * Computes the parameter gradient and update the weights.
      *
@@ -344,6 +467,28 @@ public abstract class Layer implements Serializable {
         }
     }
 
+    /**
+     * Computes the parameter gradient of a mini-batch with one matrix
+     * multiplication {@code G * X'}. The gradient is accumulated as
+     * in {@link #computeGradient(double[])}.
+     *
+     * @param x the input matrix, of which each column is a sample.
+     */
+    public void computeGradient(Matrix x) {
+        double[] outputGradient = batchOutputGradient.get();
+        Matrix weightGradient = this.weightGradient.get();
+        double[] biasGradient = this.biasGradient.get();
+
+        int m = x.ncol();
+        Matrix G = new Matrix(n, m, n, outputGradient);
+        weightGradient.mm(Transpose.NO_TRANSPOSE, G, Transpose.TRANSPOSE, x, 1.0, 1.0);
+        for (int j = 0, k = 0; j < m; j++) {
+            for (int i = 0; i < n; i++, k++) {
+                biasGradient[i] += outputGradient[k];
+            }
+        }
+    }
+
     /**
      * Adjust network weights by back-propagation algorithm.
      *
@@ -424,6 +569,54 @@ public abstract class Layer implements Serializable {
         Arrays.fill(biasGradient, 0.0);
     }
 
+    /**
+     * Adjust network weights with Adam optimizer, which keeps the
+     * exponentially decaying averages of past gradients and squared
+     * gradients.
+     *
+     * @param m the size of mini-batch.
+     * @param t the time step, i.e. the number of training iterations so far.
+     * @param learningRate the learning rate.
+     * @param beta1 the exponential decay rate for the 1st moment estimates.
+     * @param beta2 the exponential decay rate for the 2nd moment estimates.
+     * @param epsilon a small constant for numerical stability.
+     */
+    public void adam(int m, int t, double learningRate, double beta1, double beta2, double epsilon) {
+        Matrix weightGradient = this.weightGradient.get();
+        double[] biasGradient = this.biasGradient.get();
+        Matrix weightGradientMoment1 = this.weightGradientMoment1.get();
+        Matrix weightGradientMoment2 = this.weightGradientMoment2.get();
+        double[] biasGradientMoment1 = this.biasGradientMoment1.get();
+        double[] biasGradientMoment2 = this.biasGradientMoment2.get();
+
+        // The bias correction of moment estimates with 1-based time step.
+        double beta1t = 1.0 - Math.pow(beta1, t + 1);
+        double beta2t = 1.0 - Math.pow(beta2, t + 1);
+
+        for (int j = 0; j < p; j++) {
+            for (int i = 0; i < n; i++) {
+                double g = weightGradient.get(i, j) / m;
+                double s = beta1 * weightGradientMoment1.get(i, j) + (1.0 - beta1) * g;
+                double r = beta2 * weightGradientMoment2.get(i, j) + (1.0 - beta2) * g * g;
+                weightGradientMoment1.set(i, j, s);
+                weightGradientMoment2.set(i, j, r);
+                weight.add(i, j, learningRate * (s / beta1t) / (Math.sqrt(r / beta2t) + epsilon));
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            double g = biasGradient[i] / m;
+            double s = beta1 * biasGradientMoment1[i] + (1.0 - beta1) * g;
+            double r = beta2 * biasGradientMoment2[i] + (1.0 - beta2) * g * g;
+            biasGradientMoment1[i] = s;
+            biasGradientMoment2[i] = r;
+            bias[i] += learningRate * (s / beta1t) / (Math.sqrt(r / beta2t) + epsilon);
+        }
+
+        weightGradient.fill(0.0);
+        Arrays.fill(biasGradient, 0.0);
+    }
+
     /**
      * Returns a hidden layer.
      * @param activation the activation function.
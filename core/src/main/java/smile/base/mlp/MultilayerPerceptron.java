@@ -18,12 +18,25 @@
 package smile.base.mlp;
 
 import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import smile.deep.optimizer.Adam;
+import smile.deep.optimizer.Optimizer;
+import smile.deep.optimizer.RMSProp;
+import smile.deep.optimizer.SGD;
 import smile.math.MathEx;
 import smile.math.TimeFunction;
+import smile.math.matrix.Matrix;
 
 /**
  * Fully connected multilayer perceptron neural network.
@@ -41,6 +54,16 @@ import smile.math.TimeFunction;
  */
 public abstract class MultilayerPerceptron implements Serializable {
     private static final long serialVersionUID = 2L;
+    /**
+     * The minimum number of samples in a shard of mini-batch
+     * for data parallel training.
+     */
+    private static final int MIN_SHARD_SIZE = 16;
+    /**
+     * The maximum number of shards in a mini-batch, which bounds
+     * the memory of shard gradient buffers.
+     */
+    private static final int MAX_SHARDS = 16;
     /**
      * The dimensionality of input data.
      */
@@ -85,10 +108,23 @@ public abstract class MultilayerPerceptron implements Serializable {
      * The gradient clipping norm.
      */
     protected double clipNorm = 0.0;
+    /**
+     * The optimizer. If null, the weights are updated with the learning
+     * rate, momentum and RMSProp settings of network.
+     */
+    protected Optimizer optimizer = null;
     /**
      * The training iterations.
      */
     protected int t = 0;
+    /**
+     * The weight gradients of shards in data parallel training.
+     */
+    private transient Matrix[][] shardWeightGradient;
+    /**
+     * The bias gradients of shards in data parallel training.
+     */
+    private transient double[][][] shardBiasGradient;
 
     /**
      * Constructor.
@@ -162,6 +198,10 @@ public abstract class MultilayerPerceptron implements Serializable {
             s = String.format("%s, RMSProp = %f", s, rho);
         }
 
+        if (optimizer != null) {
+            s = String.format("%s, optimizer = %s", s, optimizer);
+        }
+
         return s + ")";
     }
 
@@ -199,6 +239,16 @@ public abstract class MultilayerPerceptron implements Serializable {
         this.epsilon = epsilon;
     }
 
+    /**
+     * Sets the optimizer of mini-batch training. When an optimizer is set,
+     * the learning rate, momentum, RMSProp and weight decay settings of
+     * network are not used for mini-batch updates.
+     * @param optimizer the optimizer, or null to use the settings of network.
+     */
+    public void setOptimizer(Optimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
     /**
      * Sets the weight decay factor. After each weight update,
      * every weight is simply "decayed" or shrunk according to
@@ -256,6 +306,14 @@ public abstract class MultilayerPerceptron implements Serializable {
         return momentum == null ? 0.0 : momentum.apply(t);
     }
 
+    /**
+     * Returns the optimizer of mini-batch training.
+     * @return the optimizer, or null if the settings of network are used.
+     */
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
     /**
      * Returns the weight decay factor.
      * @return the weight decay factor.
@@ -297,18 +355,66 @@ public abstract class MultilayerPerceptron implements Serializable {
         output.propagate(input);
     }
 
+    /**
+     * Propagates the signals of a mini-batch through the neural network.
+     * Each layer takes one matrix multiplication for the whole mini-batch.
+     * @param x the input signals, of which each column is a sample.
+     * @param train true if this is in training pass.
+     */
+    protected void propagate(Matrix x, boolean train) {
+        Matrix input = x;
+        for (Layer layer : net) {
+            layer.propagate(input);
+            if (train) {
+                layer.propagateBatchDropout();
+            }
+            input = layer.batchOutput();
+        }
+        output.propagate(input);
+    }
+
+    /**
+     * Propagates the signals of a mini-batch through the neural network.
+     * @param x the mini-batch of input signals.
+     * @param train true if this is in training pass.
+     */
+    protected void propagate(double[][] x, boolean train) {
+        int m = x.length;
+        double[] batch = new double[p * m];
+        for (int j = 0; j < m; j++) {
+            System.arraycopy(x[j], 0, batch, j * p, p);
+        }
+        propagate(new Matrix(p, m, p, batch), train);
+    }
+
     /**
      * Gradient clipping prevents exploding gradients in very deep networks,
      * usually in recurrent neural networks.
      * @param gradient the gradient vector.
      */
     private void clipGradient(double[] gradient) {
+        clipGradient(gradient, gradient.length);
+    }
+
+    /**
+     * Clips the gradient of each sample in a mini-batch.
+     * @param gradient the gradient matrix in column-major order.
+     * @param n the dimension of gradient vector of a sample.
+     */
+    private void clipGradient(double[] gradient, int n) {
         if (clipNorm > 0.0) {
-            double norm = MathEx.norm(gradient);
-            if (norm > clipNorm) {
-                double scale = clipNorm / norm;
-                for (int j = 0; j < gradient.length; j++) {
-                    gradient[j] *= scale;
+            for (int i = 0; i < gradient.length; i += n) {
+                double norm = 0.0;
+                for (int j = i; j < i + n; j++) {
+                    norm += gradient[j] * gradient[j];
+                }
+
+                norm = Math.sqrt(norm);
+                if (norm > clipNorm) {
+                    double scale = clipNorm / norm;
+                    for (int j = i; j < i + n; j++) {
+                        gradient[j] *= scale;
+                    }
                 }
             }
         } else if (clipValue > 0.0) {
@@ -339,7 +445,7 @@ public abstract class MultilayerPerceptron implements Serializable {
             clipGradient(upper.gradient());
         }
         // first hidden layer
-        upper.backpropagate(null);
+        upper.backpropagate((double[]) null);
 
         if (update) {
             double eta = getLearningRate();
@@ -377,12 +483,117 @@ public abstract class MultilayerPerceptron implements Serializable {
         }
     }
 
+    /**
+     * Propagates the errors of a mini-batch back through the network
+     * and accumulates the gradients with one matrix multiplication
+     * per layer. The weights are updated by {@link #update(int)}.
+     * @param target the desired output, of which each column is a sample.
+     */
+    protected void backpropagate(Matrix target) {
+        output.computeOutputGradient(target);
+        clipGradient(output.batchOutputGradient.get(), output.getOutputSize());
+
+        Layer upper = output;
+        for (int i = net.length; --i > 0;) {
+            upper.backpropagate(net[i].batchGradient());
+            upper = net[i];
+            upper.backpropagateBatchDropout();
+            clipGradient(upper.batchOutputGradient.get(), upper.getOutputSize());
+        }
+        // first hidden layer
+        upper.backpropagate((Matrix) null);
+
+        Matrix x = net[0].batchOutput();
+        for (int i = 1; i < net.length; i++) {
+            Layer layer = net[i];
+            layer.computeGradient(x);
+            x = layer.batchOutput();
+        }
+
+        output.computeGradient(x);
+    }
+
+    /**
+     * Computes the gradients of a mini-batch with data parallelism.
+     * The mini-batch is split into shards, each of which is processed
+     * by a fork-join task that accumulates the gradients in the
+     * per-thread buffers of layers. The gradients of shards are then
+     * reduced in the shard order into the buffers of calling thread,
+     * which are applied by {@link #update(int)}. The shards depend
+     * on the mini-batch size only, not the number of threads, so that
+     * the trained model is the same on any machine. Small mini-batches
+     * are processed by the calling thread directly.
+     *
+     * @param m the size of mini-batch.
+     * @param gradient the function that propagates the samples in the
+     *                 range [from, to) of mini-batch and accumulates
+     *                 their gradients on the current thread.
+     */
+    protected void computeGradient(int m, BiConsumer<Integer, Integer> gradient) {
+        int shards = Math.min(MAX_SHARDS, m / MIN_SHARD_SIZE);
+        if (shards <= 1) {
+            gradient.accept(0, m);
+            return;
+        }
+
+        Layer[] layers = Arrays.copyOfRange(net, 1, net.length + 1);
+        layers[layers.length - 1] = output;
+        int l = layers.length;
+
+        if (shardWeightGradient == null || shardWeightGradient.length != shards) {
+            shardWeightGradient = new Matrix[shards][l];
+            shardBiasGradient = new double[shards][l][];
+            for (int s = 0; s < shards; s++) {
+                for (int i = 0; i < l; i++) {
+                    shardWeightGradient[s][i] = new Matrix(layers[i].n, layers[i].p);
+                    shardBiasGradient[s][i] = new double[layers[i].n];
+                }
+            }
+        }
+
+        IntStream.range(0, shards).parallel().forEach(s -> {
+            gradient.accept(s * m / shards, (s + 1) * m / shards);
+
+            // Takes over the gradients of this shard and leaves
+            // the zero buffers to the current thread.
+            for (int i = 0; i < l; i++) {
+                Layer layer = layers[i];
+                Matrix weightGradient = layer.weightGradient.get();
+                double[] biasGradient = layer.biasGradient.get();
+                layer.weightGradient.set(shardWeightGradient[s][i]);
+                layer.biasGradient.set(shardBiasGradient[s][i]);
+                shardWeightGradient[s][i] = weightGradient;
+                shardBiasGradient[s][i] = biasGradient;
+            }
+        });
+
+        for (int i = 0; i < l; i++) {
+            Matrix weightGradient = layers[i].weightGradient.get();
+            double[] biasGradient = layers[i].biasGradient.get();
+            for (int s = 0; s < shards; s++) {
+                weightGradient.add(shardWeightGradient[s][i]);
+                MathEx.add(biasGradient, shardBiasGradient[s][i]);
+                shardWeightGradient[s][i].fill(0.0);
+                Arrays.fill(shardBiasGradient[s][i], 0.0);
+            }
+        }
+    }
+
     /**
      * Updates the weights for mini-batch training.
      *
      * @param m the mini-batch size.
      */
     protected void update(int m) {
+        if (optimizer != null) {
+            for (int i = 1; i < net.length; i++) {
+                optimizer.update(net[i], m, t);
+            }
+
+            optimizer.update(output, m, t);
+            return;
+        }
+
         double eta = getLearningRate();
         if (eta <= 0) {
             throw new IllegalArgumentException("Invalid learning rate: " + eta);
@@ -407,7 +618,7 @@ public abstract class MultilayerPerceptron implements Serializable {
 
     /**
      * Sets MLP hyper-parameters such as learning rate, weight decay, momentum,
-     * RMSProp, etc.
+     * RMSProp, optimizer, etc.
      * @param params the MLP hyper-parameters.
      */
     public void setParameters(Properties params) {
@@ -441,6 +652,69 @@ public abstract class MultilayerPerceptron implements Serializable {
             double epsilon = Double.parseDouble(params.getProperty("smile.mlp.RMSProp.epsilon", "1E-7"));
             setRMSProp(Double.parseDouble(rho), epsilon);
         }
+
+        String optimizer = params.getProperty("smile.mlp.optimizer");
+        if (optimizer != null) {
+            TimeFunction eta = learningRate == null ? TimeFunction.constant(0.001) : TimeFunction.of(learningRate);
+            switch (optimizer.toLowerCase(Locale.ROOT)) {
+                case "sgd":
+                    setOptimizer(new SGD(eta, momentum == null ? null : TimeFunction.of(momentum)));
+                    break;
+                case "rmsprop":
+                    setOptimizer(new RMSProp(eta,
+                            Double.parseDouble(params.getProperty("smile.mlp.RMSProp.rho", "0.9")),
+                            Double.parseDouble(params.getProperty("smile.mlp.RMSProp.epsilon", "1E-7"))));
+                    break;
+                case "adam":
+                    setOptimizer(new Adam(eta,
+                            Double.parseDouble(params.getProperty("smile.mlp.Adam.beta1", "0.9")),
+                            Double.parseDouble(params.getProperty("smile.mlp.Adam.beta2", "0.999")),
+                            Double.parseDouble(params.getProperty("smile.mlp.Adam.epsilon", "1E-8"))));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported optimizer: " + optimizer);
+            }
+        }
     }
-}
 
+    /**
+     * Returns the checkpoint file mlp.model in the directory of the
+     * property {@code smile.mlp.checkpoint}. The directory is created
+     * if it doesn't exist.
+     * @param params the MLP hyper-parameters.
+     * @return the checkpoint file path or null if the property is not set.
+     */
+    protected static Path checkpoint(Properties params) {
+        String dir = params.getProperty("smile.mlp.checkpoint");
+        if (dir == null) return null;
+
+        try {
+            return Files.createDirectories(Paths.get(dir)).resolve("mlp.model");
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Invalid checkpoint directory: " + dir, ex);
+        }
+    }
+
+    /**
+     * Writes the network to a file, e.g. to checkpoint the training
+     * at the end of each epoch. The network is written to a temporary
+     * file in the same directory first, which then atomically replaces
+     * the file. Therefore, the file always holds a complete network
+     * even if the writing fails.
+     * @param path the file path.
+     * @throws IOException when fails to write the file.
+     */
+    public void checkpoint(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(temp))) {
+                out.writeObject(this);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -89,6 +89,16 @@ public enum OutputFunction {
             MathEx.softmax(x);
         }
 
+        @Override
+        public void f(double[] x, int n) {
+            double[] column = new double[n];
+            for (int j = 0; j < x.length; j += n) {
+                System.arraycopy(x, j, column, 0, n);
+                MathEx.softmax(column);
+                System.arraycopy(column, 0, x, j, n);
+            }
+        }
+
         @Override
         public void g(Cost cost, double[] g, double[] y) {
             switch (cost) {
@@ -108,12 +118,24 @@ public enum OutputFunction {
      */
     public abstract void f(double[] x);
 
+    /**
+     * The output function on a mini-batch. It is applied element-wise
+     * on the whole matrix except softmax, which is applied column-wise.
+     * @param x the input matrix in column-major order, of which each column
+     *          is a sample. On output, it holds the network output.
+     * @param n the number of rows, i.e. the number of neurons.
+     */
+    public void f(double[] x, int n) {
+        f(x);
+    }
+
     /**
      * The gradient function.
      * @param cost the cost function of neural network.
      * @param g the gradient vector. On input, it holds target - output.
      *          On output, it is the gradient.
-     * @param y the output vector.
+     * @param y the output vector. As the gradient functions are element-wise,
+     *          the vectors may also be mini-batch matrices in column-major order.
      */
     public abstract void g(Cost cost, double[] g, double[] y);
 }
@@ -17,6 +17,9 @@
 
 package smile.base.mlp;
 
+import smile.math.blas.Transpose;
+import smile.math.matrix.Matrix;
+
 /**
  * The output layer in the neural network.
  *
@@ -76,11 +79,21 @@ public class OutputLayer extends Layer {
         activation.f(x);
     }
 
+    @Override
+    public void transform(double[] x, int m) {
+        activation.f(x, n);
+    }
+
     @Override
     public void backpropagate(double[] lowerLayerGradient) {
         weight.tv(outputGradient.get(), lowerLayerGradient);
     }
 
+    @Override
+    public void backpropagate(Matrix lowerLayerGradient) {
+        lowerLayerGradient.mm(Transpose.TRANSPOSE, weight, Transpose.NO_TRANSPOSE, batchGradient());
+    }
+
     /**
      * Compute the network output gradient.
      * @param target the desired output.
@@ -107,4 +120,26 @@ public class OutputLayer extends Layer {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Compute the network output gradient of mini-batch.
+     * @param target the desired output, of which each column is a sample.
+     */
+    public void computeOutputGradient(Matrix target) {
+        double[] output = batchOutput.get();
+        double[] outputGradient = batchOutputGradient.get();
+
+        int m = output.length / n;
+        if (target.nrow() != n || target.ncol() != m) {
+            throw new IllegalArgumentException(String.format("Invalid target matrix size: %d x %d, expected: %d x %d", target.nrow(), target.ncol(), n, m));
+        }
+
+        for (int j = 0, k = 0; j < m; j++) {
+            for (int i = 0; i < n; i++, k++) {
+                outputGradient[k] = target.get(i, j) - output[k];
+            }
+        }
+
+        activation.g(cost, outputGradient, output);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.base.svm;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of kernel matrix rows with least recently used eviction.
+ * The number of cached rows is determined by a memory budget in bytes.
+ * The kernel values may be stored in single precision, which doubles the
+ * number of rows in the same budget at the cost of round-off errors.
+ * A row that is not yet computed, or an element of it, is not a number.
+ *
+ * @author Haifeng Li
+ */
+public class KernelCache {
+    /**
+     * The default size of cache in bytes.
+     */
+    public static final long DEFAULT_SIZE = 512L * 1024 * 1024;
+
+    /**
+     * A row of kernel matrix.
+     */
+    static final class Row {
+        /** The kernel values in double precision. */
+        private final double[] x;
+        /** The kernel values in single precision. */
+        private final float[] y;
+
+        /**
+         * Constructor.
+         * @param n the length of row.
+         * @param single true to store values in single precision.
+         */
+        Row(int n, boolean single) {
+            if (single) {
+                x = null;
+                y = new float[n];
+                Arrays.fill(y, Float.NaN);
+            } else {
+                x = new double[n];
+                y = null;
+                Arrays.fill(x, Double.NaN);
+            }
+        }
+
+        /**
+         * Returns the kernel value.
+         * @param j the column index.
+         * @return the kernel value.
+         */
+        double get(int j) {
+            return x != null ? x[j] : y[j];
+        }
+
+        /**
+         * Sets the kernel value.
+         * @param j the column index.
+         * @param k the kernel value.
+         */
+        void set(int j, double k) {
+            if (x != null) {
+                x[j] = k;
+            } else {
+                y[j] = (float) k;
+            }
+        }
+    }
+
+    /**
+     * The length of rows.
+     */
+    private final int n;
+    /**
+     * True if the values are stored in single precision.
+     */
+    private final boolean single;
+    /**
+     * The maximum number of cached rows.
+     */
+    private final int capacity;
+    /**
+     * The cached rows in access order.
+     */
+    private final LinkedHashMap<Integer, Row> rows;
+
+    /**
+     * Constructor.
+     * @param n the length of rows, i.e. the number of samples.
+     * @param size the size of cache in bytes.
+     * @param single true to store values in single precision.
+     */
+    KernelCache(int n, long size, boolean single) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + size);
+        }
+
+        this.n = n;
+        this.single = single;
+        // At least two rows for the working set of SMO.
+        long bytes = (long) n * (single ? Float.BYTES : Double.BYTES);
+        this.capacity = (int) Math.min(n, Math.max(2, size / bytes));
+        this.rows = new LinkedHashMap<Integer, Row>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Row> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the maximum number of cached rows.
+     * @return the maximum number of cached rows.
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the cached row, which becomes the most recently used one.
+     * @param i the row index.
+     * @return the cached row or null if it is not in the cache.
+     */
+    Row get(int i) {
+        return rows.get(i);
+    }
+
+    /**
+     * Allocates a new row, which may evict the least recently used one.
+     * All values of the new row are not a number.
+     * @param i the row index.
+     * @return the new row.
+     */
+    Row put(int i) {
+        Row row = new Row(n, single);
+        rows.put(i, row);
+        return row;
+    }
+
+    /**
+     * Removes a row from the cache.
+     * @param i the row index.
+     */
+    void remove(int i) {
+        rows.remove(i);
+    }
+
+    /**
+     * Removes all rows from the cache.
+     */
+    void clear() {
+        rows.clear();
+    }
+}
@@ -19,7 +19,6 @@ package smile.base.svm;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
 import smile.math.MathEx;
 import smile.math.kernel.MercerKernel;
 
@@ -31,6 +30,11 @@ import smile.math.kernel.MercerKernel;
  * choose which example should be considered next.
  * LASVM requires considerably less memory than a regular SVM solver.
  * This becomes a considerable speed advantage for large training sets.
+ * <p>
+ * The kernel values between support vectors are kept in a cache of
+ * bounded size, which evicts the least recently used rows. The kernel
+ * expansion is the active set of LASVM as the non-support vectors are
+ * removed from it after each reprocess step.
  *
  * @author Haifeng Li
  */
@@ -59,6 +63,14 @@ public class LASVM<T> implements Serializable {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The size of kernel cache in bytes.
+     */
+    private final long cacheSize;
+    /**
+     * True if the kernel values are cached in single precision.
+     */
+    private final boolean floatCache;
     /**
      * Support vectors.
      */
@@ -93,9 +105,9 @@ public class LASVM<T> implements Serializable {
      */
     private T[] x;
     /**
-     * The kernel matrix.
+     * The cache of kernel matrix.
      */
-    private double[][] K;
+    private transient KernelCache cache;
 
     /**
      * Constructor.
@@ -115,6 +127,19 @@ public class LASVM<T> implements Serializable {
      * @param tol the tolerance of convergence test.
      */
     public LASVM(MercerKernel<T> kernel, double Cp, double Cn, double tol) {
+        this(kernel, Cp, Cn, tol, KernelCache.DEFAULT_SIZE, false);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel.
+     * @param Cp the soft margin penalty parameter for positive instances.
+     * @param Cn the soft margin penalty parameter for negative instances.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the size of kernel cache in bytes.
+     * @param floatCache if true, the kernel values are cached in single precision.
+     */
+    public LASVM(MercerKernel<T> kernel, double Cp, double Cn, double tol, long cacheSize, boolean floatCache) {
         if (Cp < 0) {
             throw new IllegalArgumentException("Invalid C: " + Cp);
         }
@@ -127,10 +152,16 @@ public class LASVM<T> implements Serializable {
             throw new IllegalArgumentException("Invalid tol: " + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.Cp = Cp;
         this.Cn = Cn;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+        this.floatCache = floatCache;
     }
 
     /**
@@ -142,7 +173,7 @@ public class LASVM<T> implements Serializable {
      */
     public KernelMachine<T>  fit(T[] x, int[] y, int epochs) {
         this.x = x;
-        this.K = new double[x.length][];
+        this.cache = new KernelCache(x.length, cacheSize, floatCache);
 
         // pick initial support vectors.
         init(x, y);
@@ -222,22 +253,29 @@ public class LASVM<T> implements Serializable {
         minmaxflag = true;
     }
 
+    /**
+     * Returns the cached row of kernel matrix, which is allocated
+     * if it is not in the cache.
+     * @param v the support vector.
+     * @return the row of kernel matrix.
+     */
+    private KernelCache.Row row(SupportVector<T> v) {
+        KernelCache.Row row = cache.get(v.i);
+        return row != null ? row : cache.put(v.i);
+    }
+
     /**
      * Returns the cached kernel value.
-     * @param i the index of support vector.
-     * @param j the index of support vector.
+     * @param row the row of kernel matrix of u.
+     * @param u the support vector.
+     * @param v the support vector.
      * @return the kernel value.
      */
-    private double k(int i, int j) {
-        double k = Double.NaN;
-        double[] ki = K[i];
-        if (ki != null) {
-            k = ki[j];
-        }
-
+    private double k(KernelCache.Row row, SupportVector<T> u, SupportVector<T> v) {
+        double k = row.get(v.i);
         if (Double.isNaN(k)) {
-            k = kernel.k(x[i], x[j]);
-            if (ki != null) ki[j] = k;
+            k = kernel.k(u.x, v.x);
+            row.set(v.i, k);
         }
 
         return k;
@@ -271,9 +309,10 @@ public class LASVM<T> implements Serializable {
             double km = v1.k;
             double gm = v1.g;
             double best = 0.0;
+            KernelCache.Row k1 = row(v1);
             for (SupportVector<T> v : vectors) {
                 double Z = v.g - gm;
-                double k = k(v1.i, v.i);
+                double k = k(k1, v1, v);
                 double curv = km + v.k - 2.0 * k;
                 if (curv <= 0.0) curv = TAU;
                 double mu = Z / curv;
@@ -293,9 +332,10 @@ public class LASVM<T> implements Serializable {
             double km = v2.k;
             double gm = v2.g;
             double best = 0.0;
+            KernelCache.Row k2 = row(v2);
             for (SupportVector<T> v : vectors) {
                 double Z = gm - v.g;
-                double k = k(v2.i, v.i);
+                double k = k(k2, v2, v);
                 double curv = km + v.k - 2.0 * k;
                 if (curv <= 0.0) curv = TAU;
 
@@ -349,8 +389,10 @@ public class LASVM<T> implements Serializable {
         // Perform update
         v1.alpha -= step;
         v2.alpha += step;
+        KernelCache.Row k1 = row(v1);
+        KernelCache.Row k2 = row(v2);
         for (SupportVector<T> v : vectors) {
-            v.g -= step * (k(v2.i, v.i) - k(v1.i, v.i));
+            v.g -= step * (k(k2, v2, v) - k(k1, v1, v));
         }
 
         // optimality test
@@ -375,20 +417,17 @@ public class LASVM<T> implements Serializable {
             if (v.x == x) return false;
         }
 
-        double[] cache = new double[K.length];
-        Arrays.fill(cache, Double.NaN);
+        // The kernel values are computed in parallel. But the gradient
+        // is summed up sequentially. Parallel reduction may cause
+        // unreproducible results due to different numeric round-off
+        // because of different data partitions (i.e. different number
+        // of cores/threads).
+        double[] k = vectors.parallelStream().mapToDouble(v -> kernel.k(v.x, x)).toArray();
 
         // Compute gradient
         double g = y;
-        for (SupportVector<T> v : vectors) {
-            // Parallel stream may cause unreproducible results due to
-            // different numeric round-off because of different data
-            // partitions (i.e. different number of cores/threads).
-            // The speed up of parallel stream is also limited as
-            // the number of support vectors is often small.
-            double k = kernel.k(v.x, x);
-            cache[v.i] = k;
-            g -= v.alpha * k;
+        for (int j = 0; j < k.length; j++) {
+            g -= vectors.get(j).alpha * k[j];
         }
 
         // Decide insertion
@@ -401,8 +440,11 @@ public class LASVM<T> implements Serializable {
 
         // Insert
         SupportVector<T> v = new SupportVector<>(i, x, y, 0.0, g, Cp, Cn, kernel.k(x, x));
+        KernelCache.Row row = cache.put(i);
+        for (int j = 0; j < k.length; j++) {
+            row.set(vectors.get(j).i, k[j]);
+        }
         vectors.add(v);
-        K[i] = cache;
 
         // Process
         if (y > 0) {
@@ -473,7 +515,7 @@ public class LASVM<T> implements Serializable {
         vectors.removeIf(v -> {
             if (MathEx.isZero(v.alpha, 1E-4)) {
                 if ((v.g >= gmax && 0 >= v.cmax) || (v.g <= gmin && 0 <= v.cmin)) {
-                    K[v.i] = null;
+                    cache.remove(v.i);
                     return true;
                 }
             }
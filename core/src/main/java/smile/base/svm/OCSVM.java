@@ -23,6 +23,14 @@ import smile.math.kernel.MercerKernel;
 
 /**
  * One-class support vector machine.
+ * <p>
+ * The rows of kernel matrix are computed in parallel and kept in a cache
+ * of bounded size, which evicts the least recently used rows. With
+ * shrinking, the samples whose Lagrangian multipliers stay at the bounds
+ * are removed from the active set periodically. When the optimization
+ * converges on the active set, the gradients of all samples are
+ * reconstructed and the optimization continues on the full set if
+ * the optimality condition is violated.
  *
  * @author Haifeng Li
  */
@@ -48,6 +56,18 @@ public class OCSVM<T> {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The size of kernel cache in bytes.
+     */
+    private final long cacheSize;
+    /**
+     * True if the kernel values are cached in single precision.
+     */
+    private final boolean floatCache;
+    /**
+     * True if the active set is shrunk periodically.
+     */
+    private final boolean shrinking;
     /**
      * The upper bound of Lagrangian multiplier 1 / (nu * n).
      */
@@ -69,9 +89,26 @@ public class OCSVM<T> {
      */
     private double[] O;
     /**
-     * The kernel matrix.
+     * The part of Ki * alpha that comes from the Lagrangian
+     * multipliers at the upper bound.
+     */
+    private double[] Obar;
+    /**
+     * The diagonal of kernel matrix.
+     */
+    private double[] diag;
+    /**
+     * The cache of kernel matrix.
      */
-    private double[][] K;
+    private KernelCache cache;
+    /**
+     * The indices of active set.
+     */
+    private int[] active;
+    /**
+     * The size of active set.
+     */
+    private int size;
     /**
      * Most violating pair.
      * argmin gi of m_i < alpha_i
@@ -93,6 +130,21 @@ public class OCSVM<T> {
      * @param tol the tolerance of convergence test.
      */
     public OCSVM(MercerKernel<T> kernel, double nu, double tol) {
+        this(kernel, nu, tol, KernelCache.DEFAULT_SIZE, false, true);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel function.
+     * @param nu the parameter sets an upper bound on the fraction of outliers
+     *           (training examples regarded out-of-class) and it is a lower
+     *           bound on the number of training examples used as Support Vector.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the size of kernel cache in bytes.
+     * @param floatCache if true, the kernel values are cached in single precision.
+     * @param shrinking if true, shrink the active set periodically.
+     */
+    public OCSVM(MercerKernel<T> kernel, double nu, double tol, long cacheSize, boolean floatCache, boolean shrinking) {
         if (nu <= 0 || nu > 1) {
             throw new IllegalArgumentException("Invalid nu: " + nu);
         }
@@ -101,9 +153,16 @@ public class OCSVM<T> {
             throw new IllegalArgumentException("Invalid tolerance of convergence test:" + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.nu = nu;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+        this.floatCache = floatCache;
+        this.shrinking = shrinking;
     }
 
     /**
@@ -114,14 +173,10 @@ public class OCSVM<T> {
     public KernelMachine<T> fit(T[] x) {
         this.x = x;
         int n = x.length;
-        K = new double[n][n];
-        IntStream.range(0, n).parallel().forEach(i -> {
-            T xi = x[i];
-            double[] Ki = K[i];
-            for (int j = 0; j < n; j++) {
-                Ki[j] = kernel.k(xi, x[j]);
-            }
-        });
+        cache = new KernelCache(n, cacheSize, floatCache);
+        diag = IntStream.range(0, n).parallel().mapToDouble(i -> kernel.k(x[i], x[i])).toArray();
+        active = IntStream.range(0, n).toArray();
+        size = n;
 
         // Initialize support vectors.
         int vl = (int) Math.round(nu * n);
@@ -133,14 +188,20 @@ public class OCSVM<T> {
             alpha[index[i]] = C;
         }
 
-        O = new double[n];
-        rho = Double.NEGATIVE_INFINITY;
-        for (int i = 0; i < n; i++) {
-            double[] Ki = K[i];
-            for (int j = 0; j < n; j++) {
-                O[i] += Ki[j] * alpha[j];
+        // The initial Lagrangian multipliers are all at the upper bound.
+        int[] sv = IntStream.range(0, n).filter(i -> alpha[i] > 0).toArray();
+        O = IntStream.range(0, n).parallel().mapToDouble(i -> {
+            T xi = x[i];
+            double oi = 0.0;
+            for (int j : sv) {
+                oi += kernel.k(xi, x[j]) * alpha[j];
             }
+            return oi;
+        }).toArray();
+        Obar = O.clone();
 
+        rho = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
             if (alpha[i] > 0 && rho < O[i]) {
                 rho = O[i];
             }
@@ -148,11 +209,13 @@ public class OCSVM<T> {
 
         minmax();
         int phase = Math.min(n, 1000);
-        for (int count = 1; smo(tol); count++) {
+        for (int count = 1; smo(tol) || unshrink(); count++) {
             if (count % phase == 0) {
-                logger.info("{} SMO iterations", count);
+                logger.info("{} SMO iterations, {} active samples", count, size);
+                if (shrinking) shrink();
             }
         }
+        cache = null;
 
         int nsv = 0;
         int bsv = 0;
@@ -196,8 +259,8 @@ public class OCSVM<T> {
         omin = Double.MAX_VALUE;
         omax = -Double.MAX_VALUE;
 
-        int n = x.length;
-        for (int i = 0; i < n; i++) {
+        for (int k = 0; k < size; k++) {
+            int i = active[k];
             double oi = O[i];
             double ai = alpha[i];
             if (oi < omin && ai < C) {
@@ -211,6 +274,108 @@ public class OCSVM<T> {
         }
     }
 
+    /**
+     * Computes the row of kernel matrix for a sample. Only the columns
+     * of active set are evaluated.
+     * @param i the sample index.
+     */
+    private KernelCache.Row gram(int i) {
+        KernelCache.Row row = cache.get(i);
+        if (row == null) {
+            KernelCache.Row ki = cache.put(i);
+            T xi = x[i];
+            IntStream.range(0, size).parallel().forEach(k -> {
+                int j = active[k];
+                ki.set(j, kernel.k(xi, x[j]));
+            });
+            row = ki;
+        }
+        return row;
+    }
+
+    /**
+     * Updates the gradient part of bounded Lagrangian multipliers if
+     * a multiplier moves to or away from the upper bound.
+     * @param i the sample index.
+     * @param row the row of kernel matrix of sample i.
+     * @param old the old value of Lagrangian multiplier.
+     */
+    private void gbar(int i, KernelCache.Row row, double old) {
+        boolean before = old == C;
+        boolean after = alpha[i] == C;
+        if (before == after) return;
+
+        double delta = after ? C : -C;
+        T xi = x[i];
+        IntStream.range(0, x.length).parallel().forEach(j -> {
+            double k = row.get(j);
+            if (Double.isNaN(k)) k = kernel.k(xi, x[j]);
+            Obar[j] += delta * k;
+        });
+    }
+
+    /**
+     * Removes the samples from the active set if the Lagrangian
+     * multipliers cannot be selected in the working set, i.e. they
+     * are at the bounds and their gradients don't violate the
+     * optimality condition.
+     */
+    private void shrink() {
+        int m = 0;
+        for (int k = 0; k < size; k++) {
+            int i = active[k];
+            boolean shrunk = (alpha[i] <= 0 && O[i] > omax) || (alpha[i] >= C && O[i] < omin);
+            if (!shrunk) {
+                active[m++] = i;
+            }
+        }
+
+        // Keeps the inactive samples after the active ones.
+        if (m < size) {
+            boolean[] on = new boolean[x.length];
+            for (int k = 0; k < m; k++) {
+                on[active[k]] = true;
+            }
+
+            int p = m;
+            for (int i = 0; i < x.length; i++) {
+                if (!on[i]) active[p++] = i;
+            }
+            size = m;
+        }
+    }
+
+    /**
+     * Reconstructs the gradients of inactive samples and restores
+     * the full active set.
+     * @return true if the optimality condition is violated on the full set.
+     */
+    private boolean unshrink() {
+        int n = x.length;
+        if (size == n) {
+            return false;
+        }
+
+        logger.info("Reconstruct the gradients of {} inactive samples", n - size);
+        int[] free = IntStream.range(0, n).filter(i -> alpha[i] > 0 && alpha[i] < C).toArray();
+        IntStream.range(size, n).parallel().forEach(k -> {
+            int i = active[k];
+            T xi = x[i];
+            double oi = Obar[i];
+            for (int j : free) {
+                oi += kernel.k(xi, x[j]) * alpha[j];
+            }
+            O[i] = oi;
+        });
+
+        // The cached rows only have the columns of old active set.
+        active = IntStream.range(0, n).toArray();
+        size = n;
+        cache.clear();
+        minmax();
+        return omax - omin > tol;
+    }
+
     /**
      * Sequential minimal optimization.
      */
@@ -219,16 +384,16 @@ public class OCSVM<T> {
         int v2 = svmax;
 
         // Second order working set selection.
-        int n = x.length;
         if (v2 < 0) {
             // determine imax
             double O1 = O[v1];
-            double[] K1 = K[v1];
-            double k11 = K1[v1];
+            KernelCache.Row K1 = gram(v1);
+            double k11 = diag[v1];
             double best = 0.0;
-            for (int i = 0; i < n; i++) {
+            for (int k = 0; k < size; k++) {
+                int i = active[k];
                 double Z = O[i] - O1;
-                double curv = k11 + K[i][i] - 2 * K1[i];
+                double curv = k11 + diag[i] - 2 * K1.get(i);
                 if (curv <= 0.0) curv = TAU;
 
                 double mu = Z / curv;
@@ -245,12 +410,13 @@ public class OCSVM<T> {
         if (v1 < 0) {
             // determine imin
             double O2 = O[v2];
-            double[] K2 = K[v2];
-            double k22 = K2[v2];
+            KernelCache.Row K2 = gram(v2);
+            double k22 = diag[v2];
             double best = 0.0;
-            for (int i = 0; i < n; i++) {
+            for (int k = 0; k < size; k++) {
+                int i = active[k];
                 double Z = O2 - O[i];
-                double curv = k22 + K[i][i] - 2.0 * K2[i];
+                double curv = k22 + diag[i] - 2.0 * K2.get(i);
                 if (curv <= 0.0) curv = TAU;
 
                 double mu = Z / curv;
@@ -268,11 +434,11 @@ public class OCSVM<T> {
 
         double old_alpha1 = alpha[v1];
         double old_alpha2 = alpha[v2];
-        double[] k1 = K[v1];
-        double[] k2 = K[v2];
+        KernelCache.Row k1 = gram(v1);
+        KernelCache.Row k2 = gram(v2);
 
         // Determine curvature
-        double curv = K[v1][v1] + K[v2][v2] - 2 * K[v1][v2];
+        double curv = diag[v1] + diag[v2] - 2 * k1.get(v2);
         if (curv <= 0.0) curv = TAU;
         double delta = (O[v1] - O[v2]) / curv;
         double sum = alpha[v1] + alpha[v2];
@@ -305,10 +471,14 @@ public class OCSVM<T> {
 
         double delta_alpha1 = alpha[v1] - old_alpha1;
         double delta_alpha2 = alpha[v2] - old_alpha2;
-        for (int i = 0; i < n; i++) {
-            O[i] += k1[i] * delta_alpha1 + k2[i] * delta_alpha2;
+        for (int k = 0; k < size; k++) {
+            int i = active[k];
+            O[i] += k1.get(i) * delta_alpha1 + k2.get(i) * delta_alpha2;
         }
 
+        gbar(v1, k1, old_alpha1);
+        gbar(v2, k2, old_alpha2);
+
         rho = (omax + omin) / 2;
         // optimality test
         minmax();
@@ -18,6 +18,7 @@
 package smile.base.svm;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import smile.math.MathEx;
 import smile.math.kernel.MercerKernel;
@@ -28,6 +29,14 @@ import smile.regression.KernelMachine;
  * produced by SVR depends only on a subset of the training data, because
  * the cost function ignores any training data close to the model prediction
  * (within a threshold &epsilon;).
+ * <p>
+ * The rows of kernel matrix are computed in parallel and kept in a cache
+ * of bounded size, which evicts the least recently used rows. With
+ * shrinking, the variables that stay at the bounds are removed from the
+ * active set periodically so that the working set selection and gradient
+ * update skip them. When the optimization converges on the active set,
+ * the gradients of all variables are reconstructed and the optimization
+ * continues on the full set if the optimality condition is violated.
  *
  * <h2>References</h2>
  * <ol>
@@ -67,10 +76,26 @@ public class SVR<T> {
      * The tolerance of convergence test.
      */
     private final double tol;
+    /**
+     * The size of kernel cache in bytes.
+     */
+    private final long cacheSize;
+    /**
+     * True if the kernel values are cached in single precision.
+     */
+    private final boolean floatCache;
+    /**
+     * True if the active set is shrunk periodically.
+     */
+    private final boolean shrinking;
     /**
      * Support vectors.
      */
     private List<SupportVector> vectors;
+    /**
+     * The active set of support vectors.
+     */
+    private List<SupportVector> active;
     /**
      * Threshold of decision function.
      */
@@ -90,9 +115,9 @@ public class SVR<T> {
     private int gmaxindex;
 
     /**
-     * The kernel matrix.
+     * The cache of kernel matrix.
      */
-    private double[][] K;
+    private KernelCache cache;
 
     /**
      * Support vector.
@@ -106,6 +131,10 @@ public class SVR<T> {
          * Support vector.
          */
         final T x;
+        /**
+         * The response variable.
+         */
+        final double y;
         /**
          * Lagrangian multipliers of support vector.
          */
@@ -118,6 +147,11 @@ public class SVR<T> {
          * Kernel value k(x, x)
          */
         double k;
+        /**
+         * The part of Ki * alpha that comes from the Lagrangian
+         * multipliers at the upper bound.
+         */
+        double gbar;
 
         /**
          * Constructor.
@@ -128,6 +162,7 @@ public class SVR<T> {
         SupportVector(int i, T x, double y) {
             this.i = i;
             this.x = x;
+            this.y = y;
             g[0] = eps + y;
             g[1] = eps - y;
             k = kernel.k(x, x);
@@ -142,6 +177,20 @@ public class SVR<T> {
      * @param tol the tolerance of convergence test.
      */
     public SVR(MercerKernel<T> kernel, double eps, double C, double tol) {
+        this(kernel, eps, C, tol, KernelCache.DEFAULT_SIZE, false, true);
+    }
+
+    /**
+     * Constructor.
+     * @param kernel the kernel function.
+     * @param eps the loss function error threshold.
+     * @param C the soft margin penalty parameter.
+     * @param tol the tolerance of convergence test.
+     * @param cacheSize the size of kernel cache in bytes.
+     * @param floatCache if true, the kernel values are cached in single precision.
+     * @param shrinking if true, shrink the active set periodically.
+     */
+    public SVR(MercerKernel<T> kernel, double eps, double C, double tol, long cacheSize, boolean floatCache, boolean shrinking) {
         if (eps <= 0) {
             throw new IllegalArgumentException("Invalid error threshold: " + eps);
         }
@@ -154,10 +203,17 @@ public class SVR<T> {
             throw new IllegalArgumentException("Invalid tolerance of convergence test:" + tol);
         }
 
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + cacheSize);
+        }
+
         this.kernel = kernel;
         this.eps = eps;
         this.C = C;
         this.tol = tol;
+        this.cacheSize = cacheSize;
+        this.floatCache = floatCache;
+        this.shrinking = shrinking;
     }
 
     /**
@@ -172,21 +228,24 @@ public class SVR<T> {
         }
 
         int n = x.length;
-        K = new double[n][];
+        cache = new KernelCache(n, cacheSize, floatCache);
 
         // Initialize support vectors.
         vectors = new ArrayList<>(n);
         for (int i = 0; i < n; i++) {
             vectors.add(new SupportVector(i, x[i], y[i]));
         }
+        active = new ArrayList<>(vectors);
 
         minmax();
         int phase = Math.min(n, 1000);
-        for (int count = 1; smo(tol); count++) {
+        for (int count = 1; smo(tol) || unshrink(); count++) {
             if (count % phase == 0) {
-                logger.info("{} SMO iterations", count);
+                logger.info("{} SMO iterations, {} active vectors", count, active.size());
+                if (shrinking) shrink();
             }
         }
+        cache = null;
 
         int nsv = 0;
         int bsv = 0;
@@ -227,7 +286,7 @@ public class SVR<T> {
         gmin = Double.MAX_VALUE;
         gmax = -Double.MAX_VALUE;
 
-        for (SupportVector v : vectors) {
+        for (SupportVector v : active) {
             double g = -v.g[0];
             double a = v.alpha[0];
             if (g < gmin && a > 0.0) {
@@ -257,16 +316,107 @@ public class SVR<T> {
     }
 
     /**
-     * Computes the row of kernel matrix for a vector i.
+     * Computes the row of kernel matrix for a vector i. Only the columns
+     * of active set are evaluated.
      * @param v data vector to evaluate kernel matrix.
      */
-    private double[] gram(SupportVector v) {
-        if (K[v.i] == null) {
-            double[] ki = new double[vectors.size()];
-            vectors.stream().parallel().forEach(vi -> ki[vi.i] = kernel.k(v.x, vi.x));
-            K[v.i] = ki;
+    private KernelCache.Row gram(SupportVector v) {
+        KernelCache.Row row = cache.get(v.i);
+        if (row == null) {
+            KernelCache.Row ki = cache.put(v.i);
+            active.parallelStream().forEach(vi -> ki.set(vi.i, kernel.k(v.x, vi.x)));
+            row = ki;
+        }
+        return row;
+    }
+
+    /**
+     * Updates the gradient part of bounded Lagrangian multipliers if
+     * a multiplier moves to or away from the upper bound.
+     * @param v the support vector.
+     * @param row the row of kernel matrix of v.
+     * @param i the index of Lagrangian multiplier.
+     * @param old the old value of Lagrangian multiplier.
+     */
+    private void gbar(SupportVector v, KernelCache.Row row, int i, double old) {
+        boolean before = old == C;
+        boolean after = v.alpha[i] == C;
+        if (before == after) return;
+
+        // The sign of alpha in the kernel expansion.
+        double delta = (i == 0 ? -C : C) * (after ? 1 : -1);
+        vectors.parallelStream().forEach(vi -> {
+            double k = row.get(vi.i);
+            if (Double.isNaN(k)) k = kernel.k(v.x, vi.x);
+            vi.gbar += delta * k;
+        });
+    }
+
+    /**
+     * Removes the vectors from the active set if neither Lagrangian
+     * multiplier can be selected in the working set, i.e. they are
+     * at the bounds and their gradients don't violate the optimality
+     * condition.
+     */
+    private void shrink() {
+        active.removeIf(v -> bounded(-v.g[0], v.alpha[0] < C, v.alpha[0] > 0.0) &&
+                             bounded(v.g[1], v.alpha[1] > 0.0, v.alpha[1] < C));
+    }
+
+    /**
+     * Returns true if a Lagrangian multiplier at the bound
+     * cannot be selected in the working set.
+     * @param g the gradient.
+     * @param up true if the multiplier may be the maximal violator.
+     * @param down true if the multiplier may be the minimal violator.
+     */
+    private boolean bounded(double g, boolean up, boolean down) {
+        if (up && down) return false;
+        if (up) return g < gmin;
+        if (down) return g > gmax;
+        return true;
+    }
+
+    /**
+     * Reconstructs the gradients of inactive vectors and restores
+     * the full active set.
+     * @return true if the optimality condition is violated on the full set.
+     */
+    private boolean unshrink() {
+        if (active.size() == vectors.size()) {
+            return false;
         }
-        return K[v.i];
+
+        logger.info("Reconstruct the gradients of {} inactive vectors", vectors.size() - active.size());
+        boolean[] inactive = new boolean[vectors.size()];
+        Arrays.fill(inactive, true);
+        for (SupportVector v : active) {
+            inactive[v.i] = false;
+        }
+
+        // The support vectors with free Lagrangian multipliers.
+        List<SupportVector> free = new ArrayList<>();
+        for (SupportVector v : vectors) {
+            if ((v.alpha[0] > 0.0 && v.alpha[0] < C) || (v.alpha[1] > 0.0 && v.alpha[1] < C)) {
+                free.add(v);
+            }
+        }
+
+        vectors.parallelStream().filter(v -> inactive[v.i]).forEach(v -> {
+            double w = v.gbar;
+            for (SupportVector sv : free) {
+                double beta = (sv.alpha[1] < C ? sv.alpha[1] : 0.0) - (sv.alpha[0] < C ? sv.alpha[0] : 0.0);
+                w += beta * kernel.k(v.x, sv.x);
+            }
+            v.g[0] = eps + v.y - w;
+            v.g[1] = eps - v.y + w;
+        });
+
+        // The cached rows only have the columns of old active set.
+        active = new ArrayList<>(vectors);
+        cache.clear();
+        minmax();
+        return gmax - gmin > tol;
     }
 
     /**
@@ -277,7 +427,7 @@ public class SVR<T> {
         int i = gmaxindex;
         double old_alpha_i = v1.alpha[i];
 
-        double[] k1 = gram(v1);
+        KernelCache.Row k1 = gram(v1);
 
         SupportVector v2 = svmin;
         int j = gminindex;
@@ -286,8 +436,8 @@ public class SVR<T> {
         // Second order working set selection.
         double best = 0.0;
         double gi = i == 0 ? -v1.g[0] : v1.g[1];
-        for (SupportVector v : vectors) {
-            double curv = v1.k + v.k - 2 * k1[v.i];
+        for (SupportVector v : active) {
+            double curv = v1.k + v.k - 2 * k1.get(v.i);
             if (curv <= 0.0) curv = TAU;
 
             double gj = -v.g[0];
@@ -313,10 +463,10 @@ public class SVR<T> {
             }
         }
 
-        double[] k2 = gram(v2);
+        KernelCache.Row k2 = gram(v2);
 
         // Determine curvature
-        double curv = v1.k + v2.k - 2 * k1[v2.i];
+        double curv = v1.k + v2.k - 2 * k1.get(v2.i);
         if (curv <= 0.0) curv = TAU;
 
         if (i != j) {
@@ -389,11 +539,16 @@ public class SVR<T> {
 
         int si = 2 * i - 1;
         int sj = 2 * j - 1;
-        for (SupportVector v : vectors) {
-            v.g[0] -= si * k1[v.i] * delta_alpha_i + sj * k2[v.i] * delta_alpha_j;
-            v.g[1] += si * k1[v.i] * delta_alpha_i + sj * k2[v.i] * delta_alpha_j;
+        for (SupportVector v : active) {
+            double k1i = k1.get(v.i);
+            double k2i = k2.get(v.i);
+            v.g[0] -= si * k1i * delta_alpha_i + sj * k2i * delta_alpha_j;
+            v.g[1] += si * k1i * delta_alpha_i + sj * k2i * delta_alpha_j;
         }
 
+        gbar(v1, k1, i, old_alpha_i);
+        gbar(v2, k2, j, old_alpha_j);
+
         // optimality test
         minmax();
         b = -(gmax + gmin) / 2;
@@ -76,7 +76,8 @@ public interface DataFrameClassifier extends Classifier<Tuple> {
     StructType schema();
 
     /**
-     * Predicts the class labels of a data frame.
+     * Predicts the class labels of a data frame. The rows are
+     * processed in parallel.
      *
      * @param data the data frame.
      * @return the predicted class labels.
@@ -85,28 +86,41 @@ public interface DataFrameClassifier extends Classifier<Tuple> {
         // Binds the formula to the data frame's schema in case that
         // it is different from that of training data.
         formula().bind(data.schema());
-        return data.stream().mapToInt(this::predict).toArray();
+        return IntStream.range(0, data.size()).parallel()
+                .map(i -> predict(data.get(i)))
+                .toArray();
     }
 
     /**
-     * Predicts the class labels of a dataset.
+     * Predicts the class labels of a data frame and also calculates
+     * a posteriori probabilities. The rows are processed in parallel.
      *
      * @param data the data frame.
-     * @param posteriori an empty list to store a posteriori probabilities on output.
+     * @param posteriori a posteriori probabilities on output.
      * @return the predicted class labels.
      */
-    default int[] predict(DataFrame data, List<double[]> posteriori) {
+    default int[] predict(DataFrame data, double[][] posteriori) {
         // Binds the formula to the data frame's schema in case that
         // it is different from that of training data.
         formula().bind(data.schema());
+        return IntStream.range(0, data.size()).parallel()
+                .map(i -> predict(data.get(i), posteriori[i]))
+                .toArray();
+    }
 
+    /**
+     * Predicts the class labels of a dataset.
+     *
+     * @param data the data frame.
+     * @param posteriori an empty list to store a posteriori probabilities on output.
+     * @return the predicted class labels.
+     */
+    default int[] predict(DataFrame data, List<double[]> posteriori) {
         int n = data.size();
         int k = numClasses();
         double[][] prob = new double[n][k];
         Collections.addAll(posteriori, prob);
-        return IntStream.range(0, n).parallel()
-                .map(i -> predict(data.get(i), prob[i]))
-                .toArray();
+        return predict(data, prob);
     }
 
     /**
@@ -170,6 +184,28 @@ public interface DataFrameClassifier extends Classifier<Tuple> {
             public int predict(Tuple x, double[] posteriori) {
                 return model.predict(toArray(x), posteriori);
             }
+
+            /** Converts a data frame to the design matrix. */
+            private double[][] toArray(DataFrame data) {
+                double[][] x = formula.x(data).toArray(false, CategoricalEncoder.DUMMY);
+                if (preprocessor != null) {
+                    IntStream.range(0, x.length).parallel().forEach(i -> preprocessor.transform(x[i], x[i]));
+                }
+                return x;
+            }
+
+            @Override
+            public int[] predict(DataFrame data) {
+                double[][] x = toArray(data);
+                return IntStream.range(0, x.length).parallel()
+                        .map(i -> model.predict(x[i]))
+                        .toArray();
+            }
+
+            @Override
+            public int[] predict(DataFrame data, double[][] posteriori) {
+                return model.predict(toArray(data), posteriori);
+            }
         };
     }
 
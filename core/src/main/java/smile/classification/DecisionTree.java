@@ -134,6 +134,16 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         return new DecisionNode(count);
     }
 
+    @Override
+    protected int histogramWidth() {
+        return k;
+    }
+
+    @Override
+    protected void accumulate(double[] histogram, int offset, int i) {
+        histogram[offset + y[i]] += samples[i];
+    }
+
     @Override
     protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi) {
         DecisionNode node = (DecisionNode) leaf;
@@ -186,6 +196,43 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
                 final int value = splitValue;
                 split = new NominalSplit(leaf, j, splitValue, splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> xj.getInt(o) == value);
             }
+        } else if (bins != null) {
+            int splitBin = -1;
+            int[] trueCount = new int[k];
+            double[] histogram = histogram(leaf, j, lo, hi);
+            int m = bins.size(j);
+
+            for (int b = 0, tc = 0; b < m - 1; b++) {
+                for (int l = 0, offset = b * k; l < k; l++) {
+                    int count = (int) histogram[offset + l];
+                    trueCount[l] += count;
+                    tc += count;
+                }
+
+                int fc = node.size() - tc;
+                if (fc < nodeSize) break;
+                if (tc < nodeSize) continue;
+
+                for (int l = 0; l < k; l++) {
+                    falseCount[l] = node.count()[l] - trueCount[l];
+                }
+
+                double gain = impurity - (double) tc / node.size() * DecisionNode.impurity(rule, tc, trueCount) - (double) fc / node.size() * DecisionNode.impurity(rule, fc, falseCount);
+
+                // new best split
+                if (gain > splitScore) {
+                    splitBin = b;
+                    splitTrueCount = tc;
+                    splitFalseCount = fc;
+                    splitScore = gain;
+                }
+            }
+
+            if (splitScore > 0.0) {
+                final int bin = splitBin;
+                final Bins bins = this.bins;
+                split = new OrdinalSplit(leaf, j, bins.cut(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> bins.bin(j, o) <= bin);
+            }
         } else {
             double splitValue = 0.0;
             int[] trueCount = new int[k];
@@ -262,7 +309,37 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         this.k = k;
         this.y = y;
         this.rule = rule;
+        grow();
+    }
 
+    /**
+     * Constructor. Fits a classification tree with histogram-based
+     * split finding on the quantized numeric columns.
+     * @param x the data frame of the explanatory variable.
+     * @param y the response variables.
+     * @param response the metadata of response variable.
+     * @param k the number of classes.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param rule the splitting rule.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param bins the quantized numeric columns of x.
+     */
+    public DecisionTree(DataFrame x, int[] y, StructField response, int k, SplitRule rule, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, bins);
+        this.k = k;
+        this.y = y;
+        this.rule = rule;
+        grow();
+    }
+
+    /** Grows the tree on the training data. */
+    private void grow() {
         final int[] count = new int[k];
         int n = x.size();
         for (int i = 0; i < n; i++) {
@@ -340,7 +417,7 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         BaseVector<?, ?, ?> y = formula.y(data);
         ClassLabels codec = ClassLabels.fit(y);
 
-        DecisionTree tree = new DecisionTree(x, codec.y, y.field(), codec.k, rule, maxDepth, maxNodes, nodeSize, -1, null, null);
+        DecisionTree tree = new DecisionTree(x, codec.y, y.field(), codec.k, rule, maxDepth, maxNodes, nodeSize, -1, null, (int[][]) null);
         tree.formula = formula;
         tree.classes = codec.classes;
         return tree;
@@ -382,6 +459,34 @@ public class DecisionTree extends CART implements Classifier<Tuple>, DataFrameCl
         return classes == null ? y : classes.valueOf(y);
     }
 
+    /**
+     * Predicts the class labels of a data frame. The tree is compiled
+     * into flat arrays once and the rows are scored in parallel by chunks
+     * on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted class labels.
+     */
+    @Override
+    public int[] predict(DataFrame data) {
+        return predict(data, new double[data.size()][k]);
+    }
+
+    @Override
+    public int[] predict(DataFrame data, double[][] posteriori) {
+        // The posteriori probabilities are monotone in the leaf counts
+        // so that their argmax is the leaf output.
+        double[] score = flat(k).score(predictors(data));
+        int n = score.length / k;
+        int[] prediction = new int[n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(score, i * k, posteriori[i], 0, k);
+            int y = MathEx.whichMax(posteriori[i]);
+            prediction[i] = classes == null ? y : classes.valueOf(y);
+        }
+        return prediction;
+    }
+
     /** Returns null if the tree is part of ensemble algorithm. */
     @Override
     public Formula formula() {
@@ -162,9 +162,10 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      */
     private final int p;
     /**
-     * The priori probability of each class.
+     * The priori probability of each class. The learned priori
+     * are replaced as a whole by updates.
      */
-    private final double[] priori;
+    private volatile double[] priori;
     /**
      * Amount of add-k smoothing of evidence. By default, we use add-one or
      * Laplace smoothing, which simply adds one to each count to eliminate zeros.
@@ -195,8 +196,16 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
     private final int[][] ntc;
     /**
      * The log conditional probabilities for document classification.
+     * The row of a class is replaced as a whole by updates, so that
+     * the concurrent predictions never see a half-updated row.
      */
     private final double[][] logcondprob;
+    /**
+     * The number of documents in each class when the conditional
+     * probabilities were last computed. Only the classes with new
+     * documents are refreshed by the models without complement.
+     */
+    private transient int[] refreshed;
 
     /**
      * Constructor of naive Bayes classifier for document classification.
@@ -339,7 +348,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      * @param y training label.
      */
     @Override
-    public void update(int[] x, int y) {
+    public synchronized void update(int[] x, int y) {
         if (!isGoodInstance(x)) {
             logger.info("Skip updating the model with a sample without any feature word");
             return;
@@ -394,7 +403,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      * @param x training instance in sparse format.
      * @param y training label.
      */
-    public void update(SparseArray x, int y) {
+    public synchronized void update(SparseArray x, int y) {
         if (!isGoodInstance(x)) {
             logger.info("Skip updating the model with a sample without any feature word");
             return;
@@ -450,7 +459,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      * @param y training labels.
      */
     @Override
-    public void update(int[][] x, int[] y) {
+    public synchronized void update(int[][] x, int[] y) {
         switch (model) {
             case MULTINOMIAL:
             case CNB:
@@ -477,6 +486,8 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                 int[] ni = new int[p];
                 // The transformed term frequency in a document.
                 double[] d = new double[p];
+                // The sum of transformed term frequencies per class.
+                double[][] w = MathEx.clone(logcondprob);
 
                 for (int[] doc : x) {
                     for (int i = 0; i < p; i++) {
@@ -505,23 +516,11 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
 
                     int yi = y[i];
                     for (int t = 0; t < p; t++) {
-                        logcondprob[yi][t] += d[t];
-                    }
-                }
-
-                double[] rsum = MathEx.rowSums(logcondprob);
-                double[] csum = MathEx.colSums(logcondprob);
-                double sum = MathEx.sum(csum);
-
-                for (int c = 0; c < k; c++) {
-                    for (int t = 0; t < p; t++) {
-                        logcondprob[c][t] = Math.log((csum[t] - logcondprob[c][t] + sigma) / (sum - rsum[c] + sigma * p));
+                        w[yi][t] += d[t];
                     }
                 }
 
-                for (int c = 0; c < k; c++) {
-                    MathEx.unitize1(logcondprob[c]);
-                }
+                complement(w);
                 break;
 
             case POLYAURN:
@@ -577,7 +576,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      * @param x training instances.
      * @param y training labels.
      */
-    public void update(SparseArray[] x, int[] y) {
+    public synchronized void update(SparseArray[] x, int[] y) {
         switch (model) {
             case MULTINOMIAL:
             case CNB:
@@ -604,6 +603,8 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                 int[] ni = new int[p];
                 // The transformed term frequency in a document.
                 double[] d = new double[p];
+                // The sum of transformed term frequencies per class.
+                double[][] w = MathEx.clone(logcondprob);
 
                 for (SparseArray doc : x) {
                     for (SparseArray.Entry e : doc) {
@@ -632,23 +633,11 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
 
                     int yi = y[i];
                     for (int t = 0; t < p; t++) {
-                        logcondprob[yi][t] += d[t];
+                        w[yi][t] += d[t];
                     }
                 }
 
-                double[] rsum = MathEx.rowSums(logcondprob);
-                double[] csum = MathEx.colSums(logcondprob);
-                double sum = MathEx.sum(csum);
-
-                for (int c = 0; c < k; c++) {
-                    for (int t = 0; t < p; t++) {
-                        logcondprob[c][t] = Math.log((csum[t] - logcondprob[c][t] + sigma) / (sum - rsum[c] + sigma * p));
-                    }
-                }
-
-                for (int c = 0; c < k; c++) {
-                    MathEx.unitize1(logcondprob[c]);
-                }
+                complement(w);
                 break;
 
             case POLYAURN:
@@ -701,26 +690,34 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
      */
     private void update() {
         if (!fixedPriori) {
+            double[] priori = new double[k];
             for (int c = 0; c < k; c++) {
                 priori[c] = (nc[c] + EPSILON) / (n + k * EPSILON);
             }
+            this.priori = priori;
         }
 
         switch (model) {
             case MULTINOMIAL:
             case POLYAURN:
                 for (int c = 0; c < k; c++) {
+                    if (refreshed != null && refreshed[c] == nc[c]) continue;
+                    double[] row = new double[p];
                     for (int t = 0; t < p; t++) {
-                        logcondprob[c][t] = Math.log((ntc[c][t] + sigma) / (nt[c] + sigma * p));
+                        row[t] = Math.log((ntc[c][t] + sigma) / (nt[c] + sigma * p));
                     }
+                    logcondprob[c] = row;
                 }
                 break;
 
             case BERNOULLI:
                 for (int c = 0; c < k; c++) {
+                    if (refreshed != null && refreshed[c] == nc[c]) continue;
+                    double[] row = new double[p];
                     for (int t = 0; t < p; t++) {
-                        logcondprob[c][t] = Math.log((ntc[c][t] + sigma) / (nc[c] + sigma * 2));
+                        row[t] = Math.log((ntc[c][t] + sigma) / (nc[c] + sigma * 2));
                     }
+                    logcondprob[c] = row;
                 }
                 break;
 
@@ -730,15 +727,15 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                 long[] ntcsum = MathEx.colSums(ntc);
 
                 for (int c = 0; c < k; c++) {
+                    double[] row = new double[p];
                     for (int t = 0; t < p; t++) {
-                        logcondprob[c][t] = Math.log((ntcsum[t] - ntc[c][t] + sigma) / (ntsum - nt[c] + sigma * p));
+                        row[t] = Math.log((ntcsum[t] - ntc[c][t] + sigma) / (ntsum - nt[c] + sigma * p));
                     }
-                }
 
-                if (model == Model.WCNB) {
-                    for (int c = 0; c < k; c++) {
-                        MathEx.unitize1(logcondprob[c]);
+                    if (model == Model.WCNB) {
+                        MathEx.unitize1(row);
                     }
+                    logcondprob[c] = row;
                 }
                 break;
 
@@ -751,6 +748,29 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                 // we should never reach here
                 throw new IllegalStateException("Unknown model: " + model);
         }
+
+        refreshed = nc.clone();
+    }
+
+    /**
+     * Updates the conditional probabilities of TWCNB with the sums
+     * of transformed term frequencies per class.
+     * @param w the sums of transformed term frequencies per class.
+     */
+    private void complement(double[][] w) {
+        double[] rsum = MathEx.rowSums(w);
+        double[] csum = MathEx.colSums(w);
+        double sum = MathEx.sum(csum);
+
+        for (int c = 0; c < k; c++) {
+            double[] row = new double[p];
+            for (int t = 0; t < p; t++) {
+                row[t] = Math.log((csum[t] - w[c][t] + sigma) / (sum - rsum[c] + sigma * p));
+            }
+
+            MathEx.unitize1(row);
+            logcondprob[c] = row;
+        }
     }
 
     @Override
@@ -787,8 +807,10 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
             return Integer.MIN_VALUE;
         }
 
+        double[] priori = this.priori;
         for (int i = 0; i < k; i++) {
             double logprob;
+            double[] logcondprob = this.logcondprob[i];
 
             switch (model) {
                 case MULTINOMIAL:
@@ -796,7 +818,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = Math.log(priori[i]);
                     for (int j = 0; j < p; j++) {
                         if (x[j] > 0) {
-                            logprob += x[j] * logcondprob[i][j];
+                            logprob += x[j] * logcondprob[j];
                         }
                     }
                     break;
@@ -805,9 +827,9 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = Math.log(priori[i]);
                     for (int j = 0; j < p; j++) {
                         if (x[j] > 0) {
-                            logprob += logcondprob[i][j];
+                            logprob += logcondprob[j];
                         } else {
-                            logprob += Math.log(1.0 - Math.exp(logcondprob[i][j]));
+                            logprob += Math.log(1.0 - Math.exp(logcondprob[j]));
                         }
                     }
                     break;
@@ -818,7 +840,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = 0.0;
                     for (int j = 0; j < p; j++) {
                         if (x[j] > 0) {
-                            logprob -= x[j] * logcondprob[i][j];
+                            logprob -= x[j] * logcondprob[j];
                         }
                     }
                     break;
@@ -886,8 +908,10 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
             return Integer.MIN_VALUE;
         }
 
+        double[] priori = this.priori;
         for (int i = 0; i < k; i++) {
             double logprob;
+            double[] logcondprob = this.logcondprob[i];
 
             switch (model) {
                 case MULTINOMIAL:
@@ -895,7 +919,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = Math.log(priori[i]);
                     for (SparseArray.Entry e : x) {
                         if (e.x > 0) {
-                            logprob += e.x * logcondprob[i][e.i];
+                            logprob += e.x * logcondprob[e.i];
                         }
                     }
                     break;
@@ -904,9 +928,9 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = Math.log(priori[i]);
                     for (SparseArray.Entry e : x) {
                         if (e.x > 0) {
-                            logprob += logcondprob[i][e.i];
+                            logprob += logcondprob[e.i];
                         } else {
-                            logprob += Math.log(1.0 - Math.exp(logcondprob[i][e.i]));
+                            logprob += Math.log(1.0 - Math.exp(logcondprob[e.i]));
                         }
                     }
                     break;
@@ -917,7 +941,7 @@ public class DiscreteNaiveBayes extends AbstractClassifier<int[]> {
                     logprob = 0.0;
                     for (SparseArray.Entry e : x) {
                         if (e.x > 0) {
-                            logprob -= e.x * logcondprob[i][e.i];
+                            logprob -= e.x * logcondprob[e.i];
                         }
                     }
                     break;
@@ -143,6 +143,11 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      * The shrinkage parameter in (0, 1] controls the learning rate of procedure.
      */
     private final double shrinkage;
+    /**
+     * The compiled forest for batch prediction, which is built on
+     * the first use and invalidated by trim.
+     */
+    private transient volatile FlatForest flat;
 
     /**
      * Constructor of binary class.
@@ -233,7 +238,8 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         int nodeSize = Integer.parseInt(params.getProperty("smile.gradient_boost.node_size", "5"));
         double shrinkage = Double.parseDouble(params.getProperty("smile.gradient_boost.shrinkage", "0.05"));
         double subsample = Double.parseDouble(params.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.gradient_boost.max_bins", "0"));
+        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins);
     }
 
     /**
@@ -252,6 +258,28 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
      */
     public static GradientTreeBoost fit(Formula formula, DataFrame data, int ntrees, int maxDepth,
                                         int maxNodes, int nodeSize, double shrinkage, double subsample) {
+        return fit(formula, data, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for classification.
+     *
+     * @param formula   a symbolic description of the model to be fitted.
+     * @param data      the data frame of the explanatory and response variables.
+     * @param ntrees    the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize  the number of instances in a node below which the tree will
+     *                  not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins the maximum number of bins (at most 256) to quantize
+     *                the numeric variables for histogram-based split finding.
+     *                If 0, the splits are searched on the sorted values exactly.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, int ntrees, int maxDepth,
+                                        int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -268,13 +296,14 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         DataFrame x = formula.x(data);
         BaseVector<?, ?, ?> y = formula.y(data);
 
-        int[][] order = CART.order(x);
+        Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        int[][] order = maxBins > 0 ? null : CART.order(x);
         ClassLabels codec = ClassLabels.fit(y);
 
         if (codec.k == 2) {
-            return train2(formula, x, codec, order, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+            return train2(formula, x, codec, order, bins, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
         } else {
-            return traink(formula, x, codec, order, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+            return traink(formula, x, codec, order, bins, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
         }
     }
 
@@ -307,7 +336,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     /**
      * Train L2 tree boost.
      */
-    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample) {
+    private static GradientTreeBoost train2(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample) {
         int n = x.nrow();
         int k = codec.k;
         int[] y = codec.y;
@@ -329,7 +358,9 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             sampling(samples, permutation, nc, y, subsample);
 
             logger.info("Training {} tree", Strings.ordinal(t+1));
-            RegressionTree tree = new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
+            RegressionTree tree = bins != null ?
+                    new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, bins) :
+                    new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
             trees[t] = tree;
 
             for (int i = 0; i < n; i++) {
@@ -351,7 +382,7 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
     /**
      * Train L-k tree boost.
      */
-    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order,
+    private static GradientTreeBoost traink(Formula formula, DataFrame x, ClassLabels codec, int[][] order, Bins bins,
                                             int ntrees, int maxDepth, int maxNodes, int nodeSize,
                                             double shrinkage, double subsample) {
         int n = x.nrow();
@@ -387,7 +418,9 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
             for (int j = 0; j < k; j++) {
                 sampling(samples, permutation, nc, y, subsample);
 
-                RegressionTree tree = new RegressionTree(x, loss[j], field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
+                RegressionTree tree = bins != null ?
+                        new RegressionTree(x, loss[j], field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, bins) :
+                        new RegressionTree(x, loss[j], field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
                 forest[j][t] = tree;
 
                 double[] hj = h[j];
@@ -484,6 +517,60 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
                 }
             }
         }
+
+        flat = null;
+    }
+
+    /**
+     * Compiles the model into flat arrays for fast inference.
+     * For binary classification, the single score of compiled forest
+     * is the log odds of class 1 vs class 0, i.e. class 1 is predicted
+     * if it is positive. For multi-class, the scores are the log odds
+     * up to a constant and the index of maximum score is the class
+     * index, i.e. {@code classes()[i]} is the predicted class label.
+     *
+     * @return the compiled forest.
+     */
+    public FlatForest compile() {
+        if (k == 2) {
+            int ntrees = trees.length;
+            Node[] roots = new Node[ntrees];
+            double[] weight = new double[ntrees];
+            for (int t = 0; t < ntrees; t++) {
+                roots[t] = trees[t].root();
+                weight[t] = shrinkage;
+            }
+
+            return new FlatForest(roots, new int[ntrees], weight, new double[]{b});
+        } else {
+            int ntrees = forest[0].length;
+            Node[] roots = new Node[k * ntrees];
+            int[] group = new int[k * ntrees];
+            double[] weight = new double[k * ntrees];
+            for (int j = 0, i = 0; j < k; j++) {
+                for (int t = 0; t < ntrees; t++, i++) {
+                    roots[i] = forest[j][t].root();
+                    group[i] = j;
+                    weight[i] = shrinkage;
+                }
+            }
+
+            return new FlatForest(roots, group, weight, new double[k]);
+        }
+    }
+
+    /**
+     * Returns the compiled forest for batch prediction, which is
+     * compiled on the first call and cached until the model is trimmed.
+     * @return the compiled forest.
+     */
+    private FlatForest flat() {
+        FlatForest model = flat;
+        if (model == null) {
+            model = compile();
+            flat = model;
+        }
+        return model;
     }
 
     @Override
@@ -515,6 +602,68 @@ public class GradientTreeBoost extends AbstractClassifier<Tuple> implements Data
         }
     }
 
+    /**
+     * Predicts the class labels of a data frame. The trees are compiled
+     * into flat arrays once and the rows are scored in parallel by chunks
+     * on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted class labels.
+     */
+    @Override
+    public int[] predict(DataFrame data) {
+        FlatForest model = flat();
+        int m = model.outputs();
+        double[] score = model.score(formula.x(data));
+        int n = score.length / m;
+        int[] prediction = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (k == 2) {
+                prediction[i] = classes.valueOf(score[i] > 0 ? 1 : 0);
+            } else {
+                int y = 0;
+                for (int j = 1, offset = i * k; j < k; j++) {
+                    if (score[offset + j] > score[offset + y]) y = j;
+                }
+                prediction[i] = classes.valueOf(y);
+            }
+        }
+        return prediction;
+    }
+
+    @Override
+    public int[] predict(DataFrame data, double[][] posteriori) {
+        FlatForest model = flat();
+        int m = model.outputs();
+        double[] score = model.score(formula.x(data));
+        int n = score.length / m;
+        int[] prediction = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] prob = posteriori[i];
+            if (k == 2) {
+                double y = score[i];
+                prob[0] = 1.0 / (1.0 + Math.exp(2 * y));
+                prob[1] = 1.0 - prob[0];
+                prediction[i] = classes.valueOf(y > 0 ? 1 : 0);
+            } else {
+                System.arraycopy(score, i * k, prob, 0, k);
+                int y = MathEx.whichMax(prob);
+                double max = prob[y];
+                double Z = 0.0;
+                for (int j = 0; j < k; j++) {
+                    prob[j] = Math.exp(prob[j] - max);
+                    Z += prob[j];
+                }
+
+                for (int j = 0; j < k; j++) {
+                    prob[j] /= Z;
+                }
+                prediction[i] = classes.valueOf(y);
+            }
+        }
+        return prediction;
+    }
+
     @Override
     public boolean soft() {
         return true;
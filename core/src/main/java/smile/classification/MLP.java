@@ -17,12 +17,15 @@
 
 package smile.classification;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Properties;
 
 import smile.base.mlp.*;
 import smile.math.MathEx;
+import smile.math.matrix.Matrix;
 import smile.util.IntSet;
 import smile.util.Strings;
 
@@ -217,15 +220,16 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
         t++;
     }
 
-    /** Updates the model with a mini-batch. RMSProp is applied if {@code rho > 0}. */
+    /**
+     * Updates the model with a mini-batch. RMSProp is applied if {@code rho > 0}.
+     * The gradients of large mini-batches are computed in parallel.
+     */
     @Override
     public void update(double[][] x, int[] y) {
-        for (int i = 0; i < x.length; i++) {
-            propagate(x[i], true);
-            setTarget(classes.indexOf(y[i]));
-            backpropagate(false);
-        }
-
+        computeGradient(x.length, (from, to) -> {
+            propagate(Arrays.copyOfRange(x, from, to), true);
+            backpropagate(target(Arrays.copyOfRange(y, from, to)));
+        });
         update(x.length);
         t++;
     }
@@ -246,8 +250,30 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
         }
     }
 
+    /** Returns the network target matrix of mini-batch. */
+    private Matrix target(int[] y) {
+        int n = output.getOutputSize();
+        int m = y.length;
+
+        double t = output.cost() == Cost.LIKELIHOOD ? 1.0 : 0.9;
+        double f = 1.0 - t;
+
+        Matrix target = new Matrix(n, m, f);
+        for (int j = 0; j < m; j++) {
+            int yj = classes.indexOf(y[j]);
+            if (n == 1) {
+                if (yj == 1) target.set(0, j, t);
+            } else {
+                target.set(yj, j, t);
+            }
+        }
+        return target;
+    }
+
     /**
-     * Fits a MLP model.
+     * Fits a MLP model. If the property {@code smile.mlp.checkpoint} is
+     * set to a directory, the model is written to the file mlp.model in it
+     * at the end of each epoch, which replaces the previous checkpoint.
      * @param x the training dataset.
      * @param y the training labels.
      * @param params the hyper-parameters.
@@ -263,6 +289,7 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
 
         int epochs = Integer.parseInt(params.getProperty("smile.mlp.epochs", "100"));
         int batch = Integer.parseInt(params.getProperty("smile.mlp.mini_batch", "32"));
+        Path checkpoint = checkpoint(params);
         double[][] batchx = new double[batch][];
         int[] batchy = new int[batch];
         for (int epoch = 1; epoch <= epochs; epoch++) {
@@ -282,6 +309,15 @@ public class MLP extends MultilayerPerceptron implements Classifier<double[]>, S
                     model.update(batchx, batchy);
                 }
             }
+
+            if (checkpoint != null) {
+                try {
+                    model.checkpoint(checkpoint);
+                    logger.info("Checkpoint the {} epoch at {}", Strings.ordinal(epoch), checkpoint);
+                } catch (IOException ex) {
+                    logger.error("Failed to checkpoint MLP model at {}", checkpoint, ex);
+                }
+            }
         }
 
         return model;
@@ -19,6 +19,7 @@ package smile.classification;
 
 import smile.math.MathEx;
 import smile.stat.distribution.Distribution;
+import smile.stat.distribution.GaussianDistribution;
 import smile.util.IntSet;
 
 /**
@@ -35,7 +36,9 @@ import smile.util.IntSet;
  * themselves with various {@link Distribution} classes. Although the {@link #predict}
  * method takes an array of double values as a general form of independent variables,
  * the users are free to use any discrete distributions to model categorical or
- * ordinal random variables.
+ * ordinal random variables. The exception is Gaussian naive Bayes, which can
+ * be trained by {@link #fit(double[][], int[]) fit} and updated online with
+ * mini-batches of new samples.
  *
  * <h2>References</h2>
  * <ol>
@@ -69,6 +72,15 @@ public class NaiveBayes extends AbstractClassifier<double[]> {
      * The conditional distribution for general purpose naive Bayes classifier.
      */
     private final Distribution[][] prob;
+    /**
+     * The number of samples in each class, which is only available
+     * for Gaussian naive Bayes trained by {@link #fit(double[][], int[])}.
+     */
+    private long[] count;
+    /**
+     * The variance smoothing of Gaussian naive Bayes.
+     */
+    private double epsilon;
 
     /**
      * Constructor of general naive Bayes classifier.
@@ -116,6 +128,74 @@ public class NaiveBayes extends AbstractClassifier<double[]> {
         this.prob = condprob;
     }
 
+    /**
+     * Fits the Gaussian naive Bayes classifier. The conditional distribution
+     * of each variable in each class is estimated as a Gaussian distribution
+     * by MLE, and the priori probabilities are the class frequencies.
+     * The variances are smoothed by 1E-9 of the largest variance of
+     * variables for numerical stability. The model supports online
+     * learning by {@link #update(double[][], int[])}.
+     *
+     * @param x the training samples.
+     * @param y the training labels.
+     * @return the model.
+     */
+    public static NaiveBayes fit(double[][] x, int[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", x.length, y.length));
+        }
+
+        ClassLabels codec = ClassLabels.fit(y);
+        int k = codec.k;
+        int n = x.length;
+        int p = x[0].length;
+
+        long[] count = new long[k];
+        double[][] mu = new double[k][p];
+        double[][] variance = new double[k][p];
+        for (int i = 0; i < n; i++) {
+            int c = codec.y[i];
+            count[c]++;
+            for (int j = 0; j < p; j++) {
+                mu[c][j] += x[i][j];
+            }
+        }
+
+        for (int c = 0; c < k; c++) {
+            for (int j = 0; j < p; j++) {
+                mu[c][j] /= count[c];
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            int c = codec.y[i];
+            for (int j = 0; j < p; j++) {
+                double d = x[i][j] - mu[c][j];
+                variance[c][j] += d * d;
+            }
+        }
+
+        double[] sd = MathEx.colSds(x);
+        double epsilon = 1E-9 * MathEx.max(sd) * MathEx.max(sd);
+        if (epsilon == 0.0) {
+            epsilon = 1E-9;
+        }
+
+        double[] priori = new double[k];
+        Distribution[][] condprob = new Distribution[k][p];
+        for (int c = 0; c < k; c++) {
+            priori[c] = (double) count[c] / n;
+            for (int j = 0; j < p; j++) {
+                condprob[c][j] = new GaussianDistribution(mu[c][j], Math.sqrt(variance[c][j] / count[c] + epsilon));
+            }
+        }
+
+        NaiveBayes model = new NaiveBayes(priori, condprob, codec.classes);
+        model.count = count;
+        model.epsilon = epsilon;
+        return model;
+    }
+
     /**
      * Returns a priori probabilities.
      * @return a priori probabilities.
@@ -140,6 +220,84 @@ public class NaiveBayes extends AbstractClassifier<double[]> {
         return true;
     }
 
+    @Override
+    public boolean online() {
+        return count != null;
+    }
+
+    @Override
+    public void update(double[] x, int y) {
+        update(new double[][]{x}, new int[]{y});
+    }
+
+    /**
+     * Updates the Gaussian naive Bayes classifier with a mini-batch of
+     * new samples. The means and variances are merged with the statistics
+     * of new samples by the pairwise algorithm of Chan et al. The cost is
+     * O(m p) for a batch of m samples, independent of the number of samples
+     * seen so far. The updates are serialized so that it is safe to call
+     * from multiple threads. The conditional distributions of a class are
+     * replaced as a whole so that the concurrent predictions see either
+     * the old or new ones.
+     *
+     * @param x the training samples.
+     * @param y the training labels.
+     */
+    @Override
+    public synchronized void update(double[][] x, int[] y) {
+        if (count == null) {
+            throw new UnsupportedOperationException("The model doesn't support online learning");
+        }
+
+        if (x.length != y.length) {
+            throw new IllegalArgumentException(String.format("Input vector x of size %d not equal to length %d of y", x.length, y.length));
+        }
+
+        // The sums and squared sums of deviations from the current means.
+        long[] m = new long[k];
+        double[][] s1 = new double[k][];
+        double[][] s2 = new double[k][];
+        for (int i = 0; i < x.length; i++) {
+            if (x[i].length != p) {
+                throw new IllegalArgumentException(String.format("Invalid input vector size: %d", x[i].length));
+            }
+
+            int c = classes.indexOf(y[i]);
+            if (m[c]++ == 0) {
+                s1[c] = new double[p];
+                s2[c] = new double[p];
+            }
+
+            for (int j = 0; j < p; j++) {
+                double d = x[i][j] - prob[c][j].mean();
+                s1[c][j] += d;
+                s2[c][j] += d * d;
+            }
+        }
+
+        long n = 0;
+        for (int c = 0; c < k; c++) {
+            if (m[c] > 0) {
+                long size = count[c] + m[c];
+                Distribution[] condprob = new Distribution[p];
+                for (int j = 0; j < p; j++) {
+                    Distribution d = prob[c][j];
+                    double mu = d.mean() + s1[c][j] / size;
+                    double M2 = count[c] * (d.variance() - epsilon) + s2[c][j] - s1[c][j] * s1[c][j] / size;
+                    condprob[j] = new GaussianDistribution(mu, Math.sqrt(Math.max(M2, 0.0) / size + epsilon));
+                }
+
+                prob[c] = condprob;
+                count[c] = size;
+            }
+            n += count[c];
+        }
+
+        for (int c = 0; c < k; c++) {
+            priori[c] = (double) count[c] / n;
+        }
+    }
+
     /**
      * Predict the class of an instance.
      * 
@@ -20,7 +20,10 @@ package smile.classification;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.LongStream;
+import smile.base.cart.Bins;
 import smile.base.cart.CART;
+import smile.base.cart.FlatForest;
+import smile.base.cart.Node;
 import smile.base.cart.SplitRule;
 import smile.data.DataFrame;
 import smile.data.Tuple;
@@ -131,6 +134,15 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
      * importance measure.
      */
     private final double[] importance;
+    /**
+     * The compiled forest of tree votes, which is built on the first use.
+     */
+    private transient volatile FlatForest votes;
+    /**
+     * The compiled forest of weighted posteriori probabilities,
+     * which is built on the first use.
+     */
+    private transient volatile FlatForest probabilities;
 
     /**
      * Constructor.
@@ -192,7 +204,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         int nodeSize = Integer.parseInt(params.getProperty("smile.random_forest.node_size", "5"));
         double subsample = Double.parseDouble(params.getProperty("smile.random_forest.sampling_rate", "1.0"));
         int[] classWeight = Strings.parseIntArray(params.getProperty("smile.random_forest.class_weight"));
-        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, null);
+        int maxBins = Integer.parseInt(params.getProperty("smile.random_forest.max_bins", "0"));
+        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, null, maxBins);
     }
 
     /**
@@ -282,6 +295,42 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
     public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry,
                                    SplitRule rule, int maxDepth, int maxNodes, int nodeSize,
                                    double subsample, int[] classWeight, LongStream seeds) {
+        return fit(formula, data, ntrees, mtry, rule, maxDepth, maxNodes, nodeSize, subsample, classWeight, seeds, 0);
+    }
+
+    /**
+     * Fits a random forest for classification.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param ntrees the number of trees.
+     * @param mtry the number of input variables to be used to determine the
+     *             decision at a node of the tree. floor(sqrt(p)) generally
+     *             gives good performance, where p is the number of variables.
+     * @param rule Decision tree split rule.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree
+     *                 will not split, nodeSize = 5 generally gives good
+     *                 results.
+     * @param subsample the sampling rate for training tree. 1.0 means sampling
+     *                  with replacement. {@code < 1.0} means sampling without
+     *                  replacement.
+     * @param classWeight Priors of the classes. The weight of each class
+     *                    is roughly the ratio of samples in each class.
+     *                    For example, if there are 400 positive samples
+     *                    and 100 negative samples, the classWeight should
+     *                    be [1, 4] (assuming label 0 is of negative, label 1 is of
+     *                    positive).
+     * @param seeds optional RNG seeds for each regression tree.
+     * @param maxBins the maximum number of bins (at most 256) to quantize
+     *                the numeric variables for histogram-based split finding.
+     *                If 0, the splits are searched on the sorted values exactly.
+     * @return the model.
+     */
+    public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry,
+                                   SplitRule rule, int maxDepth, int maxNodes, int nodeSize,
+                                   double subsample, int[] classWeight, LongStream seeds, int maxBins) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -306,7 +355,8 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
 
         final int[] weight = classWeight != null ? classWeight : Collections.nCopies(k, 1).stream().mapToInt(i -> i).toArray();
 
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = maxBins > 0 ? null : CART.order(x);
         final int[][] prediction = new int[n][k]; // out-of-bag prediction
 
         // generate seeds with sequential stream
@@ -367,7 +417,9 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
             }
 
             long start = System.nanoTime();
-            DecisionTree tree = new DecisionTree(x, codec.y, y.field(), k, rule, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
+            DecisionTree tree = bins != null ?
+                    new DecisionTree(x, codec.y, y.field(), k, rule, maxDepth, maxNodes, nodeSize, mtryFinal, samples, bins) :
+                    new DecisionTree(x, codec.y, y.field(), k, rule, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -579,6 +631,57 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         return new RandomForest(formula, k, forest, mergedMetrics, mergedImportance, classes);
     }
 
+    /**
+     * Compiles the forest into flat arrays for fast inference. The scores
+     * of compiled forest are the weighted sums of tree posteriori
+     * probabilities as in {@link #predict(Tuple, double[])}, which are
+     * not normalized. The index of maximum score is the class index, i.e.
+     * {@code classes()[i]} is the predicted class label.
+     *
+     * @return the compiled forest.
+     */
+    public FlatForest compile() {
+        return compile(false);
+    }
+
+    /**
+     * Compiles the forest into flat arrays.
+     * @param vote if true, the scores are the votes of trees as in
+     *             {@link #predict(Tuple)}.
+     * @return the compiled forest.
+     */
+    private FlatForest compile(boolean vote) {
+        int ntrees = models.length;
+        Node[] trees = new Node[ntrees];
+        double[] weight = new double[ntrees];
+        for (int t = 0; t < ntrees; t++) {
+            trees[t] = models[t].tree.root();
+            weight[t] = vote ? 1.0 : models[t].weight;
+        }
+
+        return new FlatForest(trees, new int[ntrees], weight, new double[k], vote);
+    }
+
+    /**
+     * Returns the compiled forest for batch prediction, which is
+     * compiled on the first call and cached. The forest is immutable
+     * as trim, merge and prune return new models.
+     * @param vote if true, the scores are the votes of trees.
+     * @return the compiled forest.
+     */
+    private FlatForest flat(boolean vote) {
+        FlatForest forest = vote ? votes : probabilities;
+        if (forest == null) {
+            forest = compile(vote);
+            if (vote) {
+                votes = forest;
+            } else {
+                probabilities = forest;
+            }
+        }
+        return forest;
+    }
+
     @Override
     public int predict(Tuple x) {
         Tuple xt = formula.x(x);
@@ -617,6 +720,41 @@ public class RandomForest extends AbstractClassifier<Tuple> implements DataFrame
         return classes.valueOf(MathEx.whichMax(posteriori));
     }
 
+    /**
+     * Predicts the class labels of a data frame. The forest is compiled
+     * into flat arrays once and the rows are scored in parallel by chunks
+     * on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted class labels.
+     */
+    @Override
+    public int[] predict(DataFrame data) {
+        double[] score = flat(true).score(formula.x(data));
+        int n = score.length / k;
+        double[] y = new double[k];
+        int[] prediction = new int[n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(score, i * k, y, 0, k);
+            prediction[i] = classes.valueOf(MathEx.whichMax(y));
+        }
+        return prediction;
+    }
+
+    @Override
+    public int[] predict(DataFrame data, double[][] posteriori) {
+        double[] score = flat(false).score(formula.x(data));
+        int n = score.length / k;
+        int[] prediction = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] prob = posteriori[i];
+            System.arraycopy(score, i * k, prob, 0, k);
+            MathEx.unitize1(prob);
+            prediction[i] = classes.valueOf(MathEx.whichMax(prob));
+        }
+        return prediction;
+    }
+
     /**
      * Predict and estimate the probability by voting.
      *
@@ -147,9 +147,7 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
 
             // update the weights
             w[p] += eta * err;
-            for (SparseArray.Entry e : x) {
-                w[e.i] += eta * err * e.x;
-            }
+            x.axpy(eta * err, w);
 
             // add regularization part
             if (lambda > 0.0) {
@@ -228,9 +226,7 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
                 double[] wi = w[i];
                 double err = (y == i ? 1.0 : 0.0) - prob[i];
                 wi[p] += eta * err;
-                for (SparseArray.Entry e : x) {
-                    wi[e.i] += eta * err * e.x;
-                }
+                x.axpy(eta * err, wi);
 
                 // add regularization part
                 if (lambda > 0.0) {
@@ -488,7 +484,7 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
             // and we try to maximize the log-likelihood, we really
             // return the negative log-likelihood here.
             double f = IntStream.range(0, x.size()).parallel().mapToDouble(i -> {
-                double wx = dot(x.get(i), w);
+                double wx = w[p] + x.dot(i, w);
                 return MathEx.log1pe(wx) - y[i] * wx;
             }).sum();
 
@@ -512,12 +508,9 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
                 if (end > x.size()) end = x.size();
 
                 return IntStream.range(begin, end).sequential().mapToDouble(i -> {
-                    SparseArray xi = x.get(i);
-                    double wx = dot(xi, w);
+                    double wx = w[p] + x.dot(i, w);
                     double err = y[i] - MathEx.sigmoid(wx);
-                    for (SparseArray.Entry e : xi) {
-                        gradient[e.i] -= err * e.x;
-                    }
+                    x.axpy(i, -err, gradient);
                     gradient[p] -= err;
 
                     return MathEx.log1pe(wx) - y[i] * wx;
@@ -611,10 +604,10 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
                 if (end > x.size()) end = x.size();
 
                 return IntStream.range(begin, end).sequential().mapToDouble(i -> {
-                    SparseArray xi = x.get(i);
                     posteriori[k - 1] = 0.0;
                     for (int j = 0; j < k - 1; j++) {
-                        posteriori[j] = dot(xi, w, j, p);
+                        int pos = j * (p + 1);
+                        posteriori[j] = w[pos + p] + x.dot(i, w, pos);
                     }
 
                     MathEx.softmax(posteriori);
@@ -649,10 +642,10 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
                 if (end > x.size()) end = x.size();
 
                 return IntStream.range(begin, end).sequential().mapToDouble(i -> {
-                    SparseArray xi = x.get(i);
                     posteriori[k - 1] = 0.0;
                     for (int j = 0; j < k - 1; j++) {
-                        posteriori[j] = dot(xi, w, j, p);
+                        int pos = j * (p + 1);
+                        posteriori[j] = w[pos + p] + x.dot(i, w, pos);
                     }
 
                     MathEx.softmax(posteriori);
@@ -661,9 +654,7 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
                         double err = (y[i] == j ? 1.0 : 0.0) - posteriori[j];
 
                         int pos = j * (p + 1);
-                        for (SparseArray.Entry e : xi) {
-                            gradient[pos + e.i] -= err * e.x;
-                        }
+                        x.axpy(i, -err, gradient, pos);
                         gradient[pos + p] -= err;
                     }
 
@@ -700,22 +691,8 @@ public abstract class SparseLogisticRegression extends AbstractClassifier<Sparse
     private static double dot(SparseArray x, double[] w) {
         double dot = w[w.length-1];
 
-        for (SparseArray.Entry e : x) {
-            dot += e.x * w[e.i];
-        }
-
-        return dot;
-    }
-
-    /**
-     * Returns the dot product between weight vector and x (augmented with 1).
-     */
-    private static double dot(SparseArray x, double[] w, int j, int p) {
-        int pos = j * (p + 1);
-        double dot = w[pos + p];
-
-        for (SparseArray.Entry e : x) {
-            dot += e.x * w[pos+e.i];
+        for (int k = 0, n = x.size(); k < n; k++) {
+            dot += x.value(k) * w[x.index(k)];
         }
 
         return dot;
@@ -138,21 +138,27 @@ public abstract class CentroidClustering<T, U> extends PartitionClustering imple
         int d = centroids[0].length;
 
         Arrays.fill(size, 0);
-        IntStream.range(0, k).parallel().forEach(cluster -> {
-            Arrays.fill(centroids[cluster], 0.0);
-            for (int i = 0; i < n; i++) {
-                if (y[i] == cluster) {
-                    size[cluster]++;
-                    for (int j = 0; j < d; j++) {
-                        centroids[cluster][j] += data[i][j];
-                    }
-                }
+        for (double[] centroid : centroids) {
+            Arrays.fill(centroid, 0.0);
+        }
+
+        // One pass over the data, which takes O(n d) rather than O(n k d)
+        // time. The summation order of each cluster is the same.
+        for (int i = 0; i < n; i++) {
+            int cluster = y[i];
+            size[cluster]++;
+            double[] x = data[i];
+            double[] centroid = centroids[cluster];
+            for (int j = 0; j < d; j++) {
+                centroid[j] += x[j];
             }
+        }
 
+        for (int cluster = 0; cluster < k; cluster++) {
             for (int j = 0; j < d; j++) {
                 centroids[cluster][j] /= size[cluster];
             }
-        });
+        }
     }
 
     /**
@@ -19,7 +19,9 @@ package smile.clustering;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import smile.neighbor.GridIndex;
 import smile.neighbor.Neighbor;
 import smile.neighbor.KDTree;
 import smile.neighbor.LinearSearch;
@@ -50,10 +52,19 @@ import smile.math.distance.Distance;
  * DBSCAN visits each point of the database, possibly multiple times (e.g.,
  * as candidates to different clusters). For practical considerations, however,
  * the time complexity is mostly governed by the number of nearest neighbor
- * queries. DBSCAN executes exactly one such query for each point, and if
+ * queries. DBSCAN executes about one such query for each point, and if
  * an indexing structure is used that executes such a neighborhood query
  * in O(log n), an overall runtime complexity of O(n log n) is obtained.
  * <p>
+ * This implementation issues the range queries in parallel. The core points
+ * are then merged into clusters with a lock-free disjoint-set, and each
+ * border point joins the cluster of smallest label among its core neighbors.
+ * The cluster labels are identical to those of the sequential
+ * expand-cluster algorithm. The neighbors of core points are queried twice
+ * rather than being kept in memory, which would take O(n minPts) space
+ * or more. For 2 or 3 dimensional data, a uniform grid of cells as wide as
+ * the radius is used as the spatial index.
+ * <p>
  * DBSCAN has many advantages such as
  * <ul>
  * <li> DBSCAN does not need to know the number of clusters in the data
@@ -120,16 +131,29 @@ public class DBSCAN<T> extends PartitionClustering {
     }
 
     /**
-     * Clustering the data with KD-tree. DBSCAN is generally applied on
-     * low-dimensional data. Therefore, KD-tree can speed up the nearest
-     * neighbor search a lot.
+     * Clustering the data with a grid index for 2 or 3 dimensional data,
+     * or KD-tree otherwise. DBSCAN is generally applied on low-dimensional
+     * data. Therefore, the spatial index can speed up the nearest neighbor
+     * search a lot.
      * @param data the observations.
      * @param minPts the minimum number of neighbors for a core data point.
      * @param radius the neighborhood radius.
      * @return the model.
      */
     public static DBSCAN<double[]> fit(double[][] data, int minPts, double radius) {
-        return fit(data, new KDTree<>(data, data), minPts, radius);
+        RNNSearch<double[], double[]> nns;
+        if (data[0].length <= 3 && radius > 0.0) {
+            try {
+                nns = new GridIndex<>(data, data, radius);
+            } catch (IllegalArgumentException ex) {
+                // Too many cells for the extent of data.
+                nns = new KDTree<>(data, data);
+            }
+        } else {
+            nns = new KDTree<>(data, data);
+        }
+
+        return fit(data, nns, minPts, radius);
     }
 
     /**
@@ -163,68 +187,98 @@ public class DBSCAN<T> extends PartitionClustering {
             throw new IllegalArgumentException("Invalid radius: " + radius);
         }
 
-        // The label for data samples in BFS queue.
-        final int QUEUED = -2;
-        // The label for unclassified data samples.
-        final int UNDEFINED = -1;
+        int n = data.length;
+        boolean[] core = new boolean[n];
+        // The neighbors of non-core points, which are fewer than minPts.
+        int[][] border = new int[n][];
+
+        // Range queries are independent and issued in parallel.
+        IntStream.range(0, n).parallel().forEach(i -> {
+            List<Neighbor<T,T>> neighbors = new ArrayList<>();
+            nns.range(data[i], radius, neighbors);
+            if (neighbors.size() >= minPts) {
+                core[i] = true;
+            } else {
+                border[i] = neighbors.stream().mapToInt(neighbor -> neighbor.index).toArray();
+            }
+        });
+
+        // Merges the core points in the neighborhood of each other
+        // with a lock-free disjoint-set. The root of each set is always
+        // the smallest index in it, which is where the sequential
+        // algorithm starts the cluster.
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int i = 0; i < n; i++) {
+            parent.set(i, i);
+        }
+
+        IntStream.range(0, n).parallel().filter(i -> core[i]).forEach(i -> {
+            List<Neighbor<T,T>> neighbors = new ArrayList<>();
+            nns.range(data[i], radius, neighbors);
+            for (Neighbor<T,T> neighbor : neighbors) {
+                if (core[neighbor.index]) {
+                    union(parent, i, neighbor.index);
+                }
+            }
+        });
 
+        // Clusters are numbered in the order of their first point.
         int k = 0;
-        int n = data.length;
         int[] y = new int[n];
-        Arrays.fill(y, UNDEFINED);
-
-        for (int i = 0; i < data.length; i++) {
-            if (y[i] == UNDEFINED) {
-                List<Neighbor<T,T>> neighbors = new ArrayList<>();
-                nns.range(data[i], radius, neighbors);
-                if (neighbors.size() < minPts) {
-                    y[i] = OUTLIER;
-                } else {
-                    y[i] = k;
-
-                    for (Neighbor<T, T> neighbor : neighbors) {
-                        if (y[neighbor.index] == UNDEFINED) {
-                            y[neighbor.index] = QUEUED;
-                        }
-                    }
-
-                    for (int j = 0; j < neighbors.size(); j++) {
-                        Neighbor<T,T> neighbor = neighbors.get(j);
-                        int index = neighbor.index;
-
-                        if (y[index] == OUTLIER) {
-                            y[index] = k;
-                        }
-
-                        if (y[index] == UNDEFINED || y[index] == QUEUED) {
-                            y[index] = k;
-
-                            List<Neighbor<T,T>> secondaryNeighbors = new ArrayList<>();
-                            nns.range(neighbor.key, radius, secondaryNeighbors);
-
-                            if (secondaryNeighbors.size() >= minPts) {
-                                for (Neighbor<T, T> sn : secondaryNeighbors) {
-                                    int label = y[sn.index];
-                                    if (label == UNDEFINED) {
-                                        y[sn.index] = QUEUED;
-                                    }
-
-                                    if (label == UNDEFINED || label == OUTLIER) {
-                                        neighbors.add(sn);
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    k++;
-                }
+        for (int i = 0; i < n; i++) {
+            if (core[i]) {
+                int root = find(parent, i);
+                y[i] = root == i ? k++ : y[root];
             }
         }
 
+        // A border point joins the first cluster that reaches it,
+        // i.e. the cluster of smallest label among its core neighbors.
+        IntStream.range(0, n).parallel().filter(i -> !core[i]).forEach(i -> {
+            int label = OUTLIER;
+            for (int j : border[i]) {
+                if (core[j]) {
+                    label = Math.min(label, y[find(parent, j)]);
+                }
+            }
+            y[i] = label;
+        });
+
         return new DBSCAN<>(minPts, radius, nns, k, y);
     }
 
+    /**
+     * Returns the root of the set that contains a point.
+     * Compresses the path by halving along the way.
+     */
+    private static int find(AtomicIntegerArray parent, int i) {
+        int p = parent.get(i);
+        while (p != i) {
+            int gp = parent.get(p);
+            parent.compareAndSet(i, p, gp);
+            i = gp;
+            p = parent.get(i);
+        }
+        return i;
+    }
+
+    /**
+     * Merges the sets of two points. The root of the larger index is
+     * attached to the other one, retrying if another thread has changed
+     * either root in between.
+     */
+    private static void union(AtomicIntegerArray parent, int i, int j) {
+        while (true) {
+            int a = find(parent, i);
+            int b = find(parent, j);
+            if (a == b) return;
+
+            int hi = Math.max(a, b);
+            int lo = Math.min(a, b);
+            if (parent.compareAndSet(hi, hi, lo)) return;
+        }
+    }
+
     /**
      * Classifies a new observation.
      * @param x a new observation.
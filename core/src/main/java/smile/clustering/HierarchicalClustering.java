@@ -18,13 +18,18 @@
 package smile.clustering;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.stream.IntStream;
 import smile.clustering.linkage.Linkage;
 import smile.clustering.linkage.UPGMCLinkage;
 import smile.clustering.linkage.WPGMCLinkage;
 import smile.clustering.linkage.WardLinkage;
+import smile.math.MathEx;
+import smile.math.distance.Distance;
 import smile.sort.IntHeapSelect;
+import smile.sort.QuickSort;
 
 /**
  * Agglomerative Hierarchical Clustering. Hierarchical agglomerative clustering
@@ -43,10 +48,25 @@ import smile.sort.IntHeapSelect;
  * Hierarchical clustering has the distinct advantage that any valid measure
  * of distance can be used. In fact, the observations themselves are not
  * required: all that is used is a matrix of distances.
+ * <p>
+ * The linkage methods store the proximity matrix, which takes
+ * O(n<sup>2</sup>) memory and limits the data size to about 65,000.
+ * For larger data, the methods {@code slink}, {@code clink}, {@code ward},
+ * {@code upgmc} and {@code wpgmc} compute the distances on the fly in
+ * O(n) memory. SLINK and CLINK build the pointer representation of
+ * single and complete linkage dendrograms. Ward's linkage is reducible
+ * so that the nearest-neighbor chain algorithm applies. The centroid
+ * (UPGMC) and median (WPGMC) linkages are not reducible and are clustered
+ * by maintaining the nearest neighbor of each cluster. The average
+ * linkages (UPGMA and WPGMA) need the proximity matrix as the distance
+ * between clusters cannot be computed from their centers.
  * 
  * <h2>References</h2>
  * <ol>
  * <li>David Eppstein. Fast hierarchical clustering and other applications of dynamic closest pairs. SODA 1998.</li>
+ * <li>R. Sibson. SLINK: an optimally efficient algorithm for the single-link cluster method. The Computer Journal, 16(1):30-34, 1973.</li>
+ * <li>D. Defays. An efficient algorithm for a complete link method. The Computer Journal, 20(4):364-366, 1977.</li>
+ * <li>Daniel Mullner. Modern hierarchical, agglomerative clustering algorithms. arXiv:1109.2378, 2011.</li>
  * </ol>
  * 
  * @see Linkage
@@ -124,6 +144,481 @@ public class HierarchicalClustering implements Serializable {
         return new HierarchicalClustering(merge, height);
     }
 
+    /**
+     * Fits the single linkage hierarchical clustering of data with the
+     * SLINK algorithm, which takes O(n<sup>2</sup>) time and O(n) memory
+     * with Euclidean distance.
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering slink(double[][] data) {
+        return slink(data, MathEx::distance);
+    }
+
+    /**
+     * Fits the single linkage hierarchical clustering of data with the
+     * SLINK algorithm, which takes O(n<sup>2</sup>) time and O(n) memory.
+     * @param data the data points.
+     * @param distance the distance function.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> HierarchicalClustering slink(T[] data, Distance<T> distance) {
+        int n = data.length;
+        int[] pi = new int[n];
+        double[] lambda = new double[n];
+        double[] M = new double[n];
+
+        for (int k = 0; k < n; k++) {
+            pi[k] = k;
+            lambda[k] = Double.POSITIVE_INFINITY;
+            distance(data, distance, k, M);
+
+            for (int i = 0; i < k; i++) {
+                int p = pi[i];
+                if (lambda[i] >= M[i]) {
+                    M[p] = Math.min(M[p], lambda[i]);
+                    lambda[i] = M[i];
+                    pi[i] = k;
+                } else {
+                    M[p] = Math.min(M[p], M[i]);
+                }
+            }
+
+            for (int i = 0; i < k; i++) {
+                if (lambda[i] >= lambda[pi[i]]) {
+                    pi[i] = k;
+                }
+            }
+        }
+
+        return pointer(pi, lambda);
+    }
+
+    /**
+     * Fits the complete linkage hierarchical clustering of data with the
+     * CLINK algorithm, which takes O(n<sup>2</sup>) time and O(n) memory
+     * with Euclidean distance.
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering clink(double[][] data) {
+        return clink(data, MathEx::distance);
+    }
+
+    /**
+     * Fits the complete linkage hierarchical clustering of data with the
+     * CLINK algorithm, which takes O(n<sup>2</sup>) time and O(n) memory.
+     * Note that CLINK finds a complete linkage dendrogram that depends on
+     * the order of data and may be different from the one of
+     * {@link smile.clustering.linkage.CompleteLinkage CompleteLinkage}.
+     * @param data the data points.
+     * @param distance the distance function.
+     * @param <T> the data type of points.
+     * @return the model.
+     */
+    public static <T> HierarchicalClustering clink(T[] data, Distance<T> distance) {
+        int n = data.length;
+        int[] pi = new int[n];
+        double[] lambda = new double[n];
+        double[] M = new double[n];
+
+        for (int k = 0; k < n; k++) {
+            pi[k] = k;
+            lambda[k] = Double.POSITIVE_INFINITY;
+            if (k == 0) continue;
+
+            distance(data, distance, k, M);
+
+            for (int i = 0; i < k; i++) {
+                if (lambda[i] < M[i]) {
+                    int p = pi[i];
+                    M[p] = Math.max(M[p], M[i]);
+                    M[i] = Double.POSITIVE_INFINITY;
+                }
+            }
+
+            int a = k - 1;
+            for (int i = k - 1; i >= 0; i--) {
+                if (lambda[i] >= M[pi[i]]) {
+                    if (M[i] < M[a]) a = i;
+                } else {
+                    M[i] = Double.POSITIVE_INFINITY;
+                }
+            }
+
+            int b = pi[a];
+            double c = lambda[a];
+            pi[a] = k;
+            lambda[a] = M[a];
+
+            if (a < k - 1) {
+                while (b < k - 1) {
+                    int d = pi[b];
+                    double e = lambda[b];
+                    pi[b] = k;
+                    lambda[b] = c;
+                    b = d;
+                    c = e;
+                }
+
+                if (b == k - 1) {
+                    pi[b] = k;
+                    lambda[b] = c;
+                }
+            }
+
+            for (int i = 0; i < k; i++) {
+                if (pi[pi[i]] == k && lambda[i] >= lambda[pi[i]]) {
+                    pi[i] = k;
+                }
+            }
+        }
+
+        return pointer(pi, lambda);
+    }
+
+    /**
+     * Fits the Ward's linkage hierarchical clustering of data with the
+     * nearest-neighbor chain algorithm, which takes O(n<sup>2</sup>) time
+     * and O(n) memory. The Ward's distance between clusters is computed
+     * from the cluster centroids.
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering ward(double[][] data) {
+        Centroids centroids = new Centroids(data, false);
+        HierarchicalClustering model = nnchain(data.length, (a, b) -> {
+            double na = centroids.size[a];
+            double nb = centroids.size[b];
+            return 2 * na * nb / (na + nb) * MathEx.squaredDistance(centroids.center[a], centroids.center[b]);
+        }, centroids::merge);
+
+        double[] height = model.height;
+        for (int i = 0; i < height.length; i++) {
+            height[i] = Math.sqrt(height[i]);
+        }
+        return model;
+    }
+
+    /**
+     * Fits the centroid (UPGMC) linkage hierarchical clustering of data,
+     * which takes O(n) memory. As the centroid linkage is not reducible,
+     * the nearest neighbor of each cluster is maintained, which takes
+     * O(n<sup>2</sup>) time in general and O(n<sup>3</sup>) time in
+     * the worst case.
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering upgmc(double[][] data) {
+        return centroid(data, false);
+    }
+
+    /**
+     * Fits the median (WPGMC) linkage hierarchical clustering of data,
+     * which takes O(n) memory. As the median linkage is not reducible,
+     * the nearest neighbor of each cluster is maintained, which takes
+     * O(n<sup>2</sup>) time in general and O(n<sup>3</sup>) time in
+     * the worst case.
+     * @param data the data points.
+     * @return the model.
+     */
+    public static HierarchicalClustering wpgmc(double[][] data) {
+        return centroid(data, true);
+    }
+
+    /**
+     * Fits the centroid or median linkage hierarchical clustering.
+     * @param data the data points.
+     * @param median if true, the center of merged cluster is the midpoint
+     *               of the centers. Otherwise, it is the centroid.
+     * @return the model.
+     */
+    private static HierarchicalClustering centroid(double[][] data, boolean median) {
+        int n = data.length;
+        Centroids centroids = new Centroids(data, median);
+        ClusterDistance distance = (a, b) -> MathEx.squaredDistance(centroids.center[a], centroids.center[b]);
+
+        boolean[] active = new boolean[n];
+        Arrays.fill(active, true);
+
+        // The nearest neighbor j > i of each cluster i.
+        int[] nn = new int[n];
+        double[] dist = new double[n];
+        IntStream.range(0, n).parallel().forEach(i -> nearest(i, active, distance, nn, dist));
+
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] h = new double[n - 1];
+        for (int k = 0; k < n - 1; k++) {
+            int nearest = -1;
+            for (int i = 0; i < n; i++) {
+                if (active[i] && nn[i] >= 0 && (nearest < 0 || dist[i] < dist[nearest])) {
+                    nearest = i;
+                }
+            }
+
+            int p = nearest;
+            int q = nn[p];
+            a[k] = p;
+            b[k] = q;
+            h[k] = Math.sqrt(dist[p]);
+
+            centroids.merge(p, q);
+            active[q] = false;
+
+            IntStream.range(0, n).parallel().forEach(i -> {
+                if (!active[i] || i == p) return;
+
+                if (nn[i] == p || nn[i] == q) {
+                    nearest(i, active, distance, nn, dist);
+                } else if (i < p) {
+                    double d = distance.d(i, p);
+                    if (d < dist[i]) {
+                        dist[i] = d;
+                        nn[i] = p;
+                    }
+                }
+            });
+
+            nearest(p, active, distance, nn, dist);
+        }
+
+        // The merges are in order as the heights may not be monotonic.
+        return tree(a, b, h, false);
+    }
+
+    /**
+     * The distance between clusters, which are identified by
+     * the index of a member.
+     */
+    private interface ClusterDistance {
+        /**
+         * Returns the distance between clusters.
+         * @param a the cluster id.
+         * @param b the cluster id.
+         * @return the distance.
+         */
+        double d(int a, int b);
+    }
+
+    /**
+     * The merge of clusters.
+     */
+    private interface ClusterMerge {
+        /**
+         * Merges cluster b into cluster a.
+         * @param a the cluster id.
+         * @param b the cluster id.
+         */
+        void merge(int a, int b);
+    }
+
+    /** The centroids and sizes of clusters. */
+    private static class Centroids {
+        /** The cluster centroids. */
+        final double[][] center;
+        /** The cluster sizes. */
+        final int[] size;
+
+        /** If true, the center of merged cluster is the midpoint of centers. */
+        final boolean median;
+
+        /**
+         * Constructor. The data points are not modified.
+         * @param data the data points.
+         * @param median if true, the center of merged cluster is the
+         *               midpoint of centers.
+         */
+        Centroids(double[][] data, boolean median) {
+            int n = data.length;
+            this.center = data.clone();
+            this.size = new int[n];
+            this.median = median;
+            Arrays.fill(size, 1);
+        }
+
+        /**
+         * Merges cluster b into cluster a.
+         * @param a the cluster id.
+         * @param b the cluster id.
+         */
+        void merge(int a, int b) {
+            double[] ca = center[a];
+            double[] cb = center[b];
+            double na = median ? 1 : size[a];
+            double nb = median ? 1 : size[b];
+            double[] c = new double[ca.length];
+            for (int i = 0; i < c.length; i++) {
+                c[i] = (na * ca[i] + nb * cb[i]) / (na + nb);
+            }
+
+            center[a] = c;
+            center[b] = null;
+            size[a] += size[b];
+        }
+    }
+
+    /**
+     * Computes the distances between the point k and the points before it.
+     */
+    private static <T> void distance(T[] data, Distance<T> distance, int k, double[] M) {
+        T x = data[k];
+        IntStream.range(0, k).parallel().forEach(i -> M[i] = distance.d(data[i], x));
+    }
+
+    /**
+     * Finds the nearest active cluster j &gt; i.
+     */
+    private static void nearest(int i, boolean[] active, ClusterDistance distance, int[] nn, double[] dist) {
+        nn[i] = -1;
+        dist[i] = Double.POSITIVE_INFINITY;
+        for (int j = i + 1; j < active.length; j++) {
+            if (active[j]) {
+                double d = distance.d(i, j);
+                if (d < dist[i]) {
+                    dist[i] = d;
+                    nn[i] = j;
+                }
+            }
+        }
+    }
+
+    /**
+     * The nearest-neighbor chain algorithm for reducible linkages.
+     * @param n the number of points.
+     * @param distance the distance between clusters.
+     * @param merge the merge of clusters.
+     * @return the model.
+     */
+    private static HierarchicalClustering nnchain(int n, ClusterDistance distance, ClusterMerge merge) {
+        // The active clusters and their positions in the array.
+        int[] active = new int[n];
+        int[] pos = new int[n];
+        for (int i = 0; i < n; i++) {
+            active[i] = i;
+            pos[i] = i;
+        }
+
+        int[] chain = new int[n];
+        double[] dist = new double[n];
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] h = new double[n - 1];
+
+        int size = n;
+        for (int k = 0, top = 0; k < n - 1;) {
+            if (top == 0) {
+                chain[top++] = active[0];
+            }
+
+            int x = chain[top - 1];
+            int prev = top > 1 ? chain[top - 2] : -1;
+
+            int m = size;
+            IntStream.range(0, m).parallel().forEach(i -> {
+                int y = active[i];
+                dist[i] = y == x || y == prev ? Double.POSITIVE_INFINITY : distance.d(x, y);
+            });
+
+            // Prefer the previous cluster in the chain in case of ties.
+            int y = prev;
+            double d = prev >= 0 ? distance.d(x, prev) : Double.POSITIVE_INFINITY;
+            for (int i = 0; i < m; i++) {
+                if (dist[i] < d) {
+                    d = dist[i];
+                    y = active[i];
+                }
+            }
+
+            if (y == prev) {
+                top -= 2;
+                a[k] = x;
+                b[k] = prev;
+                h[k++] = d;
+
+                int p = Math.min(x, prev);
+                int q = Math.max(x, prev);
+                merge.merge(p, q);
+
+                // Remove q from the active clusters.
+                int last = active[--size];
+                active[pos[q]] = last;
+                pos[last] = pos[q];
+            } else {
+                chain[top++] = y;
+            }
+        }
+
+        return tree(a, b, h, true);
+    }
+
+    /**
+     * Returns the model of the pointer representation of dendrogram.
+     * @param pi the last object in the cluster, which the object then joins.
+     * @param lambda the distance to the cluster.
+     * @return the model.
+     */
+    private static HierarchicalClustering pointer(int[] pi, double[] lambda) {
+        int n = pi.length;
+        int[] a = new int[n - 1];
+        int[] b = new int[n - 1];
+        double[] h = new double[n - 1];
+        for (int i = 0, k = 0; i < n; i++) {
+            if (pi[i] != i) {
+                a[k] = i;
+                b[k] = pi[i];
+                h[k++] = lambda[i];
+            }
+        }
+
+        return tree(a, b, h, true);
+    }
+
+    /**
+     * Returns the model of the merges. The clusters of each merge
+     * are identified by any of their members.
+     * @param a a member of the merged cluster.
+     * @param b a member of the other merged cluster.
+     * @param h the merge heights.
+     * @param sort if true, sort the merges by height, which is valid
+     *             for the linkages with monotonic heights. Otherwise,
+     *             the merges are in the order of agglomeration.
+     * @return the model.
+     */
+    private static HierarchicalClustering tree(int[] a, int[] b, double[] h, boolean sort) {
+        int n = a.length + 1;
+        int[] order = IntStream.range(0, n - 1).toArray();
+        double[] height = h.clone();
+        if (sort) {
+            QuickSort.sort(height, order);
+        }
+
+        // Union-find of the points and the cluster id of each root.
+        int[] parent = IntStream.range(0, n).toArray();
+        int[] id = IntStream.range(0, n).toArray();
+        int[][] merge = new int[n - 1][2];
+        for (int i = 0; i < n - 1; i++) {
+            int p = find(parent, a[order[i]]);
+            int q = find(parent, b[order[i]]);
+            merge[i][0] = Math.min(id[p], id[q]);
+            merge[i][1] = Math.max(id[p], id[q]);
+            parent[q] = p;
+            id[p] = n + i;
+        }
+
+        return new HierarchicalClustering(merge, height);
+    }
+
+    /** Returns the root of union-find with path halving. */
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
     /**
      * Returns an n-1 by 2 matrix of which row i describes the merging of clusters at
      * step i of the clustering. If an element j in the row is less than n, then
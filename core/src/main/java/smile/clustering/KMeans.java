@@ -17,6 +17,9 @@
 
 package smile.clustering;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
 import smile.math.MathEx;
 
 /**
@@ -50,7 +53,12 @@ import smile.math.MathEx;
  * that is O(log k) competitive to the optimal k-means solution.
  * <p>
  * We also use k-d trees to speed up each k-means step as described in the filter
- * algorithm by Kanungo, et al.
+ * algorithm by Kanungo, et al. As the k-d tree loses its advantage in high
+ * dimensional space, Hamerly's algorithm is also provided, which maintains
+ * the bounds of the distances to the nearest and second nearest centroids
+ * to skip most distance computations by the triangle inequality. For the
+ * data that don't fit in memory, the mini-batch k-means updates the
+ * centroids with small random batches of data.
  * <p>
  * K-means is a hard clustering method, i.e. each observation is assigned to
  * a specific cluster. In contrast, soft clustering, e.g. the
@@ -62,6 +70,9 @@ import smile.math.MathEx;
  * <li> Tapas Kanungo, David M. Mount, Nathan S. Netanyahu, Christine D. Piatko, Ruth Silverman, and Angela Y. Wu. An Efficient k-Means Clustering Algorithm: Analysis and Implementation. IEEE TRANS. PAMI, 2002.</li>
  * <li> D. Arthur and S. Vassilvitskii. "K-means++: the advantages of careful seeding". ACM-SIAM symposium on Discrete algorithms, 1027-1035, 2007.</li>
  * <li> Anna D. Peterson, Arka P. Ghosh and Ranjan Maitra. A systematic evaluation of different methods for initializing the K-means clustering algorithm. 2010.</li>
+ * <li> Greg Hamerly. Making k-means even faster. SIAM International Conference on Data Mining, 2010.</li>
+ * <li> Charles Elkan. Using the triangle inequality to accelerate k-means. ICML, 2003.</li>
+ * <li> D. Sculley. Web-scale k-means clustering. WWW, 2010.</li>
  * </ol>
  * 
  * @see XMeans
@@ -78,6 +89,12 @@ public class KMeans extends CentroidClustering<double[], double[]> {
     private static final long serialVersionUID = 2L;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(KMeans.class);
 
+    /**
+     * The number of observations assigned to each cluster, which starts
+     * with the cluster sizes and grows with online updates.
+     */
+    private long[] count;
+
     /**
      * Constructor.
      * @param distortion the total distortion.
@@ -93,6 +110,35 @@ public class KMeans extends CentroidClustering<double[], double[]> {
         return MathEx.squaredDistance(x, y);
     }
 
+    /**
+     * Updates the centroids with a mini-batch of new observations as
+     * in the mini-batch k-means. Each observation moves its nearest
+     * centroid with the learning rate 1 / count, where count is the
+     * number of observations assigned to the center so far, starting
+     * with the cluster size. The cost is O(m k d) for a batch of m
+     * observations. The cluster labels and distortion are of the
+     * training data and not updated.
+     * <p>
+     * The updates are serialized so that it is safe to call from
+     * multiple threads. The centroids are replaced by updated copies
+     * so that the concurrent predictions see either the old or new
+     * centroid of a cluster.
+     *
+     * @param x the new observations.
+     */
+    public synchronized void update(double[][] x) {
+        if (count == null) {
+            count = new long[k];
+            for (int c = 0; c < k; c++) {
+                count[c] = size[c];
+            }
+        }
+
+        int[] label = new int[x.length];
+        assign(label, x, centroids, MathEx::squaredDistance);
+        update(centroids, count, x, label);
+    }
+
     /**
      * Partitions data into k clusters up to 100 iterations.
      * @param data the input data of which each row is an observation.
@@ -227,4 +273,339 @@ public class KMeans extends CentroidClustering<double[], double[]> {
             }
         };
     }
+
+    /**
+     * Hamerly's algorithm, which accelerates Lloyd algorithm by the
+     * triangle inequality. The algorithm runs up to 100 iterations.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @return the model.
+     */
+    public static KMeans hamerly(double[][] data, int k) {
+        return hamerly(data, k, 100, 1E-4);
+    }
+
+    /**
+     * Hamerly's algorithm, which accelerates Lloyd algorithm by the
+     * triangle inequality. Each observation keeps an upper bound of the
+     * distance to its centroid and a lower bound of the distance to the
+     * second nearest centroid. The distances to all centroids are computed
+     * only if the upper bound is greater than the lower bound or half the
+     * distance between its centroid and the nearest other centroid.
+     * In contrast to Elkan's algorithm, which keeps k lower bounds for
+     * each observation, it takes O(n + k) extra memory and thus scales
+     * to many clusters.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param maxIter the maximum number of iterations.
+     * @param tol the tolerance of convergence test.
+     * @return the model.
+     */
+    public static KMeans hamerly(double[][] data, int k, int maxIter, double tol) {
+        if (k < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+
+        if (maxIter <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
+        }
+
+        int n = data.length;
+        int d = data[0].length;
+
+        int[] y = new int[n];
+        double[][] medoids = new double[k][];
+
+        double distortion = MathEx.sum(seed(data, medoids, y, MathEx::squaredDistance));
+        logger.info(String.format("Distortion after initialization: %.4f", distortion));
+
+        // The sum and size of each cluster, which are updated
+        // incrementally with the observations changing clusters.
+        double[][] sum = new double[k][d];
+        int[] size = new int[k];
+        for (int i = 0; i < n; i++) {
+            int c = y[i];
+            size[c]++;
+            double[] x = data[i];
+            double[] s = sum[c];
+            for (int j = 0; j < d; j++) {
+                s[j] += x[j];
+            }
+        }
+
+        double[][] centroids = new double[k][];
+        for (int c = 0; c < k; c++) {
+            centroids[c] = medoids[c].clone();
+        }
+
+        // The upper bound of distance to the centroid and
+        // the lower bound of distance to the second nearest centroid.
+        double[] upper = new double[n];
+        double[] lower = new double[n];
+        Arrays.fill(upper, Double.POSITIVE_INFINITY);
+
+        // The half distance to the nearest other centroid.
+        double[] half = new double[k];
+        double[] move = new double[k];
+        int[] label = new int[n];
+        double[] wcss = new double[n];
+
+        double diff = Double.MAX_VALUE;
+        for (int iter = 1; iter <= maxIter && diff > tol; iter++) {
+            // Update the centroids and the bounds by the movements.
+            int farthest = 0;
+            int second = -1;
+            for (int c = 0; c < k; c++) {
+                move[c] = 0.0;
+                if (size[c] > 0) {
+                    double[] centroid = centroids[c];
+                    double[] s = sum[c];
+                    double dist = 0.0;
+                    for (int j = 0; j < d; j++) {
+                        double mu = s[j] / size[c];
+                        double t = mu - centroid[j];
+                        dist += t * t;
+                        centroid[j] = mu;
+                    }
+                    move[c] = Math.sqrt(dist);
+                }
+
+                if (move[c] > move[farthest]) {
+                    second = farthest;
+                    farthest = c;
+                } else if (c != farthest && (second < 0 || move[c] > move[second])) {
+                    second = c;
+                }
+            }
+
+            int top = farthest;
+            double maxMove = move[farthest];
+            double secondMove = move[second];
+            IntStream.range(0, n).parallel().forEach(i -> {
+                upper[i] += move[y[i]];
+                lower[i] -= y[i] == top ? secondMove : maxMove;
+            });
+
+            IntStream.range(0, k).parallel().forEach(c -> {
+                double nearest = Double.MAX_VALUE;
+                double[] centroid = centroids[c];
+                for (int j = 0; j < k; j++) {
+                    if (j != c) {
+                        double dist = MathEx.squaredDistance(centroid, centroids[j]);
+                        if (dist < nearest) nearest = dist;
+                    }
+                }
+                half[c] = 0.5 * Math.sqrt(nearest);
+            });
+
+            // Assign the observations of which the bounds don't hold.
+            IntStream.range(0, n).parallel().forEach(i -> {
+                int c = y[i];
+                label[i] = c;
+                if (upper[i] > Math.max(half[c], lower[i])) {
+                    double[] x = data[i];
+                    double nearest = Double.MAX_VALUE;
+                    double secondNearest = Double.MAX_VALUE;
+                    for (int j = 0; j < k; j++) {
+                        double dist = MathEx.squaredDistance(x, centroids[j]);
+                        if (dist < nearest) {
+                            secondNearest = nearest;
+                            nearest = dist;
+                            label[i] = j;
+                        } else if (dist < secondNearest) {
+                            secondNearest = dist;
+                        }
+                    }
+                    lower[i] = Math.sqrt(secondNearest);
+                }
+
+                // Tighten the upper bound, which also gives the distortion.
+                wcss[i] = MathEx.squaredDistance(data[i], centroids[label[i]]);
+                upper[i] = Math.sqrt(wcss[i]);
+            });
+
+            for (int i = 0; i < n; i++) {
+                int from = y[i];
+                int to = label[i];
+                if (from != to) {
+                    size[from]--;
+                    size[to]++;
+                    double[] x = data[i];
+                    double[] s1 = sum[from];
+                    double[] s2 = sum[to];
+                    for (int j = 0; j < d; j++) {
+                        s1[j] -= x[j];
+                        s2[j] += x[j];
+                    }
+                    y[i] = to;
+                }
+            }
+
+            double distance = MathEx.sum(wcss);
+            logger.info(String.format("Distortion after %3d iterations: %.4f", iter, distance));
+            diff = distortion - distance;
+            distortion = distance;
+        }
+
+        // In case of early stop, we should recalculate centroids.
+        if (diff > tol) {
+            for (int c = 0; c < k; c++) {
+                if (size[c] > 0) {
+                    for (int j = 0; j < d; j++) {
+                        centroids[c][j] = sum[c][j] / size[c];
+                    }
+                }
+            }
+        }
+
+        return new KMeans(distortion, centroids, y);
+    }
+
+    /**
+     * Mini-batch k-means clustering on random batches of in-memory data.
+     * The centroids are updated with per-center learning rates, which
+     * decay with the number of observations assigned to the center.
+     * The cluster labels and distortion of the model are computed
+     * on the whole data with the final centroids.
+     * @param data the input data of which each row is an observation.
+     * @param k the number of clusters.
+     * @param batch the mini-batch size.
+     * @param maxIter the number of mini-batches.
+     * @return the model.
+     */
+    public static KMeans minibatch(double[][] data, int k, int batch, int maxIter) {
+        if (batch < k) {
+            throw new IllegalArgumentException("Invalid mini-batch size: " + batch);
+        }
+
+        if (maxIter <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
+        }
+
+        int n = data.length;
+        int size = Math.min(batch, n);
+        Iterator<double[][]> batches = new Iterator<double[][]>() {
+            int iter = 0;
+
+            @Override
+            public boolean hasNext() {
+                return iter < maxIter;
+            }
+
+            @Override
+            public double[][] next() {
+                iter++;
+                double[][] x = new double[size][];
+                for (int i = 0; i < size; i++) {
+                    x[i] = data[MathEx.randomInt(n)];
+                }
+                return x;
+            }
+        };
+
+        double[][] centroids = minibatch(batches, k);
+        int[] y = new int[n];
+        double distortion = assign(y, data, centroids, MathEx::squaredDistance);
+        logger.info(String.format("Distortion after %d mini-batches: %.4f", maxIter, distortion));
+        return new KMeans(distortion, centroids, y);
+    }
+
+    /**
+     * Mini-batch k-means clustering on a stream of data chunks, e.g.
+     * read from files that don't fit in memory. The centroids are
+     * initialized by k-means++ on the first chunk and then updated
+     * with each chunk in one pass. The data should be shuffled
+     * and each chunk should have at least k observations.
+     * <p>
+     * As the labels of all observations are not kept, the centroids
+     * are returned. Use {@link #assign(double[][], double[][]) assign}
+     * or the model of a sample to classify observations.
+     * @param batches the chunks of data.
+     * @param k the number of clusters.
+     * @return the centroids.
+     */
+    public static double[][] minibatch(Iterator<double[][]> batches, int k) {
+        if (k < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+
+        if (!batches.hasNext()) {
+            throw new IllegalArgumentException("Empty data");
+        }
+
+        double[][] batch = batches.next();
+        if (batch.length < k) {
+            throw new IllegalArgumentException("The first mini-batch is smaller than k: " + batch.length);
+        }
+
+        double[][] medoids = new double[k][];
+        seed(batch, medoids, new int[batch.length], MathEx::squaredDistance);
+
+        double[][] centroids = new double[k][];
+        for (int c = 0; c < k; c++) {
+            centroids[c] = medoids[c].clone();
+        }
+
+        // The number of observations assigned to each center so far.
+        long[] count = new long[k];
+        int[] y = new int[0];
+        for (int iter = 1; batch != null; iter++) {
+            if (y.length < batch.length) {
+                y = new int[batch.length];
+            }
+
+            double distortion = assign(y, batch, centroids, MathEx::squaredDistance);
+            update(centroids, count, batch, y);
+            logger.debug(String.format("Average distortion of mini-batch %d: %.4f", iter, distortion / batch.length));
+            batch = batches.hasNext() ? batches.next() : null;
+        }
+
+        return centroids;
+    }
+
+    /**
+     * Moves the centroids toward the assigned observations with the
+     * per-center learning rates, which decay with the number of
+     * observations assigned to the center. The moved centroids are
+     * copies, which replace the old ones at the end.
+     * @param centroids the centroids.
+     * @param count the number of observations assigned to each center.
+     * @param x the observations.
+     * @param label the cluster labels of observations.
+     */
+    private static void update(double[][] centroids, long[] count, double[][] x, int[] label) {
+        int k = centroids.length;
+        double[][] moved = new double[k][];
+        for (int i = 0; i < x.length; i++) {
+            int c = label[i];
+            if (moved[c] == null) {
+                moved[c] = centroids[c].clone();
+            }
+
+            double eta = 1.0 / ++count[c];
+            double[] xi = x[i];
+            double[] centroid = moved[c];
+            for (int j = 0; j < centroid.length; j++) {
+                centroid[j] += eta * (xi[j] - centroid[j]);
+            }
+        }
+
+        for (int c = 0; c < k; c++) {
+            if (moved[c] != null) {
+                centroids[c] = moved[c];
+            }
+        }
+    }
+
+    /**
+     * Assigns each observation to the nearest centroid.
+     * @param data the observations.
+     * @param centroids the centroids.
+     * @return the cluster labels.
+     */
+    public static int[] assign(double[][] data, double[][] centroids) {
+        int[] y = new int[data.length];
+        assign(y, data, centroids, MathEx::squaredDistance);
+        return y;
+    }
 }
@@ -20,10 +20,14 @@ package smile.clustering;
 import java.io.Serializable;
 import java.util.stream.IntStream;
 
+import smile.graph.AdjacencyList;
+import smile.graph.Graph.Edge;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
 import smile.math.matrix.ARPACK;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.SparseMatrix;
 
 /**
  * Spectral Clustering. Given a set of data points, the similarity matrix may
@@ -167,6 +171,83 @@ public class SpectralClustering extends PartitionClustering implements Serializa
         return fit(W, k, maxIter, tol);
     }
 
+    /**
+     * Spectral clustering on the sparse similarity graph of k-nearest
+     * neighbors, which may be approximate, e.g. by
+     * {@link NearestNeighborGraph#descent(double[][], int) NN-Descent}.
+     * In contrast to the dense similarity matrix, the memory and time
+     * of eigen decomposition are linear in the number of samples.
+     * @param nng the k-nearest neighbor graph.
+     * @param k the number of clusters.
+     * @param sigma the smooth/width parameter of Gaussian kernel.
+     * @return the model.
+     */
+    public static SpectralClustering fit(NearestNeighborGraph nng, int k, double sigma) {
+        return fit(nng, k, sigma, 100, 1E-4);
+    }
+
+    /**
+     * Spectral clustering on the sparse similarity graph of k-nearest
+     * neighbors, which may be approximate, e.g. by
+     * {@link NearestNeighborGraph#descent(double[][], int) NN-Descent}.
+     * In contrast to the dense similarity matrix, the memory and time
+     * of eigen decomposition are linear in the number of samples.
+     * @param nng the k-nearest neighbor graph.
+     * @param k the number of clusters.
+     * @param sigma the smooth/width parameter of Gaussian kernel.
+     * @param maxIter the maximum number of iterations for k-means.
+     * @param tol the tolerance of k-means convergence test.
+     * @return the model.
+     */
+    public static SpectralClustering fit(NearestNeighborGraph nng, int k, double sigma, int maxIter, double tol) {
+        if (k < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+
+        if (sigma <= 0.0) {
+            throw new IllegalArgumentException("Invalid standard deviation of Gaussian kernel: " + sigma);
+        }
+
+        int n = nng.size();
+        double gamma = -0.5 / (sigma * sigma);
+
+        // The symmetric kNN graph of which the edges are weighted by Gaussian kernel.
+        AdjacencyList graph = new AdjacencyList(n, false);
+        for (int i = 0; i < n; i++) {
+            int[] neighbors = nng.neighbors[i];
+            double[] distances = nng.distances[i];
+            for (int j = 0; j < neighbors.length; j++) {
+                double d = distances[j];
+                graph.setWeight(i, neighbors[j], Math.exp(gamma * d * d));
+            }
+        }
+
+        double[] D = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (Edge edge : graph.getEdges(i)) {
+                D[i] += edge.weight;
+            }
+
+            if (D[i] == 0.0) {
+                throw new IllegalArgumentException("Isolated vertex: " + i);
+            }
+
+            D[i] = 1.0 / Math.sqrt(D[i]);
+        }
+
+        SparseMatrix W = graph.toMatrix();
+        W.nonzeros().forEach(e -> e.update(D[e.i] * e.x * D[e.j]));
+
+        Matrix.EVD eigen = ARPACK.syev(W, ARPACK.SymmOption.LA, k);
+        double[][] Y = eigen.Vr.toArray();
+        for (int i = 0; i < n; i++) {
+            MathEx.unitize2(Y[i]);
+        }
+
+        KMeans kmeans = KMeans.fit(Y, k, maxIter, tol);
+        return new SpectralClustering(kmeans.distortion, k, kmeans.y);
+    }
+
     /**
      * Spectral clustering with Nystrom approximation.
      * @param data the input data of which each row is an observation.
@@ -54,7 +54,7 @@ public abstract class Linkage {
      */
     public Linkage(double[][] proximity) {
         this.size = proximity.length;
-        this.proximity = new float[size * (size+1) / 2];
+        this.proximity = new float[length(size)];
 
         // row wise
         //for (int i = 0, k = 0; i < size; i++) {
@@ -82,14 +82,27 @@ public abstract class Linkage {
      *                  without copy. The elements may be modified.
      */
     public Linkage(int size, float[] proximity) {
-        if (proximity.length != size * (size+1) / 2) {
-            throw new IllegalArgumentException(String.format("The length of proximity is %d, expected %d", proximity.length, size * (size+1) / 2));
+        if (proximity.length != length(size)) {
+            throw new IllegalArgumentException(String.format("The length of proximity is %d, expected %d", proximity.length, length(size)));
         }
 
         this.size = size;
         this.proximity = proximity;
     }
 
+    /**
+     * Returns the length of linearized proximity matrix.
+     * @param size the data size.
+     * @return the length of linearized proximity matrix.
+     */
+    private static int length(int size) {
+        long length = (long) size * (size+1) / 2;
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(String.format("The proximity matrix of %d samples is too large. Use the O(n) memory methods of HierarchicalClustering instead.", size));
+        }
+        return (int) length;
+    }
+
     /**
      * Returns the linearized index of proximity matrix.
      *
@@ -101,7 +114,8 @@ public abstract class Linkage {
         // row wise
         // return i > j ? i*(i+1)/2 + j : j*(j+1)/2 + i;
         // column wise
-        return i > j ? proximity.length - (size-j)*(size-j+1)/2 + i - j : proximity.length - (size-i)*(size-i+1)/2 + j - i;
+        // use long to avoid the overflow of (size-j)*(size-j+1)
+        return i > j ? (int) (proximity.length - (long) (size-j)*(size-j+1)/2 + i - j) : (int) (proximity.length - (long) (size-i)*(size-i+1)/2 + j - i);
     }
 
     /**
@@ -153,12 +167,12 @@ public abstract class Linkage {
      */
     public static <T> float[] proximity(T[] data, Distance<T> distance) {
         int n = data.length;
-        int length = n * (n+1) / 2;
+        int length = length(n);
 
         float[] proximity = new float[length];
         IntStream.range(0, n).parallel().forEach(i -> {
             for (int j = 0; j < i; j++) {
-                int k = length - (n-j)*(n-j+1)/2 + i - j;
+                int k = (int) (length - (long) (n-j)*(n-j+1)/2 + i - j);
                 proximity[k] = (float) distance.d(data[i], data[j]);
             }
         });
@@ -56,6 +56,32 @@ public interface ActivationFunction extends Serializable {
      */
     void g(double[] g, double[] y);
 
+    /**
+     * The output function on a mini-batch. The default implementation
+     * applies the function element-wise on the whole matrix, which
+     * should be overridden by functions not element-wise such as softmax.
+     * @param x the input matrix in column-major order, of which each column
+     *          is a sample. On output, it holds the activations.
+     * @param n the number of rows, i.e. the number of neurons.
+     */
+    default void f(double[] x, int n) {
+        f(x);
+    }
+
+    /**
+     * The gradient function on a mini-batch. The default implementation
+     * applies the function element-wise on the whole matrix.
+     * @param g the gradient matrix in column-major order, of which each
+     *          column is a sample. On input, it holds W'*G, where W and G
+     *          are the weight matrix and gradient of upper layer,
+     *          respectively. On output, it is the gradient of this layer.
+     * @param y the output matrix in column-major order.
+     * @param n the number of rows, i.e. the number of neurons.
+     */
+    default void g(double[] g, double[] y, int n) {
+        g(g, y);
+    }
+
     /**
      * Returns the rectifier activation function {@code max(0, x)}.
      *
@@ -47,6 +47,16 @@ public class Softmax implements ActivationFunction {
         MathEx.softmax(x);
     }
 
+    @Override
+    public void f(double[] x, int n) {
+        double[] column = new double[n];
+        for (int j = 0; j < x.length; j += n) {
+            System.arraycopy(x, j, column, 0, n);
+            MathEx.softmax(column);
+            System.arraycopy(column, 0, x, j, n);
+        }
+    }
+
     @Override
     public void g(double[] g, double[] y) {
         for (int i = 0; i < g.length; i++) {
@@ -17,10 +17,8 @@
 
 package smile.deep.optimizer;
 
-import java.util.Arrays;
 import smile.base.mlp.Layer;
 import smile.math.TimeFunction;
-import smile.math.matrix.Matrix;
 
 /**
  * Adaptive Moment optimizer. Adam computes adaptive learning rates for
@@ -96,53 +94,6 @@ public class Adam implements Optimizer {
 
     @Override
     public void update(Layer layer, int m, int t) {
-        /*
-        Matrix weightGradient = layer.weightGradient.get();
-        double[] biasGradient = layer.biasGradient.get();
-
-        // Instead of computing the average gradient explicitly,
-        // we scale down the learning rate by the number of samples.
-        double eta = learningRate.apply(t) / m;
-        int n = layer.n;
-        int p = layer.p;
-
-        weightGradient.div(m);
-        for (int i = 0; i < n; i++) {
-            biasGradient[i] /= m;
-        }
-
-        Matrix weightGradientMoment1 = layer.weightGradientMoment1.get();
-        Matrix weightGradientMoment2 = layer.weightGradientMoment2.get();
-        double[] biasGradientMoment1 = layer.biasGradientMoment1.get();
-        double[] biasGradientMoment2 = layer.biasGradientMoment2.get();
-
-        weightGradientMoment1.add(beta1, 1.0 - beta1, weightGradient);
-        weightGradientMoment2.add2(beta2, 1.0 - beta2, weightGradient);
-        for (int i = 0; i < n; i++) {
-            biasGradientMoment1[i] = beta1 * biasGradientMoment2[i] + (1.0 - beta1) * biasGradient[i];
-            biasGradientMoment2[i] = beta2 * biasGradientMoment2[i] + (1.0 - beta2) * biasGradient[i] * biasGradient[i];
-        }
-
-        Matrix weight = layer.weight;
-        double[] bias = layer.bias;
-        double beta1t = 1.0 - Math.pow(beta1, t);
-        double beta2t = 1.0 - Math.pow(beta2, t);
-        for (int j = 0; j < p; j++) {
-            for (int i = 0; i < n; i++) {
-                double s = weightGradientMoment1.get(i, j);
-                double r = weightGradientMoment2.get(i, j);
-                weight.add(i, j, eta * (s / beta1t) / (Math.sqrt(r / beta2t) + epsilon));
-            }
-        }
-        for (int i = 0; i < n; i++) {
-            double s = biasGradientMoment1[i];
-            double r = biasGradientMoment2[i];
-            bias[i] += eta * (s / beta1t) / (Math.sqrt(r / beta2t) + epsilon);
-        }
-
-        weightGradient.fill(0.0);
-        Arrays.fill(biasGradient, 0.0);
-
-         */
+        layer.adam(m, t, learningRate.apply(t), beta1, beta2, epsilon);
     }
 }
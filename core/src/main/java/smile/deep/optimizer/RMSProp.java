@@ -17,10 +17,8 @@
 
 package smile.deep.optimizer;
 
-import java.util.Arrays;
 import smile.base.mlp.Layer;
 import smile.math.TimeFunction;
-import smile.math.matrix.Matrix;
 
 /**
  * RMSProp optimizer with adaptive learning rate. RMSProp uses a moving
@@ -79,44 +77,6 @@ public class RMSProp implements Optimizer {
 
     @Override
     public void update(Layer layer, int m, int t) {
-        /*
-        Matrix weightGradient = layer.weightGradient.get();
-        double[] biasGradient = layer.biasGradient.get();
-
-        // As gradient will be averaged and smoothed in RMSProp,
-        // we need to use the original learning rate.
-        double eta = learningRate.apply(t);
-        int p = layer.p;
-        int n = layer.n;
-
-        weightGradient.div(m);
-        for (int i = 0; i < n; i++) {
-            biasGradient[i] /= m;
-        }
-
-        Matrix weightGradientMoment2 = layer.weightGradientMoment2.get();
-        double[] biasGradientMoment2 = layer.biasGradientMoment2.get();
-
-        double rho1 = 1.0 - rho;
-        weightGradientMoment2.add2(rho, rho1, weightGradient);
-        for (int i = 0; i < n; i++) {
-            biasGradientMoment2[i] = rho * biasGradientMoment2[i] + rho1 * biasGradient[i] * biasGradient[i];
-        }
-
-        Matrix weight = layer.weight;
-        double[] bias = layer.bias;
-        for (int j = 0; j < p; j++) {
-            for (int i = 0; i < n; i++) {
-                weight.add(i, j, eta * weightGradient.get(i, j) / Math.sqrt(epsilon + weightGradientMoment2.get(i, j)));
-            }
-        }
-        for (int i = 0; i < n; i++) {
-            bias[i] += eta * biasGradient[i] / Math.sqrt(epsilon + biasGradientMoment2[i]);
-        }
-
-        weightGradient.fill(0.0);
-        Arrays.fill(biasGradient, 0.0);
-
-         */
+        layer.update(m, learningRate.apply(t), 0.0, 1.0, rho, epsilon);
     }
 }
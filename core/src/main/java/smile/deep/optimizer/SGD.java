@@ -17,11 +17,8 @@
 
 package smile.deep.optimizer;
 
-import java.util.Arrays;
 import smile.base.mlp.Layer;
-import smile.math.MathEx;
 import smile.math.TimeFunction;
-import smile.math.matrix.Matrix;
 
 /**
  * Stochastic gradient descent (with momentum) optimizer.
@@ -72,37 +69,7 @@ public class SGD implements Optimizer {
 
     @Override
     public void update(Layer layer, int m, int t) {
-        /*
-        Matrix weightGradient = layer.weightGradient.get();
-        double[] biasGradient = layer.biasGradient.get();
-
-        // Instead of computing the average gradient explicitly,
-        // we scale down the learning rate by the number of samples.
-        double eta = learningRate.apply(t) / m;
-        int n = layer.n;
-
-        if (momentum == null) {
-            layer.weight.add(eta, weightGradient);
-            for (int i = 0; i < n; i++) {
-                layer.bias[i] += eta * biasGradient[i];
-            }
-        } else {
-            double alpha = momentum.apply(t);
-            Matrix weightUpdate = layer.weightUpdate.get();
-            double[] biasUpdate = layer.biasUpdate.get();
-
-            weightUpdate.add(alpha, eta, weightGradient);
-            for (int i = 0; i < n; i++) {
-                biasUpdate[i] = alpha * biasUpdate[i] + eta * biasGradient[i];
-            }
-
-            layer.weight.add(weightUpdate);
-            MathEx.add(layer.bias, biasUpdate);
-        }
-
-        weightGradient.fill(0.0);
-        Arrays.fill(biasGradient, 0.0);
-
-         */
+        double alpha = momentum == null ? 0.0 : momentum.apply(t);
+        layer.update(m, learningRate.apply(t), alpha, 1.0, 0.0, 0.0);
     }
 }
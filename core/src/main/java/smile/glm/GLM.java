@@ -27,11 +27,14 @@ import smile.data.Tuple;
 import smile.data.formula.Formula;
 import smile.glm.model.Model;
 import smile.math.MathEx;
+import smile.math.blas.UPLO;
 import smile.math.matrix.Matrix;
 import smile.math.special.Erf;
 import smile.stat.Hypothesis;
 import smile.validation.ModelSelection;
 
+import static smile.math.blas.Transpose.NO_TRANSPOSE;
+
 /**
  * Generalized linear models. The generalized linear model (GLM) is a flexible
  * generalization of ordinary linear regression that allows for response
@@ -88,9 +91,10 @@ public class GLM implements Serializable {
      */
     protected Model model;
     /**
-     * The linear weights.
+     * The linear weights. The online updates publish a new array
+     * instead of modifying it in place.
      */
-    protected double[] beta;
+    protected volatile double[] beta;
     /**
      * The coefficients, their standard errors, z-scores, and p-values.
      */
@@ -129,6 +133,11 @@ public class GLM implements Serializable {
      * Log-likelihood.
      */
     protected double logLikelihood;
+    /**
+     * The inverse of Fisher information matrix X'WX at the estimates,
+     * which is updated with each new mini-batch in online learning.
+     */
+    Matrix V;
 
     /**
      * Constructor.
@@ -236,6 +245,7 @@ public class GLM implements Serializable {
      */
     public double predict(Tuple x) {
         double[] a = formula.x(x).toArray(true, CategoricalEncoder.DUMMY);
+        double[] beta = this.beta;
         int p = beta.length;
         double dot = 0.0;
         for (int i = 0; i < p; i++) {
@@ -251,8 +261,7 @@ public class GLM implements Serializable {
      * @return the mean response.
      */
     public double[] predict(DataFrame data) {
-        Matrix X = formula.matrix(data, true);
-        double[] y = X.mv(beta);
+        double[] y = formula.x(data).mv(true, CategoricalEncoder.DUMMY, beta);
         int n = y.length;
         for (int i = 0; i < n; i++) {
             y[i] = model.invlink(y[i]);
@@ -260,6 +269,85 @@ public class GLM implements Serializable {
         return y;
     }
 
+    /**
+     * Online update the model with a mini-batch of samples by the recursive
+     * Fisher scoring. The working weights and responses of new samples are
+     * evaluated at the current estimates. Then the coefficients take one
+     * scoring step with the Fisher information accumulated over all samples
+     * seen so far, which is maintained in inverse by the Woodbury identity
+     * with the blocks of at most p samples. For the Gaussian model with
+     * identity link, it is the recursive least squares. The cost is
+     * O(n p<sup>2</sup>) for a batch of n samples.
+     * <p>
+     * The deviance, fitted values and z-test are of the initial fit
+     * and not updated.
+     *
+     * @param data the training data.
+     */
+    public void update(DataFrame data) {
+        update(formula.matrix(data, true), formula.y(data).toDoubleArray());
+    }
+
+    /**
+     * Recursive Fisher scoring.
+     * @param X the design matrix of samples.
+     * @param y the response variable.
+     */
+    private synchronized void update(Matrix X, double[] y) {
+        if (V == null) {
+            throw new UnsupportedOperationException("The model doesn't support online learning");
+        }
+
+        double[] beta = this.beta.clone();
+        int p = beta.length;
+        if (X.ncol() != p) {
+            throw new IllegalArgumentException(String.format("Invalid input vector size: %d, expected: %d", X.ncol(), p));
+        }
+
+        int n = X.nrow();
+        for (int from = 0; from < n; from += p) {
+            int to = Math.min(from + p, n);
+            int m = to - from;
+
+            // The weighted design matrix and working residuals.
+            Matrix XW = new Matrix(m, p);
+            double[] z = new double[m];
+            for (int i = 0; i < m; i++) {
+                double eta = 0.0;
+                for (int j = 0; j < p; j++) {
+                    eta += X.get(from + i, j) * beta[j];
+                }
+
+                double mu = model.invlink(eta);
+                double g = model.dlink(mu);
+                double w = 1.0 / (g * Math.sqrt(model.variance(mu)));
+                z[i] = (y[from + i] - mu) * g * w;
+                for (int j = 0; j < p; j++) {
+                    XW.set(i, j, X.get(from + i, j) * w);
+                }
+            }
+
+            // V = V - V X' (I + X V X')^-1 X V
+            Matrix VXt = V.mt(XW);
+            Matrix S = XW.mm(VXt);
+            for (int i = 0; i < m; i++) {
+                S.add(i, i, 1.0);
+            }
+
+            Matrix U = VXt.transpose(false);
+            S.uplo(UPLO.LOWER).cholesky(true).solve(U);
+            V.mm(NO_TRANSPOSE, VXt, NO_TRANSPOSE, U, -1.0, 1.0);
+
+            // The scoring step.
+            double[] delta = V.mv(XW.tv(z));
+            for (int j = 0; j < p; j++) {
+                beta[j] += delta[j];
+            }
+        }
+
+        this.beta = beta;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -419,6 +507,8 @@ public class GLM implements Serializable {
             ztest[i][3] = 2.0 - Erf.erfc(-0.707106781186547524 * Math.abs(ztest[i][2]));
         }
 
-        return new GLM(formula, X.colNames(), model, beta, model.logLikelihood(y, mu), dev, model.nullDeviance(y, MathEx.mean(y)), mu, residuals, ztest);
+        GLM glm = new GLM(formula, X.colNames(), model, beta, model.logLikelihood(y, mu), dev, model.nullDeviance(y, MathEx.mean(y)), mu, residuals, ztest);
+        glm.V = inv;
+        return glm;
     }
 }
@@ -19,7 +19,7 @@ package smile.manifold;
 
 import java.io.Serializable;
 import smile.graph.AdjacencyList;
-import smile.graph.Graph.Edge;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
 import smile.math.distance.Distance;
@@ -145,29 +145,46 @@ public class IsoMap implements Serializable {
      * @return the model.
      */
     public static <T> IsoMap of(T[] data, Distance<T> distance, int k, int d, boolean conformal) {
-        AdjacencyList graph;
-        if (!conformal) {
-            graph = NearestNeighborGraph.of(data, distance, k, false, null);
-        } else {
-            int n = data.length;
-            double[] M = new double[n];
-            graph = NearestNeighborGraph.of(data, distance, k, false, (v1, v2, weight, j) -> M[v1] += weight);
+        return of(NearestNeighborGraph.of(data, distance, k), d, conformal);
+    }
 
+    /**
+     * Runs the Isomap algorithm on a k-nearest neighbor graph, which may be
+     * approximate, e.g. by {@link NearestNeighborGraph#descent(Object[], Distance, int) NN-Descent}
+     * for large datasets.
+     * @param nng the k-nearest neighbor graph.
+     * @param d the dimension of the manifold.
+     * @param conformal C-Isomap algorithm if true, otherwise standard algorithm.
+     * @return the model.
+     */
+    public static IsoMap of(NearestNeighborGraph nng, int d, boolean conformal) {
+        if (conformal) {
+            int n = nng.size();
+            double[] M = new double[n];
             for (int i = 0; i < n; i++) {
-                M[i] = Math.sqrt(M[i] / k);
+                for (double weight : nng.distances[i]) {
+                    M[i] += weight;
+                }
+                M[i] = Math.sqrt(M[i] / nng.k);
             }
 
-            for (Edge edge : graph.getEdges()) {
-                edge.weight /= (M[edge.v1] * M[edge.v2]);
+            double[][] distances = new double[n][];
+            for (int i = 0; i < n; i++) {
+                int[] neighbors = nng.neighbors[i];
+                distances[i] = nng.distances[i].clone();
+                for (int j = 0; j < neighbors.length; j++) {
+                    distances[i][j] /= (M[i] * M[neighbors[j]]);
+                }
             }
+            nng = new NearestNeighborGraph(nng.k, nng.neighbors, distances, nng.index);
         }
 
         // Use largest connected component of nearest neighbor graph.
-        NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
+        nng = nng.largest(false);
 
         int[] index = nng.index;
         int n = index.length;
-        graph = nng.graph;
+        AdjacencyList graph = nng.graph(false);
 
         double[][] D = graph.dijkstra();
         for (int i = 0; i < n; i++) {
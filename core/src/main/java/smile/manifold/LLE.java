@@ -20,12 +20,13 @@ package smile.manifold;
 import java.io.Serializable;
 import java.util.Arrays;
 import smile.graph.AdjacencyList;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
 import smile.math.blas.Transpose;
 import smile.math.matrix.ARPACK;
+import smile.math.matrix.CSRMatrix;
 import smile.math.matrix.IMatrix;
 import smile.math.matrix.Matrix;
-import smile.math.matrix.SparseMatrix;
 
 /**
  * Locally Linear Embedding. It has several advantages over Isomap, including
@@ -98,6 +99,24 @@ public class LLE implements Serializable {
      * @return the model.
      */
     public static LLE of(double[][] data, int k, int d) {
+        return of(data, NearestNeighborGraph.of(data, k), d);
+    }
+
+    /**
+     * Runs the LLE algorithm on a k-nearest neighbor graph, which may be
+     * approximate, e.g. by {@link NearestNeighborGraph#descent(double[][], int) NN-Descent}
+     * for large datasets.
+     * @param data the input data.
+     * @param nng the k-nearest neighbor graph of data.
+     * @param d the dimension of the manifold.
+     * @return the model.
+     */
+    public static LLE of(double[][] data, NearestNeighborGraph nng, int d) {
+        if (nng.size() != data.length) {
+            throw new IllegalArgumentException("The size of nearest neighbor graph and data are different.");
+        }
+
+        int k = nng.k;
         int D = data[0].length;
 
         double tol = 0.0;
@@ -107,13 +126,12 @@ public class LLE implements Serializable {
         }
 
         // Use largest connected component of nearest neighbor graph.
-        int[][] N = new int[data.length][k];
-        AdjacencyList graph = NearestNeighborGraph.of(data, k, false, (v1, v2, weight, j) -> N[v1][j] = v2);
-        NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
+        int[][] N = nng.neighbors;
+        NearestNeighborGraph largest = nng.largest(false);
 
-        int[] index = nng.index;
+        int[] index = largest.index;
         int n = data.length;
-        graph = nng.graph;
+        AdjacencyList graph = largest.graph(false);
 
         // The reverse index maps the original data to the largest connected component
         // in case that the graph is disconnected.
@@ -177,12 +195,13 @@ public class LLE implements Serializable {
             m++;
         }
 
-        // This is the transpose of W in the paper.
-        SparseMatrix Wt = new SparseMatrix(n, n, w, rowIndex, colIndex);
+        // The column-compressed arrays of W' are the
+        // row-compressed arrays of W in the paper.
+        CSRMatrix W = new CSRMatrix(n, n, w, colIndex, rowIndex);
 
         // ARPACK may not find all needed eigenvalues for k = d + 1.
         // Hack it with 10 * (d + 1).
-        Matrix.EVD eigen = ARPACK.syev(new M(Wt), ARPACK.SymmOption.SM, Math.min(10*(d+1), n-1));
+        Matrix.EVD eigen = ARPACK.syev(new M(W), ARPACK.SymmOption.SM, Math.min(10*(d+1), n-1));
 
         Matrix V = eigen.Vr;
         // Sometimes, ARPACK doesn't compute the smallest eigenvalue (i.e. 0).
@@ -205,24 +224,24 @@ public class LLE implements Serializable {
      * compute only W * v and W' * v efficiently.
      */
     private static class M extends IMatrix {
-        SparseMatrix Wt;
+        CSRMatrix W;
         double[] x;
         double[] Wx;
         double[] Wtx;
         double[] WtWx;
 
-        public M(SparseMatrix Wt) {
-            this.Wt = Wt;
+        public M(CSRMatrix W) {
+            this.W = W;
 
-            x = new double[Wt.nrow()];
-            Wx = new double[Wt.nrow()];
-            Wtx = new double[Wt.ncol()];
-            WtWx = new double[Wt.nrow()];
+            x = new double[W.nrow()];
+            Wx = new double[W.nrow()];
+            Wtx = new double[W.ncol()];
+            WtWx = new double[W.nrow()];
         }
 
         @Override
         public int nrow() {
-            return Wt.nrow();
+            return W.nrow();
         }
 
         @Override
@@ -232,15 +251,15 @@ public class LLE implements Serializable {
 
         @Override
         public long size() {
-            return Wt.size();
+            return W.size();
         }
 
         @Override
         public void mv(double[] work, int inputOffset, int outputOffset) {
             System.arraycopy(work, inputOffset, x, 0, x.length);
-            Wt.tv(x, Wx);
-            Wt.mv(x, Wtx);
-            Wt.mv(Wx, WtWx);
+            W.mv(x, Wx);
+            W.tv(x, Wtx);
+            W.tv(Wx, WtWx);
 
             int n = x.length;
             for (int i = 0; i < n; i++) {
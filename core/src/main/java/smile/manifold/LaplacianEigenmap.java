@@ -23,6 +23,7 @@ import java.util.Collection;
 import smile.data.SparseDataset;
 import smile.graph.AdjacencyList;
 import smile.graph.Graph.Edge;
+import smile.graph.NearestNeighborGraph;
 import smile.math.distance.Distance;
 import smile.math.distance.EuclideanDistance;
 import smile.math.matrix.ARPACK;
@@ -144,13 +145,26 @@ public class LaplacianEigenmap implements Serializable {
      * @return the model.
      */
     public static <T> LaplacianEigenmap of(T[] data, Distance<T> distance, int k, int d, double t) {
+        return of(NearestNeighborGraph.of(data, distance, k), d, t);
+    }
+
+    /**
+     * Laplacian Eigenmap on a k-nearest neighbor graph, which may be
+     * approximate, e.g. by {@link NearestNeighborGraph#descent(Object[], Distance, int) NN-Descent}
+     * for large datasets.
+     * @param nng the k-nearest neighbor graph.
+     * @param d the dimension of the manifold.
+     * @param t the smooth/width parameter of heat kernel exp(-||x-y||<sup>2</sup> / t).
+     *          Non-positive value means discrete weights.
+     * @return the model.
+     */
+    public static LaplacianEigenmap of(NearestNeighborGraph nng, int d, double t) {
         // Use largest connected component of nearest neighbor graph.
-        AdjacencyList graph = NearestNeighborGraph.of(data, distance, k, false, null);
-        NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
+        nng = nng.largest(false);
 
         int[] index = nng.index;
         int n = index.length;
-        graph = nng.graph;
+        AdjacencyList graph = nng.graph(false);
 
         double[] D = new double[n];
         double gamma = -1.0 / t;
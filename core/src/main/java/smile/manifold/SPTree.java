@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.manifold;
+
+import java.util.Arrays;
+
+/**
+ * The space-partitioning tree for Barnes-Hut approximation of the
+ * repulsive forces in t-SNE. It is a generalization of quadtree
+ * (2-dimensional) and octree (3-dimensional) to d dimensions. Each
+ * node keeps the number of points and the center of mass of its cell.
+ * A cell is split at the center of the bounding box of its points
+ * into at most 2<sup>d</sup> children.
+ *
+ * @author Haifeng Li
+ */
+class SPTree {
+    /** The coordinates of points. */
+    private final double[][] Y;
+    /** The dimension of space. */
+    private final int d;
+    /** The points in the order of leaves. */
+    private final int[] order;
+    /** The code buffer of partition. */
+    private final int[] code;
+    /** The root node. */
+    private final Node root;
+
+    /**
+     * The node of tree.
+     */
+    private static class Node {
+        /** The index of first point in order. */
+        int begin;
+        /** The index of last point (exclusive) in order. */
+        int end;
+        /** The center of mass. */
+        double[] center;
+        /** The maximum side length of bounding box. */
+        double width;
+        /** The children, null for leaf. */
+        Node[] children;
+    }
+
+    /**
+     * Constructor.
+     * @param Y the coordinates of points.
+     */
+    SPTree(double[][] Y) {
+        this.Y = Y;
+        this.d = Y[0].length;
+
+        int n = Y.length;
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        code = new int[n];
+        root = build(0, n);
+    }
+
+    /** Builds the subtree of points in order[begin, end). */
+    private Node build(int begin, int end) {
+        Node node = new Node();
+        node.begin = begin;
+        node.end = end;
+        node.center = new double[d];
+
+        double[] min = new double[d];
+        double[] max = new double[d];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+
+        for (int i = begin; i < end; i++) {
+            double[] y = Y[order[i]];
+            for (int k = 0; k < d; k++) {
+                node.center[k] += y[k];
+                if (y[k] < min[k]) min[k] = y[k];
+                if (y[k] > max[k]) max[k] = y[k];
+            }
+        }
+
+        int count = end - begin;
+        for (int k = 0; k < d; k++) {
+            node.center[k] /= count;
+            node.width = Math.max(node.width, max[k] - min[k]);
+        }
+
+        // A leaf has only one point or duplicate points.
+        if (count == 1 || node.width == 0.0) {
+            return node;
+        }
+
+        int m = 1 << d;
+        int[] size = new int[m + 1];
+        for (int i = begin; i < end; i++) {
+            double[] y = Y[order[i]];
+            int c = 0;
+            for (int k = 0; k < d; k++) {
+                if (y[k] > (min[k] + max[k]) / 2) {
+                    c |= 1 << k;
+                }
+            }
+            code[i] = c;
+            size[c + 1]++;
+        }
+
+        // Counting sort of points by the child cell.
+        for (int c = 0; c < m; c++) {
+            size[c + 1] += size[c];
+        }
+
+        int[] pos = Arrays.copyOf(size, m);
+        int[] sorted = new int[count];
+        for (int i = begin; i < end; i++) {
+            sorted[pos[code[i]]++] = order[i];
+        }
+        System.arraycopy(sorted, 0, order, begin, count);
+
+        int nonempty = 0;
+        for (int c = 0; c < m; c++) {
+            if (size[c + 1] > size[c]) nonempty++;
+        }
+
+        node.children = new Node[nonempty];
+        for (int c = 0, j = 0; c < m; c++) {
+            if (size[c + 1] > size[c]) {
+                node.children[j++] = build(begin + size[c], begin + size[c + 1]);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Computes the repulsive force on a point. A cell is summarized
+     * by its center of mass if width / distance &lt; theta.
+     * @param i the index of point.
+     * @param theta the accuracy/speed trade-off parameter.
+     * @param force the output repulsive force, which is not normalized
+     *              by the sum of Q.
+     * @return the contribution of point to the sum of Q.
+     */
+    double repulsive(int i, double theta, double[] force) {
+        Arrays.fill(force, 0.0);
+        return repulsive(root, i, theta * theta, force);
+    }
+
+    /** Computes the repulsive force on a point from the subtree. */
+    private double repulsive(Node node, int i, double theta2, double[] force) {
+        double[] yi = Y[i];
+
+        if (node.children == null) {
+            double sum = 0.0;
+            for (int l = node.begin; l < node.end; l++) {
+                int j = order[l];
+                if (j != i) {
+                    double[] yj = Y[j];
+                    double q = 1.0 / (1.0 + squaredDistance(yi, yj));
+                    sum += q;
+                    double q2 = q * q;
+                    for (int k = 0; k < d; k++) {
+                        force[k] += q2 * (yi[k] - yj[k]);
+                    }
+                }
+            }
+            return sum;
+        }
+
+        double D = squaredDistance(yi, node.center);
+        if (node.width * node.width < theta2 * D) {
+            double q = 1.0 / (1.0 + D);
+            double mult = (node.end - node.begin) * q;
+            double sum = mult;
+            mult *= q;
+            for (int k = 0; k < d; k++) {
+                force[k] += mult * (yi[k] - node.center[k]);
+            }
+            return sum;
+        }
+
+        double sum = 0.0;
+        for (Node child : node.children) {
+            sum += repulsive(child, i, theta2, force);
+        }
+        return sum;
+    }
+
+    /** Returns the squared distance, which is specialized for low dimensions. */
+    private double squaredDistance(double[] x, double[] y) {
+        double sum = 0.0;
+        for (int k = 0; k < d; k++) {
+            double t = x[k] - y[k];
+            sum += t * t;
+        }
+        return sum;
+    }
+}
@@ -20,7 +20,9 @@ package smile.manifold;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.stream.IntStream;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
+import smile.sort.QuickSort;
 import smile.stat.distribution.GaussianDistribution;
 
 /**
@@ -42,6 +44,14 @@ import smile.stat.distribution.GaussianDistribution;
  * of the points in the map. Note that while the original algorithm uses
  * the Euclidean distance between objects as the base of its similarity
  * metric, this should be changed as appropriate.
+ * <p>
+ * The exact algorithm takes O(n<sup>2</sup>) time and memory per iteration.
+ * With the Barnes-Hut approximation (theta &gt; 0), the input similarities
+ * are restricted to the k-nearest neighbors with k = 3 * perplexity and
+ * the repulsive forces are approximated by a space-partitioning tree of
+ * the embedding, which takes O(n log n) time and O(n) memory. For very
+ * large datasets, the k-nearest neighbor graph may be approximated by
+ * {@link NearestNeighborGraph#descent(double[][], int) NN-Descent}.
  *
  * <h2>References</h2>
  * <ol>
@@ -97,12 +107,22 @@ public class TSNE implements Serializable {
      */
     private final double minGain         = .01;
 
+    /**
+     * The accuracy/speed trade-off parameter of Barnes-Hut approximation.
+     * The exact gradient is computed if theta is 0.
+     */
+    private final double theta;
+
     /** The gain matrix. */
     private final double[][] gains; // adjust learning rate for each point
     /** The probability matrix of the distances in the input space. */
     private final double[][] P;
     /** The probability matrix of the distances in the feature space. */
     private final double[][] Q;
+    /** The column indices of the sparse P matrix in Barnes-Hut mode. */
+    private final int[][] Pcol;
+    /** The nonzero values of the sparse P matrix in Barnes-Hut mode. */
+    private final double[][] Pval;
     /** The sum of Q matrix. */
     private double Qsum;
     /** The cost function value. */
@@ -128,11 +148,68 @@ public class TSNE implements Serializable {
      * @param iterations the number of iterations.
      */
     public TSNE(double[][] X, int d, double perplexity, double eta, int iterations) {
-        this.eta = eta;
-        int n = X.length;
+        this(X, d, perplexity, eta, iterations, 0.0);
+    }
 
-        double[][] D;
-        if (X.length == X[0].length) {
+    /** Constructor. Train t-SNE for given number of iterations.
+     *
+     * @param X the input data. If X is a square matrix, it is assumed to be
+     *         the squared distance/dissimilarity matrix.
+     * @param d the dimension of embedding space.
+     * @param perplexity the perplexity of the conditional distribution.
+     * @param eta the learning rate.
+     * @param iterations the number of iterations.
+     * @param theta the accuracy/speed trade-off parameter of Barnes-Hut
+     *              approximation, typically 0.5. A cell of the
+     *              space-partitioning tree is summarized by its center
+     *              of mass if its width / distance &lt; theta. If theta
+     *              is 0, the exact gradient is computed.
+     */
+    public TSNE(double[][] X, int d, double perplexity, double eta, int iterations, double theta) {
+        this(X, null, d, perplexity, eta, iterations, theta);
+    }
+
+    /** Constructor. Train Barnes-Hut t-SNE on the k-nearest neighbor graph,
+     * which may be approximate for large datasets. The number of neighbors
+     * should be about 3 * perplexity.
+     *
+     * @param nng the k-nearest neighbor graph with Euclidean distance.
+     * @param d the dimension of embedding space.
+     * @param perplexity the perplexity of the conditional distribution.
+     * @param eta the learning rate.
+     * @param iterations the number of iterations.
+     * @param theta the accuracy/speed trade-off parameter of Barnes-Hut
+     *              approximation, typically 0.5.
+     */
+    public TSNE(NearestNeighborGraph nng, int d, double perplexity, double eta, int iterations, double theta) {
+        this(null, nng, d, perplexity, eta, iterations, theta);
+    }
+
+    /** Constructor. Either the data or the k-nearest neighbor graph is given. */
+    private TSNE(double[][] X, NearestNeighborGraph nng, int d, double perplexity, double eta, int iterations, double theta) {
+        if (theta < 0.0 || theta >= 1.0) {
+            throw new IllegalArgumentException("Invalid theta: " + theta);
+        }
+
+        if (theta > 0.0 && d > 3) {
+            throw new IllegalArgumentException("Barnes-Hut t-SNE supports at most 3 dimensions: " + d);
+        }
+
+        if (nng != null && theta == 0.0) {
+            throw new IllegalArgumentException("The k-nearest neighbor graph requires Barnes-Hut approximation");
+        }
+
+        this.eta = eta;
+        this.theta = theta;
+        int n = X != null ? X.length : nng.size();
+
+        double[][] D = null;
+        if (theta > 0.0) {
+            if (nng == null) {
+                int k = Math.min(n - 1, (int) (3 * perplexity));
+                nng = X.length == X[0].length ? knn(X, k) : NearestNeighborGraph.of(X, k);
+            }
+        } else if (X.length == X[0].length) {
             D = X;
         } else {
             D = new double[n][n];
@@ -153,21 +230,32 @@ public class TSNE implements Serializable {
             }
         }
 
-        // Large tolerance to speed up the search of Gaussian kernel width
-        // A small difference of kernel width is not important.
-        P = expd(D, perplexity, 1E-3);
-        Q = new double[n][n];
-
-        // Make P symmetric
-        // sum(P) = 2 * n as each row of P is normalized
-        double Psum = 2 * n;
-        for (int i = 0; i < n; i++) {
-            double[] Pi = P[i];
-            for (int j = 0; j < i; j++) {
-                double p = 12.0 * (Pi[j] + P[j][i]) / Psum;
-                if (Double.isNaN(p) || p < 1E-16) p = 1E-16;
-                Pi[j] = p;
-                P[j][i] = p;
+        if (theta > 0.0) {
+            P = null;
+            Q = null;
+            Pcol = new int[n][];
+            Pval = new double[n][];
+            expd(nng, perplexity, 1E-3, Pcol, Pval);
+        } else {
+            Pcol = null;
+            Pval = null;
+
+            // Large tolerance to speed up the search of Gaussian kernel width
+            // A small difference of kernel width is not important.
+            P = expd(D, perplexity, 1E-3);
+            Q = new double[n][n];
+
+            // Make P symmetric
+            // sum(P) = 2 * n as each row of P is normalized
+            double Psum = 2 * n;
+            for (int i = 0; i < n; i++) {
+                double[] Pi = P[i];
+                for (int j = 0; j < i; j++) {
+                    double p = 12.0 * (Pi[j] + P[j][i]) / Psum;
+                    if (Double.isNaN(p) || p < 1E-16) p = 1E-16;
+                    Pi[j] = p;
+                    P[j][i] = p;
+                }
             }
         }
 
@@ -192,11 +280,16 @@ public class TSNE implements Serializable {
         int d = Y[0].length;
         double[][] dY = new double[n][d];
         double[][] dC = new double[n][d];
+        // The repulsive forces in Barnes-Hut mode.
+        double[][] F = theta > 0.0 ? new double[n][d] : null;
 
         for (int iter = 1; iter <= iterations; iter++, totalIter++) {
-            Qsum = computeQ(Y, Q);
-
-            IntStream.range(0, n).parallel().forEach(i -> sne(i, dY[i], dC[i]));
+            if (theta > 0.0) {
+                Qsum = barnesHut(dY, dC, F);
+            } else {
+                Qsum = computeQ(Y, Q);
+                IntStream.range(0, n).parallel().forEach(i -> sne(i, dY[i], dC[i]));
+            }
 
             // gradient update with momentum and gains
             IntStream.range(0, n).parallel().forEach(i -> {
@@ -212,9 +305,9 @@ public class TSNE implements Serializable {
 
             if (totalIter == momentumSwitchIter) {
                 momentum = finalMomentum;
-                for (int i = 0; i < n; i++) {
-                    double[] Pi = P[i];
-                    for (int j = 0; j < n; j++) {
+                double[][] P = theta > 0.0 ? Pval : this.P;
+                for (double[] Pi : P) {
+                    for (int j = 0; j < Pi.length; j++) {
                         Pi[j] /= 12.0;
                     }
                 }
@@ -222,7 +315,7 @@ public class TSNE implements Serializable {
 
             // Compute current value of cost function
             if (iter % 100 == 0)   {
-                cost = computeCost(P, Q);
+                cost = theta > 0.0 ? computeCost(Pcol, Pval) : computeCost(P, Q);
                 logger.info("Error after {} iterations: {}", iter, cost);
             }
         }
@@ -237,7 +330,7 @@ public class TSNE implements Serializable {
         });
 
         if (iterations % 100 != 0)   {
-            cost = computeCost(P, Q);
+            cost = theta > 0.0 ? computeCost(Pcol, Pval) : computeCost(P, Q);
             logger.info("Error after {} iterations: {}", iterations, cost);
         }
     }
@@ -267,13 +360,207 @@ public class TSNE implements Serializable {
             }
         }
 
-        // Update gains
-        for (int k = 0; k < d; k++) {
+        gain(g, dY, dC);
+    }
+
+    /**
+     * Computes the gradients with Barnes-Hut approximation and updates
+     * the gains.
+     * @param dY the coordinate updates of previous iteration.
+     * @param dC the output gradients.
+     * @param F the buffer of repulsive forces.
+     * @return the sum of Q.
+     */
+    private double barnesHut(double[][] dY, double[][] dC, double[][] F) {
+        double[][] Y = coordinates;
+        int n = Y.length;
+        int d = Y[0].length;
+
+        SPTree tree = new SPTree(Y);
+        // Accumulate the row sum and then compute the overall sum
+        // for reproducibility.
+        double[] rowSum = IntStream.range(0, n).parallel().mapToDouble(i -> tree.repulsive(i, theta, F[i])).toArray();
+        double Z = MathEx.sum(rowSum);
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double[] Yi = Y[i];
+            double[] Fi = F[i];
+            double[] dCi = dC[i];
+            int[] col = Pcol[i];
+            double[] val = Pval[i];
+
+            // The attractive forces of the nearest neighbors.
+            Arrays.fill(dCi, 0.0);
+            for (int l = 0; l < col.length; l++) {
+                double[] Yj = Y[col[l]];
+                double q = val[l] / (1.0 + MathEx.squaredDistance(Yi, Yj));
+                for (int k = 0; k < d; k++) {
+                    dCi[k] += q * (Yi[k] - Yj[k]);
+                }
+            }
+
+            for (int k = 0; k < d; k++) {
+                dCi[k] = 4.0 * (dCi[k] - Fi[k] / Z);
+            }
+
+            gain(gains[i], dY[i], dCi);
+        });
+
+        return Z;
+    }
+
+    /** Updates the gains. */
+    private void gain(double[] g, double[] dY, double[] dC) {
+        for (int k = 0; k < g.length; k++) {
             g[k] = (Math.signum(dC[k]) != Math.signum(dY[k])) ? (g[k] + .2) : (g[k] * .8);
             if (g[k] < minGain) g[k] = minGain;
         }
     }
 
+    /**
+     * Returns the k-nearest neighbor graph of the squared distance matrix.
+     */
+    private static NearestNeighborGraph knn(double[][] D, int k) {
+        int n = D.length;
+        int[][] neighbors = new int[n][];
+        double[][] distances = new double[n][];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double[] Di = new double[n - 1];
+            int[] index = new int[n - 1];
+            for (int j = 0, l = 0; j < n; j++) {
+                if (j != i) {
+                    Di[l] = D[i][j];
+                    index[l++] = j;
+                }
+            }
+
+            QuickSort.sort(Di, index);
+            neighbors[i] = Arrays.copyOf(index, k);
+            distances[i] = new double[k];
+            for (int j = 0; j < k; j++) {
+                distances[i][j] = Math.sqrt(Di[j]);
+            }
+        });
+
+        return new NearestNeighborGraph(k, neighbors, distances);
+    }
+
+    /**
+     * Computes the sparse symmetric P matrix of the nearest neighbors,
+     * of which the Gaussian kernel width is searched for given perplexity.
+     */
+    private static void expd(NearestNeighborGraph nng, double perplexity, double tol, int[][] Pcol, double[][] Pval) {
+        int n = nng.size();
+        double[][] P = new double[n][];
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double logU = MathEx.log2(perplexity);
+
+            double[] dist = nng.distances[i];
+            int k = dist.length;
+            double[] Pi = new double[k];
+            double[] Di = new double[k];
+            double DiSum = 0.0;
+            for (int j = 0; j < k; j++) {
+                Di[j] = dist[j] * dist[j];
+                DiSum += Di[j];
+            }
+
+            // Use sqrt(1 / avg of distance) to initialize beta
+            double beta = DiSum > 0.0 ? Math.sqrt(k / DiSum) : 1.0;
+            double betamin = 0.0;
+            double betamax = Double.POSITIVE_INFINITY;
+
+            double Pisum = 0.0;
+            double Hdiff = Double.MAX_VALUE;
+            for (int iter = 0; Math.abs(Hdiff) > tol && iter < 200; iter++) {
+                Pisum = 0.0;
+                double H = 0.0;
+                for (int j = 0; j < k; j++) {
+                    double d = beta * Di[j];
+                    double p = Math.exp(-d);
+                    Pi[j] = p;
+                    Pisum += p;
+                    H += p * d;
+                }
+
+                H = MathEx.log2(Pisum) + H / Pisum;
+                // The distribution is too narrow if all probabilities underflow.
+                Hdiff = Double.isNaN(H) ? Double.NEGATIVE_INFINITY : H - logU;
+
+                if (Math.abs(Hdiff) > tol) {
+                    if (Hdiff > 0) {
+                        betamin = beta;
+                        if (Double.isInfinite(betamax))
+                            beta *= 2.0;
+                        else
+                            beta = (beta + betamax) / 2;
+                    } else {
+                        betamax = beta;
+                        beta = (beta + betamin) / 2;
+                    }
+                }
+            }
+
+            for (int j = 0; j < k; j++) {
+                Pi[j] = Pisum > 0.0 ? Pi[j] / Pisum : 1.0 / k;
+            }
+            P[i] = Pi;
+        });
+
+        // Make P symmetric, i.e. p_ij = (p_j|i + p_i|j) / 2n
+        int[] size = new int[n];
+        for (int i = 0; i < n; i++) {
+            size[i] += nng.neighbors[i].length;
+            for (int j : nng.neighbors[i]) {
+                size[j]++;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            Pcol[i] = new int[size[i]];
+            Pval[i] = new double[size[i]];
+        }
+
+        Arrays.fill(size, 0);
+        for (int i = 0; i < n; i++) {
+            int[] neighbors = nng.neighbors[i];
+            for (int l = 0; l < neighbors.length; l++) {
+                int j = neighbors[l];
+                double p = P[i][l];
+                Pcol[i][size[i]] = j;
+                Pval[i][size[i]++] = p;
+                Pcol[j][size[j]] = i;
+                Pval[j][size[j]++] = p;
+            }
+        }
+
+        // Merge the duplicate entries and apply early exaggeration.
+        double scale = 12.0 / (2 * n);
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int[] col = Pcol[i];
+            double[] val = Pval[i];
+            QuickSort.sort(col, val);
+
+            int m = 0;
+            for (int l = 0; l < col.length; l++) {
+                if (m > 0 && col[m - 1] == col[l]) {
+                    val[m - 1] += val[l];
+                } else {
+                    col[m] = col[l];
+                    val[m++] = val[l];
+                }
+            }
+
+            for (int l = 0; l < m; l++) {
+                val[l] *= scale;
+            }
+
+            Pcol[i] = Arrays.copyOf(col, m);
+            Pval[i] = Arrays.copyOf(val, m);
+        });
+    }
+
     /** Compute the Gaussian kernel (search the width for given perplexity. */
     private double[][] expd(double[][] D, double perplexity, double tol) {
         int n          = D.length;
@@ -361,6 +648,29 @@ public class TSNE implements Serializable {
         return MathEx.sum(rowSum);
     }
 
+    /**
+     * Computes the cost function with the sparse P matrix in Barnes-Hut
+     * mode, where Q is computed on the fly.
+     */
+    private double computeCost(int[][] Pcol, double[][] Pval) {
+        double[][] Y = coordinates;
+        return IntStream.range(0, Y.length).parallel().mapToDouble(i -> {
+            double[] Yi = Y[i];
+            int[] col = Pcol[i];
+            double[] val = Pval[i];
+            double C = 0.0;
+            for (int l = 0; l < col.length; l++) {
+                double p = val[l];
+                if (p > 0.0) {
+                    double q = 1.0 / (1.0 + MathEx.squaredDistance(Yi, Y[col[l]])) / Qsum;
+                    if (Double.isNaN(q) || q < 1E-16) q = 1E-16;
+                    C += p * MathEx.log2(p / q);
+                }
+            }
+            return C;
+        }).sum();
+    }
+
     /**
      * Computes the cost function.
      */
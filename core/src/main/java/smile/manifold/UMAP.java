@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.stream.IntStream;
 import smile.graph.AdjacencyList;
 import smile.graph.Graph.Edge;
+import smile.graph.NearestNeighborGraph;
 import smile.math.DifferentiableMultivariateFunction;
 import smile.math.LevenbergMarquardt;
 import smile.math.MathEx;
@@ -215,6 +216,53 @@ public class UMAP implements Serializable {
      * @return the model.
      */
     public static <T> UMAP of(T[] data, Distance<T> distance, int k, int d, int iterations, double learningRate, double minDist, double spread, int negativeSamples, double repulsionStrength) {
+        if (k < 2) {
+            throw new IllegalArgumentException("k must be greater than 1: " + k);
+        }
+
+        NearestNeighborGraph nng = NearestNeighborGraph.of(data, distance, k);
+        return of(nng, d, iterations, learningRate, minDist, spread, negativeSamples, repulsionStrength);
+    }
+
+    /**
+     * Runs the UMAP algorithm on a k-nearest neighbor graph, which may be
+     * approximate, e.g. by {@link NearestNeighborGraph#descent(Object[], Distance, int) NN-Descent}
+     * for large datasets.
+     *
+     * @param nng the k-nearest neighbor graph.
+     * @return the model.
+     */
+    public static UMAP of(NearestNeighborGraph nng) {
+        return of(nng, 2, nng.size() > 10000 ? 200 : 500, 1.0, 0.1, 1.0, 5, 1.0);
+    }
+
+    /**
+     * Runs the UMAP algorithm on a k-nearest neighbor graph, which may be
+     * approximate, e.g. by {@link NearestNeighborGraph#descent(Object[], Distance, int) NN-Descent}
+     * for large datasets.
+     *
+     * @param nng                the k-nearest neighbor graph.
+     * @param d                  The target embedding dimensions. defaults to 2 to provide easy
+     *                           visualization, but can reasonably be set to any integer value
+     *                           in the range 2 to 100.
+     * @param iterations         The number of iterations to optimize the
+     *                           low-dimensional representation. Larger values result in more
+     *                           accurate embedding. Muse be at least 10. Choose wise value
+     *                           based on the size of the input data, e.g, 200 for large
+     *                           data (1000+ samples), 500 for small.
+     * @param learningRate       The initial learning rate for the embedding optimization,
+     *                           default 1.
+     * @param minDist            The desired separation between close points in the embedding
+     *                           space. default 0.1.
+     * @param spread             The effective scale of embedded points. default 1.0.
+     * @param negativeSamples    The number of negative samples to select per positive sample
+     *                           in the optimization process. default 5.
+     * @param repulsionStrength  Weighting applied to negative samples in low dimensional
+     *                           embedding optimization. default 1.0.
+     * @return the model.
+     */
+    public static UMAP of(NearestNeighborGraph nng, int d, int iterations, double learningRate, double minDist, double spread, int negativeSamples, double repulsionStrength) {
+        int k = nng.k;
         if (d < 2) {
             throw new IllegalArgumentException("d must be greater than 1: " + d);
         }
@@ -240,10 +288,8 @@ public class UMAP implements Serializable {
         // Construct the local fuzzy simplicial set by locally approximating
         // geodesic distance at each point, and then combining all the local
         // fuzzy simplicial sets into a global one via a fuzzy union.
-        AdjacencyList graph = NearestNeighborGraph.of(data, distance, k, true,null);
-        NearestNeighborGraph nng = NearestNeighborGraph.largest(graph);
-
-        graph = computeFuzzySimplicialSet(nng.graph, k, 64);
+        nng = nng.largest(true);
+        AdjacencyList graph = computeFuzzySimplicialSet(nng.graph(true), k, 64);
         SparseMatrix conorm = graph.toMatrix();
 
         // Spectral embedding initialization
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import smile.math.MathEx;
+
+/**
+ * A uniform grid of hypercube cells for fixed-radius neighbor search
+ * in low-dimensional Euclidean space. The points are bucketed by the
+ * cell they fall in and only the occupied cells are stored, sorted by
+ * the cell id. A range query visits the cells overlapping the bounding
+ * box of the query ball. With the cell width equal to the search radius,
+ * that is 3<sup>d</sup> cells at most, which makes the grid much faster
+ * than KD-tree for the repeated range queries of density-based clustering
+ * on 2 or 3 dimensional data, e.g. geospatial coordinates.
+ * <p>
+ * The number of cells grows exponentially with the dimensionality.
+ * Therefore, the grid is not suitable for high dimensional data.
+ * <p>
+ * By default, the query object (reference equality) is excluded from the neighborhood.
+ *
+ * @param <E> the type of data objects in the grid.
+ *
+ * @author Haifeng Li
+ */
+public class GridIndex<E> implements RNNSearch<double[], E>, Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * The keys of data objects.
+     */
+    private final double[][] keys;
+    /**
+     * The data objects.
+     */
+    private final E[] data;
+    /**
+     * The width of cells.
+     */
+    private final double width;
+    /**
+     * The lower bound of grid in each dimension.
+     */
+    private final double[] lower;
+    /**
+     * The number of cells in each dimension.
+     */
+    private final long[] size;
+    /**
+     * The ids of occupied cells in ascending order.
+     */
+    private final long[] cells;
+    /**
+     * The start position of each occupied cell in the index array.
+     * It has an extra element at the end for the total number of points.
+     */
+    private final int[] start;
+    /**
+     * The indices of points sorted by the cell id.
+     */
+    private final int[] index;
+
+    /**
+     * Constructor.
+     * @param key the keys of data objects.
+     * @param data the data objects.
+     * @param width the width of cells, which is usually the search radius.
+     */
+    public GridIndex(double[][] key, E[] data, double width) {
+        if (key.length != data.length) {
+            throw new IllegalArgumentException("The array size of keys and data are different.");
+        }
+
+        if (width <= 0.0) {
+            throw new IllegalArgumentException("Invalid cell width: " + width);
+        }
+
+        this.keys = key;
+        this.data = data;
+        this.width = width;
+
+        int n = key.length;
+        int d = key[0].length;
+        lower = MathEx.colMin(key);
+        double[] upper = MathEx.colMax(key);
+
+        size = new long[d];
+        double total = 1.0;
+        for (int j = 0; j < d; j++) {
+            size[j] = (long) Math.floor((upper[j] - lower[j]) / width) + 1;
+            total *= size[j];
+        }
+
+        if (total >= Long.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("Too many grid cells in %d dimensions with width %f", d, width));
+        }
+
+        long[] id = IntStream.range(0, n).parallel().mapToLong(i -> cell(key[i])).toArray();
+        long[] sorted = id.clone();
+        Arrays.parallelSort(sorted);
+
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || sorted[i] != sorted[i-1]) {
+                sorted[m++] = sorted[i];
+            }
+        }
+        cells = Arrays.copyOf(sorted, m);
+
+        int[] pos = IntStream.range(0, n).parallel().map(i -> Arrays.binarySearch(cells, id[i])).toArray();
+        start = new int[m + 1];
+        for (int p : pos) {
+            start[p + 1]++;
+        }
+
+        for (int i = 0; i < m; i++) {
+            start[i + 1] += start[i];
+        }
+
+        index = new int[n];
+        int[] next = Arrays.copyOf(start, m);
+        for (int i = 0; i < n; i++) {
+            index[next[pos[i]]++] = i;
+        }
+    }
+
+    /**
+     * Creates a grid of data points.
+     * @param data the data points.
+     * @param width the width of cells, which is usually the search radius.
+     * @return the grid.
+     */
+    public static GridIndex<double[]> of(double[][] data, double width) {
+        return new GridIndex<>(data, data, width);
+    }
+
+    @Override
+    public String toString() {
+        return "Grid Index";
+    }
+
+    /** Returns the cell id of a point in the grid. */
+    private long cell(double[] x) {
+        long id = 0;
+        for (int j = 0; j < x.length; j++) {
+            id = id * size[j] + coordinate(x[j], j);
+        }
+        return id;
+    }
+
+    /** Returns the cell coordinate of a value, which may be out of grid. */
+    private long coordinate(double x, int j) {
+        return (long) Math.floor((x - lower[j]) / width);
+    }
+
+    @Override
+    public void range(double[] q, double radius, List<Neighbor<double[], E>> neighbors) {
+        if (radius <= 0.0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+
+        // The bounding box of query ball is slightly enlarged so that
+        // the rounding errors of cell coordinates and distance never
+        // miss a point that passes the distance test below.
+        double r = radius * (1.0 + 1E-10);
+        int d = q.length;
+        long[] lo = new long[d];
+        long[] hi = new long[d];
+        for (int j = 0; j < d; j++) {
+            lo[j] = Math.max(coordinate(q[j] - r, j), 0);
+            hi[j] = Math.min(coordinate(q[j] + r, j), size[j] - 1);
+            if (lo[j] > hi[j]) return;
+        }
+
+        // Enumerates the cells in the bounding box like an odometer.
+        long[] c = lo.clone();
+        while (true) {
+            long id = 0;
+            for (int j = 0; j < d; j++) {
+                id = id * size[j] + c[j];
+            }
+
+            int p = Arrays.binarySearch(cells, id);
+            if (p >= 0) {
+                for (int k = start[p]; k < start[p + 1]; k++) {
+                    int i = index[k];
+                    if (q != keys[i]) {
+                        double distance = MathEx.distance(q, keys[i]);
+                        if (distance <= radius) {
+                            neighbors.add(new Neighbor<>(keys[i], data[i], i, distance));
+                        }
+                    }
+                }
+            }
+
+            int j = d - 1;
+            while (j >= 0 && c[j] == hi[j]) {
+                c[j] = lo[j];
+                j--;
+            }
+
+            if (j < 0) break;
+            c[j]++;
+        }
+    }
+}
@@ -0,0 +1,755 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import smile.math.MathEx;
+import smile.sort.QuickSort;
+
+/**
+ * Hierarchical Navigable Small World graphs for approximate nearest
+ * neighbor search. HNSW builds a multi-layer structure of proximity
+ * graphs. Each data object is assigned to a random maximum layer with
+ * exponentially decaying probability, so that the upper layers contain
+ * the sparse subsets of data with long range links. A search starts at
+ * the top layer, greedily moves to the nearest node in each layer, and
+ * does a beam search of width ef at the bottom layer. Both construction
+ * and search have logarithmic complexity in practice.
+ * <p>
+ * The neighbors of a new node are selected by the heuristic that prefers
+ * the diverse directions, i.e. a candidate is skipped if it is closer to
+ * an already selected neighbor than to the new node. This keeps the graph
+ * connected for clustered data.
+ * <p>
+ * The insertion is thread-safe and can run concurrently with searches.
+ * The constructor with data builds the index in parallel. The parameter
+ * ef controls the trade-off between recall and query time. It can be
+ * adjusted at any time. The index is serializable, but it should not be
+ * modified concurrently during the serialization.
+ * <p>
+ * By default, the query object (reference equality) is excluded from the neighborhood.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> Yu. A. Malkov and D. A. Yashunin. Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs. IEEE TPAMI, 42(4):824-836, 2020.</li>
+ * </ol>
+ *
+ * @param <E> the type of data objects.
+ *
+ * @author Haifeng Li
+ */
+public class HNSW<E> implements NearestNeighborSearch<double[], E>, KNNSearch<double[], E>, RNNSearch<double[], E>, Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /** The number of bits of node index in a page. */
+    private static final int PAGE_BITS = 14;
+    /** The number of nodes in a page. */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    /** The mask of node index in a page. */
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * The maximum number of links per node in the upper layers.
+     */
+    private final int M;
+    /**
+     * The maximum number of links per node in the bottom layer.
+     */
+    private final int M0;
+    /**
+     * The size of dynamic candidate list during the construction.
+     */
+    private final int efConstruction;
+    /**
+     * The normalization factor of level generation.
+     */
+    private final double mL;
+    /**
+     * The size of dynamic candidate list during the search.
+     */
+    private volatile int ef;
+    /**
+     * The pages of nodes. The pages are allocated on demand so that
+     * the nodes can be inserted concurrently without copying.
+     */
+    private transient AtomicReferenceArray<Object[]> pages;
+    /**
+     * The number of nodes.
+     */
+    private transient AtomicInteger size;
+    /**
+     * The entry point at the top layer.
+     */
+    private transient volatile Entry entry;
+    /**
+     * The lock to raise the top layer.
+     */
+    private transient ReentrantLock lock;
+    /**
+     * The visited flags of search per thread.
+     */
+    private transient ThreadLocal<Visited> visited;
+
+    /**
+     * The graph node.
+     */
+    private static class Node<E> {
+        /** The key of data object. */
+        final double[] key;
+        /** The data object. */
+        final E value;
+        /**
+         * The links in each layer. The link arrays are copied on
+         * write so that the searches need no locks.
+         */
+        final AtomicReferenceArray<int[]> links;
+
+        /**
+         * Constructor.
+         * @param key the key of data object.
+         * @param value the data object.
+         * @param level the maximum layer of node.
+         */
+        Node(double[] key, E value, int level) {
+            this.key = key;
+            this.value = value;
+            this.links = new AtomicReferenceArray<>(level + 1);
+            for (int l = 0; l <= level; l++) {
+                links.set(l, new int[0]);
+            }
+        }
+
+        /** Returns the maximum layer of node. */
+        int level() {
+            return links.length() - 1;
+        }
+    }
+
+    /**
+     * The entry point of search.
+     */
+    private static class Entry {
+        /** The node index. */
+        final int index;
+        /** The top layer. */
+        final int level;
+
+        /** Constructor. */
+        Entry(int index, int level) {
+            this.index = index;
+            this.level = level;
+        }
+    }
+
+    /**
+     * The visited flags of nodes. The flags are reset by incrementing
+     * the version instead of clearing the array.
+     */
+    private static class Visited {
+        /** The version of node when it is visited. */
+        int[] marks = new int[PAGE_SIZE];
+        /** The current version. */
+        int version = 0;
+
+        /** Resets all flags. */
+        void reset(int n) {
+            if (marks.length < n) {
+                marks = new int[Math.max(n, 2 * marks.length)];
+                version = 0;
+            }
+
+            if (++version == 0) {
+                Arrays.fill(marks, 0);
+                version = 1;
+            }
+        }
+
+        /** Marks a node as visited. Returns false if it was visited already. */
+        boolean visit(int i) {
+            if (i >= marks.length) {
+                // The node is inserted after the search starts.
+                marks = Arrays.copyOf(marks, Math.max(i + 1, 2 * marks.length));
+            }
+
+            if (marks[i] == version) return false;
+            marks[i] = version;
+            return true;
+        }
+    }
+
+    /**
+     * The binary max-heap of node indices with distances. A min-heap
+     * is emulated with negative distances.
+     */
+    private static class Heap {
+        /** The distances. */
+        double[] distance;
+        /** The node indices. */
+        int[] index;
+        /** The number of items. */
+        int size = 0;
+
+        /** Constructor. */
+        Heap(int capacity) {
+            distance = new double[capacity];
+            index = new int[capacity];
+        }
+
+        /** Adds an item. */
+        void push(double d, int i) {
+            if (size == distance.length) {
+                distance = Arrays.copyOf(distance, 2 * size);
+                index = Arrays.copyOf(index, 2 * size);
+            }
+
+            int k = size++;
+            while (k > 0) {
+                int parent = (k - 1) >>> 1;
+                if (distance[parent] >= d) break;
+                distance[k] = distance[parent];
+                index[k] = index[parent];
+                k = parent;
+            }
+            distance[k] = d;
+            index[k] = i;
+        }
+
+        /** Removes the top item. */
+        void pop() {
+            double d = distance[--size];
+            int i = index[size];
+            int k = 0;
+            int half = size >>> 1;
+            while (k < half) {
+                int child = 2 * k + 1;
+                if (child + 1 < size && distance[child + 1] > distance[child]) child++;
+                if (d >= distance[child]) break;
+                distance[k] = distance[child];
+                index[k] = index[child];
+                k = child;
+            }
+            distance[k] = d;
+            index[k] = i;
+        }
+
+        /** Sorts the items in ascending order of distances. */
+        void sort() {
+            QuickSort.sort(distance, index, size);
+        }
+    }
+
+    /**
+     * Constructor of an empty index with M = 16 and efConstruction = 200.
+     */
+    public HNSW() {
+        this(16, 200);
+    }
+
+    /**
+     * Constructor of an empty index.
+     * @param M the maximum number of links per node in the upper layers.
+     *          The bottom layer has up to 2M links per node. Larger M gives
+     *          higher recall for high dimensional data at the cost of memory
+     *          and construction time. The reasonable range is 5 to 48.
+     * @param efConstruction the size of dynamic candidate list during the
+     *                       construction. Larger value gives better graph
+     *                       quality and slower construction.
+     */
+    public HNSW(int M, int efConstruction) {
+        if (M < 2) {
+            throw new IllegalArgumentException("Invalid maximum number of links: " + M);
+        }
+
+        if (efConstruction < 1) {
+            throw new IllegalArgumentException("Invalid efConstruction: " + efConstruction);
+        }
+
+        this.M = M;
+        this.M0 = 2 * M;
+        this.efConstruction = efConstruction;
+        this.mL = 1.0 / Math.log(M);
+        this.ef = Math.max(10, M);
+        init();
+    }
+
+    /**
+     * Constructor with M = 16 and efConstruction = 200.
+     * The index is built in parallel.
+     * @param keys the keys of data objects.
+     * @param data the data objects.
+     */
+    public HNSW(double[][] keys, E[] data) {
+        this(keys, data, 16, 200);
+    }
+
+    /**
+     * Constructor. The index is built in parallel.
+     * @param keys the keys of data objects.
+     * @param data the data objects.
+     * @param M the maximum number of links per node in the upper layers.
+     *          The bottom layer has up to 2M links per node.
+     * @param efConstruction the size of dynamic candidate list during the
+     *                       construction.
+     */
+    public HNSW(double[][] keys, E[] data, int M, int efConstruction) {
+        this(M, efConstruction);
+
+        if (keys.length != data.length) {
+            throw new IllegalArgumentException("The array size of keys and data are different.");
+        }
+
+        int n = keys.length;
+        for (int i = 0; i < n; i++) {
+            store(i, new Node<>(keys[i], data[i], randomLevel()));
+        }
+        size.set(n);
+
+        if (n > 0) {
+            link(0);
+            IntStream.range(1, n).parallel().forEach(this::link);
+        }
+    }
+
+    /** Initializes the transient fields. */
+    private void init() {
+        pages = new AtomicReferenceArray<>(1 << (31 - PAGE_BITS));
+        size = new AtomicInteger();
+        lock = new ReentrantLock();
+        visited = ThreadLocal.withInitial(Visited::new);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HNSW(M=%d, efConstruction=%d, ef=%d)", M, efConstruction, ef);
+    }
+
+    /**
+     * Returns the number of data objects in the index.
+     * @return the number of data objects in the index.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the size of dynamic candidate list during the search.
+     * @return the size of dynamic candidate list during the search.
+     */
+    public int getEf() {
+        return ef;
+    }
+
+    /**
+     * Sets the size of dynamic candidate list during the search.
+     * Larger ef gives higher recall and slower search. The search
+     * always uses a candidate list no less than k.
+     * @param ef the size of dynamic candidate list.
+     * @return this object.
+     */
+    public HNSW<E> setEf(int ef) {
+        if (ef < 1) {
+            throw new IllegalArgumentException("Invalid ef: " + ef);
+        }
+
+        this.ef = ef;
+        return this;
+    }
+
+    /**
+     * Inserts an item into the index. This method is thread-safe.
+     * @param key the key.
+     * @param value the value.
+     */
+    public void put(double[] key, E value) {
+        int index = size.getAndIncrement();
+        store(index, new Node<>(key, value, randomLevel()));
+        link(index);
+    }
+
+    /** Returns a random layer with exponentially decaying probability. */
+    private int randomLevel() {
+        // 1 - random() is in (0, 1].
+        return (int) Math.min(30, -Math.log(1.0 - MathEx.random()) * mL);
+    }
+
+    /** Stores a node. */
+    private void store(int index, Node<E> node) {
+        int p = index >>> PAGE_BITS;
+        Object[] page = pages.get(p);
+        if (page == null) {
+            pages.compareAndSet(p, null, new Object[PAGE_SIZE]);
+            page = pages.get(p);
+        }
+        page[index & PAGE_MASK] = node;
+    }
+
+    /** Returns a node. */
+    @SuppressWarnings("unchecked")
+    private Node<E> node(int index) {
+        return (Node<E>) pages.get(index >>> PAGE_BITS)[index & PAGE_MASK];
+    }
+
+    /** Returns the squared distance between a query and a node. */
+    private double distance(double[] q, int index) {
+        return MathEx.squaredDistance(q, node(index).key);
+    }
+
+    /**
+     * Links a stored node into the graph.
+     * @param index the node index.
+     */
+    private void link(int index) {
+        Node<E> node = node(index);
+        double[] key = node.key;
+        int level = node.level();
+
+        Entry ep = entry;
+        boolean top = false;
+        if (ep == null || level > ep.level) {
+            lock.lock();
+            ep = entry;
+            if (ep == null) {
+                entry = new Entry(index, level);
+                lock.unlock();
+                return;
+            }
+
+            top = level > ep.level;
+            if (!top) lock.unlock();
+        }
+
+        try {
+            int nearest = ep.index;
+            double distance = distance(key, nearest);
+            for (int l = ep.level; l > level; l--) {
+                nearest = greedy(key, nearest, distance, l);
+                distance = distance(key, nearest);
+            }
+
+            for (int l = Math.min(level, ep.level); l >= 0; l--) {
+                Heap candidates = search(key, nearest, distance, efConstruction, l);
+                candidates.sort();
+                nearest = candidates.index[0];
+                distance = candidates.distance[0];
+
+                int[] neighbors = select(candidates.distance, candidates.index, candidates.size, M, index);
+                connect(node, l, neighbors);
+                for (int neighbor : neighbors) {
+                    connect(node(neighbor), l, new int[]{index});
+                }
+            }
+        } finally {
+            if (top) {
+                entry = new Entry(index, level);
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds the links to a node in a layer. If the number of links exceeds
+     * the maximum, the links are pruned by the heuristic.
+     */
+    private void connect(Node<E> node, int level, int[] neighbors) {
+        int max = level == 0 ? M0 : M;
+        synchronized (node) {
+            int[] links = node.links.get(level);
+            int n = links.length + neighbors.length;
+            int[] merged = Arrays.copyOf(links, n);
+            System.arraycopy(neighbors, 0, merged, links.length, neighbors.length);
+
+            if (n > max) {
+                double[] distance = new double[n];
+                for (int i = 0; i < n; i++) {
+                    distance[i] = MathEx.squaredDistance(node.key, node(merged[i]).key);
+                }
+                QuickSort.sort(distance, merged);
+                merged = select(distance, merged, n, max, -1);
+            }
+
+            node.links.set(level, merged);
+        }
+    }
+
+    /**
+     * Selects the neighbors by the heuristic that keeps a candidate only
+     * if it is closer to the base node than to any selected neighbor.
+     * @param distance the distances of candidates to the base node in ascending order.
+     * @param index the candidate indices.
+     * @param n the number of candidates.
+     * @param max the maximum number of neighbors.
+     * @param exclude the index to exclude.
+     * @return the selected neighbors.
+     */
+    private int[] select(double[] distance, int[] index, int n, int max, int exclude) {
+        int[] selected = new int[Math.min(n, max)];
+        int m = 0;
+        for (int i = 0; i < n && m < max; i++) {
+            int candidate = index[i];
+            if (candidate == exclude) continue;
+
+            double[] key = node(candidate).key;
+            boolean good = true;
+            for (int j = 0; j < m; j++) {
+                if (MathEx.squaredDistance(key, node(selected[j]).key) < distance[i]) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                selected[m++] = candidate;
+            }
+        }
+
+        return m == selected.length ? selected : Arrays.copyOf(selected, m);
+    }
+
+    /**
+     * Greedily moves to the nearest node in a layer.
+     * @return the index of local nearest node.
+     */
+    private int greedy(double[] q, int nearest, double distance, int level) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int neighbor : node(nearest).links.get(level)) {
+                double d = distance(q, neighbor);
+                if (d < distance) {
+                    distance = d;
+                    nearest = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Searches a layer with the dynamic candidate list.
+     * @param q the query.
+     * @param start the entry point.
+     * @param distance the distance of entry point to the query.
+     * @param ef the size of dynamic candidate list.
+     * @param level the layer.
+     * @return the max-heap of nearest nodes found.
+     */
+    private Heap search(double[] q, int start, double distance, int ef, int level) {
+        Visited visited = this.visited.get();
+        visited.reset(size.get());
+        visited.visit(start);
+
+        Heap candidates = new Heap(2 * ef);
+        Heap nearest = new Heap(ef + 1);
+        candidates.push(-distance, start);
+        nearest.push(distance, start);
+
+        while (candidates.size > 0) {
+            double d = -candidates.distance[0];
+            int c = candidates.index[0];
+            if (d > nearest.distance[0] && nearest.size >= ef) break;
+            candidates.pop();
+
+            for (int neighbor : node(c).links.get(level)) {
+                if (visited.visit(neighbor)) {
+                    double dist = distance(q, neighbor);
+                    if (nearest.size < ef || dist < nearest.distance[0]) {
+                        candidates.push(-dist, neighbor);
+                        nearest.push(dist, neighbor);
+                        if (nearest.size > ef) nearest.pop();
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Searches the bottom layer for the nearest candidates.
+     * @return the sorted candidates or null if the index is empty.
+     */
+    private Heap search(double[] q, int ef) {
+        Entry ep = entry;
+        if (ep == null) return null;
+
+        int nearest = ep.index;
+        double distance = distance(q, nearest);
+        for (int l = ep.level; l > 0; l--) {
+            nearest = greedy(q, nearest, distance, l);
+            distance = distance(q, nearest);
+        }
+
+        Heap candidates = search(q, nearest, distance, ef, 0);
+        candidates.sort();
+        return candidates;
+    }
+
+    @Override
+    public Neighbor<double[], E> nearest(double[] q) {
+        Neighbor<double[], E>[] neighbors = knn(q, 1);
+        return neighbors.length == 0 ? null : neighbors[0];
+    }
+
+    @Override
+    public Neighbor<double[], E>[] knn(double[] q, int k) {
+        return knn(q, k, ef);
+    }
+
+    /**
+     * Search the k nearest neighbors to the query key.
+     *
+     * @param q the query key.
+     * @param k the number of nearest neighbors to search for.
+     * @param ef the size of dynamic candidate list, which overrides
+     *           the setting of index for this query.
+     * @return the k nearest neighbors
+     */
+    @SuppressWarnings("unchecked")
+    public Neighbor<double[], E>[] knn(double[] q, int k, int ef) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Invalid k: " + k);
+        }
+
+        Heap candidates = search(q, Math.max(ef, k + 1));
+        if (candidates == null) {
+            return (Neighbor<double[], E>[]) new Neighbor[0];
+        }
+
+        Neighbor<double[], E>[] neighbors = (Neighbor<double[], E>[]) new Neighbor[Math.min(k, candidates.size)];
+        int m = 0;
+        for (int i = 0; i < candidates.size && m < neighbors.length; i++) {
+            Node<E> node = node(candidates.index[i]);
+            if (node.key != q) {
+                neighbors[m++] = new Neighbor<>(node.key, node.value, candidates.index[i], Math.sqrt(candidates.distance[i]));
+            }
+        }
+
+        return m == neighbors.length ? neighbors : Arrays.copyOf(neighbors, m);
+    }
+
+    /**
+     * Search the neighbors in the given radius of query object. The nearest
+     * candidates are expanded by the breadth-first search over the bottom
+     * layer within the radius. Therefore, the result is approximate.
+     *
+     * @param q the query key.
+     * @param radius the radius of search range from target.
+     * @param neighbors the list to store found neighbors in the given range on output.
+     */
+    @Override
+    public void range(double[] q, double radius, List<Neighbor<double[], E>> neighbors) {
+        if (radius <= 0.0) {
+            throw new IllegalArgumentException("Invalid radius: " + radius);
+        }
+
+        Heap candidates = search(q, ef);
+        if (candidates == null) return;
+
+        double r2 = radius * radius;
+        Visited visited = this.visited.get();
+        visited.reset(size.get());
+        int[] queue = new int[candidates.size];
+        int tail = 0;
+        for (int i = 0; i < candidates.size && candidates.distance[i] <= r2; i++) {
+            visited.visit(candidates.index[i]);
+            queue[tail++] = candidates.index[i];
+        }
+
+        for (int head = 0; head < tail; head++) {
+            int index = queue[head];
+            Node<E> node = node(index);
+            if (node.key != q) {
+                neighbors.add(new Neighbor<>(node.key, node.value, index, MathEx.distance(q, node.key)));
+            }
+
+            for (int neighbor : node.links.get(0)) {
+                if (visited.visit(neighbor) && distance(q, neighbor) <= r2) {
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, 2 * tail);
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the graph in a compact form.
+     * @param out the object output stream.
+     * @throws IOException when fails to write the stream.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        Entry ep = entry;
+        int n = size.get();
+        out.writeInt(n);
+        out.writeInt(ep == null ? -1 : ep.index);
+        out.writeInt(ep == null ? -1 : ep.level);
+        for (int i = 0; i < n; i++) {
+            Node<E> node = node(i);
+            out.writeObject(node.key);
+            out.writeObject(node.value);
+            int level = node.level();
+            out.writeInt(level);
+            for (int l = 0; l <= level; l++) {
+                out.writeObject(node.links.get(l));
+            }
+        }
+    }
+
+    /**
+     * Reads the graph.
+     * @param in the object input stream.
+     * @throws IOException when fails to read the stream.
+     * @throws ClassNotFoundException when the class of data objects is not found.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+
+        int n = in.readInt();
+        int index = in.readInt();
+        int level = in.readInt();
+        for (int i = 0; i < n; i++) {
+            double[] key = (double[]) in.readObject();
+            E value = (E) in.readObject();
+            int maxLevel = in.readInt();
+            Node<E> node = new Node<>(key, value, maxLevel);
+            for (int l = 0; l <= maxLevel; l++) {
+                node.links.set(l, (int[]) in.readObject());
+            }
+            store(i, node);
+        }
+
+        size.set(n);
+        entry = index < 0 ? null : new Entry(index, level);
+    }
+}
@@ -53,6 +53,10 @@
  * The cover tree has a theoretical bound that is based on the dataset's
  * doubling constant. The bound on search time is O(c12 log n) where c is
  * the expansion constant of the dataset.
+ * <p>
+ * Graph based methods such as Hierarchical Navigable Small World (HNSW)
+ * search the proximity graph of data greedily. They give high recall
+ * with logarithmic query time on large high dimensional datasets.
  * 
  * @author Haifeng Li
  */
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.projection;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import smile.math.MathEx;
+import smile.math.matrix.Matrix;
+
+/**
+ * Incremental principal component analysis. The data are processed in
+ * blocks of rows so that the principal components of a data set larger
+ * than the memory can be computed in a single pass. For each block, the
+ * current top k right singular vectors scaled by the singular values are
+ * stacked with the centered block and a correction row for the shift of
+ * mean. The SVD of this small matrix gives the updated top k components.
+ * The memory and time of each update depend only on the block size, k
+ * and the dimension, not the number of samples seen.
+ * <p>
+ * If k is not smaller than the rank of data, the result is the same as
+ * batch PCA up to the round-off error. Otherwise, it is an approximation
+ * that is usually close to the truncated batch PCA.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> D. A. Ross, J. Lim, R.-S. Lin and M.-H. Yang. Incremental learning for robust visual tracking. International Journal of Computer Vision 77(1-3):125-141, 2008.</li>
+ * </ol>
+ *
+ * @see PCA
+ *
+ * @author Haifeng Li
+ */
+public class IncrementalPCA implements Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * The dimension of input space.
+     */
+    private final int n;
+    /**
+     * The number of principal components.
+     */
+    private final int k;
+    /**
+     * The number of samples seen.
+     */
+    private long count = 0;
+    /**
+     * The sample mean.
+     */
+    private final double[] mu;
+    /**
+     * The sum of squared deviations from the mean.
+     */
+    private double variance = 0.0;
+    /**
+     * The top singular values of centered data.
+     */
+    private double[] s = new double[0];
+    /**
+     * The top right singular vectors of centered data.
+     */
+    private Matrix V;
+
+    /**
+     * Constructor.
+     * @param n the dimension of input space.
+     * @param k the number of principal components.
+     */
+    public IncrementalPCA(int n, int k) {
+        if (n < 2) {
+            throw new IllegalArgumentException("Invalid dimension of input space: " + n);
+        }
+
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("Invalid number of principal components: " + k);
+        }
+
+        this.n = n;
+        this.k = k;
+        this.mu = new double[n];
+    }
+
+    /**
+     * Returns the number of samples seen.
+     * @return the number of samples seen.
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Updates the principal components with a block of samples.
+     * @param data a block of samples of which each row is a sample.
+     */
+    public void update(double[][] data) {
+        int b = data.length;
+        if (b == 0) return;
+
+        for (double[] x : data) {
+            if (x.length != n) {
+                throw new IllegalArgumentException(String.format("Invalid input vector size: %d, expected: %d", x.length, n));
+            }
+        }
+
+        double[] mean = MathEx.colMeans(data);
+        int r = s.length;
+        int m = r + b + (count > 0 ? 1 : 0);
+        double scale = Math.sqrt(count * (double) b / (count + b));
+
+        Matrix A = new Matrix(m, n);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < r; i++) {
+                A.set(i, j, s[i] * V.get(j, i));
+            }
+
+            for (int i = 0; i < b; i++) {
+                double x = data[i][j] - mean[j];
+                A.set(r + i, j, x);
+                variance += x * x;
+            }
+
+            // The shift of mean adds a rank one term to the scatter matrix.
+            if (count > 0) {
+                double x = scale * (mu[j] - mean[j]);
+                A.set(m - 1, j, x);
+                variance += x * x;
+            }
+
+            mu[j] += (mean[j] - mu[j]) * b / (count + b);
+        }
+
+        count += b;
+
+        Matrix.SVD svd = A.svd(true, true);
+        int q = Math.min(k, svd.s.length);
+        s = Arrays.copyOf(svd.s, q);
+        V = svd.V.submatrix(0, 0, n - 1, q - 1);
+    }
+
+    /**
+     * Returns the principal component analysis of the samples seen.
+     * Like {@link PCA#fit(double[][], int)}, the variances are the
+     * squared singular values.
+     *
+     * @return the principal component analysis.
+     */
+    public PCA pca() {
+        if (count == 0) {
+            throw new IllegalStateException("No samples have been seen");
+        }
+
+        double[] eigvalues = new double[s.length];
+        for (int i = 0; i < s.length; i++) {
+            eigvalues[i] = s[i] * s[i];
+        }
+
+        return new PCA(mu.clone(), eigvalues, V.clone(), variance);
+    }
+}
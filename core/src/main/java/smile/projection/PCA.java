@@ -21,6 +21,7 @@ import java.io.Serializable;
 import smile.math.MathEx;
 import smile.math.blas.UPLO;
 import smile.math.matrix.Matrix;
+import smile.math.matrix.RandomizedSVD;
 
 /**
  * Principal component analysis. PCA is an orthogonal
@@ -57,6 +58,7 @@ import smile.math.matrix.Matrix;
  * @see KPCA
  * @see ProbabilisticPCA
  * @see GHA
+ * @see IncrementalPCA
  * 
  * @author Haifeng Li
  */
@@ -107,13 +109,28 @@ public class PCA implements LinearProjection, Serializable {
      * @param loadings the matrix of variable loadings.
      */
     public PCA(double[] mu, double[] eigvalues, Matrix loadings) {
+        this(mu, eigvalues, loadings, MathEx.norm1(eigvalues));
+    }
+
+    /**
+     * Constructor.
+     * @param mu the mean of samples.
+     * @param eigvalues the eigen values of principal components.
+     * @param loadings the matrix of variable loadings.
+     * @param variance the total variance of samples, which is larger than
+     *                 the sum of eigvalues if only the top principal
+     *                 components are given.
+     */
+    public PCA(double[] mu, double[] eigvalues, Matrix loadings, double variance) {
         this.mu = mu;
         this.eigvalues = eigvalues;
         this.eigvectors = loadings;
         this.n = mu.length;
 
-        proportion = eigvalues.clone();
-        MathEx.unitize1(proportion);
+        proportion = new double[eigvalues.length];
+        for (int i = 0; i < eigvalues.length; i++) {
+            proportion[i] = eigvalues[i] / variance;
+        }
 
         cumulativeProportion = new double[eigvalues.length];
         cumulativeProportion[0] = proportion[0];
@@ -183,6 +200,41 @@ public class PCA implements LinearProjection, Serializable {
         return new PCA(mu, eigvalues, eigvectors);
     }
 
+    /**
+     * Fits the top k principal components with randomized truncated SVD,
+     * which takes O(mnk) time instead of the full decomposition.
+     * Like {@link #fit(double[][])} on the data with more samples than
+     * dimensions, the variances are the squared singular values.
+     *
+     * @param data training data of which each row is a sample.
+     * @param k the number of principal components.
+     * @return the model.
+     * @see RandomizedSVD
+     */
+    public static PCA fit(double[][] data, int k) {
+        int m = data.length;
+        int n = data[0].length;
+
+        double[] mu = MathEx.colMeans(data);
+        Matrix X = Matrix.of(data);
+        double variance = 0.0;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < m; i++) {
+                X.sub(i, j, mu[j]);
+                double x = X.get(i, j);
+                variance += x * x;
+            }
+        }
+
+        Matrix.SVD svd = RandomizedSVD.svd(X, k);
+        double[] eigvalues = svd.s;
+        for (int i = 0; i < eigvalues.length; i++) {
+            eigvalues[i] *= eigvalues[i];
+        }
+
+        return new PCA(mu, eigvalues, svd.V, variance);
+    }
+
     /**
      * Fits principal component analysis with correlation matrix.
      * @param data training data of which each row is a sample.
@@ -299,7 +351,7 @@ public class PCA implements LinearProjection, Serializable {
      * @param p choose top p principal components used for projection.
      */
     public void setProjection(int p) {
-        if (p < 1 || p > n) {
+        if (p < 1 || p > eigvectors.ncol()) {
             throw new IllegalArgumentException("Invalid dimension of feature space: " + p);
         }
 
@@ -324,12 +376,15 @@ public class PCA implements LinearProjection, Serializable {
             throw new IllegalArgumentException("Invalid percentage of variance: " + p);
         }
 
-        for (int k = 0; k < n; k++) {
+        for (int k = 0; k < eigvalues.length; k++) {
             if (cumulativeProportion[k] >= p) {
                 setProjection(k + 1);
-                break;
+                return;
             }
         }
+
+        // The given components don't explain enough variance.
+        setProjection(eigvalues.length);
     }
 
     @Override
@@ -19,6 +19,7 @@ package smile.regression;
 
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.stream.IntStream;
 import smile.data.CategoricalEncoder;
 import smile.data.DataFrame;
 import smile.data.Tuple;
@@ -71,7 +72,8 @@ public interface DataFrameRegression extends Regression<Tuple> {
     StructType schema();
 
     /**
-     * Predicts the dependent variables of a data frame.
+     * Predicts the dependent variables of a data frame. The rows are
+     * processed in parallel.
      *
      * @param data the data frame.
      * @return the predicted values.
@@ -80,7 +82,9 @@ public interface DataFrameRegression extends Regression<Tuple> {
         // Binds the formula to the data frame's schema in case that
         // it is different from that of training data.
         formula().bind(data.schema());
-        return data.stream().mapToDouble(this::predict).toArray();
+        return IntStream.range(0, data.size()).parallel()
+                .mapToDouble(i -> predict(data.get(i)))
+                .toArray();
     }
 
     /**
@@ -124,6 +128,18 @@ public interface DataFrameRegression extends Regression<Tuple> {
                 }
                 return model.predict(vector);
             }
+
+            @Override
+            public double[] predict(DataFrame data) {
+                double[][] x = formula.x(data).toArray(false, CategoricalEncoder.DUMMY);
+                return IntStream.range(0, x.length).parallel().mapToDouble(i -> {
+                    double[] vector = x[i];
+                    if (preprocessor != null) {
+                        preprocessor.transform(vector, vector);
+                    }
+                    return model.predict(vector);
+                }).toArray();
+            }
         };
     }
 
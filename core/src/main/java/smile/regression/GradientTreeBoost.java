@@ -135,6 +135,11 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      * The shrinkage parameter in (0, 1] controls the learning rate of procedure.
      */
     private final double shrinkage;
+    /**
+     * The compiled forest for batch prediction, which is built on
+     * the first use and invalidated by trim.
+     */
+    private transient volatile FlatForest flat;
 
     /**
      * Constructor. Fits a gradient tree boosting for regression.
@@ -180,7 +185,8 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         int nodeSize = Integer.parseInt(params.getProperty("smile.gradient_boost.node_size", "5"));
         double shrinkage = Double.parseDouble(params.getProperty("smile.gradient_boost.shrinkage", "0.05"));
         double subsample = Double.parseDouble(params.getProperty("smile.gradient_boost.sampling_rate", "0.7"));
-        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.gradient_boost.max_bins", "0"));
+        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, maxBins);
     }
 
     /**
@@ -200,6 +206,29 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
      * @return the model.
      */
     public static GradientTreeBoost fit(Formula formula, DataFrame data, Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample) {
+        return fit(formula, data, loss, ntrees, maxDepth, maxNodes, nodeSize, shrinkage, subsample, 0);
+    }
+
+    /**
+     * Fits a gradient tree boosting for regression.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param loss loss function for regression. By default, least absolute
+     * deviation is employed for robust regression.
+     * @param ntrees the number of iterations (trees).
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree will
+     *                 not split, setting nodeSize = 5 generally gives good results.
+     * @param shrinkage the shrinkage parameter in (0, 1] controls the learning rate of procedure.
+     * @param subsample the sampling fraction for stochastic tree boosting.
+     * @param maxBins the maximum number of bins (at most 256) to quantize
+     *                the numeric variables for histogram-based split finding.
+     *                If 0, the splits are searched on the sorted values exactly.
+     * @return the model.
+     */
+    public static GradientTreeBoost fit(Formula formula, DataFrame data, Loss loss, int ntrees, int maxDepth, int maxNodes, int nodeSize, double shrinkage, double subsample, int maxBins) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -218,7 +247,8 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
 
         final int n = x.nrow();
         final int N = (int) Math.round(n * subsample);
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = maxBins > 0 ? null : CART.order(x);
 
         int[] permutation = IntStream.range(0, n).toArray();
         int[] samples = new int[n];
@@ -237,7 +267,9 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
             }
 
             logger.info("Training {} tree", Strings.ordinal(t+1));
-            trees[t] = new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
+            trees[t] = bins != null ?
+                    new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, bins) :
+                    new RegressionTree(x, loss, field, maxDepth, maxNodes, nodeSize, x.ncol(), samples, order);
 
             for (int i = 0; i < n; i++) {
                 residual[i] -= shrinkage * trees[t].predict(x.get(i));
@@ -310,8 +342,27 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         }
         
         trees = Arrays.copyOf(trees, ntrees);
+        flat = null;
     }
     
+    /**
+     * Compiles the model into flat arrays for fast inference.
+     * The single score of compiled forest is the prediction.
+     *
+     * @return the compiled forest.
+     */
+    public FlatForest compile() {
+        int ntrees = trees.length;
+        Node[] roots = new Node[ntrees];
+        double[] weight = new double[ntrees];
+        for (int t = 0; t < ntrees; t++) {
+            roots[t] = trees[t].root();
+            weight[t] = shrinkage;
+        }
+
+        return new FlatForest(roots, new int[ntrees], weight, new double[]{b});
+    }
+
     @Override
     public double predict(Tuple x) {
         Tuple xt = formula.x(x);
@@ -323,6 +374,24 @@ public class GradientTreeBoost implements DataFrameRegression, TreeSHAP {
         return y;
     }
 
+    /**
+     * Predicts the dependent variables of a data frame. The trees are
+     * compiled into flat arrays once and the rows are scored in parallel
+     * by chunks on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted values.
+     */
+    @Override
+    public double[] predict(DataFrame data) {
+        FlatForest forest = flat;
+        if (forest == null) {
+            forest = compile();
+            flat = forest;
+        }
+        return forest.score(formula.x(data));
+    }
+
     /**
      * Test the model on a validation dataset.
      *
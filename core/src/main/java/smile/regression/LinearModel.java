@@ -24,10 +24,13 @@ import smile.data.Tuple;
 import smile.data.formula.Formula;
 import smile.data.type.StructType;
 import smile.math.MathEx;
+import smile.math.blas.UPLO;
 import smile.math.matrix.Matrix;
 import smile.math.special.Beta;
 import smile.stat.Hypothesis;
 
+import static smile.math.blas.Transpose.NO_TRANSPOSE;
+
 /**
  * Linear model. In linear regression,
  * the model specification is that the dependent variable is a linear
@@ -80,9 +83,10 @@ public class LinearModel implements DataFrameRegression {
      */
     double b;
     /**
-     * The linear weights.
+     * The linear weights. The online updates publish a new array
+     * instead of modifying it in place.
      */
-    double[] w;
+    volatile double[] w;
     /**
      * True if the linear weights w includes the intercept.
      */
@@ -329,6 +333,7 @@ public class LinearModel implements DataFrameRegression {
      * @return the predicted value of dependent variable.
      */
     public double predict(double[] x) {
+        double[] w = this.w;
         double y = b;
         if (x.length == w.length) {
             for (int i = 0; i < x.length; i++) {
@@ -353,16 +358,15 @@ public class LinearModel implements DataFrameRegression {
 
     @Override
     public double[] predict(DataFrame df) {
-        if (bias) {
-            Matrix X = formula.matrix(df, true);
-            return X.mv(w);
-        } else {
-            Matrix X = formula.matrix(df, false);
-            double[] y = new double[X.nrow()];
-            Arrays.fill(y, b);
-            X.mv(1.0, w, 1.0, y);
-            return y;
+        // Computes the product on the column vectors without
+        // materializing the design matrix.
+        double[] y = formula.x(df).mv(bias, CategoricalEncoder.DUMMY, w);
+        if (!bias) {
+            for (int i = 0; i < y.length; i++) {
+                y[i] += b;
+            }
         }
+        return y;
     }
 
     /**
@@ -375,15 +379,97 @@ public class LinearModel implements DataFrameRegression {
 
     /**
      * Online update the regression model with a new data frame.
+     * This is the growing window recursive least squares with lambda = 1.
      * @param data the training data.
      */
     public void update(DataFrame data) {
-        // Don't use data.stream, which may run in parallel.
-        // However, update is not multi-thread safe.
-        int n = data.size();
-        for (int i = 0; i < n; i++) {
-            update(data.get(i));
+        update(data, 1.0);
+    }
+
+    /**
+     * Online update the regression model with a mini-batch of samples
+     * by the block recursive least squares. The matrix V is updated
+     * by the Woodbury identity with the blocks of at most p samples,
+     * which is equivalent to the sample-by-sample recursion with
+     * lambda = 1 but runs with matrix-matrix operations. The cost is
+     * O(n p<sup>2</sup>) for a batch of n samples.
+     *
+     * @param data the training data.
+     * @param lambda The forgetting factor in (0, 1]. Like the sample-by-sample
+     *               recursion, a block of m samples discounts the previous
+     *               data by lambda<sup>m</sup> and the samples in the block
+     *               by the powers of lambda of their age.
+     */
+    public void update(DataFrame data, double lambda) {
+        update(formula.matrix(data, bias), formula.y(data).toDoubleArray(), lambda);
+    }
+
+    /**
+     * Block recursive least squares.
+     * @param X the design matrix of samples.
+     * @param y the response variable.
+     * @param lambda The forgetting factor in (0, 1].
+     */
+    private synchronized void update(Matrix X, double[] y, double lambda) {
+        if (V == null) {
+            throw new UnsupportedOperationException("The model doesn't support online learning");
+        }
+
+        if (lambda <= 0 || lambda > 1){
+            throw new IllegalArgumentException("The forgetting factor must be in (0, 1]");
+        }
+
+        if (X.ncol() != p) {
+            throw new IllegalArgumentException(String.format("Invalid input vector size: %d, expected: %d", X.ncol(), p));
+        }
+
+        double[] w = this.w.clone();
+        int n = X.nrow();
+        for (int from = 0; from < n; from += p) {
+            int to = Math.min(from + p, n);
+            Matrix Xb = X.submatrix(from, 0, to - 1, p - 1);
+            int m = to - from;
+
+            // The weights of samples in the block, i.e. lambda^(m-1-i).
+            double[] weight = new double[m];
+            weight[m - 1] = 1.0;
+            for (int i = m - 1; i > 0; i--) {
+                weight[i - 1] = weight[i] * lambda;
+            }
+
+            // V = V / lambda^m
+            if (lambda != 1.0) {
+                V.mul(1.0 / (weight[0] * lambda));
+            }
+
+            // S = W^-1 + X V X'
+            Matrix VXt = V.mt(Xb);
+            Matrix S = Xb.mm(VXt);
+            for (int i = 0; i < m; i++) {
+                S.add(i, i, 1.0 / weight[i]);
+            }
+
+            // V = V - V X' S^-1 X V
+            Matrix U = VXt.transpose(false);
+            S.uplo(UPLO.LOWER).cholesky(true).solve(U);
+            V.mm(NO_TRANSPOSE, VXt, NO_TRANSPOSE, U, -1.0, 1.0);
+
+            // V has been updated. w += V X' W (y - X w)
+            double[] err = new double[m];
+            for (int i = 0; i < m; i++) {
+                err[i] = y[from + i] - b;
+            }
+            Xb.mv(NO_TRANSPOSE, -1.0, w, 1.0, err);
+            for (int i = 0; i < m; i++) {
+                err[i] *= weight[i];
+            }
+            double[] Vx = V.mv(Xb.tv(err));
+            for (int i = 0; i < p; i++) {
+                w[i] += Vx[i];
+            }
         }
+
+        this.w = w;
     }
 
     @Override
@@ -424,7 +510,7 @@ public class LinearModel implements DataFrameRegression {
      *               to as the growing window RLS algorithm. In practice, lambda
      *               is usually chosen between 0.98 and 1.
      */
-    public void update(double[] x, double y, double lambda) {
+    public synchronized void update(double[] x, double y, double lambda) {
         if (V == null) {
             throw new UnsupportedOperationException("The model doesn't support online learning");
         }
@@ -437,7 +523,8 @@ public class LinearModel implements DataFrameRegression {
             throw new IllegalArgumentException(String.format("Invalid input vector size: %d, expected: %d", x.length, p));
         }
 
-        double v = 1 + V.xAx(x);
+        // V = (V - V x x' V / (lambda + x' V x)) / lambda
+        double v = lambda + V.xAx(x);
         // If 1/v is NaN, then the update to V will no longer be invertible.
         // See https://en.wikipedia.org/wiki/Sherman%E2%80%93Morrison_formula#Statement
         if (Double.isNaN(1/v)){
@@ -456,9 +543,11 @@ public class LinearModel implements DataFrameRegression {
         V.mv(x, Vx);
 
         double err = y - predict(x);
+        double[] w = this.w.clone();
         for (int i = 0; i < p; i++){
             w[i] += Vx[i] * err;
         }
+        this.w = w;
     }
 
     @Override
@@ -17,11 +17,14 @@
 
 package smile.regression;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Properties;
 import smile.base.mlp.*;
 import smile.math.Scaler;
 import smile.math.MathEx;
+import smile.math.matrix.Matrix;
 import smile.util.Strings;
 
 /**
@@ -104,15 +107,20 @@ import smile.util.Strings;
         t++;
     }
 
-    /** Updates the model with a mini-batch. RMSProp is applied if {@code rho > 0}. */
+    /**
+     * Updates the model with a mini-batch. RMSProp is applied if {@code rho > 0}.
+     * The gradients of large mini-batches are computed in parallel.
+     */
     @Override
     public void update(double[][] x, double[] y) {
-        for (int i = 0; i < x.length; i++) {
-            propagate(x[i], true);
-            setTarget(y[i]);
-            backpropagate(false);
-        }
-
+        computeGradient(x.length, (from, to) -> {
+            propagate(Arrays.copyOfRange(x, from, to), true);
+            Matrix target = new Matrix(1, to - from);
+            for (int j = from; j < to; j++) {
+                target.set(0, j - from, scaler == null ? y[j] : scaler.f(y[j]));
+            }
+            backpropagate(target);
+        });
         update(x.length);
         t++;
     }
@@ -127,7 +135,9 @@ import smile.util.Strings;
     }
 
     /**
-     * Fits a MLP model.
+     * Fits a MLP model. If the property {@code smile.mlp.checkpoint} is
+     * set to a directory, the model is written to the file mlp.model in it
+     * at the end of each epoch, which replaces the previous checkpoint.
      * @param x the training dataset.
      * @param y the response variable.
      * @param params the hyper-parameters.
@@ -143,6 +153,7 @@ import smile.util.Strings;
 
         int epochs = Integer.parseInt(params.getProperty("smile.mlp.epochs", "100"));
         int batch = Integer.parseInt(params.getProperty("smile.mlp.mini_batch", "32"));
+        Path checkpoint = checkpoint(params);
         double[][] batchx = new double[batch][];
         double[] batchy = new double[batch];
         for (int epoch = 1; epoch <= epochs; epoch++) {
@@ -162,6 +173,15 @@ import smile.util.Strings;
                     model.update(batchx, batchy);
                 }
             }
+
+            if (checkpoint != null) {
+                try {
+                    model.checkpoint(checkpoint);
+                    logger.info("Checkpoint the {} epoch at {}", Strings.ordinal(epoch), checkpoint);
+                } catch (IOException ex) {
+                    logger.error("Failed to checkpoint MLP model at {}", checkpoint, ex);
+                }
+            }
         }
 
         return model;
@@ -22,8 +22,11 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Properties;
 import java.util.stream.LongStream;
+import smile.base.cart.Bins;
 import smile.base.cart.CART;
+import smile.base.cart.FlatForest;
 import smile.base.cart.Loss;
+import smile.base.cart.Node;
 import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.formula.Formula;
@@ -119,6 +122,12 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      * very consistent with the permutation importance measure.
      */
     private final double[] importance;
+    /**
+     * The compiled forest for batch prediction, which is built on
+     * the first use. The forest is immutable as trim and merge
+     * return new models.
+     */
+    private transient volatile FlatForest flat;
 
     /**
      * Constructor.
@@ -160,7 +169,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         int maxNodes = Integer.parseInt(params.getProperty("smile.random_forest.max_nodes", String.valueOf(data.size() / 5)));
         int nodeSize = Integer.parseInt(params.getProperty("smile.random_forest.node_size", "5"));
         double subsample = Double.parseDouble(params.getProperty("smile.random_forest.sampling_rate", "1.0"));
-        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample);
+        int maxBins = Integer.parseInt(params.getProperty("smile.random_forest.max_bins", "0"));
+        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample, null, maxBins);
     }
 
     /**
@@ -203,6 +213,31 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
      * @return the model.
      */
     public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample, LongStream seeds) {
+        return fit(formula, data, ntrees, mtry, maxDepth, maxNodes, nodeSize, subsample, seeds, 0);
+    }
+
+    /**
+     * Fits a random forest for regression.
+     *
+     * @param formula a symbolic description of the model to be fitted.
+     * @param data the data frame of the explanatory and response variables.
+     * @param ntrees the number of trees.
+     * @param mtry the number of input variables to be used to determine the
+     *             decision at a node of the tree. p/3 generally give good
+     *             performance, where p is the number of variables.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the number of instances in a node below which the tree will
+     *                 not split, nodeSize = 5 generally gives good results.
+     * @param subsample the sampling rate for training tree. 1.0 means sampling with
+     *                  replacement. {@code < 1.0} means sampling without replacement.
+     * @param seeds optional RNG seeds for each regression tree.
+     * @param maxBins the maximum number of bins (at most 256) to quantize
+     *                the numeric variables for histogram-based split finding.
+     *                If 0, the splits are searched on the sorted values exactly.
+     * @return the model.
+     */
+    public static RandomForest fit(Formula formula, DataFrame data, int ntrees, int mtry, int maxDepth, int maxNodes, int nodeSize, double subsample, LongStream seeds, int maxBins) {
         if (ntrees < 1) {
             throw new IllegalArgumentException("Invalid number of trees: " + ntrees);
         }
@@ -226,7 +261,8 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         final int n = x.nrow();
         double[] prediction = new double[n];
         int[] oob = new int[n];
-        final int[][] order = CART.order(x);
+        final Bins bins = maxBins > 0 ? Bins.of(x, maxBins) : null;
+        final int[][] order = maxBins > 0 ? null : CART.order(x);
 
         // generate seeds with sequential stream
         long[] seedArray = (seeds != null ? seeds : LongStream.range(-ntrees, 0)).sequential().distinct().limit(ntrees).toArray();
@@ -255,7 +291,9 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
             }
 
             long start = System.nanoTime();
-            RegressionTree tree = new RegressionTree(x, Loss.ls(y), field, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
+            RegressionTree tree = bins != null ?
+                    new RegressionTree(x, Loss.ls(y), field, maxDepth, maxNodes, nodeSize, mtryFinal, samples, bins) :
+                    new RegressionTree(x, Loss.ls(y), field, maxDepth, maxNodes, nodeSize, mtryFinal, samples, order);
             double fitTime = (System.nanoTime() - start) / 1E6;
 
             // estimate OOB metrics
@@ -450,6 +488,24 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         return new RandomForest(formula, forest, mergedMetrics, mergedImportance);
     }
 
+    /**
+     * Compiles the forest into flat arrays for fast inference.
+     * The single score of compiled forest is the prediction.
+     *
+     * @return the compiled forest.
+     */
+    public FlatForest compile() {
+        int ntrees = models.length;
+        Node[] trees = new Node[ntrees];
+        double[] weight = new double[ntrees];
+        for (int t = 0; t < ntrees; t++) {
+            trees[t] = models[t].tree.root();
+            weight[t] = 1.0 / ntrees;
+        }
+
+        return new FlatForest(trees, new int[ntrees], weight, new double[1]);
+    }
+
     @Override
     public double predict(Tuple x) {
         Tuple xt = formula.x(x);
@@ -461,6 +517,24 @@ public class RandomForest implements DataFrameRegression, TreeSHAP {
         return y / models.length;
     }
 
+    /**
+     * Predicts the dependent variables of a data frame. The trees are
+     * compiled into flat arrays once and the rows are scored in parallel
+     * by chunks on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted values.
+     */
+    @Override
+    public double[] predict(DataFrame data) {
+        FlatForest forest = flat;
+        if (forest == null) {
+            forest = compile();
+            flat = forest;
+        }
+        return forest.score(formula.x(data));
+    }
+
     /**
      * Test the model on a validation dataset.
      *
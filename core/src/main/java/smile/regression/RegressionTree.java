@@ -123,6 +123,17 @@ public class RegressionTree extends CART implements DataFrameRegression {
         return new RegressionNode(n, out, mean, rss);
     }
 
+    @Override
+    protected int histogramWidth() {
+        return 2;
+    }
+
+    @Override
+    protected void accumulate(double[] histogram, int offset, int i) {
+        histogram[offset] += samples[i];
+        histogram[offset + 1] += y[i] * samples[i];
+    }
+
     @Override
     protected Optional<Split> findBestSplit(LeafNode leaf, int j, double impurity, int lo, int hi) {
         RegressionNode node = (RegressionNode) leaf;
@@ -179,6 +190,40 @@ public class RegressionTree extends CART implements DataFrameRegression {
                 final int value = splitValue;
                 split = new NominalSplit(leaf, j, splitValue, splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> xj.getInt(o) == value);
             }
+        } else if (bins != null) {
+            int splitBin = -1;
+            int tc = 0;
+            double trueSum = 0.0;
+            double[] histogram = histogram(leaf, j, lo, hi);
+            int m = bins.size(j);
+
+            for (int b = 0; b < m - 1; b++) {
+                tc += (int) histogram[2 * b];
+                trueSum += histogram[2 * b + 1];
+
+                int fc = node.size() - tc;
+                if (fc < nodeSize) break;
+                if (tc < nodeSize) continue;
+
+                double trueMean = trueSum / tc;
+                double falseMean = (sum - trueSum) / fc;
+
+                double gain = (tc * trueMean * trueMean + fc * falseMean * falseMean) - nodeMeanSquared;
+
+                // new best split
+                if (gain > splitScore) {
+                    splitBin = b;
+                    splitTrueCount = tc;
+                    splitFalseCount = fc;
+                    splitScore = gain;
+                }
+            }
+
+            if (splitScore > 0.0) {
+                final int bin = splitBin;
+                final Bins bins = this.bins;
+                split = new OrdinalSplit(leaf, j, bins.cut(j, bin), splitScore, lo, hi, splitTrueCount, splitFalseCount, (int o) -> bins.bin(j, o) <= bin);
+            }
         } else {
             double splitValue = 0.0;
             int tc = 0;
@@ -248,7 +293,34 @@ public class RegressionTree extends CART implements DataFrameRegression {
         super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, order);
         this.loss = loss;
         this.y = loss.response();
+        grow();
+    }
+
+    /**
+     * Constructor. Fits a regression tree with histogram-based
+     * split finding on the quantized numeric columns.
+     * @param x the data frame of the explanatory variable.
+     * @param loss the loss function.
+     * @param response the metadata of response variable.
+     * @param maxDepth the maximum depth of the tree.
+     * @param maxNodes the maximum number of leaf nodes in the tree.
+     * @param nodeSize the minimum size of leaf nodes.
+     * @param mtry the number of input variables to pick to split on at each
+     *             node. It seems that sqrt(p) give generally good performance,
+     *             where p is the number of variables.
+     * @param samples the sample set of instances for stochastic learning.
+     *               samples[i] is the number of sampling for instance i.
+     * @param bins the quantized numeric columns of x.
+     */
+    public RegressionTree(DataFrame x, Loss loss, StructField response, int maxDepth, int maxNodes, int nodeSize, int mtry, int[] samples, Bins bins) {
+        super(x, response, maxDepth, maxNodes, nodeSize, mtry, samples, bins);
+        this.loss = loss;
+        this.y = loss.response();
+        grow();
+    }
 
+    /** Grows the tree on the training data. */
+    private void grow() {
         LeafNode node = newNode(IntStream.range(0, x.size()).filter(i -> this.samples[i] > 0).toArray());
         this.root = node;
 
@@ -315,7 +387,7 @@ public class RegressionTree extends CART implements DataFrameRegression {
         formula = formula.expand(data.schema());
         DataFrame x = formula.x(data);
         BaseVector<?, ?, ?> y = formula.y(data);
-        RegressionTree tree = new RegressionTree(x, Loss.ls(y.toDoubleArray()), y.field(), maxDepth, maxNodes, nodeSize, -1, null, null);
+        RegressionTree tree = new RegressionTree(x, Loss.ls(y.toDoubleArray()), y.field(), maxDepth, maxNodes, nodeSize, -1, null, (int[][]) null);
         tree.formula = formula;
         return tree;
     }
@@ -326,6 +398,19 @@ public class RegressionTree extends CART implements DataFrameRegression {
         return leaf.output();
     }
 
+    /**
+     * Predicts the dependent variables of a data frame. The tree is
+     * compiled into flat arrays once and the rows are scored in parallel
+     * by chunks on the column vectors.
+     *
+     * @param data the data frame.
+     * @return the predicted values.
+     */
+    @Override
+    public double[] predict(DataFrame data) {
+        return flat(1).score(predictors(data));
+    }
+
     /** Returns null if the tree is part of ensemble algorithm. */
     @Override
     public Formula formula() {
@@ -17,9 +17,11 @@
 
 package smile.sequence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 import smile.math.MathEx;
 import smile.math.matrix.Matrix;
 
@@ -54,6 +56,48 @@ public class HMM implements Serializable {
      * Symbol emission probabilities.
      */
     private final Matrix b;
+    /**
+     * The per-thread buffers of forward, backward and Viterbi procedures,
+     * which are reused across calls.
+     */
+    private transient ThreadLocal<Workspace> workspace;
+
+    /**
+     * The reusable trellis buffers of a thread. The trellises of
+     * time t are stored at [t * N, (t+1) * N) of arrays, where N
+     * is the number of states.
+     */
+    private static class Workspace {
+        /** The forward variables or the Viterbi trellis. */
+        double[] alpha = new double[0];
+        /** The backward variables. */
+        double[] beta = new double[0];
+        /** The scaling factors. */
+        double[] scaling = new double[0];
+        /** The Viterbi backtrace. */
+        int[] psy = new int[0];
+        /** The temporary vector of length N. */
+        double[] tmp = new double[0];
+
+        /**
+         * Makes sure that the buffers hold sequences of given length.
+         * @param length the sequence length.
+         * @param N the number of states.
+         */
+        void reserve(int length, int N) {
+            if (scaling.length < length) {
+                int capacity = Math.max(length, 2 * scaling.length);
+                alpha = new double[capacity * N];
+                beta = new double[capacity * N];
+                scaling = new double[capacity];
+                psy = new int[capacity * N];
+            }
+
+            if (tmp.length != N) {
+                tmp = new double[N];
+            }
+        }
+    }
 
     /**
      * Constructor.
@@ -80,6 +124,41 @@ public class HMM implements Serializable {
         this.pi = pi;
         this.a = a;
         this.b = b;
+        this.workspace = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    /**
+     * Initializes the workspace when deserializing the object.
+     * @param in the input stream.
+     * @throws IOException when fails to read the stream.
+     * @throws ClassNotFoundException when fails to load the class.
+     */
+    private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        workspace = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    /**
+     * Returns the workspace of current thread for sequences of given length.
+     */
+    private Workspace workspace(int length) {
+        Workspace ws = workspace.get();
+        ws.reserve(length, pi.length);
+        return ws;
+    }
+
+    /**
+     * Returns the state transition probabilities in a row-major array.
+     */
+    private double[] transition() {
+        int N = pi.length;
+        double[] A = new double[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                A[i * N + j] = a.get(i, j);
+            }
+        }
+        return A;
     }
 
     /**
@@ -159,14 +238,35 @@ public class HMM implements Serializable {
      * @return the log probability of this sequence.
      */
     public double logp(int[] o) {
-        double[][] alpha = new double[o.length][a.nrow()];
-        double[] scaling = new double[o.length];
+        return logp(o, transition());
+    }
 
-        forward(o, alpha, scaling);
+    /**
+     * Returns the logarithm probabilities of observation sequences given
+     * this HMM. The sequences are scored in parallel, and the trellis
+     * buffers of each thread are reused across sequences.
+     *
+     * @param o the observation sequences.
+     * @return the log probabilities of sequences.
+     */
+    public double[] logp(int[][] o) {
+        double[] A = transition();
+        return Arrays.stream(o).parallel().mapToDouble(x -> logp(x, A)).toArray();
+    }
+
+    /**
+     * Returns the logarithm probability of an observation sequence.
+     * @param o an observation sequence.
+     * @param A the state transition probabilities in a row-major array.
+     * @return the log probability of this sequence.
+     */
+    private double logp(int[] o, double[] A) {
+        Workspace ws = workspace(o.length);
+        forward(o, A, ws.alpha, ws.scaling);
 
         double p = 0.0;
         for (int t = 0; t < o.length; t++) {
-            p += Math.log(scaling[t]);
+            p += Math.log(ws.scaling[t]);
         }
 
         return p;
@@ -175,17 +275,18 @@ public class HMM implements Serializable {
     /**
      * Normalize alpha[t] and put the normalization factor in scaling[t].
      */
-    private void scale(double[] scaling, double[][] alpha, int t) {
-        double[] table = alpha[t];
+    private void scale(double[] scaling, double[] alpha, int t) {
+        int N = pi.length;
+        int offset = t * N;
 
         double sum = 0.0;
-        for (double x : table) {
-            sum += x;
+        for (int i = 0; i < N; i++) {
+            sum += alpha[offset + i];
         }
 
         scaling[t] = sum;
-        for (int i = 0; i < table.length; i++) {
-            table[i] /= sum;
+        for (int i = 0; i < N; i++) {
+            alpha[offset + i] /= sum;
         }
     }
 
@@ -193,26 +294,33 @@ public class HMM implements Serializable {
      * Scaled forward procedure without underflow.
      *
      * @param o an observation sequence.
-     * @param alpha on output, alpha(i, j) holds the scaled total probability of
-     * ending up in state i at time j.
+     * @param A the state transition probabilities in a row-major array.
+     * @param alpha on output, alpha[t * N + i] holds the scaled total
+     * probability of ending up in state i at time t.
      * @param scaling on output, it holds scaling factors.
      */
-    private void forward(int[] o, double[][] alpha, double[] scaling) {
-        int N = a.nrow();
+    private void forward(int[] o, double[] A, double[] alpha, double[] scaling) {
+        int N = pi.length;
         for (int k = 0; k < N; k++) {
-            alpha[0][k] = pi[k] * b.get(k, o[0]);
+            alpha[k] = pi[k] * b.get(k, o[0]);
         }
         scale(scaling, alpha, 0);
 
         for (int t = 1; t < o.length; t++) {
-            for (int k = 0; k < N; k++) {
-                double sum = 0.0;
+            int prev = (t - 1) * N;
+            int cur = t * N;
+            Arrays.fill(alpha, cur, cur + N, 0.0);
 
-                for (int i = 0; i < N; i++) {
-                    sum += alpha[t - 1][i] * a.get(i, k);
+            for (int i = 0; i < N; i++) {
+                double ai = alpha[prev + i];
+                int row = i * N;
+                for (int k = 0; k < N; k++) {
+                    alpha[cur + k] += ai * A[row + k];
                 }
+            }
 
-                alpha[t][k] = sum * b.get(k, o[t]);
+            for (int k = 0; k < N; k++) {
+                alpha[cur + k] *= b.get(k, o[t]);
             }
             scale(scaling, alpha, t);
         }
@@ -222,27 +330,34 @@ public class HMM implements Serializable {
      * Scaled backward procedure without underflow.
      *
      * @param o an observation sequence.
-     * @param beta on output, beta(i, j) holds the scaled total probability of
-     * starting up in state i at time j.
+     * @param A the state transition probabilities in a row-major array.
+     * @param beta on output, beta[t * N + i] holds the scaled total
+     * probability of starting up in state i at time t.
      * @param scaling on input, it should hold scaling factors computed by
      * forward procedure.
+     * @param tmp the temporary vector of length N.
      */
-    private void backward(int[] o, double[][] beta, double[] scaling) {
-        int N = a.nrow();
+    private void backward(int[] o, double[] A, double[] beta, double[] scaling, double[] tmp) {
+        int N = pi.length;
         int n = o.length - 1;
         for (int i = 0; i < N; i++) {
-            beta[n][i] = 1.0 / scaling[n];
+            beta[n * N + i] = 1.0 / scaling[n];
         }
 
         for (int t = n; t-- > 0;) {
-            for (int i = 0; i < N; i++) {
-                double sum = 0.;
+            int next = (t + 1) * N;
+            for (int j = 0; j < N; j++) {
+                tmp[j] = beta[next + j] * b.get(j, o[t + 1]);
+            }
 
+            for (int i = 0; i < N; i++) {
+                double sum = 0.0;
+                int row = i * N;
                 for (int j = 0; j < N; j++) {
-                    sum += beta[t + 1][j] * a.get(i, j) * b.get(j, o[t + 1]);
+                    sum += A[row + j] * tmp[j];
                 }
 
-                beta[t][i] = sum / scaling[t];
+                beta[t * N + i] = sum / scaling[t];
             }
         }
     }
@@ -257,27 +372,81 @@ public class HMM implements Serializable {
      * @return the most likely state sequence.
      */
     public int[] predict(int[] o) {
-        int N = a.nrow();
+        return predict(o, logPi(), logTransition());
+    }
+
+    /**
+     * Returns the most likely state sequences given the observation
+     * sequences by the Viterbi algorithm. The sequences are decoded
+     * in parallel, and the trellis buffers of each thread are reused
+     * across sequences.
+     *
+     * @param o the observation sequences.
+     * @return the most likely state sequences.
+     */
+    public int[][] predict(int[][] o) {
+        double[] logPi = logPi();
+        double[] logA = logTransition();
+        return Arrays.stream(o).parallel().map(x -> predict(x, logPi, logA)).toArray(int[][]::new);
+    }
+
+    /**
+     * Returns the log initial state probabilities.
+     */
+    private double[] logPi() {
+        return Arrays.stream(pi).map(MathEx::log).toArray();
+    }
+
+    /**
+     * Returns the log state transition probabilities in a column-major
+     * array, i.e. logA[j * N + i] = log a(i, j), so that the Viterbi
+     * recursion of state j scans a contiguous block.
+     */
+    private double[] logTransition() {
+        int N = pi.length;
+        double[] logA = new double[N * N];
+        for (int j = 0; j < N; j++) {
+            for (int i = 0; i < N; i++) {
+                logA[j * N + i] = MathEx.log(a.get(i, j));
+            }
+        }
+        return logA;
+    }
+
+    /**
+     * The Viterbi algorithm.
+     *
+     * @param o an observation sequence.
+     * @param logPi the log initial state probabilities.
+     * @param logA the log state transition probabilities in a column-major array.
+     * @return the most likely state sequence.
+     */
+    private int[] predict(int[] o, double[] logPi, double[] logA) {
+        int N = pi.length;
+        Workspace ws = workspace(o.length);
         // The probability of the most probable path.
-        double[][] trellis = new double[o.length][N];
+        double[] trellis = ws.alpha;
         // Backtrace.
-        int[][] psy = new int[o.length][N];
+        int[] psy = ws.psy;
         // The most likely state sequence.
         int[] s = new int[o.length];
 
         // forward
         for (int i = 0; i < N; i++) {
-            trellis[0][i] = MathEx.log(pi[i]) + MathEx.log(b.get(i, o[0]));
-            psy[0][i] = 0;
+            trellis[i] = logPi[i] + MathEx.log(b.get(i, o[0]));
+            psy[i] = 0;
         }
 
         for (int t = 1; t < o.length; t++) {
+            int prev = (t - 1) * N;
+            int cur = t * N;
             for (int j = 0; j < N; j++) {
                 double maxDelta = Double.NEGATIVE_INFINITY;
                 int maxPsy = 0;
+                int col = j * N;
 
                 for (int i = 0; i < N; i++) {
-                    double delta = trellis[t - 1][i] + MathEx.log(a.get(i, j));
+                    double delta = trellis[prev + i] + logA[col + i];
 
                     if (maxDelta < delta) {
                         maxDelta = delta;
@@ -285,8 +454,8 @@ public class HMM implements Serializable {
                     }
                 }
 
-                trellis[t][j] = maxDelta + MathEx.log(b.get(j, o[t]));
-                psy[t][j] = maxPsy;
+                trellis[cur + j] = maxDelta + MathEx.log(b.get(j, o[t]));
+                psy[cur + j] = maxPsy;
             }
         }
 
@@ -294,14 +463,14 @@ public class HMM implements Serializable {
         int n = o.length - 1;
         double maxDelta = Double.NEGATIVE_INFINITY;
         for (int i = 0; i < N; i++) {
-            if (maxDelta < trellis[n][i]) {
-                maxDelta = trellis[n][i];
+            if (maxDelta < trellis[n * N + i]) {
+                maxDelta = trellis[n * N + i];
                 s[n] = i;
             }
         }
 
         for (int t = n; t-- > 0;) {
-            s[t] = psy[t + 1][s[t + 1]];
+            s[t] = psy[(t + 1) * N + s[t + 1]];
         }
 
         return s;
@@ -406,7 +575,50 @@ public class HMM implements Serializable {
     }
 
     /**
-     * Performs one iteration of the Baum-Welch algorithm.
+     * The expected counts of the E-step of Baum-Welch algorithm,
+     * which are accumulated per thread and merged at the end.
+     */
+    private static class Counts {
+        /** The expected number of sequences starting in state i. */
+        final double[] pi;
+        /** The expected number of transitions from state i to j, in a row-major array. */
+        final double[] aijNum;
+        /** The expected number of transitions from state i. */
+        final double[] aijDen;
+        /** The expected number of state i emitting symbol j, in a row-major array. */
+        final double[] bijNum;
+        /** The expected number of times in state i. */
+        final double[] bijDen;
+
+        /**
+         * Constructor.
+         * @param N the number of states.
+         * @param M the number of symbols.
+         */
+        Counts(int N, int M) {
+            pi = new double[N];
+            aijNum = new double[N * N];
+            aijDen = new double[N];
+            bijNum = new double[N * M];
+            bijDen = new double[N];
+        }
+
+        /**
+         * Merges the counts of another accumulator.
+         * @param other the other accumulator.
+         */
+        void merge(Counts other) {
+            MathEx.add(pi, other.pi);
+            MathEx.add(aijNum, other.aijNum);
+            MathEx.add(aijDen, other.aijDen);
+            MathEx.add(bijNum, other.bijNum);
+            MathEx.add(bijDen, other.bijDen);
+        }
+    }
+
+    /**
+     * Performs one iteration of the Baum-Welch algorithm. The E-step
+     * runs over the sequences in parallel.
      *
      * @param sequences the training observation sequences.
      */
@@ -414,46 +626,22 @@ public class HMM implements Serializable {
         int N = a.nrow();
         int M = b.ncol();
 
-        // gamma[n] = gamma array associated to observation sequence n
-        double[][][] gamma = new double[sequences.length][][];
-
-        // a[i][j] = aijNum[i][j] / aijDen[i]
-        // aijDen[i] = expected number of transitions from state i
-        // aijNum[i][j] = expected number of transitions from state i to j
-        double[][] aijNum = new double[N][N];
-        double[] aijDen = new double[N];
-
         for (int k = 0; k < sequences.length; k++) {
             if (sequences[k].length <= 2) {
                 throw new IllegalArgumentException(String.format("Training sequence %d is too short.", k));
             }
-
-            int[] o = sequences[k];
-            double[][] alpha = new double[o.length][N];
-            double[][] beta = new double[o.length][N];
-            double[] scaling = new double[o.length];
-            forward(o, alpha, scaling);
-            backward(o, beta, scaling);
-
-            double[][][] xi = estimateXi(o, alpha, beta);
-            double[][] g = gamma[k] = estimateGamma(xi);
-
-            int n = o.length - 1;
-            for (int i = 0; i < N; i++) {
-                for (int t = 0; t < n; t++) {
-                    aijDen[i] += g[t][i];
-
-                    for (int j = 0; j < N; j++) {
-                        aijNum[i][j] += xi[t][i][j];
-                    }
-                }
-            }
         }
 
+        double[] A = transition();
+        Counts counts = IntStream.range(0, sequences.length).parallel().collect(
+                () -> new Counts(N, M),
+                (c, k) -> estimate(sequences[k], A, c),
+                Counts::merge);
+
         for (int i = 0; i < N; i++) {
-            if (aijDen[i] != 0.0) {
+            if (counts.aijDen[i] != 0.0) {
                 for (int j = 0; j < N; j++) {
-                    a.set(i, j, aijNum[i][j] / aijDen[i]);
+                    a.set(i, j, counts.aijNum[i * N + j] / counts.aijDen[i]);
                 }
             }
         }
@@ -461,91 +649,85 @@ public class HMM implements Serializable {
         /*
          * initial state probability computation
          */
-        Arrays.fill(pi, 0.0);
-        for (int j = 0; j < sequences.length; j++) {
-            for (int i = 0; i < N; i++) {
-                pi[i] += gamma[j][0][i];
-            }
-        }
-
         for (int i = 0; i < N; i++) {
-            pi[i] /= sequences.length;
+            pi[i] = counts.pi[i] / sequences.length;
         }
 
         /*
          * emission probability computation
          */
-        b.fill(0.0);
         for (int i = 0; i < N; i++) {
-            double sum = 0.0;
-
-            for (int j = 0; j < sequences.length; j++) {
-                int[] o = sequences[j];
-                for (int t = 0; t < o.length; t++) {
-                    b.add(i, o[t], gamma[j][t][i]);
-                    sum += gamma[j][t][i];
+            if (counts.bijDen[i] != 0.0) {
+                for (int j = 0; j < M; j++) {
+                    b.set(i, j, counts.bijNum[i * M + j] / counts.bijDen[i]);
                 }
             }
-
-            for (int j = 0; j < M; j++) {
-                b.div(i, j, sum);
-            }
         }
     }
 
     /**
-     * Here, the xi (and, thus, gamma) values are not divided by the probability
-     * of the sequence because this probability might be too small and induce an
-     * underflow. xi[t][i][j] still can be interpreted as P(q_t = i and q_(t+1)
-     * = j | O, HMM) because we assume that the scaling factors are such that
-     * their product is equal to the inverse of the probability of the sequence.
+     * Accumulates the expected counts of a sequence by the forward-backward
+     * procedure. Here, the xi (and, thus, gamma) values are not divided by
+     * the probability of the sequence because this probability might be too
+     * small and induce an underflow. xi[t][i][j] still can be interpreted as
+     * P(q_t = i and q_(t+1) = j | O, HMM) because we assume that the scaling
+     * factors are such that their product is equal to the inverse of the
+     * probability of the sequence. The gamma values are the sums of xi
+     * values, which doesn't change if the xi values have been scaled.
+     *
+     * @param o an observation sequence.
+     * @param A the state transition probabilities in a row-major array.
+     * @param counts the expected counts.
      */
-    private double[][][] estimateXi(int[] o, double[][] alpha, double[][] beta) {
-        if (o.length <= 1) {
-            throw new IllegalArgumentException("Observation sequence is too short.");
-        }
+    private void estimate(int[] o, double[] A, Counts counts) {
+        int N = pi.length;
+        int M = b.ncol();
+        Workspace ws = workspace(o.length);
+        double[] alpha = ws.alpha;
+        double[] beta = ws.beta;
+        double[] tmp = ws.tmp;
 
-        int N = a.nrow();
-        int n = o.length - 1;
-        double[][][] xi = new double[n][N][N];
+        forward(o, A, alpha, ws.scaling);
+        backward(o, A, beta, ws.scaling, tmp);
 
+        int n = o.length - 1;
         for (int t = 0; t < n; t++) {
-            for (int i = 0; i < N; i++) {
-                for (int j = 0; j < N; j++) {
-                    xi[t][i][j] = alpha[t][i] * a.get(i, j) * b.get(j, o[t + 1]) * beta[t + 1][j];
-                }
+            int next = (t + 1) * N;
+            for (int j = 0; j < N; j++) {
+                tmp[j] = b.get(j, o[t + 1]) * beta[next + j];
             }
-        }
-
-        return xi;
-    }
 
-    /**
-     * gamma[][] could be computed directly using the alpha and beta arrays, but
-     * this (slower) method is preferred because it doesn't change if the xi
-     * array has been scaled (and should be changed with the scaled alpha and
-     * beta arrays).
-     */
-    private double[][] estimateGamma(double[][][] xi) {
-        int N = a.nrow();
-        double[][] gamma = new double[xi.length + 1][N];
-
-        for (int t = 0; t < xi.length; t++) {
             for (int i = 0; i < N; i++) {
+                double ai = alpha[t * N + i];
+                int row = i * N;
+                double gamma = 0.0;
                 for (int j = 0; j < N; j++) {
-                    gamma[t][i] += xi[t][i][j];
+                    double xi = ai * A[row + j] * tmp[j];
+                    counts.aijNum[row + j] += xi;
+                    gamma += xi;
+                }
+
+                counts.aijDen[i] += gamma;
+                counts.bijNum[i * M + o[t]] += gamma;
+                counts.bijDen[i] += gamma;
+                if (t == 0) {
+                    counts.pi[i] += gamma;
                 }
             }
         }
 
-        int n = xi.length - 1;
+        // gamma[n][j] is the sum of xi[n-1][i][j] over i.
+        int last = (n - 1) * N;
         for (int j = 0; j < N; j++) {
+            double gamma = 0.0;
             for (int i = 0; i < N; i++) {
-                gamma[xi.length][j] += xi[n][i][j];
+                gamma += alpha[last + i] * A[i * N + j];
             }
-        }
+            gamma *= tmp[j];
 
-        return gamma;
+            counts.bijNum[j * M + o[n]] += gamma;
+            counts.bijDen[j] += gamma;
+        }
     }
 
     @Override
@@ -17,8 +17,10 @@
 
 package smile.anomaly;
 
+import java.util.Arrays;
 import org.apache.commons.csv.CSVFormat;
 import smile.io.CSV;
+import smile.math.MathEx;
 import smile.math.kernel.GaussianKernel;
 import smile.util.Paths;
 import org.junit.After;
@@ -27,6 +29,8 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static org.junit.Assert.*;
+
 /**
  *
  * @author Haifeng
@@ -82,6 +86,34 @@ public class SVMTest {
         smile.data.Serialize.read(temp);
     }
 
+    @Test
+    public void testShrinking() throws Exception {
+        System.out.println("Six clusters with small cache and without shrinking");
+
+        CSV csv = new CSV(CSVFormat.DEFAULT.withDelimiter(' '));
+        double[][] data = csv.read(Paths.getTestData("clustering/rem.txt")).toArray();
+        GaussianKernel kernel = new GaussianKernel(1.0);
+        // The same initial support vectors in all fits.
+        MathEx.setSeed(19650218);
+        SVM<double[]> model = SVM.fit(data, kernel, 0.2, 1E-3);
+
+        // 8 rows of kernel matrix in double precision.
+        long cacheSize = 8L * data.length * Double.BYTES;
+        MathEx.setSeed(19650218);
+        SVM<double[]> lru = SVM.fit(data, kernel, 0.2, 1E-3, cacheSize, false, true);
+        MathEx.setSeed(19650218);
+        SVM<double[]> single = SVM.fit(data, kernel, 0.2, 1E-3, cacheSize, true, true);
+        MathEx.setSeed(19650218);
+        SVM<double[]> unshrunk = SVM.fit(data, kernel, 0.2, 1E-3, cacheSize, false, false);
+
+        for (SVM<double[]> other : Arrays.asList(lru, single, unshrunk)) {
+            assertEquals(model.vectors().length, other.vectors().length);
+            for (double[] x : data) {
+                assertEquals(model.score(x), other.score(x), 1E-3);
+            }
+        }
+    }
+
     @Test
     public void testSinCos() throws Exception {
         System.out.println("SinCos");
@@ -106,6 +106,19 @@ public class ARMTest {
         assertEquals(6803, rules.count());
     }
 
+    @Test
+    public void testParallel() {
+        System.out.println("parallel");
+
+        FPTree tree = FPTree.of(20, () -> ItemSetTestData.read("transaction/pima.D38.N768.C2"));
+        List<AssociationRule> expected = ARM.apply(0.9, tree).collect(Collectors.toList());
+        List<AssociationRule> rules = ARM.parallel(0.9, tree).collect(Collectors.toList());
+        assertEquals(6803, rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            assertEquals(expected.get(i), rules.get(i));
+        }
+    }
+
     @Test
     public void testKosarak() {
         System.out.println("kosarak");
@@ -17,6 +17,7 @@
 
 package smile.association;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -112,6 +113,28 @@ public class FPGrowthTest {
         assertEquals(1803, FPGrowth.apply(tree).count());
     }
     
+    @Test
+    public void testParallel() {
+        System.out.println("parallel");
+
+        FPTree tree = FPTree.of(20, () -> ItemSetTestData.read("transaction/pima.D38.N768.C2"));
+        List<ItemSet> expected = FPGrowth.apply(tree).collect(Collectors.toList());
+        List<ItemSet> results = FPGrowth.parallel(tree).collect(Collectors.toList());
+        assertEquals(1803, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(expected.get(i).support, results.get(i).support);
+            assertArrayEquals(expected.get(i).items, results.get(i).items);
+        }
+
+        // Unordered traversal and element-wise traversal.
+        assertEquals(1803, FPGrowth.parallel(tree).unordered().count());
+        Iterator<ItemSet> iterator = FPGrowth.parallel(tree).iterator();
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i).items, iterator.next().items);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
     @Test
     public void testKosarak() {
         System.out.println("kosarak");
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.base.svm;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class KernelCacheTest {
+
+    public KernelCacheTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testEviction() {
+        System.out.println("LRU eviction");
+
+        // 3 rows of 10 doubles.
+        KernelCache cache = new KernelCache(10, 240, false);
+        assertEquals(3, cache.capacity());
+
+        for (int i = 0; i < 3; i++) {
+            KernelCache.Row row = cache.put(i);
+            assertTrue(Double.isNaN(row.get(5)));
+            row.set(5, i);
+        }
+
+        // Row 0 becomes the most recently used one.
+        assertEquals(0.0, cache.get(0).get(5), 1E-15);
+
+        cache.put(3);
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(0));
+        assertNotNull(cache.get(2));
+        assertNotNull(cache.get(3));
+
+        cache.put(4);
+        assertNull(cache.get(0));
+        assertEquals(2.0, cache.get(2).get(5), 1E-15);
+
+        cache.remove(2);
+        assertNull(cache.get(2));
+        cache.clear();
+        assertNull(cache.get(3));
+        assertNull(cache.get(4));
+
+        // At least two rows for the working set.
+        assertEquals(2, new KernelCache(10, 8, false).capacity());
+        // No more rows than samples.
+        assertEquals(10, new KernelCache(10, 1L << 20, false).capacity());
+    }
+
+    @Test
+    public void testFloatCache() {
+        System.out.println("float cache");
+
+        KernelCache cache = new KernelCache(10, 240, true);
+        assertEquals(6, cache.capacity());
+
+        KernelCache.Row row = cache.put(0);
+        assertTrue(Double.isNaN(row.get(0)));
+        row.set(0, Math.PI);
+        assertEquals((float) Math.PI, cache.get(0).get(0), 0.0);
+        assertEquals(Math.PI, cache.get(0).get(0), 1E-6);
+
+        for (int i = 1; i <= 6; i++) {
+            cache.put(i);
+        }
+        assertNull(cache.get(0));
+    }
+}
@@ -17,6 +17,7 @@
 
 package smile.classification;
 
+import smile.base.cart.FlatForest;
 import smile.data.*;
 import smile.math.MathEx;
 import smile.validation.*;
@@ -146,6 +147,55 @@ public class GradientTreeBoostTest {
         }
     }
 
+    @Test
+    public void testSegmentBinned() {
+        System.out.println("Segment with histogram-based splits");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7, 256);
+
+        int[] prediction = model.predict(Segment.test);
+        int error = Error.of(Segment.testy, prediction);
+
+        System.out.println("Error = " + error);
+        assertEquals(21, error);
+    }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7);
+        FlatForest forest = model.compile();
+        assertEquals(model.numClasses(), forest.outputs());
+
+        double[] score = new double[forest.outputs()];
+        for (int i = 0; i < Segment.testx.length; i++) {
+            forest.score(Segment.testx[i], score);
+            assertEquals(model.predict(Segment.test.get(i)), model.classes()[MathEx.whichMax(score)]);
+        }
+    }
+
+    @Test
+    public void testTrim() {
+        System.out.println("trim");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Segment.formula, Segment.train, 100, 20, 6, 5, 0.05, 0.7);
+        int[] prediction = model.predict(Segment.test);
+        for (int i = 0; i < prediction.length; i++) {
+            assertEquals(model.predict(Segment.test.get(i)), prediction[i]);
+        }
+
+        // The cached compiled forest is invalidated by trim.
+        model.trim(10);
+        prediction = model.predict(Segment.test);
+        for (int i = 0; i < prediction.length; i++) {
+            assertEquals(model.predict(Segment.test.get(i)), prediction[i]);
+        }
+    }
+
     @Test
     public void testUSPS() {
         System.out.println("USPS");
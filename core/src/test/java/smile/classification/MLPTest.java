@@ -17,6 +17,11 @@
 
 package smile.classification;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -207,6 +212,39 @@ public class MLPTest {
         assertEquals(28, error);
     }
 
+    @Test
+    public void testSegmentAdam() throws Exception {
+        System.out.println("Segment Adam");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        WinsorScaler scaler = WinsorScaler.fit(Segment.x, 0.01, 0.99);
+        double[][] x = scaler.transform(Segment.x);
+        double[][] testx = scaler.transform(Segment.testx);
+        // The checkpoint directory doesn't exist yet.
+        Path checkpoint = Files.createTempDirectory("smile-mlp").resolve("checkpoint");
+
+        Properties params = new Properties();
+        params.setProperty("smile.mlp.layers", "Sigmoid(50)");
+        params.setProperty("smile.mlp.epochs", "10");
+        params.setProperty("smile.mlp.mini_batch", "32");
+        params.setProperty("smile.mlp.optimizer", "Adam");
+        params.setProperty("smile.mlp.learning_rate", "0.05");
+        params.setProperty("smile.mlp.checkpoint", checkpoint.toString());
+        MLP model = MLP.fit(x, Segment.y, params);
+
+        int[] prediction = model.predict(testx);
+        int error = Error.of(Segment.testy, prediction);
+        System.out.println("Test Error = " + error);
+        assertEquals(42, error);
+
+        // Only the last checkpoint is kept.
+        try (Stream<Path> files = Files.list(checkpoint)) {
+            assertEquals(1, files.count());
+        }
+        MLP checkpointed = (MLP) smile.data.Serialize.read(checkpoint.resolve("mlp.model"));
+        assertEquals(error, Error.of(Segment.testy, checkpointed.predict(testx)));
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS SGD");
@@ -245,6 +283,50 @@ public class MLPTest {
         smile.data.Serialize.read(temp);
     }
 
+    /** Trains the model with mini-batches of 64 samples, i.e. 4 shards. */
+    private double[][] trainShards() {
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        WinsorScaler scaler = WinsorScaler.fit(Segment.x, 0.01, 0.99);
+        double[][] x = scaler.transform(Segment.x);
+        double[][] testx = scaler.transform(Segment.testx);
+        int p = x[0].length;
+        int k = MathEx.max(Segment.y) + 1;
+
+        MLP model = new MLP(Layer.input(p),
+                Layer.sigmoid(50),
+                Layer.mle(k, OutputFunction.SOFTMAX)
+        );
+
+        model.setLearningRate(TimeFunction.constant(0.1));
+        model.setRMSProp(0.9, 1E-7);
+
+        int batch = 64;
+        for (int i = 0; i + batch <= x.length; i += batch) {
+            model.update(java.util.Arrays.copyOfRange(x, i, i + batch), java.util.Arrays.copyOfRange(Segment.y, i, i + batch));
+        }
+
+        double[][] posteriori = new double[testx.length][k];
+        for (int i = 0; i < testx.length; i++) {
+            model.predict(testx[i], posteriori[i]);
+        }
+        return posteriori;
+    }
+
+    @Test
+    public void testShards() throws Exception {
+        System.out.println("Shards");
+
+        // The shards don't depend on the number of threads.
+        double[][] expected = new ForkJoinPool(1).submit(this::trainShards).get();
+        for (int parallelism : new int[]{2, 8}) {
+            double[][] posteriori = new ForkJoinPool(parallelism).submit(this::trainShards).get();
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], posteriori[i], 0.0);
+            }
+        }
+    }
+
     @Test
     public void testUSPSMiniBatch() {
         System.out.println("USPS Mini-Batch");
@@ -295,6 +377,6 @@ public class MLPTest {
             System.out.println("Test Error = " + error);
         }
 
-        assertEquals(115, error);
+        assertEquals(131, error);
     }
 }
\ No newline at end of file
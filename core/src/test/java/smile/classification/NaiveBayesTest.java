@@ -103,6 +103,38 @@ public class NaiveBayesTest {
         smile.data.Serialize.read(temp);
     }
 
+    @Test
+    public void testOnline() {
+        System.out.println("online");
+
+        int n = Iris.x.length;
+        int[] even = IntStream.range(0, n).filter(i -> i % 2 == 0).toArray();
+        int[] odd = IntStream.range(0, n).filter(i -> i % 2 == 1).toArray();
+
+        NaiveBayes model = NaiveBayes.fit(MathEx.slice(Iris.x, even), MathEx.slice(Iris.y, even));
+        assertTrue(model.online());
+        for (int i = 0; i < odd.length; i += 25) {
+            int[] batch = java.util.Arrays.copyOfRange(odd, i, Math.min(i + 25, odd.length));
+            model.update(MathEx.slice(Iris.x, batch), MathEx.slice(Iris.y, batch));
+        }
+
+        NaiveBayes batch = NaiveBayes.fit(Iris.x, Iris.y);
+        assertArrayEquals(batch.priori(), model.priori(), 1E-10);
+
+        double[] prob = new double[3];
+        double[] expected = new double[3];
+        int error = 0;
+        for (int i = 0; i < n; i++) {
+            int y = model.predict(Iris.x[i], prob);
+            assertEquals(batch.predict(Iris.x[i], expected), y);
+            assertArrayEquals(expected, prob, 1E-6);
+            if (y != Iris.y[i]) error++;
+        }
+
+        System.out.println("Training error = " + error);
+        assertEquals(6, error);
+    }
+
     @Test
     public void testWeather() {
         System.out.println("Weather");
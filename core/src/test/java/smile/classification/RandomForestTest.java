@@ -18,6 +18,7 @@
 package smile.classification;
 
 import java.util.Arrays;
+import smile.base.cart.FlatForest;
 import smile.base.cart.SplitRule;
 import smile.data.*;
 import smile.math.MathEx;
@@ -180,6 +181,62 @@ public class RandomForestTest {
         }
     }
 
+    @Test
+    public void testSegmentBinned() {
+        System.out.println("Segment with histogram-based splits");
+
+        RandomForest model = RandomForest.fit(Segment.formula, Segment.train, 200, 16, SplitRule.GINI, 20, 100, 5, 1.0, null, Arrays.stream(seeds), 256);
+
+        int[] prediction = model.predict(Segment.test);
+        int error = Error.of(Segment.testy, prediction);
+
+        System.out.println("Error = " + error);
+        assertEquals(31, error);
+    }
+
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        RandomForest model = RandomForest.fit(Segment.formula, Segment.train, 100, 16, SplitRule.GINI, 20, 100, 5, 1.0, null, Arrays.stream(seeds));
+        FlatForest forest = model.compile();
+        assertEquals(100, forest.size());
+        assertEquals(model.numClasses(), forest.outputs());
+
+        int k = model.numClasses();
+        double[] posteriori = new double[k];
+        double[] score = new double[k];
+        double[][] scores = new double[Segment.testx.length][k];
+        forest.score(Segment.testx, scores);
+        for (int i = 0; i < Segment.testx.length; i++) {
+            int y = model.predict(Segment.test.get(i), posteriori);
+            forest.score(Segment.testx[i], score);
+            assertEquals(y, model.classes()[MathEx.whichMax(score)]);
+            assertEquals(y, model.classes()[MathEx.whichMax(scores[i])]);
+            MathEx.unitize1(score);
+            assertArrayEquals(posteriori, score, 1E-10);
+        }
+    }
+
+    @Test
+    public void testPredictDataFrame() {
+        System.out.println("predict data frame");
+
+        RandomForest model = RandomForest.fit(Segment.formula, Segment.train, 100, 16, SplitRule.GINI, 20, 100, 5, 1.0, null, Arrays.stream(seeds));
+        int k = model.numClasses();
+        int n = Segment.test.size();
+        int[] prediction = model.predict(Segment.test);
+        double[][] posteriori = new double[n][k];
+        int[] soft = model.predict(Segment.test, posteriori);
+
+        double[] prob = new double[k];
+        for (int i = 0; i < n; i++) {
+            assertEquals(model.predict(Segment.test.get(i)), prediction[i]);
+            assertEquals(model.predict(Segment.test.get(i), prob), soft[i]);
+            assertArrayEquals(prob, posteriori[i], 1E-10);
+        }
+    }
+
     @Test
     public void testUSPS() {
         System.out.println("USPS");
@@ -24,6 +24,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import java.io.IOException;
+import java.util.Properties;
 import smile.data.Dataset;
 import smile.data.Instance;
 import smile.data.Segment;
@@ -161,6 +162,30 @@ public class SVMTest {
         assertEquals(33, error, 3);
     }
 
+    @Test
+    public void testSegmentCache() {
+        System.out.println("Segment with small float cache");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        Standardizer scaler = Standardizer.fit(Segment.x);
+        double[][] x = scaler.transform(Segment.x);
+        double[][] testx = scaler.transform(Segment.testx);
+
+        // 16 rows of kernel matrix in single precision.
+        Properties params = new Properties();
+        params.setProperty("smile.svm.type", "ovo");
+        params.setProperty("smile.svm.kernel", "Gaussian(6.4)");
+        params.setProperty("smile.svm.C", "100");
+        params.setProperty("smile.svm.cache_size", String.valueOf(16L * x.length * Float.BYTES));
+        params.setProperty("smile.svm.float_cache", "true");
+        Classifier<double[]> model = SVM.fit(x, Segment.y, params);
+
+        int[] prediction = model.predict(testx);
+        int error = Error.of(Segment.testy, prediction);
+        System.out.format("Test Error = %d, Accuracy = %.2f%%%n", error, 100.0 - 100.0 * error / Segment.testx.length);
+        assertEquals(33, error, 3);
+    }
+
     @Test
     public void testUSPS() throws Exception {
         System.out.println("USPS");
@@ -84,7 +84,12 @@ public class SparseLogisticRegressionTest {
 
         int error = Error.of(USPS.testy, prediction);
         System.out.println("Error = " + error);
-        assertEquals(185, error);
+        assertEquals(184, error);
+
+        SparseLogisticRegression csr = SparseLogisticRegression.fit(CSRDataset.of(x, false), USPS.y, 0.3, 1E-3, 1000);
+        for (int i = 0; i < testx.size(); i++) {
+            assertEquals(prediction[i], csr.predict(testx.get(i)));
+        }
 
         int t = USPS.x.length;
         int round = (int) Math.round(Math.log(USPS.testx.length));
@@ -18,6 +18,8 @@
 package smile.clustering;
 
 import smile.data.GaussianMixture;
+import smile.math.distance.EuclideanDistance;
+import smile.neighbor.KDTree;
 import smile.validation.metric.*;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -77,4 +79,22 @@ public class DBSCANTest {
         java.nio.file.Path temp = smile.data.Serialize.write(model);
         smile.data.Serialize.read(temp);
     }
+
+    @Test
+    public void testNearestNeighborSearch() throws Exception {
+        System.out.println("Nearest Neighbor Search");
+
+        double[][] x = GaussianMixture.x;
+        DBSCAN<double[]> grid = DBSCAN.fit(x,200, 0.8);
+        DBSCAN<double[]> kdtree = DBSCAN.fit(x, new KDTree<>(x, x), 200, 0.8);
+        DBSCAN<double[]> naive = DBSCAN.fit(x, new EuclideanDistance(), 200, 0.8);
+
+        assertEquals(kdtree.k, grid.k);
+        assertEquals(kdtree.k, naive.k);
+        assertArrayEquals(kdtree.y, grid.y);
+        assertArrayEquals(kdtree.y, naive.y);
+        for (int i = 0; i < x.length; i += 100) {
+            assertEquals(kdtree.predict(x[i]), grid.predict(x[i]));
+        }
+    }
 }
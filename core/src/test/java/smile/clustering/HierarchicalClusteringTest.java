@@ -167,4 +167,44 @@ public class HierarchicalClusteringTest {
         System.out.format("NMI.sum = %.2f%%%n", 100 * NormalizedMutualInformation.sum(y, label));
         System.out.format("NMI.sqrt = %.2f%%%n", 100 * NormalizedMutualInformation.sqrt(y, label));
     }
+
+    /** Checks the merge heights and the partition against the linkage model. */
+    private void check(HierarchicalClustering expected, HierarchicalClustering model) {
+        double[] h1 = expected.height();
+        double[] h2 = model.height();
+        assertEquals(h1.length, h2.length);
+        for (int i = 0; i < h1.length; i++) {
+            assertEquals(h1[i], h2[i], 1E-5 * Math.max(1.0, h1[i]));
+        }
+
+        assertArrayEquals(expected.partition(10), model.partition(10));
+    }
+
+    @Test
+    public void testLinearMemory() throws Exception {
+        System.out.println("O(n) memory");
+
+        double[][] x = java.util.Arrays.copyOf(USPS.x, 2000);
+        int[] y = java.util.Arrays.copyOf(USPS.y, 2000);
+
+        check(HierarchicalClustering.fit(SingleLinkage.of(x)), HierarchicalClustering.slink(x));
+        check(HierarchicalClustering.fit(UPGMCLinkage.of(x)), HierarchicalClustering.upgmc(x));
+        check(HierarchicalClustering.fit(WPGMCLinkage.of(x)), HierarchicalClustering.wpgmc(x));
+        check(HierarchicalClustering.fit(WardLinkage.of(x)), HierarchicalClustering.ward(x));
+
+        // CLINK may be different from the naive complete linkage.
+        HierarchicalClustering model = HierarchicalClustering.clink(x);
+        double[] height = model.height();
+        for (int i = 1; i < height.length; i++) {
+            assertTrue(height[i-1] <= height[i]);
+        }
+
+        int[] label = model.partition(10);
+        double r = RandIndex.of(y, label);
+        double r2 = AdjustedRandIndex.of(y, label);
+        System.out.format("CLINK rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+
+        java.nio.file.Path temp = smile.data.Serialize.write(model);
+        smile.data.Serialize.read(temp);
+    }
 }
@@ -181,4 +181,94 @@ public class KMeansTest {
         java.nio.file.Path temp = smile.data.Serialize.write(model);
         smile.data.Serialize.read(temp);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHamerly4() {
+        System.out.println("Hamerly 4");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        KMeans model = KMeans.hamerly(x, 4);
+        System.out.println(model);
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        KMeans lloyd = KMeans.lloyd(x, 4);
+        assertArrayEquals(lloyd.y, model.y);
+        assertEquals(lloyd.distortion, model.distortion, 1E-7 * lloyd.distortion);
+
+        double r = RandIndex.of(y, model.y);
+        double r2 = AdjustedRandIndex.of(y, model.y);
+        System.out.format("Training rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertEquals(0.6111, r, 1E-4);
+        assertEquals(0.2475, r2, 1E-4);
+    }
+
+    @Test
+    public void testHamerly64() {
+        System.out.println("Hamerly 64");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        KMeans model = KMeans.hamerly(x, 64);
+        System.out.println(model);
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        KMeans lloyd = KMeans.lloyd(x, 64);
+        assertArrayEquals(lloyd.y, model.y);
+        assertEquals(lloyd.distortion, model.distortion, 1E-7 * lloyd.distortion);
+
+        double r = RandIndex.of(y, model.y);
+        double r2 = AdjustedRandIndex.of(y, model.y);
+        System.out.format("Training rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertEquals(0.4714, r, 1E-4);
+        assertEquals(0.0185, r2, 1E-4);
+    }
+
+    @Test
+    public void testMiniBatch() throws Exception {
+        System.out.println("mini-batch USPS");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        double[][] x = USPS.x;
+        int[] y = USPS.y;
+
+        KMeans model = KMeans.minibatch(x, 10, 500, 100);
+        System.out.println(model);
+
+        double r = RandIndex.of(y, model.y);
+        double r2 = AdjustedRandIndex.of(y, model.y);
+        System.out.format("Training rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertEquals(0.9077, r, 1E-4);
+        assertEquals(0.5174, r2, 1E-4);
+
+        double[][] centroids = KMeans.minibatch(java.util.Arrays.asList(x, USPS.testx).iterator(), 10);
+        int[] p = KMeans.assign(USPS.testx, centroids);
+        r = RandIndex.of(USPS.testy, p);
+        r2 = AdjustedRandIndex.of(USPS.testy, p);
+        System.out.format("Streaming testing rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertEquals(0.8793, r, 1E-4);
+        assertEquals(0.4035, r2, 1E-4);
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        System.out.println("update USPS");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        double[][] x = USPS.x;
+        double[][] testx = USPS.testx;
+        int[] testy = USPS.testy;
+
+        KMeans model = KMeans.fit(x, 10, 100, 4);
+        for (int i = 0; i < testx.length; i += 500) {
+            model.update(java.util.Arrays.copyOfRange(testx, i, Math.min(i + 500, testx.length)));
+        }
+
+        int[] p = new int[testx.length];
+        for (int i = 0; i < testx.length; i++) {
+            p[i] = model.predict(testx[i]);
+        }
+
+        double r = RandIndex.of(testy, p);
+        double r2 = AdjustedRandIndex.of(testy, p);
+        System.out.format("Testing rand index = %.2f%%, adjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertEquals(0.8943, r, 1E-4);
+        assertEquals(0.4544, r2, 1E-4);
+    }
+}
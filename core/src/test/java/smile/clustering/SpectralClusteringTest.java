@@ -18,6 +18,7 @@
 package smile.clustering;
 
 import smile.data.USPS;
+import smile.graph.NearestNeighborGraph;
 import smile.math.MathEx;
 import smile.validation.metric.*;
 import org.junit.After;
@@ -105,4 +106,23 @@ public class SpectralClusteringTest {
         java.nio.file.Path temp = smile.data.Serialize.write(model);
         smile.data.Serialize.read(temp);
     }
+
+    @Test
+    public void testUSPSNearestNeighborGraph() throws Exception {
+        System.out.println("USPS k-nearest neighbor graph");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        double[][] x = USPS.x;
+        int[] y = USPS.y;
+
+        NearestNeighborGraph nng = NearestNeighborGraph.descent(x, 15);
+        SpectralClustering model = SpectralClustering.fit(nng, 10, 8.0);
+        System.out.println(model);
+
+        double r = RandIndex.of(y, model.y);
+        double r2 = AdjustedRandIndex.of(y, model.y);
+        System.out.format("Training rand index = %.2f%%\tadjusted rand index = %.2f%%%n", 100.0 * r, 100.0 * r2);
+        assertTrue(r > 0.9);
+        assertTrue(r2 > 0.5);
+    }
 }
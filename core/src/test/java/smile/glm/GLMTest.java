@@ -17,6 +17,8 @@
 
 package smile.glm;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -80,4 +82,24 @@ public class GLMTest {
         java.nio.file.Path temp = smile.data.Serialize.write(model);
         smile.data.Serialize.read(temp);
     }
+
+    @Test
+    public void testOnline() {
+        System.out.println("online");
+
+        int n = Default.data.size();
+        GLM model = GLM.fit(Default.formula, Default.data.of(IntStream.range(0, n/2).toArray()), Bernoulli.logit());
+        for (int i = n/2; i < n; i += 1000) {
+            model.update(Default.data.of(IntStream.range(i, Math.min(i + 1000, n)).toArray()));
+        }
+
+        double[] beta = model.coefficients();
+        System.out.println(Arrays.toString(beta));
+        // The coefficients and standard errors of the fit on the whole data.
+        double[] expected = {-10.869045, -6.468e-01, 5.737e-03, 3.033e-06};
+        double[] stderr = {4.923e-01, 2.363e-01, 2.319e-04, 8.203e-06};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], beta[i], 0.1 * stderr[i]);
+        }
+    }
 }
\ No newline at end of file
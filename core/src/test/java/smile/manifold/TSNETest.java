@@ -83,4 +83,30 @@ public class TSNETest {
         assertArrayEquals(coord1000, tsne.coordinates[1000], 1E-6);
         assertArrayEquals(coord2000, tsne.coordinates[2000], 1E-6);
     }
+
+    @Test
+    public void testBarnesHut() throws Exception {
+        System.out.println("Barnes-Hut tSNE");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        PCA pca = PCA.fit(MNIST.x);
+        pca.setProjection(50);
+        double[][] X = pca.project(MNIST.x);
+
+        long start = System.currentTimeMillis();
+        TSNE tsne = new TSNE(X, 2, 20, 200, 550, 0.5);
+        long end = System.currentTimeMillis();
+        System.out.format("Barnes-Hut t-SNE takes %.2f seconds\n", (end - start) / 1000.0);
+
+        assertEquals(1.7861578, tsne.cost(), 1E-4);
+        double[] coord0    = { 15.8620550,  2.0858226};
+        double[] coord100  = {-16.5292603, 17.3411147};
+        double[] coord1000 = {  5.8999555, 26.7060029};
+        double[] coord2000 = {-15.1274727, 18.4694497};
+        assertArrayEquals(coord0,    tsne.coordinates[0], 1E-6);
+        assertArrayEquals(coord100,  tsne.coordinates[100], 1E-6);
+        assertArrayEquals(coord1000, tsne.coordinates[1000], 1E-6);
+        assertArrayEquals(coord2000, tsne.coordinates[2000], 1E-6);
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import smile.math.distance.EuclideanDistance;
+import smile.math.matrix.Matrix;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class GridIndexTest {
+
+    public GridIndexTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testRange() {
+        System.out.println("range");
+
+        double[][] data = Matrix.randn(2000, 2).toArray();
+        GridIndex<double[]> grid = GridIndex.of(data, 0.1);
+        LinearSearch<double[]> naive = new LinearSearch<>(data, new EuclideanDistance());
+
+        List<Neighbor<double[], double[]>> n1 = new ArrayList<>();
+        List<Neighbor<double[], double[]>> n2 = new ArrayList<>();
+        for (double radius : new double[]{0.05, 0.1, 0.35}) {
+            for (int i = 0; i < data.length; i++) {
+                grid.range(data[i], radius, n1);
+                naive.range(data[i], radius, n2);
+                Collections.sort(n1);
+                Collections.sort(n2);
+                assertEquals(n1.size(), n2.size());
+                for (int j = 0; j < n1.size(); j++) {
+                    assertEquals(n1.get(j).index, n2.get(j).index);
+                    assertEquals(n1.get(j).value, n2.get(j).value);
+                    assertEquals(n1.get(j).distance, n2.get(j).distance, 1E-7);
+                }
+                n1.clear();
+                n2.clear();
+            }
+        }
+
+        // The query point outside the grid.
+        grid.range(new double[]{100.0, 100.0}, 1.0, n1);
+        assertTrue(n1.isEmpty());
+        grid.range(new double[]{-100.0, 0.0}, 100.0, n1);
+        naive.range(new double[]{-100.0, 0.0}, 100.0, n2);
+        assertEquals(n2.size(), n1.size());
+    }
+}
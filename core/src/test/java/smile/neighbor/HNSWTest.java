@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.neighbor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.data.USPS;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+@SuppressWarnings("rawtypes")
+public class HNSWTest {
+    double[][] x = USPS.x;
+    double[][] testx = USPS.testx;
+    HNSW<double[]> hnsw;
+    LinearSearch<double[]> naive = new LinearSearch<>(x, new EuclideanDistance());
+
+    public HNSWTest() {
+        MathEx.setSeed(19650218); // to get repeatable results.
+        hnsw = new HNSW<>(x, x);
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Returns the average recall of k-nearest neighbor search. */
+    private double recall(HNSW<double[]> index, int k) {
+        int recall = 0;
+        for (double[] xi : testx) {
+            Neighbor[] n1 = index.knn(xi, k);
+            Neighbor[] n2 = naive.knn(xi, k);
+            for (Neighbor m2 : n2) {
+                for (Neighbor m1 : n1) {
+                    if (m1.index == m2.index) {
+                        recall++;
+                        break;
+                    }
+                }
+            }
+        }
+        return (double) recall / (k * testx.length);
+    }
+
+    @Test
+    public void testNearest() {
+        System.out.println("nearest");
+
+        int recall = 0;
+        for (double[] xi : testx) {
+            Neighbor neighbor = hnsw.nearest(xi);
+            Neighbor truth = naive.nearest(xi);
+            if (neighbor.index == truth.index) {
+                recall++;
+            }
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * recall / testx.length);
+        assertTrue(recall > 0.95 * testx.length);
+    }
+
+    @Test
+    public void testKnn() {
+        System.out.println("knn");
+
+        double recall = recall(hnsw, 10);
+        System.out.format("recall of 10-NN is %.2f%%%n", 100 * recall);
+        assertTrue(recall > 0.95);
+
+        hnsw.setEf(100);
+        double recall100 = recall(hnsw, 10);
+        System.out.format("recall of 10-NN with ef = 100 is %.2f%%%n", 100 * recall100);
+        assertTrue(recall100 >= recall);
+    }
+
+    @Test
+    public void testExcludeSelf() {
+        System.out.println("exclude self");
+
+        for (int i = 0; i < 100; i++) {
+            Neighbor[] neighbors = hnsw.knn(x[i], 5);
+            assertEquals(5, neighbors.length);
+            for (Neighbor neighbor : neighbors) {
+                assertNotEquals(i, neighbor.index);
+            }
+        }
+    }
+
+    @Test
+    public void testRange() {
+        System.out.println("range");
+
+        int hit = 0;
+        int total = 0;
+        for (double[] xi : testx) {
+            ArrayList<Neighbor<double[], double[]>> n1 = new ArrayList<>();
+            ArrayList<Neighbor<double[], double[]>> n2 = new ArrayList<>();
+            hnsw.range(xi, 8.0, n1);
+            naive.range(xi, 8.0, n2);
+            total += n2.size();
+
+            for (Neighbor m2 : n2) {
+                for (Neighbor m1 : n1) {
+                    if (m1.index == m2.index) {
+                        hit++;
+                        break;
+                    }
+                }
+            }
+
+            for (Neighbor m1 : n1) {
+                assertTrue(m1.distance <= 8.0);
+            }
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * hit / total);
+        assertTrue(hit > 0.9 * total);
+    }
+
+    @Test
+    public void testConcurrentPut() {
+        System.out.println("concurrent put");
+
+        HNSW<Integer> index = new HNSW<>(16, 100);
+        IntStream.range(0, x.length).parallel().forEach(i -> index.put(x[i], i));
+        assertEquals(x.length, index.size());
+
+        int recall = 0;
+        for (double[] xi : testx) {
+            Neighbor<double[], Integer> neighbor = index.nearest(xi);
+            assertSame(x[neighbor.value], neighbor.key);
+            if (neighbor.key == naive.nearest(xi).key) {
+                recall++;
+            }
+        }
+
+        System.out.format("recall is %.2f%%%n", 100.0 * recall / testx.length);
+        assertTrue(recall > 0.9 * testx.length);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        System.out.println("serialization");
+
+        java.nio.file.Path temp = smile.data.Serialize.write(hnsw);
+        @SuppressWarnings("unchecked")
+        HNSW<double[]> index = (HNSW<double[]>) smile.data.Serialize.read(temp);
+        assertEquals(hnsw.size(), index.size());
+
+        for (int i = 0; i < 100; i++) {
+            Neighbor[] n1 = hnsw.knn(testx[i], 10);
+            Neighbor[] n2 = index.knn(testx[i], 10);
+            assertEquals(n1.length, n2.length);
+            for (int j = 0; j < n1.length; j++) {
+                assertEquals(n1[j].index, n2[j].index);
+                assertEquals(n1[j].distance, n2[j].distance, 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void testSpeed() {
+        System.out.println("Speed");
+
+        long start = System.currentTimeMillis();
+        for (double[] xi : testx) {
+            hnsw.nearest(xi);
+        }
+        double time = (System.currentTimeMillis() - start) / 1000.0;
+        System.out.format("NN: %.2fs%n", time);
+
+        start = System.currentTimeMillis();
+        for (double[] xi : testx) {
+            hnsw.knn(xi, 10);
+        }
+        time = (System.currentTimeMillis() - start) / 1000.0;
+        System.out.format("10-NN: %.2fs%n", time);
+
+        start = System.currentTimeMillis();
+        List<Neighbor<double[], double[]>> n = new ArrayList<>();
+        for (double[] xi : testx) {
+            hnsw.range(xi, 8.0, n);
+            n.clear();
+        }
+        time = (System.currentTimeMillis() - start) / 1000.0;
+        System.out.format("Range: %.2fs%n", time);
+    }
+}
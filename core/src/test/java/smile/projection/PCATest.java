@@ -17,6 +17,7 @@
 
 package smile.projection;
 
+import java.util.Arrays;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -216,4 +217,43 @@ public class PCATest {
             }
         }
     }
+
+    @Test
+    public void testRandomized() {
+        System.out.println("randomized");
+        PCA pca = PCA.fit(USArrests.x);
+        PCA rpca = PCA.fit(USArrests.x, 2);
+        assertEquals(2, rpca.variance().length);
+        for (int j = 0; j < 2; j++) {
+            assertEquals(pca.variance()[j], rpca.variance()[j], 1E-7 * pca.variance()[j]);
+            assertEquals(pca.varianceProportion()[j], rpca.varianceProportion()[j], 1E-7);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Math.abs(pca.loadings().get(i, j)), Math.abs(rpca.loadings().get(i, j)), 1E-7);
+            }
+        }
+
+        rpca.setProjection(0.999);
+        assertEquals(2, rpca.projection().nrow());
+    }
+
+    @Test
+    public void testIncremental() {
+        System.out.println("incremental");
+        PCA pca = PCA.fit(USArrests.x);
+        IncrementalPCA ipca = new IncrementalPCA(4, 4);
+        for (int i = 0; i < USArrests.x.length; i += 15) {
+            ipca.update(Arrays.copyOfRange(USArrests.x, i, Math.min(i + 15, USArrests.x.length)));
+        }
+        assertEquals(50, ipca.size());
+
+        PCA ip = ipca.pca();
+        assertTrue(MathEx.equals(pca.center(), ip.center(), 1E-10));
+        assertTrue(MathEx.equals(pca.varianceProportion(), ip.varianceProportion(), 1E-7));
+        for (int j = 0; j < 4; j++) {
+            assertEquals(pca.variance()[j], ip.variance()[j], 1E-7 * pca.variance()[j]);
+            for (int i = 0; i < 4; i++) {
+                assertEquals(Math.abs(pca.loadings().get(i, j)), Math.abs(ip.loadings().get(i, j)), 1E-7);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -166,6 +166,17 @@ public class GradientTreeBoostTest {
         test(Loss.huber(0.9), "abalone", Abalone.formula, Abalone.train, 2.2228);
     }
 
+    @Test
+    public void testAbaloneBinned() {
+        System.out.println("abalone with histogram-based splits");
+
+        MathEx.setSeed(19650218); // to get repeatable results.
+        GradientTreeBoost model = GradientTreeBoost.fit(Abalone.formula, Abalone.train, Loss.ls(), 100, 20, 6, 5, 0.05, 0.7, 256);
+        double rmse = RMSE.of(Abalone.testy, model.predict(Abalone.test));
+        System.out.format("RMSE = %.4f%n", rmse);
+        assertEquals(2.1025, rmse, 1E-4);
+    }
+
     @Test
     public void testAileronsLS() {
         test(Loss.ls(), "ailerons", Ailerons.formula, Ailerons.data, 0.0002);
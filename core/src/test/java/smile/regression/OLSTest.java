@@ -98,6 +98,11 @@ public class OLSTest {
             assertEquals(residuals[i], model.residuals()[i], 1E-4);
         }
 
+        double[] prediction = model.predict(Longley.data);
+        for (int i = 0; i < prediction.length; i++) {
+            assertEquals(model.predict(Longley.data.get(i)), prediction[i], 1E-7);
+        }
+
         java.nio.file.Path temp = smile.data.Serialize.write(model);
         smile.data.Serialize.read(temp);
     }
@@ -29,6 +29,7 @@ import smile.validation.CrossValidation;
 import smile.validation.RegressionValidations;
 import smile.validation.metric.RMSE;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -103,6 +104,23 @@ public class RLSTest {
         assertEquals(0.643182, rmse, 1E-4);
     }
 
+    @Test
+    public void testForgettingFactor() {
+        System.out.println("Prostate with forgetting factor");
+
+        LinearModel block = OLS.fit(Prostate.formula, Prostate.train);
+        LinearModel sequential = OLS.fit(Prostate.formula, Prostate.train);
+
+        block.update(Prostate.test, 0.95);
+        double[][] x = Prostate.formula.matrix(Prostate.test, true).toArray();
+        for (int i = 0; i < x.length; i++) {
+            sequential.update(x[i], Prostate.testy[i], 0.95);
+        }
+
+        assertEquals(sequential.intercept(), block.intercept(), 1E-7);
+        assertArrayEquals(sequential.coefficients(), block.coefficients(), 1E-7);
+    }
+
     /**
      * Test of online learn method of class OLS.
      */
@@ -19,6 +19,7 @@ package smile.regression;
 
 import java.util.Arrays;
 import org.junit.*;
+import smile.base.cart.FlatForest;
 import smile.data.*;
 import smile.data.formula.Formula;
 import smile.math.MathEx;
@@ -143,6 +144,28 @@ public class RandomForestTest {
         }
     }
 
+    @Test
+    public void testCompile() {
+        System.out.println("compile");
+
+        RandomForest model = RandomForest.fit(Abalone.formula, Abalone.train, 100, 3, 20, 100, 5, 1.0, Arrays.stream(seeds));
+        FlatForest forest = model.compile();
+        assertEquals(100, forest.size());
+        assertEquals(1, forest.outputs());
+
+        double[][] x = Abalone.formula.x(Abalone.test).toArray();
+        double[][] columns = MathEx.transpose(x);
+        double[] score = new double[1];
+        double[][] scores = new double[x.length][1];
+        forest.score(columns, 0, x.length, scores);
+        for (int i = 0; i < x.length; i++) {
+            double y = model.predict(Abalone.test.get(i));
+            forest.score(x[i], score);
+            assertEquals(y, score[0], 1E-10);
+            assertEquals(y, scores[i][0], 1E-10);
+        }
+    }
+
     @Test
     public void testCPU() {
         test("CPU", CPU.formula, CPU.data, 69.0170);
@@ -188,6 +211,16 @@ public class RandomForestTest {
         test("kin8nm", Kin8nm.formula, Kin8nm.data, 0.1704);
     }
 
+    @Test
+    public void testAbaloneBinned() {
+        System.out.println("abalone with histogram-based splits");
+
+        RandomForest model = RandomForest.fit(Abalone.formula, Abalone.train, 50, 3, 20, 100, 5, 1.0, Arrays.stream(seeds), 256);
+        double rmse = RMSE.of(Abalone.testy, model.predict(Abalone.test));
+        System.out.format("RMSE = %.4f%n", rmse);
+        assertEquals(2.0838, rmse, 1E-4);
+    }
+
     @Test
     public void testTrim() {
         System.out.println("trim");
@@ -22,10 +22,13 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import java.util.Arrays;
+import java.util.Properties;
 import smile.data.*;
 import smile.math.kernel.GaussianKernel;
 import smile.math.MathEx;
 import smile.validation.*;
+import smile.validation.metric.RMSE;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -95,6 +98,36 @@ public class SVMTest {
         assertEquals(0.9112183360712871, result.metrics.rmse, 1E-4);
     }
 
+    @Test
+    public void testCacheAndShrinking() {
+        System.out.println("Prostate with small cache and without shrinking");
+
+        GaussianKernel kernel = new GaussianKernel(6.0);
+        KernelMachine<double[]> model = SVM.fit(Prostate.x, Prostate.y, kernel, 0.5, 5, 1E-3);
+        double rmse = RMSE.of(Prostate.testy, model.predict(Prostate.testx));
+
+        // 4 rows of kernel matrix in double precision.
+        long cacheSize = 4L * Prostate.x.length * Double.BYTES;
+        KernelMachine<double[]> lru = SVM.fit(Prostate.x, Prostate.y, kernel, 0.5, 5, 1E-3, cacheSize, false, true);
+        KernelMachine<double[]> single = SVM.fit(Prostate.x, Prostate.y, kernel, 0.5, 5, 1E-3, cacheSize, true, true);
+        KernelMachine<double[]> unshrunk = SVM.fit(Prostate.x, Prostate.y, kernel, 0.5, 5, 1E-3, cacheSize, false, false);
+
+        for (KernelMachine<double[]> other : Arrays.asList(lru, single, unshrunk)) {
+            assertEquals(model.vectors().length, other.vectors().length);
+            assertEquals(rmse, RMSE.of(Prostate.testy, other.predict(Prostate.testx)), 1E-3);
+        }
+
+        Properties params = new Properties();
+        params.setProperty("smile.svm.kernel", "Gaussian(6.0)");
+        params.setProperty("smile.svm.epsilon", "0.5");
+        params.setProperty("smile.svm.C", "5");
+        params.setProperty("smile.svm.cache_size", String.valueOf(cacheSize));
+        params.setProperty("smile.svm.float_cache", "true");
+        params.setProperty("smile.svm.shrinking", "false");
+        Regression<double[]> fit = SVM.fit(Prostate.x, Prostate.y, params);
+        assertEquals(rmse, RMSE.of(Prostate.testy, fit.predict(Prostate.testx)), 1E-3);
+    }
+
     @Test
     public void tesAbalone() {
         System.out.println("Abalone");
@@ -170,6 +170,29 @@ public class HMMTest {
         }
     }
 
+    /**
+     * Test of batch logp and predict methods, of class HMM.
+     */
+    @Test
+    public void testBatch() {
+        System.out.println("batch");
+        HMM hmm = new HMM(pi, Matrix.of(a), Matrix.of(b));
+        int[][] o = {
+                {0, 0, 1, 1, 0, 1, 1, 0},
+                {1, 1, 1, 0, 1, 1, 1, 1, 1, 0, 1, 1},
+                {0, 1},
+                {1, 1, 0, 0, 0, 0, 0, 1, 0}
+        };
+
+        double[] logp = hmm.logp(o);
+        int[][] s = hmm.predict(o);
+        assertEquals(-5.609373, logp[0], 1E-6);
+        for (int i = 0; i < o.length; i++) {
+            assertEquals(hmm.logp(o[i]), logp[i], 1E-10);
+            assertArrayEquals(hmm.predict(o[i]), s[i]);
+        }
+    }
+
     /**
      * Test of fit method, of class HMM.
      */
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import smile.data.vector.BaseVector;
+
+/**
+ * An aggregate function over the groups of rows. The missing values
+ * (null) are ignored.
+ *
+ * @see GroupedDataFrame
+ * @author Haifeng Li
+ */
+public interface Aggregation {
+    /**
+     * Returns the name of output column.
+     * @return the name of output column.
+     */
+    String name();
+
+    /**
+     * Aggregates the rows of each group.
+     *
+     * @param data the data frame.
+     * @param group the group id of each row in [0, k).
+     * @param k the number of groups.
+     * @return the vector of aggregated values of each group.
+     */
+    BaseVector apply(DataFrame data, int[] group, int k);
+
+    /**
+     * Returns the aggregation of number of rows.
+     * @return the aggregation.
+     */
+    static Aggregation count() {
+        return new NumericAggregation(NumericAggregation.Op.COUNT, null);
+    }
+
+    /**
+     * Returns the aggregation of number of non-null values.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation count(String column) {
+        return new NumericAggregation(NumericAggregation.Op.COUNT, column);
+    }
+
+    /**
+     * Returns the aggregation of sum. The sum of integral column is long.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation sum(String column) {
+        return new NumericAggregation(NumericAggregation.Op.SUM, column);
+    }
+
+    /**
+     * Returns the aggregation of mean.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation mean(String column) {
+        return new NumericAggregation(NumericAggregation.Op.MEAN, column);
+    }
+
+    /**
+     * Returns the aggregation of minimum.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation min(String column) {
+        return new NumericAggregation(NumericAggregation.Op.MIN, column);
+    }
+
+    /**
+     * Returns the aggregation of maximum.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation max(String column) {
+        return new NumericAggregation(NumericAggregation.Op.MAX, column);
+    }
+
+    /**
+     * Returns the aggregation of sample variance.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation variance(String column) {
+        return new NumericAggregation(NumericAggregation.Op.VARIANCE, column);
+    }
+
+    /**
+     * Returns the aggregation of quantile.
+     * @param column the column name.
+     * @param p the probability in [0, 1].
+     * @return the aggregation.
+     */
+    static Aggregation quantile(String column, double p) {
+        return new QuantileAggregation(column, p);
+    }
+
+    /**
+     * Returns the aggregation of median.
+     * @param column the column name.
+     * @return the aggregation.
+     */
+    static Aggregation median(String column) {
+        return new QuantileAggregation(column, 0.5);
+    }
+}
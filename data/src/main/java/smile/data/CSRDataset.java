@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import smile.math.matrix.SparseMatrix;
+import smile.sort.QuickSort;
+import smile.util.SparseArray;
+
+/**
+ * Compressed sparse row (CSR) format of sparse dataset. The column indices
+ * and values of nonzero entries of all rows are stored in two parallel
+ * primitive arrays, row after row. The row i occupies the positions
+ * from {@code rowIndex[i]} (inclusive) to {@code rowIndex[i+1]} (exclusive).
+ * The values may be stored in single precision to save half of memory.
+ * <p>
+ * Compared to the list of sparse arrays, CSR has no per row object overhead
+ * and the rows are contiguous in memory, which is friendly to CPU cache
+ * when the learning algorithms scan the data with {@link #dot(int, double[], int)}
+ * and {@link #axpy(int, double, double[], int)}. On the other hand,
+ * {@link #get(int)} copies the row into a new sparse array. The total
+ * number of nonzero entries is limited by the maximum array size.
+ *
+ * @author Haifeng Li
+ */
+public class CSRDataset implements SparseDataset, Serializable {
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * The number of columns.
+     */
+    private final int ncol;
+    /**
+     * The index of the start of rows in colIndex and values.
+     * The last element is the number of nonzero entries.
+     */
+    private final int[] rowIndex;
+    /**
+     * The column indices of nonzero entries.
+     */
+    private final int[] colIndex;
+    /**
+     * The values of nonzero entries in double precision.
+     */
+    private final double[] x;
+    /**
+     * The values of nonzero entries in single precision.
+     */
+    private final float[] xf;
+    /**
+     * The number of nonzero entries in each column.
+     */
+    private final int[] colSize;
+
+    /**
+     * Constructor.
+     * @param ncol the number of columns.
+     * @param rowIndex the index of the start of rows in colIndex and values,
+     *                 which has an extra element of the number of nonzero
+     *                 entries at the end.
+     * @param colIndex the column indices of nonzero entries, which should be
+     *                 in ascending order in each row.
+     * @param values the values of nonzero entries.
+     */
+    public CSRDataset(int ncol, int[] rowIndex, int[] colIndex, double[] values) {
+        this(ncol, rowIndex, colIndex, values, null);
+    }
+
+    /**
+     * Constructor.
+     * @param ncol the number of columns.
+     * @param rowIndex the index of the start of rows in colIndex and values,
+     *                 which has an extra element of the number of nonzero
+     *                 entries at the end.
+     * @param colIndex the column indices of nonzero entries, which should be
+     *                 in ascending order in each row.
+     * @param values the values of nonzero entries in single precision.
+     */
+    public CSRDataset(int ncol, int[] rowIndex, int[] colIndex, float[] values) {
+        this(ncol, rowIndex, colIndex, null, values);
+    }
+
+    /**
+     * Constructor.
+     */
+    private CSRDataset(int ncol, int[] rowIndex, int[] colIndex, double[] x, float[] xf) {
+        int nz = rowIndex[rowIndex.length - 1];
+        int length = x != null ? x.length : xf.length;
+        if (colIndex.length < nz || length < nz) {
+            throw new IllegalArgumentException(String.format("The number of nonzero entries %d is larger than the size of arrays", nz));
+        }
+
+        this.ncol = ncol;
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.x = x;
+        this.xf = xf;
+
+        colSize = new int[ncol];
+        for (int k = 0; k < nz; k++) {
+            int j = colIndex[k];
+            if (j < 0 || j >= ncol) {
+                throw new IllegalArgumentException("Invalid column index: " + j);
+            }
+            colSize[j]++;
+        }
+    }
+
+    /**
+     * Returns the CSR dataset of sparse arrays. The entries of each row
+     * are in ascending order of indices. The arrays are not modified.
+     * @param data the sparse arrays.
+     * @param single if true, the values are stored in single precision.
+     * @return the sparse dataset.
+     */
+    public static CSRDataset of(Collection<SparseArray> data, boolean single) {
+        int ncol = 1 + data.stream().flatMap(SparseArray::stream).mapToInt(e -> e.i).max().orElse(0);
+        return of(data, ncol, single);
+    }
+
+    /**
+     * Returns the CSR dataset of sparse arrays. The entries of each row
+     * are in ascending order of indices. The arrays are not modified.
+     * @param data the sparse arrays.
+     * @param ncol the number of columns.
+     * @param single if true, the values are stored in single precision.
+     * @return the sparse dataset.
+     */
+    public static CSRDataset of(Collection<SparseArray> data, int ncol, boolean single) {
+        int[] rowIndex = new int[data.size() + 1];
+        int i = 0;
+        for (SparseArray row : data) {
+            rowIndex[i + 1] = rowIndex[i] + row.size();
+            i++;
+        }
+
+        int nz = rowIndex[data.size()];
+        int[] colIndex = new int[nz];
+        double[] x = single ? null : new double[nz];
+        float[] xf = single ? new float[nz] : null;
+
+        int pos = 0;
+        for (SparseArray row : data) {
+            int size = row.size();
+            int[] index = new int[size];
+            double[] value = new double[size];
+            boolean sorted = true;
+            for (int k = 0; k < size; k++) {
+                index[k] = row.index(k);
+                value[k] = row.value(k);
+                if (k > 0 && index[k] < index[k-1]) sorted = false;
+            }
+
+            // Sorts the copy so that the input arrays are not modified.
+            if (!sorted) {
+                QuickSort.sort(index, value);
+            }
+
+            System.arraycopy(index, 0, colIndex, pos, size);
+            for (int k = 0; k < size; k++, pos++) {
+                if (single) {
+                    xf[pos] = (float) value[k];
+                } else {
+                    x[pos] = value[k];
+                }
+            }
+        }
+
+        return new CSRDataset(ncol, rowIndex, colIndex, x, xf);
+    }
+
+    /**
+     * Returns the CSR dataset of another sparse dataset.
+     * @param data the sparse dataset.
+     * @param single if true, the values are stored in single precision.
+     * @return the sparse dataset.
+     */
+    public static CSRDataset of(SparseDataset data, boolean single) {
+        return of(data.toList(), data.ncol(), single);
+    }
+
+    /**
+     * Returns true if the values are stored in single precision.
+     * @return true if the values are stored in single precision.
+     */
+    public boolean isSinglePrecision() {
+        return xf != null;
+    }
+
+    /**
+     * Returns the dataset of instances with class labels. The instances are
+     * views of rows, which are created on access. Therefore, the dataset
+     * takes no extra memory other than the labels.
+     * @param y the class labels.
+     * @return the dataset of instances.
+     */
+    public Dataset<Instance<SparseArray>> withLabels(int[] y) {
+        if (y.length != size()) {
+            throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", size(), y.length));
+        }
+
+        return new Instances(this, i -> new Instance<SparseArray>() {
+            @Override
+            public SparseArray x() {
+                return get(i);
+            }
+
+            @Override
+            public int label() {
+                return y[i];
+            }
+        });
+    }
+
+    /**
+     * Returns the dataset of instances with response variable. The instances
+     * are views of rows, which are created on access. Therefore, the dataset
+     * takes no extra memory other than the response variable.
+     * @param y the response variable.
+     * @return the dataset of instances.
+     */
+    public Dataset<Instance<SparseArray>> withResponse(double[] y) {
+        if (y.length != size()) {
+            throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", size(), y.length));
+        }
+
+        return new Instances(this, i -> new Instance<SparseArray>() {
+            @Override
+            public SparseArray x() {
+                return get(i);
+            }
+
+            @Override
+            public double y() {
+                return y[i];
+            }
+        });
+    }
+
+    /**
+     * The dataset of instance views of rows.
+     */
+    static class Instances implements Dataset<Instance<SparseArray>> {
+        /** The sparse dataset. */
+        final CSRDataset x;
+        /** The factory of instance views. */
+        final IntFunction<Instance<SparseArray>> instance;
+
+        /**
+         * Constructor.
+         * @param x the sparse dataset.
+         * @param instance the factory of instance views.
+         */
+        Instances(CSRDataset x, IntFunction<Instance<SparseArray>> instance) {
+            this.x = x;
+            this.instance = instance;
+        }
+
+        @Override
+        public int size() {
+            return x.size();
+        }
+
+        @Override
+        public Instance<SparseArray> get(int i) {
+            return instance.apply(i);
+        }
+
+        @Override
+        public Stream<Instance<SparseArray>> stream() {
+            return IntStream.range(0, size()).mapToObj(instance);
+        }
+    }
+
+    @Override
+    public int size() {
+        return rowIndex.length - 1;
+    }
+
+    @Override
+    public int nz() {
+        return rowIndex[rowIndex.length - 1];
+    }
+
+    @Override
+    public int nz(int j) {
+        return colSize[j];
+    }
+
+    @Override
+    public int ncol() {
+        return ncol;
+    }
+
+    /** Returns the value of k-th nonzero entry. */
+    private double value(int k) {
+        return x != null ? x[k] : xf[k];
+    }
+
+    @Override
+    public SparseArray get(int i) {
+        int begin = rowIndex[i];
+        int end = rowIndex[i + 1];
+        int[] index = new int[end - begin];
+        double[] value = new double[end - begin];
+        for (int k = begin; k < end; k++) {
+            index[k - begin] = colIndex[k];
+            value[k - begin] = value(k);
+        }
+        return new SparseArray(index, value);
+    }
+
+    @Override
+    public Stream<SparseArray> stream() {
+        return IntStream.range(0, size()).mapToObj(this::get);
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i < 0 || i >= size() || j < 0 || j >= ncol()) {
+            throw new IllegalArgumentException("Invalid index: i = " + i + " j = " + j);
+        }
+
+        int k = Arrays.binarySearch(colIndex, rowIndex[i], rowIndex[i + 1], j);
+        return k >= 0 ? value(k) : 0.0;
+    }
+
+    @Override
+    public double dot(int i, double[] w, int offset) {
+        double dot = 0.0;
+        int end = rowIndex[i + 1];
+        if (x != null) {
+            for (int k = rowIndex[i]; k < end; k++) {
+                dot += x[k] * w[offset + colIndex[k]];
+            }
+        } else {
+            for (int k = rowIndex[i]; k < end; k++) {
+                dot += xf[k] * w[offset + colIndex[k]];
+            }
+        }
+        return dot;
+    }
+
+    @Override
+    public void axpy(int i, double a, double[] y, int offset) {
+        int end = rowIndex[i + 1];
+        if (x != null) {
+            for (int k = rowIndex[i]; k < end; k++) {
+                y[offset + colIndex[k]] += a * x[k];
+            }
+        } else {
+            for (int k = rowIndex[i]; k < end; k++) {
+                y[offset + colIndex[k]] += a * xf[k];
+            }
+        }
+    }
+
+    /**
+     * Scales each row by the given norm function.
+     */
+    private void scale(boolean l2) {
+        IntStream.range(0, size()).parallel().forEach(i -> {
+            int begin = rowIndex[i];
+            int end = rowIndex[i + 1];
+            double sum = 0.0;
+            for (int k = begin; k < end; k++) {
+                double v = value(k);
+                sum += l2 ? v * v : Math.abs(v);
+            }
+
+            if (l2) sum = Math.sqrt(sum);
+            for (int k = begin; k < end; k++) {
+                if (x != null) {
+                    x[k] /= sum;
+                } else {
+                    xf[k] /= sum;
+                }
+            }
+        });
+    }
+
+    @Override
+    public void unitize() {
+        scale(true);
+    }
+
+    @Override
+    public void unitize1() {
+        scale(false);
+    }
+
+    @Override
+    public SparseMatrix toMatrix() {
+        int nrow = size();
+        int nz = nz();
+        int[] colStart = new int[ncol + 1];
+        for (int j = 0; j < ncol; j++) {
+            colStart[j + 1] = colStart[j] + colSize[j];
+        }
+
+        int[] pos = Arrays.copyOf(colStart, ncol);
+        int[] rows = new int[nz];
+        double[] values = new double[nz];
+        for (int i = 0; i < nrow; i++) {
+            for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                int p = pos[colIndex[k]]++;
+                rows[p] = i;
+                values[p] = value(k);
+            }
+        }
+
+        return new SparseMatrix(nrow, ncol, values, rows, colStart);
+    }
+}
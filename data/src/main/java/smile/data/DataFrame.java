@@ -979,6 +979,68 @@ public interface DataFrame extends Dataset<Tuple>, Iterable<BaseVector> {
      */
     DataFrame union(DataFrame... dataframes);
 
+    /**
+     * Groups the rows by the values of key columns.
+     * For example, {@code df.groupBy("a", "b").agg(Aggregation.sum("x"))}.
+     *
+     * @param columns the key columns.
+     * @return the grouped data frame.
+     */
+    default GroupedDataFrame groupBy(String... columns) {
+        return new GroupedDataFrame(this, columns);
+    }
+
+    /**
+     * Inner joins with another data frame on the columns of same names.
+     * The output has the columns of this data frame followed by the
+     * non-key columns of the other one. The keys with null values
+     * never match.
+     *
+     * @param other the other data frame.
+     * @param columns the key columns.
+     * @return the joined data frame.
+     */
+    default DataFrame innerJoin(DataFrame other, String... columns) {
+        return HashJoin.join(this, other, columns, columns, false);
+    }
+
+    /**
+     * Inner joins with another data frame.
+     *
+     * @param other the other data frame.
+     * @param leftColumns the key columns of this data frame.
+     * @param rightColumns the key columns of the other data frame.
+     * @return the joined data frame.
+     */
+    default DataFrame innerJoin(DataFrame other, String[] leftColumns, String[] rightColumns) {
+        return HashJoin.join(this, other, leftColumns, rightColumns, false);
+    }
+
+    /**
+     * Left outer joins with another data frame on the columns of same
+     * names. The rows without match have null values in the columns
+     * of the other data frame.
+     *
+     * @param other the other data frame.
+     * @param columns the key columns.
+     * @return the joined data frame.
+     */
+    default DataFrame leftJoin(DataFrame other, String... columns) {
+        return HashJoin.join(this, other, columns, columns, true);
+    }
+
+    /**
+     * Left outer joins with another data frame.
+     *
+     * @param other the other data frame.
+     * @param leftColumns the key columns of this data frame.
+     * @param rightColumns the key columns of the other data frame.
+     * @return the joined data frame.
+     */
+    default DataFrame leftJoin(DataFrame other, String[] leftColumns, String[] rightColumns) {
+        return HashJoin.join(this, other, leftColumns, rightColumns, true);
+    }
+
     /**
      * Returns a new DataFrame with given columns converted to nominal.
      *
@@ -1211,6 +1273,78 @@ public interface DataFrame extends Dataset<Tuple>, Iterable<BaseVector> {
         return matrix;
     }
 
+    /**
+     * Returns the product of the numeric matrix of data frame and a vector,
+     * i.e. {@code toMatrix(bias, encoder, null).mv(w)}, without
+     * materializing the matrix. The rows are processed in parallel
+     * by chunks, which read the column vectors directly.
+     *
+     * @param bias if true, the first element of w is the intercept.
+     * @param encoder the categorical variable encoder.
+     * @param w the vector of coefficients.
+     * @return the product of matrix and vector.
+     */
+    default double[] mv(boolean bias, CategoricalEncoder encoder, double[] w) {
+        int nrow = nrow();
+        int ncol = ncol();
+        StructType schema = schema();
+
+        BaseVector[] columns = new BaseVector[ncol];
+        CategoricalMeasure[] measures = new CategoricalMeasure[ncol];
+        int[] offset = new int[ncol];
+        int j = bias ? 1 : 0;
+        for (int col = 0; col < ncol; col++) {
+            columns[col] = column(col);
+            offset[col] = j;
+
+            Measure measure = schema.field(col).measure;
+            if (encoder != CategoricalEncoder.LEVEL && measure instanceof CategoricalMeasure) {
+                CategoricalMeasure cat = (CategoricalMeasure) measure;
+                measures[col] = cat;
+                j += encoder == CategoricalEncoder.DUMMY ? cat.size() - 1 : cat.size();
+            } else {
+                j++;
+            }
+        }
+
+        if (w.length != j) {
+            throw new IllegalArgumentException(String.format("The length of vector %d doesn't match the number of matrix columns %d", w.length, j));
+        }
+
+        double[] y = new double[nrow];
+        if (bias) {
+            Arrays.fill(y, w[0]);
+        }
+
+        final int chunk = 4096;
+        IntStream.range(0, (nrow + chunk - 1) / chunk).parallel().forEach(c -> {
+            int from = c * chunk;
+            int to = Math.min(from + chunk, nrow);
+            for (int col = 0; col < ncol; col++) {
+                BaseVector column = columns[col];
+                CategoricalMeasure cat = measures[col];
+                int k0 = offset[col];
+                if (cat == null) {
+                    double wj = w[k0];
+                    for (int i = from; i < to; i++) {
+                        y[i] += wj * column.getDouble(i);
+                    }
+                } else if (encoder == CategoricalEncoder.DUMMY) {
+                    for (int i = from; i < to; i++) {
+                        int k = cat.factor(column.getInt(i));
+                        if (k > 0) y[i] += w[k0 + k - 1];
+                    }
+                } else {
+                    for (int i = from; i < to; i++) {
+                        y[i] += w[k0 + cat.factor(column.getInt(i))];
+                    }
+                }
+            }
+        });
+
+        return y;
+    }
+
     /**
      * Returns the statistic summary of numeric columns.
      * @return the statistic summary of numeric columns.
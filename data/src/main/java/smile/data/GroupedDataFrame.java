@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.Arrays;
+import smile.data.vector.BaseVector;
+
+/**
+ * A data frame grouped by the values of key columns. The rows are
+ * mapped to the dense group ids by primitive-keyed hash tables over
+ * the columns, without creating row objects. The groups are ordered
+ * by their first appearance in the data frame.
+ *
+ * @author Haifeng Li
+ */
+public class GroupedDataFrame {
+    /** The data frame. */
+    private final DataFrame data;
+    /** The key columns. */
+    private final String[] columns;
+    /** The group id of each row. */
+    private final int[] group;
+    /** The number of groups. */
+    private final int size;
+    /** The first row of each group. */
+    private final int[] first;
+
+    /**
+     * Constructor.
+     * @param data the data frame.
+     * @param columns the key columns.
+     */
+    public GroupedDataFrame(DataFrame data, String... columns) {
+        KeyIndex index = KeyIndex.of(new DataFrame[]{data}, new String[][]{columns}, true);
+        this.data = data;
+        this.columns = columns;
+        this.group = index.codes[0];
+        this.size = index.size;
+
+        first = new int[size];
+        Arrays.fill(first, -1);
+        for (int i = 0; i < group.length; i++) {
+            if (first[group[i]] < 0) first[group[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the number of groups.
+     * @return the number of groups.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the group id of each row.
+     * @return the group id of each row.
+     */
+    public int[] group() {
+        return group;
+    }
+
+    /**
+     * Returns the data frame of the key values of groups.
+     * @return the data frame of the key values of groups.
+     */
+    public DataFrame keys() {
+        BaseVector[] vectors = new BaseVector[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            vectors[j] = data.column(columns[j]).get(first);
+        }
+        return DataFrame.of(vectors);
+    }
+
+    /**
+     * Returns the rows of a group.
+     * @param g the group id.
+     * @return the rows of a group.
+     */
+    public DataFrame get(int g) {
+        int[] index = new int[group.length];
+        int n = 0;
+        for (int i = first[g]; i < group.length; i++) {
+            if (group[i] == g) index[n++] = i;
+        }
+        return data.of(Arrays.copyOf(index, n));
+    }
+
+    /**
+     * Aggregates the groups.
+     *
+     * @param aggregations the aggregate functions.
+     * @return the data frame of the key columns and aggregated columns.
+     */
+    public DataFrame agg(Aggregation... aggregations) {
+        BaseVector[] vectors = new BaseVector[aggregations.length];
+        for (int j = 0; j < aggregations.length; j++) {
+            vectors[j] = aggregations[j].apply(data, group, size);
+        }
+        return keys().merge(vectors);
+    }
+
+    /**
+     * Returns the number of rows of each group.
+     * @return the data frame of the key columns and the counts.
+     */
+    public DataFrame count() {
+        return agg(Aggregation.count());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import smile.data.type.DataType;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+import smile.data.vector.Vector;
+
+/**
+ * The hash join of data frames. The keys of both sides are encoded
+ * to the same dense codes, with which the rows of right data frame
+ * are bucketed by counting sort. The left rows then probe the buckets
+ * in parallel and the output columns are gathered in parallel. The
+ * keys with null values never match.
+ *
+ * @author Haifeng Li
+ */
+class HashJoin {
+    /** The minimum number of rows in a chunk. */
+    private static final int CHUNK = 1 << 16;
+
+    /** Private constructor to prevent object creation. */
+    private HashJoin() {
+
+    }
+
+    /**
+     * Joins two data frames. The output has the columns of left data
+     * frame followed by the non-key columns of right data frame. The
+     * right column of same name as a left column is renamed with the
+     * suffix "_right".
+     *
+     * @param left the left data frame.
+     * @param right the right data frame.
+     * @param leftKeys the key columns of left data frame.
+     * @param rightKeys the key columns of right data frame.
+     * @param outer if true, left outer join. Otherwise, inner join.
+     * @return the joined data frame.
+     */
+    static DataFrame join(DataFrame left, DataFrame right, String[] leftKeys, String[] rightKeys, boolean outer) {
+        KeyIndex index = KeyIndex.of(new DataFrame[]{left, right}, new String[][]{leftKeys, rightKeys}, false);
+        int[] lcode = index.codes[0];
+        int[] rcode = index.codes[1];
+        int k = index.size;
+
+        // Buckets the right rows by key.
+        int[] start = new int[k + 1];
+        for (int code : rcode) {
+            if (code >= 0) start[code + 1]++;
+        }
+        for (int c = 0; c < k; c++) {
+            start[c + 1] += start[c];
+        }
+        int[] pos = Arrays.copyOf(start, k);
+        int[] bucket = new int[start[k]];
+        for (int i = 0; i < rcode.length; i++) {
+            if (rcode[i] >= 0) bucket[pos[rcode[i]]++] = i;
+        }
+
+        // The output offset of each left row.
+        int n = lcode.length;
+        int[] offset = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            int c = lcode[i];
+            int matches = c < 0 ? 0 : start[c + 1] - start[c];
+            offset[i + 1] = offset[i] + (outer ? Math.max(matches, 1) : matches);
+        }
+
+        int size = offset[n];
+        int[] lrow = new int[size];
+        int[] rrow = new int[size];
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / CHUNK));
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = (int) ((long) chunk * n / chunks);
+            int to = (int) ((long) (chunk + 1) * n / chunks);
+            for (int i = from; i < to; i++) {
+                int o = offset[i];
+                int c = lcode[i];
+                if (c < 0 || start[c] == start[c + 1]) {
+                    if (outer) {
+                        lrow[o] = i;
+                        rrow[o] = -1;
+                    }
+                    continue;
+                }
+
+                for (int j = start[c]; j < start[c + 1]; j++, o++) {
+                    lrow[o] = i;
+                    rrow[o] = bucket[j];
+                }
+            }
+        });
+
+        Set<String> names = new HashSet<>(Arrays.asList(left.names()));
+        Set<String> keys = new HashSet<>(Arrays.asList(rightKeys));
+        int[] columns = IntStream.range(0, right.ncol()).filter(j -> !keys.contains(right.schema().field(j).name)).toArray();
+        boolean missing = outer && Arrays.stream(rrow).anyMatch(i -> i < 0);
+
+        BaseVector[] vectors = new BaseVector[left.ncol() + columns.length];
+        IntStream.range(0, vectors.length).parallel().forEach(j -> {
+            if (j < left.ncol()) {
+                vectors[j] = left.column(j).get(lrow);
+            } else {
+                BaseVector column = right.column(columns[j - left.ncol()]);
+                StructField field = column.field();
+                if (names.contains(field.name)) {
+                    field = new StructField(field.name + "_right", field.type, field.measure);
+                }
+                vectors[j] = gather(column, field, rrow, missing);
+            }
+        });
+
+        return DataFrame.of(vectors);
+    }
+
+    /**
+     * Gathers the rows of a column. The index -1 is a missing value.
+     */
+    private static BaseVector gather(BaseVector column, StructField field, int[] index, boolean missing) {
+        if (!missing) {
+            BaseVector vector = column.get(index);
+            return field.name.equals(column.name()) ? vector : rename(vector, field);
+        }
+
+        Object[] values = new Object[index.length];
+        for (int i = 0; i < index.length; i++) {
+            if (index[i] >= 0) values[i] = column.get(index[i]);
+        }
+
+        DataType type = field.type;
+        if (type.isString()) {
+            return StringVector.of(field, Arrays.copyOf(values, values.length, String[].class));
+        }
+
+        return Vector.of(new StructField(field.name, type.boxed(), field.measure), values);
+    }
+
+    /** Returns the vector of the array with the new field. */
+    private static BaseVector rename(BaseVector vector, StructField field) {
+        Object a = vector.array();
+        switch (field.type.id()) {
+            case Integer: return IntVector.of(field, (int[]) a);
+            case Long: return LongVector.of(field, (long[]) a);
+            case Double: return DoubleVector.of(field, (double[]) a);
+            case Float: return FloatVector.of(field, (float[]) a);
+            case Boolean: return BooleanVector.of(field, (boolean[]) a);
+            case Byte: return ByteVector.of(field, (byte[]) a);
+            case Short: return ShortVector.of(field, (short[]) a);
+            case Char: return CharVector.of(field, (char[]) a);
+            case String: return StringVector.of(field, (String[]) a);
+            default: return Vector.of(field, (Object[]) a);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import smile.data.type.DataType;
+import smile.data.vector.BaseVector;
+import smile.data.vector.Vector;
+import smile.util.LongIntHashMap;
+
+/**
+ * The dense integer codes of the composite keys of rows. The key columns
+ * are encoded independently, and in parallel, with primitive-keyed hash
+ * tables for numeric columns. The codes of multiple columns are then
+ * combined pairwise into long integers and encoded again. Therefore, no
+ * row objects are created. The codes are assigned in the order of first
+ * appearance, scanning the data frames in turn so that the same key in
+ * different data frames has the same code.
+ *
+ * @author Haifeng Li
+ */
+class KeyIndex {
+    /** The key codes of rows in each data frame. */
+    final int[][] codes;
+    /** The number of distinct keys. */
+    final int size;
+
+    /**
+     * Constructor.
+     * @param codes the key codes of rows in each data frame.
+     * @param size the number of distinct keys.
+     */
+    private KeyIndex(int[][] codes, int size) {
+        this.codes = codes;
+        this.size = size;
+    }
+
+    /**
+     * Encodes the composite keys of rows.
+     *
+     * @param frames the data frames.
+     * @param columns the key columns of each data frame.
+     * @param nullable if true, null is a key value like any other.
+     *                 Otherwise, the code of a key with null is -1.
+     * @return the key index.
+     */
+    static KeyIndex of(DataFrame[] frames, String[][] columns, boolean nullable) {
+        int m = columns[0].length;
+        if (m == 0) {
+            throw new IllegalArgumentException("Empty key columns");
+        }
+
+        for (String[] keys : columns) {
+            if (keys.length != m) {
+                throw new IllegalArgumentException("Different number of key columns: " + m + " vs " + keys.length);
+            }
+        }
+
+        KeyIndex[] index = IntStream.range(0, m).parallel().mapToObj(j -> {
+            BaseVector[] vectors = new BaseVector[frames.length];
+            for (int f = 0; f < frames.length; f++) {
+                vectors[f] = frames[f].column(columns[f][j]);
+            }
+            return of(vectors, nullable);
+        }).toArray(KeyIndex[]::new);
+
+        KeyIndex keys = index[0];
+        for (int j = 1; j < m; j++) {
+            keys = keys.combine(index[j]);
+        }
+        return keys;
+    }
+
+    /** Returns true if the column can be accessed with getLong. */
+    private static boolean isIntegral(DataType type) {
+        return type.isIntegral() || (type.isPrimitive() && (type.isBoolean() || type.isChar()));
+    }
+
+    /** Encodes a key column across data frames. */
+    private static KeyIndex of(BaseVector[] vectors, boolean nullable) {
+        boolean integral = true;
+        boolean numeric = true;
+        for (BaseVector vector : vectors) {
+            DataType type = vector.type();
+            integral &= isIntegral(type);
+            numeric &= isIntegral(type) || type.isFloating();
+        }
+
+        LongIntHashMap table = new LongIntHashMap();
+        Map<Object, Integer> map = new HashMap<>();
+        int size = 0;
+        int nullCode = -1;
+        int[][] codes = new int[vectors.length][];
+        for (int f = 0; f < vectors.length; f++) {
+            BaseVector vector = vectors[f];
+            boolean primitive = vector.type().isPrimitive();
+            int n = vector.size();
+            int[] code = new int[n];
+            codes[f] = code;
+            for (int i = 0; i < n; i++) {
+                if (!primitive && ((Vector<?>) vector).isNullAt(i)) {
+                    if (nullable && nullCode < 0) nullCode = size++;
+                    code[i] = nullable ? nullCode : -1;
+                } else if (numeric) {
+                    long key = integral ? vector.getLong(i) : bits(vector.getDouble(i));
+                    int c = table.get(key);
+                    if (c < 0) {
+                        c = size++;
+                        table.put(key, c);
+                    }
+                    code[i] = c;
+                } else {
+                    Object key = vector.get(i);
+                    Integer c = map.get(key);
+                    if (c == null) {
+                        c = size++;
+                        map.put(key, c);
+                    }
+                    code[i] = c;
+                }
+            }
+        }
+
+        return new KeyIndex(codes, size);
+    }
+
+    /** Returns the bits of a double value, treating -0.0 and 0.0 as the same key. */
+    private static long bits(double x) {
+        return Double.doubleToLongBits(x + 0.0);
+    }
+
+    /** Returns the key index of the composite keys of this and another column. */
+    private KeyIndex combine(KeyIndex other) {
+        LongIntHashMap table = new LongIntHashMap();
+        int size = 0;
+        int[][] codes = new int[this.codes.length][];
+        for (int f = 0; f < codes.length; f++) {
+            int[] a = this.codes[f];
+            int[] b = other.codes[f];
+            int[] code = new int[a.length];
+            codes[f] = code;
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] < 0 || b[i] < 0) {
+                    code[i] = -1;
+                } else {
+                    long key = (long) a[i] * other.size + b[i];
+                    int c = table.get(key);
+                    if (c < 0) {
+                        c = size++;
+                        table.put(key, c);
+                    }
+                    code[i] = c;
+                }
+            }
+        }
+
+        return new KeyIndex(codes, size);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import smile.data.vector.*;
+
+/**
+ * The aggregations of count, sum, mean, min, max and variance.
+ * The rows are split into chunks that are aggregated in parallel,
+ * each into its own per-group accumulators, which are merged at last.
+ *
+ * @author Haifeng Li
+ */
+class NumericAggregation implements Aggregation {
+    /** The minimum number of rows in a chunk. */
+    private static final int CHUNK = 1 << 16;
+
+    /** The aggregate functions. */
+    enum Op {
+        COUNT, SUM, MEAN, MIN, MAX, VARIANCE
+    }
+
+    /** The aggregate function. */
+    private final Op op;
+    /** The column name, or null to count the rows. */
+    private final String column;
+
+    /**
+     * Constructor.
+     * @param op the aggregate function.
+     * @param column the column name.
+     */
+    NumericAggregation(Op op, String column) {
+        this.op = op;
+        this.column = column;
+    }
+
+    @Override
+    public String name() {
+        String name = op.name().toLowerCase();
+        return column == null ? name : String.format("%s(%s)", name, column);
+    }
+
+    @Override
+    public BaseVector apply(DataFrame data, int[] group, int k) {
+        BaseVector vector = column == null ? null : data.column(column);
+        if (vector != null && op != Op.COUNT && !vector.type().isNumeric()) {
+            throw new IllegalArgumentException(String.format("Cannot apply %s on non-numeric column %s", op, column));
+        }
+
+        boolean integral = vector != null && vector.type().isIntegral();
+        boolean nullable = vector != null && !vector.type().isPrimitive();
+        int n = group.length;
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / CHUNK));
+
+        Accumulator[] partials = IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            Accumulator acc = new Accumulator(k, op, integral);
+            int from = (int) ((long) c * n / chunks);
+            int to = (int) ((long) (c + 1) * n / chunks);
+            for (int i = from; i < to; i++) {
+                if (nullable && ((Vector<?>) vector).isNullAt(i)) continue;
+
+                int g = group[i];
+                switch (op) {
+                    case COUNT:
+                        acc.count[g]++;
+                        break;
+                    case SUM:
+                        if (integral) acc.sum[g] += vector.getLong(i);
+                        else acc.a[g] += vector.getDouble(i);
+                        break;
+                    case MEAN:
+                        acc.count[g]++;
+                        acc.a[g] += vector.getDouble(i);
+                        break;
+                    case MIN:
+                        acc.count[g]++;
+                        acc.a[g] = Math.min(acc.a[g], vector.getDouble(i));
+                        break;
+                    case MAX:
+                        acc.count[g]++;
+                        acc.b[g] = Math.max(acc.b[g], vector.getDouble(i));
+                        break;
+                    case VARIANCE: {
+                        // Welford's online algorithm.
+                        double x = vector.getDouble(i);
+                        double delta = x - acc.a[g];
+                        acc.a[g] += delta / ++acc.count[g];
+                        acc.b[g] += delta * (x - acc.a[g]);
+                        break;
+                    }
+                }
+            }
+            return acc;
+        }).toArray(Accumulator[]::new);
+
+        Accumulator acc = partials[0];
+        for (int c = 1; c < chunks; c++) {
+            acc.merge(partials[c], op);
+        }
+
+        String name = name();
+        switch (op) {
+            case COUNT:
+                return IntVector.of(name, acc.count);
+            case SUM:
+                return integral ? LongVector.of(name, acc.sum) : DoubleVector.of(name, acc.a);
+            case MEAN: {
+                double[] mean = new double[k];
+                for (int g = 0; g < k; g++) mean[g] = acc.count[g] == 0 ? Double.NaN : acc.a[g] / acc.count[g];
+                return DoubleVector.of(name, mean);
+            }
+            case MIN:
+            case MAX: {
+                double[] x = op == Op.MIN ? acc.a : acc.b;
+                for (int g = 0; g < k; g++) if (acc.count[g] == 0) x[g] = Double.NaN;
+                return DoubleVector.of(name, x);
+            }
+            default: {
+                double[] var = new double[k];
+                for (int g = 0; g < k; g++) var[g] = acc.count[g] < 2 ? Double.NaN : acc.b[g] / (acc.count[g] - 1);
+                return DoubleVector.of(name, var);
+            }
+        }
+    }
+
+    /** The per-group accumulators of a chunk of rows. */
+    private static class Accumulator {
+        /** The number of values. */
+        final int[] count;
+        /** The sum of integral values. */
+        final long[] sum;
+        /** The sum, mean or minimum. */
+        final double[] a;
+        /** The sum of squared deviations or maximum. */
+        final double[] b;
+
+        /** Constructor. */
+        Accumulator(int k, Op op, boolean integral) {
+            count = new int[k];
+            sum = integral ? new long[k] : null;
+            a = new double[k];
+            b = new double[k];
+            if (op == Op.MIN) Arrays.fill(a, Double.POSITIVE_INFINITY);
+            if (op == Op.MAX) Arrays.fill(b, Double.NEGATIVE_INFINITY);
+        }
+
+        /** Merges the accumulators of another chunk. */
+        void merge(Accumulator other, Op op) {
+            for (int g = 0; g < count.length; g++) {
+                int n1 = count[g];
+                int n2 = other.count[g];
+                count[g] += n2;
+                switch (op) {
+                    case SUM:
+                        if (sum != null) sum[g] += other.sum[g];
+                        else a[g] += other.a[g];
+                        break;
+                    case MEAN:
+                        a[g] += other.a[g];
+                        break;
+                    case MIN:
+                        a[g] = Math.min(a[g], other.a[g]);
+                        break;
+                    case MAX:
+                        b[g] = Math.max(b[g], other.b[g]);
+                        break;
+                    case VARIANCE:
+                        if (n2 > 0) {
+                            // Chan's parallel algorithm.
+                            int n = n1 + n2;
+                            double delta = other.a[g] - a[g];
+                            a[g] += delta * n2 / n;
+                            b[g] += other.b[g] + delta * delta * n1 * n2 / n;
+                        }
+                        break;
+                }
+            }
+        }
+    }
+}
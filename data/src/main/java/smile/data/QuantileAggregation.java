@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.data.vector.BaseVector;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.Vector;
+import smile.sort.QuickSelect;
+
+/**
+ * The aggregation of quantile. The values are bucketed by groups with
+ * counting sort. Then the quantiles of groups are selected in parallel.
+ * The quantile of n values is the k-th smallest value where
+ * {@code k = floor(p * n)}, consistent with {@link QuickSelect#median}.
+ *
+ * @author Haifeng Li
+ */
+class QuantileAggregation implements Aggregation {
+    /** The column name. */
+    private final String column;
+    /** The probability. */
+    private final double p;
+
+    /**
+     * Constructor.
+     * @param column the column name.
+     * @param p the probability in [0, 1].
+     */
+    QuantileAggregation(String column, double p) {
+        if (p < 0.0 || p > 1.0) {
+            throw new IllegalArgumentException("Invalid probability: " + p);
+        }
+
+        this.column = column;
+        this.p = p;
+    }
+
+    @Override
+    public String name() {
+        return p == 0.5 ? String.format("median(%s)", column) : String.format("quantile(%s, %s)", column, p);
+    }
+
+    @Override
+    public BaseVector apply(DataFrame data, int[] group, int k) {
+        BaseVector vector = data.column(column);
+        if (!vector.type().isNumeric()) {
+            throw new IllegalArgumentException("Cannot apply quantile on non-numeric column " + column);
+        }
+
+        boolean nullable = !vector.type().isPrimitive();
+        int n = group.length;
+        int[] start = new int[k + 1];
+        for (int i = 0; i < n; i++) {
+            if (nullable && ((Vector<?>) vector).isNullAt(i)) continue;
+            start[group[i] + 1]++;
+        }
+
+        for (int g = 0; g < k; g++) {
+            start[g + 1] += start[g];
+        }
+
+        int[] pos = Arrays.copyOf(start, k);
+        double[] values = new double[start[k]];
+        for (int i = 0; i < n; i++) {
+            if (nullable && ((Vector<?>) vector).isNullAt(i)) continue;
+            values[pos[group[i]]++] = vector.getDouble(i);
+        }
+
+        double[] quantile = IntStream.range(0, k).parallel().mapToDouble(g -> {
+            int size = start[g + 1] - start[g];
+            if (size == 0) return Double.NaN;
+            double[] x = Arrays.copyOfRange(values, start[g], start[g + 1]);
+            return QuickSelect.select(x, Math.min(size - 1, (int) (p * size)));
+        }).toArray();
+
+        return DoubleVector.of(name(), quantile);
+    }
+}
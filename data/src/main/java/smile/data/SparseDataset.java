@@ -41,6 +41,13 @@ import smile.util.SparseArray;
  * constructed, it is typically converted to a format, such as Harwell-Boeing
  * column-compressed sparse matrix format, which is more efficient for matrix
  * operations.
+ * <p>
+ * For large datasets, {@link CSRDataset} stores all rows in a few primitive
+ * arrays of compressed sparse row format, which takes much less memory than
+ * a sparse array object per row. The learning algorithms should access the
+ * rows with {@link #dot(int, double[], int)} and
+ * {@link #axpy(int, double, double[], int)}, which don't allocate
+ * the row objects in either format.
  *
  * @author Haifeng Li
  */
@@ -92,6 +99,53 @@ public interface SparseDataset extends Dataset<SparseArray> {
         return 0.0;
     }
 
+    /**
+     * Returns the dot product of row i and a dense vector.
+     * @param i the row index.
+     * @param w the dense vector.
+     * @return the dot product.
+     */
+    default double dot(int i, double[] w) {
+        return dot(i, w, 0);
+    }
+
+    /**
+     * Returns the dot product of row i and a dense vector that starts
+     * at the given offset of an array, i.e. the entry (i, j) is
+     * multiplied by {@code w[offset + j]}.
+     * @param i the row index.
+     * @param w the array of dense vector.
+     * @param offset the offset of dense vector in the array.
+     * @return the dot product.
+     */
+    default double dot(int i, double[] w, int offset) {
+        return get(i).dot(w, offset);
+    }
+
+    /**
+     * Adds a constant times row i to a dense vector, i.e.
+     * {@code y += a * x[i]}.
+     * @param i the row index.
+     * @param a the scalar.
+     * @param y the dense vector to update.
+     */
+    default void axpy(int i, double a, double[] y) {
+        axpy(i, a, y, 0);
+    }
+
+    /**
+     * Adds a constant times row i to a dense vector that starts at
+     * the given offset of an array, i.e.
+     * {@code y[offset + j] += a * x[i][j]}.
+     * @param i the row index.
+     * @param a the scalar.
+     * @param y the array of dense vector to update.
+     * @param offset the offset of dense vector in the array.
+     */
+    default void axpy(int i, double a, double[] y, int offset) {
+        get(i).axpy(a, y, offset);
+    }
+
     /**
      * Unitize each row so that L2 norm of x = 1.
      */
@@ -197,6 +251,10 @@ public interface SparseDataset extends Dataset<SparseArray> {
      * @return the sparse dataset.
      */
     static SparseDataset of(Dataset<Instance<SparseArray>> data) {
+        if (data instanceof CSRDataset.Instances) {
+            return ((CSRDataset.Instances) data).x;
+        }
+
         return of(data.stream().map(Instance::x).collect(java.util.stream.Collectors.toList()));
     }
 
@@ -304,7 +304,7 @@ public interface DataType extends Serializable {
                 else if (s.startsWith("DateTime[") && s.endsWith("]"))
                     return DataTypes.datetime(s.substring(9, s.length() - 1));
                 else if (s.startsWith("Time[") && s.endsWith("]"))
-                    return DataTypes.datetime(s.substring(5, s.length() - 1));
+                    return DataTypes.time(s.substring(5, s.length() - 1));
                 else if (s.startsWith("Object[") && s.endsWith("]"))
                     return DataTypes.object(Class.forName(s.substring(7, s.length() - 1)));
                 else if (s.startsWith("Array[") && s.endsWith("]"))
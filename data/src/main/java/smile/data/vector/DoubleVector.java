@@ -17,6 +17,7 @@
 
 package smile.data.vector;
 
+import java.nio.DoubleBuffer;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import smile.data.type.DataType;
@@ -105,6 +106,17 @@ public interface DoubleVector extends BaseVector<Double, Double, DoubleStream> {
         return new DoubleVectorImpl(field, vector);
     }
 
+    /** Creates a named double vector backed by a buffer, e.g. a memory-mapped
+     * file or off-heap memory. The data are not copied.
+     *
+     * @param field the struct field of vector.
+     * @param buffer the data buffer of vector.
+     * @return the vector.
+     */
+    static DoubleVector of(StructField field, DoubleBuffer buffer) {
+        return new DoubleBufferVector(field, buffer);
+    }
+
     /** Creates a named double vector.
      *
      * @param field the struct field of vector.
@@ -17,6 +17,7 @@
 
 package smile.data.vector;
 
+import java.nio.FloatBuffer;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 import smile.data.type.DataType;
@@ -94,4 +95,15 @@ public interface FloatVector extends BaseVector<Float, Double, DoubleStream> {
     static FloatVector of(StructField field, float[] vector) {
         return new FloatVectorImpl(field, vector);
     }
+
+    /** Creates a named float vector backed by a buffer, e.g. a memory-mapped
+     * file or off-heap memory. The data are not copied.
+     *
+     * @param field the struct field of vector.
+     * @param buffer the data buffer of vector.
+     * @return the vector.
+     */
+    static FloatVector of(StructField field, FloatBuffer buffer) {
+        return new FloatBufferVector(field, buffer);
+    }
 }
\ No newline at end of file
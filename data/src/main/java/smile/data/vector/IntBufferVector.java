@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.data.vector;
+
+import java.nio.IntBuffer;
+import java.util.stream.IntStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.measure.Measure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable int vector backed by a buffer, e.g. a memory-mapped
+ * file or off-heap memory. The values are read from the buffer
+ * on demand with absolute indexing, which is thread safe. The vector
+ * spans the remaining elements of the buffer.
+ *
+ * @author Haifeng Li
+ */
+class IntBufferVector implements IntVector {
+    /** The name of vector. */
+    private final String name;
+    /** Optional measure. */
+    private final Measure measure;
+    /** The vector data. */
+    private final transient IntBuffer buffer;
+
+    /** Constructor. */
+    public IntBufferVector(StructField field, IntBuffer buffer) {
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+
+        this.name = field.name;
+        this.measure = field.measure;
+        this.buffer = buffer.slice();
+    }
+
+    /** Serializes the vector as an on-heap vector. */
+    private Object writeReplace() {
+        return new IntVectorImpl(field(), array());
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Measure measure() {
+        return measure;
+    }
+
+    /**
+     * Returns a copy of the buffer in an array.
+     * @return a copy of the buffer in an array.
+     */
+    @Override
+    public int[] array() {
+        int[] a = new int[size()];
+        buffer.duplicate().get(a);
+        return a;
+    }
+
+    @Override
+    public int[] toIntArray(int[] a) {
+        buffer.duplicate().get(a, 0, size());
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        int n = size();
+        for (int i = 0; i < n; i++) a[i] = buffer.get(i);
+        return a;
+    }
+
+    @Override
+    public int getInt(int i) {
+        return buffer.get(i);
+    }
+
+    @Override
+    public Integer get(int i) {
+        return buffer.get(i);
+    }
+
+    @Override
+    public IntVector get(int... index) {
+        int[] v = new int[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = buffer.get(index[i]);
+        return new IntVectorImpl(field(), v);
+    }
+
+    @Override
+    public int size() {
+        return buffer.limit();
+    }
+
+    @Override
+    public IntStream stream() {
+        return IntStream.range(0, size()).map(buffer::get);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
@@ -17,6 +17,7 @@
 
 package smile.data.vector;
 
+import java.nio.IntBuffer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import smile.data.type.DataType;
@@ -105,6 +106,17 @@ public interface IntVector extends BaseVector<Integer, Integer, IntStream> {
         return new IntVectorImpl(field, vector);
     }
 
+    /** Creates a named int vector backed by a buffer, e.g. a memory-mapped
+     * file or off-heap memory. The data are not copied.
+     *
+     * @param field the struct field of vector.
+     * @param buffer the data buffer of vector.
+     * @return the vector.
+     */
+    static IntVector of(StructField field, IntBuffer buffer) {
+        return new IntBufferVector(field, buffer);
+    }
+
     /** Creates a named integer vector.
      *
      * @param field the struct field of vector.
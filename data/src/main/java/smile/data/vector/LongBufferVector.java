@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.data.vector;
+
+import java.nio.LongBuffer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import smile.data.measure.NumericalMeasure;
+import smile.data.measure.Measure;
+import smile.data.type.StructField;
+
+/**
+ * An immutable long vector backed by a buffer, e.g. a memory-mapped
+ * file or off-heap memory. The values are read from the buffer
+ * on demand with absolute indexing, which is thread safe. The vector
+ * spans the remaining elements of the buffer.
+ *
+ * @author Haifeng Li
+ */
+class LongBufferVector implements LongVector {
+    /** The name of vector. */
+    private final String name;
+    /** Optional measure. */
+    private final Measure measure;
+    /** The vector data. */
+    private final transient LongBuffer buffer;
+
+    /** Constructor. */
+    public LongBufferVector(StructField field, LongBuffer buffer) {
+        if (field.measure instanceof NumericalMeasure) {
+            throw new IllegalArgumentException(String.format("Invalid measure %s for %s", field.measure, type()));
+        }
+
+        this.name = field.name;
+        this.measure = field.measure;
+        this.buffer = buffer.slice();
+    }
+
+    /** Serializes the vector as an on-heap vector. */
+    private Object writeReplace() {
+        return new LongVectorImpl(field(), array());
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Measure measure() {
+        return measure;
+    }
+
+    /**
+     * Returns a copy of the buffer in an array.
+     * @return a copy of the buffer in an array.
+     */
+    @Override
+    public long[] array() {
+        long[] a = new long[size()];
+        buffer.duplicate().get(a);
+        return a;
+    }
+
+    @Override
+    public double[] toDoubleArray(double[] a) {
+        int n = size();
+        for (int i = 0; i < n; i++) a[i] = buffer.get(i);
+        return a;
+    }
+
+    @Override
+    public long getLong(int i) {
+        return buffer.get(i);
+    }
+
+    @Override
+    public Long get(int i) {
+        return buffer.get(i);
+    }
+
+    @Override
+    public LongVector get(int... index) {
+        long[] v = new long[index.length];
+        for (int i = 0; i < index.length; i++) v[i] = buffer.get(index[i]);
+        return new LongVectorImpl(field(), v);
+    }
+
+    @Override
+    public int size() {
+        return buffer.limit();
+    }
+
+    @Override
+    public LongStream stream() {
+        return IntStream.range(0, size()).mapToLong(buffer::get);
+    }
+
+    @Override
+    public String toString() {
+        return toString(10);
+    }
+}
@@ -17,6 +17,7 @@
 
 package smile.data.vector;
 
+import java.nio.ShortBuffer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import smile.data.type.DataType;
@@ -94,4 +95,15 @@ public interface ShortVector extends BaseVector<Short, Integer, IntStream> {
     static ShortVector of(StructField field, short[] vector) {
         return new ShortVectorImpl(field, vector);
     }
+
+    /** Creates a named short vector backed by a buffer, e.g. a memory-mapped
+     * file or off-heap memory. The data are not copied.
+     *
+     * @param field the struct field of vector.
+     * @param buffer the data buffer of vector.
+     * @return the vector.
+     */
+    static ShortVector of(StructField field, ShortBuffer buffer) {
+        return new ShortBufferVector(field, buffer);
+    }
 }
\ No newline at end of file
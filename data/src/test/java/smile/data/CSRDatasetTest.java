@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.matrix.SparseMatrix;
+import smile.util.SparseArray;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class CSRDatasetTest {
+
+    double[][] A = {
+        {0.9000, 0.4000, 0.0000},
+        {0.4000, 0.5000, 0.3000},
+        {0.0000, 0.3000, 0.8000}
+    };
+
+    public CSRDatasetTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Returns the rows of A in sparse arrays. */
+    private List<SparseArray> rows() {
+        List<SparseArray> rows = new ArrayList<>();
+        for (double[] a : A) {
+            SparseArray row = new SparseArray();
+            for (int j = a.length; j-- > 0; ) {
+                row.append(j, a[j]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        for (boolean single : new boolean[]{false, true}) {
+            List<SparseArray> rows = rows();
+            CSRDataset data = CSRDataset.of(rows, single);
+            // The input arrays are not sorted in place.
+            assertEquals(2, rows.get(1).index(0));
+            assertEquals(0.3, rows.get(1).value(0), 1E-7);
+            assertEquals(single, data.isSinglePrecision());
+            assertEquals(3, data.size());
+            assertEquals(3, data.ncol());
+            assertEquals(7, data.nz());
+            assertEquals(2, data.nz(0));
+            assertEquals(3, data.nz(1));
+            for (int i = 0; i < 3; i++) {
+                SparseArray row = data.get(i);
+                for (int j = 0; j < 3; j++) {
+                    assertEquals(A[i][j], data.get(i, j), 1E-7);
+                    assertEquals(A[i][j], row.get(j), 1E-7);
+                }
+            }
+
+            SparseMatrix sm = data.toMatrix();
+            assertEquals(7, sm.size());
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 3; j++) {
+                    assertEquals(A[i][j], sm.get(i, j), 1E-7);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDotAxpy() {
+        System.out.println("dot and axpy");
+        CSRDataset data = CSRDataset.of(rows(), false);
+        double[] w = {1.0, 2.0, 3.0, 4.0, 5.0};
+        assertEquals(1.7, data.dot(0, w), 1E-7);
+        assertEquals(2.3, data.dot(1, w), 1E-7);
+        assertEquals(4.7, data.dot(1, w, 2), 1E-7);
+        assertEquals(4.7, data.get(1).dot(w, 2), 1E-7);
+
+        double[] y = new double[5];
+        data.axpy(1, 2.0, y, 1);
+        data.axpy(2, 1.0, y);
+        assertArrayEquals(new double[]{0.0, 1.1, 1.8, 0.6, 0.0}, y, 1E-7);
+    }
+
+    @Test
+    public void testUnitize() {
+        System.out.println("unitize");
+        CSRDataset data = CSRDataset.of(rows(), false);
+        data.unitize();
+        double[] w = {1.0, 1.0, 1.0};
+        for (int i = 0; i < 3; i++) {
+            SparseArray row = data.get(i);
+            double norm = 0.0;
+            for (int k = 0; k < row.size(); k++) {
+                norm += row.value(k) * row.value(k);
+            }
+            assertEquals(1.0, norm, 1E-7);
+        }
+
+        data.unitize1();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1.0, data.dot(i, w), 1E-7);
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        System.out.println("from");
+        SparseDataset lil = SparseDataset.from(smile.util.Paths.getTestData("sparse/kos.txt"), 1);
+        CSRDataset data = CSRDataset.of(lil, true);
+        assertEquals(3430, data.size());
+        assertEquals(6906, data.ncol());
+        assertEquals(353160, data.nz());
+        assertEquals(2.0, data.get(0, 60), 1E-7);
+        assertEquals(1.0, data.get(1, 1062), 1E-7);
+        assertEquals(0.0, data.get(1, 1063), 1E-7);
+        assertEquals(1.0, data.get(3429, 6821), 1E-7);
+
+        double[] w = new double[data.ncol()];
+        for (int j = 0; j < w.length; j++) {
+            w[j] = Math.sin(j);
+        }
+
+        for (int i = 0; i < data.size(); i++) {
+            assertEquals(lil.dot(i, w), data.dot(i, w), 1E-10);
+        }
+    }
+}
@@ -268,6 +268,105 @@ public class DataFrameTest {
         assertEquals(1, output.get(3, 3), 1E-10);
     }
 
+    /**
+     * Test of groupBy method, of class DataFrame.
+     */
+    @Test
+    public void testGroupBy() {
+        System.out.println("groupBy");
+        GroupedDataFrame groups = df.groupBy("gender");
+        assertEquals(2, groups.size());
+        assertArrayEquals(new int[]{0, 0, 1, 1}, groups.group());
+
+        DataFrame output = groups.agg(
+                Aggregation.count(),
+                Aggregation.sum("age"),
+                Aggregation.mean("age"),
+                Aggregation.min("age"),
+                Aggregation.max("age"),
+                Aggregation.variance("age"),
+                Aggregation.median("age"),
+                Aggregation.count("salary"),
+                Aggregation.mean("salary"));
+        System.out.println(output);
+
+        assertEquals(2, output.nrow());
+        assertEquals(10, output.ncol());
+        assertEquals("Male", output.getScale(0, "gender"));
+        assertEquals("Female", output.getScale(1, "gender"));
+        assertEquals(2, output.getInt(0, "count"));
+        assertEquals(61L, output.getLong(0, "sum(age)"));
+        assertEquals(61L, output.getLong(1, "sum(age)"));
+        assertEquals(30.5, output.getDouble(0, "mean(age)"), 1E-10);
+        assertEquals(23.0, output.getDouble(0, "min(age)"), 1E-10);
+        assertEquals(48.0, output.getDouble(1, "max(age)"), 1E-10);
+        assertEquals(112.5, output.getDouble(0, "variance(age)"), 1E-10);
+        assertEquals(612.5, output.getDouble(1, "variance(age)"), 1E-10);
+        assertEquals(38.0, output.getDouble(0, "median(age)"), 1E-10);
+        assertEquals(1, output.getInt(1, "count(salary)"));
+        assertEquals(10000.0, output.getDouble(0, "mean(salary)"), 1E-10);
+        assertEquals(230000.0, output.getDouble(1, "mean(salary)"), 1E-10);
+
+        GroupedDataFrame composite = df.groupBy("gender", "salary");
+        assertEquals(4, composite.size());
+        assertEquals(1, composite.get(3).nrow());
+        assertEquals("Amy", composite.get(3).getString(0, "name"));
+    }
+
+    /**
+     * Test of innerJoin and leftJoin methods, of class DataFrame.
+     */
+    @Test
+    public void testJoin() {
+        System.out.println("join");
+        DataFrame bonus = DataFrame.of(new int[][]{{0, 100}, {0, 200}, {2, 300}}, "gender", "bonus");
+
+        DataFrame inner = df.innerJoin(bonus, "gender");
+        System.out.println(inner);
+        assertEquals(4, inner.nrow());
+        assertEquals(6, inner.ncol());
+        assertEquals("Alex", inner.getString(0, "name"));
+        assertEquals(100, inner.getInt(0, "bonus"));
+        assertEquals("Alex", inner.getString(1, "name"));
+        assertEquals(200, inner.getInt(1, "bonus"));
+        assertEquals("Bob", inner.getString(3, "name"));
+        assertEquals(200, inner.getInt(3, "bonus"));
+
+        DataFrame left = df.leftJoin(bonus, "gender");
+        System.out.println(left);
+        assertEquals(6, left.nrow());
+        assertEquals(6, left.ncol());
+        assertEquals(200, left.getInt(3, "bonus"));
+        assertEquals("Jane", left.getString(4, "name"));
+        assertTrue(left.isNullAt(4, "bonus"));
+        assertTrue(left.isNullAt(5, "bonus"));
+
+        DataFrame renamed = df.innerJoin(df, "name");
+        assertEquals(4, renamed.nrow());
+        assertEquals(9, renamed.ncol());
+        assertEquals(38, renamed.getInt(0, "age_right"));
+    }
+
+    /**
+     * Test of mv method, of class DataFrame.
+     */
+    @Test
+    public void testDataFrameMv() {
+        System.out.println("mv");
+        DataFrame data = df.select("age", "gender");
+        double[] w = {1.0, 2.0, 3.0};
+        double[] y = data.mv(true, CategoricalEncoder.DUMMY, w);
+        double[] z = data.toMatrix(true, CategoricalEncoder.DUMMY, null).mv(w);
+        assertArrayEquals(z, y, 1E-10);
+        assertEquals(77., y[0], 1E-10);
+        assertEquals(100., y[2], 1E-10);
+
+        w = new double[] {2.0, -1.0, 3.0};
+        y = data.mv(false, CategoricalEncoder.ONE_HOT, w);
+        z = data.toMatrix(false, CategoricalEncoder.ONE_HOT, null).mv(w);
+        assertArrayEquals(z, y, 1E-10);
+    }
+
     /**
      * Test of toMatrix method, of class DataFrame.
      */
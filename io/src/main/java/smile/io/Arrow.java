@@ -26,11 +26,22 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.*;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.*;
 import org.apache.arrow.vector.dictionary.DictionaryProvider;
@@ -187,74 +198,12 @@ public class Arrow {
 
                 smile.data.vector.BaseVector[] vectors = new smile.data.vector.BaseVector[fieldVectors.size()];
                 for (int j = 0; j < fieldVectors.size(); j++) {
-                    FieldVector fieldVector = fieldVectors.get(j);
-                    ArrowType type = fieldVector.getField().getType();
-                    switch (type.getTypeID()) {
-                        case Int:
-                            ArrowType.Int itype = (ArrowType.Int) type;
-                            int bitWidth = itype.getBitWidth();
-                            switch (bitWidth) {
-                                case 8:
-                                    vectors[j] = readByteField(fieldVector);
-                                    break;
-                                case 16:
-                                    if (itype.getIsSigned())
-                                        vectors[j] = readShortField(fieldVector);
-                                    else
-                                        vectors[j] = readCharField(fieldVector);
-                                    break;
-                                case 32:
-                                    vectors[j] = readIntField(fieldVector);
-                                    break;
-                                case 64:
-                                    vectors[j] = readLongField(fieldVector);
-                                    break;
-                                default:
-                                    throw new UnsupportedOperationException("Unsupported integer bit width: " + bitWidth);
-                            }
-                            break;
-                        case FloatingPoint:
-                            FloatingPointPrecision precision = ((ArrowType.FloatingPoint) type).getPrecision();
-                            switch (precision) {
-                                case DOUBLE:
-                                    vectors[j] = readDoubleField(fieldVector);
-                                    break;
-                                case SINGLE:
-                                    vectors[j] = readFloatField(fieldVector);
-                                    break;
-                                case HALF:
-                                    throw new UnsupportedOperationException("Unsupported float precision: " + precision);
-                            }
-                            break;
-                        case Decimal:
-                            vectors[j] = readDecimalField(fieldVector);
-                            break;
-                        case Bool:
-                            vectors[j] = readBitField(fieldVector);
-                            break;
-                        case Date:
-                            vectors[j] = readDateField(fieldVector);
-                            break;
-                        case Time:
-                            vectors[j] = readTimeField(fieldVector);
-                            break;
-                        case Timestamp:
-                            vectors[j] = readDateTimeField(fieldVector);
-                            break;
-                        case Binary:
-                        case FixedSizeBinary:
-                            vectors[j] = readByteArrayField(fieldVector);
-                            break;
-                        case Utf8:
-                            vectors[j] = readStringField(fieldVector);
-                            break;
-                        default: throw new UnsupportedOperationException("Unsupported column type: " + fieldVector.getMinorType());
-                    }
+                    vectors[j] = read(fieldVectors.get(j));
                 }
 
                 DataFrame frame = DataFrame.of(vectors);
                 frames.add(frame);
-                size += frames.size();
+                size += frame.nrow();
             }
 
             if (frames.isEmpty()) {
@@ -268,6 +217,126 @@ public class Arrow {
         }
     }
 
+    /**
+     * Returns an iterator of the record batches of an arrow file.
+     * The fixed-width columns without null values in a batch are the
+     * views of the arrow buffers without copying. Therefore, a data
+     * frame is only valid until the following call of {@code hasNext()}
+     * or {@code next()}, which loads the next record batch. The last
+     * batch stays valid until the iterator is closed, which releases
+     * the file and the arrow buffers.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the iterator of record batches.
+     */
+    public BatchIterator iterator(Path path) throws IOException {
+        return iterator(Files.newInputStream(path));
+    }
+
+    /**
+     * Returns an iterator of the record batches of an arrow file.
+     * The fixed-width columns without null values in a batch are the
+     * views of the arrow buffers without copying. Therefore, a data
+     * frame is only valid until the following call of {@code hasNext()}
+     * or {@code next()}, which loads the next record batch. The last
+     * batch stays valid until the iterator is closed, which releases
+     * the file and the arrow buffers.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @throws URISyntaxException when the file path syntax is wrong.
+     * @return the iterator of record batches.
+     */
+    public BatchIterator iterator(String path) throws IOException, URISyntaxException {
+        return iterator(Input.stream(path));
+    }
+
+    /**
+     * Returns an iterator of the record batches of an arrow stream.
+     * The fixed-width columns without null values in a batch are the
+     * views of the arrow buffers without copying. Therefore, a data
+     * frame is only valid until the following call of {@code hasNext()}
+     * or {@code next()}, which loads the next record batch. The last
+     * batch stays valid until the iterator is closed, which releases
+     * the stream and the arrow buffers.
+     *
+     * @param input the input stream.
+     * @return the iterator of record batches.
+     */
+    public BatchIterator iterator(InputStream input) {
+        if (allocator == null) {
+            allocate(Long.MAX_VALUE);
+        }
+
+        return new BatchIterator(new ArrowStreamReader(input, allocator));
+    }
+
+    /**
+     * The iterator of record batches. The caller should close it
+     * when done with the last batch.
+     */
+    public class BatchIterator implements Iterator<DataFrame>, AutoCloseable {
+        /** The stream reader. */
+        private final ArrowStreamReader reader;
+        /** True if a record batch is loaded but not returned. */
+        private boolean loaded = false;
+        /** True if the end of stream is reached. */
+        private boolean eos = false;
+        /** True if the stream is closed. */
+        private boolean closed = false;
+
+        /**
+         * Constructor.
+         * @param reader the stream reader.
+         */
+        private BatchIterator(ArrowStreamReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!loaded && !eos && !closed) {
+                try {
+                    // The reader is not closed at the end of stream
+                    // as the last batch may still be viewed.
+                    loaded = reader.loadNextBatch();
+                    eos = !loaded;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return loaded;
+        }
+
+        @Override
+        public DataFrame next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            loaded = false;
+            try {
+                List<FieldVector> fieldVectors = reader.getVectorSchemaRoot().getFieldVectors();
+                smile.data.vector.BaseVector[] vectors = new smile.data.vector.BaseVector[fieldVectors.size()];
+                for (int j = 0; j < fieldVectors.size(); j++) {
+                    vectors[j] = view(fieldVectors.get(j));
+                }
+                return DataFrame.of(vectors);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                reader.close();
+            }
+        }
+    }
+
     /**
      * Writes the data frame to an arrow file.
      *
@@ -276,11 +345,40 @@ public class Arrow {
      * @throws IOException when fails to write the file.
      */
     public void write(DataFrame data, Path path) throws IOException {
+        write(data.schema(), Stream.of(data), path);
+    }
+
+    /**
+     * Writes a stream of data frames to an arrow file. Each data frame
+     * is written as one or more record batches as it arrives so that
+     * the whole data never need be in the memory.
+     *
+     * @param schema the schema of data frames.
+     * @param data the stream of data frames.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    public void write(StructType schema, Stream<DataFrame> data, Path path) throws IOException {
+        try (OutputStream output = Files.newOutputStream(path)) {
+            write(schema, data, output);
+        }
+    }
+
+    /**
+     * Writes a stream of data frames to an arrow stream. Each data frame
+     * is written as one or more record batches as it arrives so that
+     * the whole data never need be in the memory.
+     *
+     * @param schema the schema of data frames.
+     * @param data the stream of data frames.
+     * @param output the output stream.
+     * @throws IOException when fails to write the stream.
+     */
+    public void write(StructType schema, Stream<DataFrame> data, OutputStream output) throws IOException {
         if (allocator == null) {
             allocate(Long.MAX_VALUE);
         }
 
-        Schema schema = toArrowSchema(data.schema());
         /*
          * When a field is dictionary encoded, the values are represented
          * by an array of Int32 representing the index of the value in the
@@ -293,111 +391,222 @@ public class Arrow {
          * it must send at least one DictionaryBatch for this id.
          */
         DictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
-        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
-             OutputStream output = Files.newOutputStream(path);
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(toArrowSchema(schema), allocator);
              ArrowStreamWriter writer = new ArrowStreamWriter(root, provider, output)) {
 
             writer.start();
-            final int size = data.size();
-            for (int from = 0; from < size; from += batch) {
-                int count = Math.min(batch, size - from);
-                // set the batch row count
-                root.setRowCount(count);
-
-                for (Field field : root.getSchema().getFields()) {
-                    FieldVector vector = root.getVector(field.getName());
-                    DataType type = data.schema().field(field.getName()).type;
-                    switch (type.id()) {
-                        case Integer:
-                            writeIntField(data, vector, from, count);
-                            break;
-                        case Long:
-                            writeLongField(data, vector, from, count);
-                            break;
-                        case Double:
-                            writeDoubleField(data, vector, from, count);
-                            break;
-                        case Float:
-                            writeFloatField(data, vector, from, count);
-                            break;
-                        case Boolean:
-                            writeBooleanField(data, vector, from, count);
-                            break;
-                        case Byte:
-                            writeByteField(data, vector, from, count);
-                            break;
-                        case Short:
-                            writeShortField(data, vector, from, count);
-                            break;
-                        case Char:
-                            writeCharField(data, vector, from, count);
-                            break;
-                        case String:
-                            writeStringField(data, vector, from, count);
-                            break;
-                        case Date:
-                            writeDateField(data, vector, from, count);
-                            break;
-                        case Time:
-                            writeTimeField(data, vector, from, count);
-                            break;
-                        case DateTime:
-                            writeDateTimeField(data, vector, from, count);
-                            break;
-                        case Object: {
-                            Class<?> clazz = ((ObjectType) type).getObjectClass();
-                            if (clazz == Integer.class) {
-                                writeIntObjectField(data, vector, from, count);
-                            } else if (clazz == Long.class) {
-                                writeLongObjectField(data, vector, from, count);
-                            } else if (clazz == Double.class) {
-                                writeDoubleObjectField(data, vector, from, count);
-                            } else if (clazz == Float.class) {
-                                writeFloatObjectField(data, vector, from, count);
-                            } else if (clazz == Boolean.class) {
-                                writeBooleanObjectField(data, vector, from, count);
-                            } else if (clazz == Byte.class) {
-                                writeByteObjectField(data, vector, from, count);
-                            } else if (clazz == Short.class) {
-                                writeShortObjectField(data, vector, from, count);
-                            } else if (clazz == Character.class) {
-                                writeCharObjectField(data, vector, from, count);
-                            } else if (clazz == BigDecimal.class) {
-                                writeDecimalField(data, vector, from, count);
-                            } else if (clazz == String.class) {
-                                writeStringField(data, vector, from, count);
-                            } else if (clazz == LocalDate.class) {
-                                writeDateField(data, vector, from, count);
-                            } else if (clazz == LocalTime.class) {
-                                writeTimeField(data, vector, from, count);
-                            } else if (clazz == LocalDateTime.class) {
-                                writeDateTimeField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
-                        }
-                        case Array: {
-                            DataType etype = ((ArrayType) type).getComponentType();
-                            if (etype.id() == DataType.ID.Byte) {
-                                writeByteArrayField(data, vector, from, count);
-                            } else {
-                                throw new UnsupportedOperationException("Unsupported type: " + type);
-                            }
-                            break;
-                        }
-
-                        default:
-                            throw new UnsupportedOperationException("Unsupported type: " + type);
+            Iterator<DataFrame> iterator = data.iterator();
+            while (iterator.hasNext()) {
+                DataFrame df = iterator.next();
+                if (!schema.equals(df.schema())) {
+                    throw new IllegalArgumentException("Write data frames with different schema: " + schema + " vs " + df.schema());
+                }
+
+                final int size = df.size();
+                for (int from = 0; from < size; from += batch) {
+                    int count = Math.min(batch, size - from);
+                    // set the batch row count
+                    root.setRowCount(count);
+                    write(df, root, from, count);
+                    writer.writeBatch();
+                    logger.info("write {} rows", count);
+                }
+            }
+        }
+    }
+
+    /** Writes a range of rows to the vectors of record batch. */
+    private void write(DataFrame data, VectorSchemaRoot root, int from, int count) {
+        for (Field field : root.getSchema().getFields()) {
+            FieldVector vector = root.getVector(field.getName());
+            DataType type = data.schema().field(field.getName()).type;
+            switch (type.id()) {
+                case Integer:
+                    writeIntField(data, vector, from, count);
+                    break;
+                case Long:
+                    writeLongField(data, vector, from, count);
+                    break;
+                case Double:
+                    writeDoubleField(data, vector, from, count);
+                    break;
+                case Float:
+                    writeFloatField(data, vector, from, count);
+                    break;
+                case Boolean:
+                    writeBooleanField(data, vector, from, count);
+                    break;
+                case Byte:
+                    writeByteField(data, vector, from, count);
+                    break;
+                case Short:
+                    writeShortField(data, vector, from, count);
+                    break;
+                case Char:
+                    writeCharField(data, vector, from, count);
+                    break;
+                case String:
+                    writeStringField(data, vector, from, count);
+                    break;
+                case Date:
+                    writeDateField(data, vector, from, count);
+                    break;
+                case Time:
+                    writeTimeField(data, vector, from, count);
+                    break;
+                case DateTime:
+                    writeDateTimeField(data, vector, from, count);
+                    break;
+                case Object: {
+                    Class<?> clazz = ((ObjectType) type).getObjectClass();
+                    if (clazz == Integer.class) {
+                        writeIntObjectField(data, vector, from, count);
+                    } else if (clazz == Long.class) {
+                        writeLongObjectField(data, vector, from, count);
+                    } else if (clazz == Double.class) {
+                        writeDoubleObjectField(data, vector, from, count);
+                    } else if (clazz == Float.class) {
+                        writeFloatObjectField(data, vector, from, count);
+                    } else if (clazz == Boolean.class) {
+                        writeBooleanObjectField(data, vector, from, count);
+                    } else if (clazz == Byte.class) {
+                        writeByteObjectField(data, vector, from, count);
+                    } else if (clazz == Short.class) {
+                        writeShortObjectField(data, vector, from, count);
+                    } else if (clazz == Character.class) {
+                        writeCharObjectField(data, vector, from, count);
+                    } else if (clazz == BigDecimal.class) {
+                        writeDecimalField(data, vector, from, count);
+                    } else if (clazz == String.class) {
+                        writeStringField(data, vector, from, count);
+                    } else if (clazz == LocalDate.class) {
+                        writeDateField(data, vector, from, count);
+                    } else if (clazz == LocalTime.class) {
+                        writeTimeField(data, vector, from, count);
+                    } else if (clazz == LocalDateTime.class) {
+                        writeDateTimeField(data, vector, from, count);
+                    } else {
+                        throw new UnsupportedOperationException("Unsupported type: " + type);
+                    }
+                    break;
+                }
+                case Array: {
+                    DataType etype = ((ArrayType) type).getComponentType();
+                    if (etype.id() == DataType.ID.Byte) {
+                        writeByteArrayField(data, vector, from, count);
+                    } else {
+                        throw new UnsupportedOperationException("Unsupported type: " + type);
                     }
+                    break;
                 }
 
-                writer.writeBatch();
-                logger.info("write {} rows", count);
+                default:
+                    throw new UnsupportedOperationException("Unsupported type: " + type);
             }
         }
     }
 
+    /** Reads a column. */
+    private smile.data.vector.BaseVector read(FieldVector fieldVector) {
+        ArrowType type = fieldVector.getField().getType();
+        switch (type.getTypeID()) {
+            case Int:
+                ArrowType.Int itype = (ArrowType.Int) type;
+                int bitWidth = itype.getBitWidth();
+                switch (bitWidth) {
+                    case 8:
+                        return readByteField(fieldVector);
+                    case 16:
+                        if (itype.getIsSigned())
+                            return readShortField(fieldVector);
+                        else
+                            return readCharField(fieldVector);
+                    case 32:
+                        return readIntField(fieldVector);
+                    case 64:
+                        return readLongField(fieldVector);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported integer bit width: " + bitWidth);
+                }
+            case FloatingPoint:
+                FloatingPointPrecision precision = ((ArrowType.FloatingPoint) type).getPrecision();
+                switch (precision) {
+                    case DOUBLE:
+                        return readDoubleField(fieldVector);
+                    case SINGLE:
+                        return readFloatField(fieldVector);
+                    default:
+                        throw new UnsupportedOperationException("Unsupported float precision: " + precision);
+                }
+            case Decimal:
+                return readDecimalField(fieldVector);
+            case Bool:
+                return readBitField(fieldVector);
+            case Date:
+                return readDateField(fieldVector);
+            case Time:
+                return readTimeField(fieldVector);
+            case Timestamp:
+                return readDateTimeField(fieldVector);
+            case Binary:
+            case FixedSizeBinary:
+                return readByteArrayField(fieldVector);
+            case Utf8:
+                return readStringField(fieldVector);
+            default: throw new UnsupportedOperationException("Unsupported column type: " + fieldVector.getMinorType());
+        }
+    }
+
+    /**
+     * Returns the view of a non-nullable fixed-width column without
+     * copying. Other columns are copied. The column type is always
+     * the declared one so that all batches have the same schema.
+     */
+    private smile.data.vector.BaseVector view(FieldVector fieldVector) {
+        int count = fieldVector.getValueCount();
+        if (fieldVector.getField().isNullable() || count == 0) {
+            return read(fieldVector);
+        }
+
+        StructField column = toSmileField(fieldVector.getField());
+        switch (column.type.id()) {
+            case Double:
+                return smile.data.vector.DoubleVector.of(column, buffer(fieldVector, count, 8).asDoubleBuffer());
+            case Float:
+                return smile.data.vector.FloatVector.of(column, buffer(fieldVector, count, 4).asFloatBuffer());
+            case Long:
+                return smile.data.vector.LongVector.of(column, buffer(fieldVector, count, 8).asLongBuffer());
+            case Integer:
+                return smile.data.vector.IntVector.of(column, buffer(fieldVector, count, 4).asIntBuffer());
+            case Short:
+                return smile.data.vector.ShortVector.of(column, buffer(fieldVector, count, 2).asShortBuffer());
+            case Byte:
+                return smile.data.vector.ByteVector.of(column, buffer(fieldVector, count, 1));
+            default:
+                return read(fieldVector);
+        }
+    }
+
+    /**
+     * Returns the data buffer of a fixed-width column as a byte buffer
+     * in the little-endian order of arrow format.
+     */
+    private static ByteBuffer buffer(FieldVector fieldVector, int count, int width) {
+        return fieldVector.getDataBuffer().nioBuffer(0, count * width).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Allocates a fixed-width column of non-null values and returns its
+     * data buffer as a byte buffer, which is filled in bulk.
+     */
+    private static ByteBuffer allocateNew(FieldVector fieldVector, int count, int width) {
+        fieldVector.setInitialCapacity(count);
+        fieldVector.allocateNew();
+        fieldVector.getValidityBuffer().setOne(0, (count + 7) / 8);
+        fieldVector.setValueCount(count);
+        return buffer(fieldVector, count, width);
+    }
+
     /** Reads a boolean column. */
     private smile.data.vector.BaseVector readBitField(FieldVector fieldVector) {
         int count = fieldVector.getValueCount();
@@ -430,9 +639,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             byte[] a = new byte[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 1).get(a);
 
             return smile.data.vector.ByteVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -480,9 +687,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             short[] a = new short[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 2).asShortBuffer().get(a);
 
             return smile.data.vector.ShortVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -505,9 +710,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             int[] a = new int[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 4).asIntBuffer().get(a);
 
             return smile.data.vector.IntVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -530,9 +733,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             long[] a = new long[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 8).asLongBuffer().get(a);
 
             return smile.data.vector.LongVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -555,9 +756,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             float[] a = new float[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 4).asFloatBuffer().get(a);
 
             return smile.data.vector.FloatVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -580,9 +779,7 @@ public class Arrow {
 
         if (!fieldVector.getField().isNullable()) {
             double[] a = new double[count];
-            for (int i = 0; i < count; i++) {
-                a[i] = vector.get(i);
-            }
+            buffer(fieldVector, count, 8).asDoubleBuffer().get(a);
 
             return smile.data.vector.DoubleVector.of(fieldVector.getField().getName(), a);
         } else {
@@ -730,16 +927,11 @@ public class Arrow {
 
     /** Writes an int column. */
     private void writeIntField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        IntVector vector = (IntVector) fieldVector;
         smile.data.vector.IntVector column = df.intVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getInt(j));
+        IntBuffer buffer = allocateNew(fieldVector, count, 4).asIntBuffer();
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getInt(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable int column. */
@@ -750,7 +942,7 @@ public class Arrow {
         IntVector vector = (IntVector) fieldVector;
         smile.data.vector.Vector<Integer> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Integer x = column.get(i);
+            Integer x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -784,7 +976,7 @@ public class Arrow {
         BitVector vector = (BitVector) fieldVector;
         smile.data.vector.Vector<Boolean> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Boolean x = column.get(i);
+            Boolean x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -818,7 +1010,7 @@ public class Arrow {
         UInt2Vector vector = (UInt2Vector) fieldVector;
         smile.data.vector.Vector<Character> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Character x = column.get(i);
+            Character x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -832,16 +1024,11 @@ public class Arrow {
 
     /** Writes a byte column. */
     private void writeByteField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        TinyIntVector vector = (TinyIntVector) fieldVector;
         smile.data.vector.ByteVector column = df.byteVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getByte(j));
+        ByteBuffer buffer = allocateNew(fieldVector, count, 1);
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getByte(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable byte column. */
@@ -852,7 +1039,7 @@ public class Arrow {
         TinyIntVector vector = (TinyIntVector) fieldVector;
         smile.data.vector.Vector<Byte> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Byte x = column.get(i);
+            Byte x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -866,16 +1053,11 @@ public class Arrow {
 
     /** Writes a short column. */
     private void writeShortField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        SmallIntVector vector = (SmallIntVector) fieldVector;
         smile.data.vector.ShortVector column = df.shortVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getShort(j));
+        ShortBuffer buffer = allocateNew(fieldVector, count, 2).asShortBuffer();
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getShort(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable short column. */
@@ -886,7 +1068,7 @@ public class Arrow {
         SmallIntVector vector = (SmallIntVector) fieldVector;
         smile.data.vector.Vector<Short> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Short x = column.get(i);
+            Short x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -900,16 +1082,11 @@ public class Arrow {
 
     /** Writes a long column. */
     private void writeLongField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        BigIntVector vector = (BigIntVector) fieldVector;
         smile.data.vector.LongVector column = df.longVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getLong(j));
+        LongBuffer buffer = allocateNew(fieldVector, count, 8).asLongBuffer();
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getLong(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable long column. */
@@ -920,7 +1097,7 @@ public class Arrow {
         BigIntVector vector = (BigIntVector) fieldVector;
         smile.data.vector.Vector<Long> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Long x = column.get(i);
+            Long x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -934,16 +1111,11 @@ public class Arrow {
 
     /** Writes a float column. */
     private void writeFloatField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        Float4Vector vector  = (Float4Vector) fieldVector;
         smile.data.vector.FloatVector column = df.floatVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getFloat(j));
+        FloatBuffer buffer = allocateNew(fieldVector, count, 4).asFloatBuffer();
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getFloat(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable float column. */
@@ -954,7 +1126,7 @@ public class Arrow {
         Float4Vector vector  = (Float4Vector) fieldVector;
         smile.data.vector.Vector<Float> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Float x = column.get(i);
+            Float x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
@@ -968,16 +1140,11 @@ public class Arrow {
 
     /** Writes a double column. */
     private void writeDoubleField(DataFrame df, FieldVector fieldVector, int from, int count) {
-        fieldVector.setInitialCapacity(count);
-        fieldVector.allocateNew();
-
-        Float8Vector vector  = (Float8Vector) fieldVector;
         smile.data.vector.DoubleVector column = df.doubleVector(fieldVector.getField().getName());
-        for (int i = 0, j = from; i < count; i++, j++) {
-            vector.set(i, column.getDouble(j));
+        DoubleBuffer buffer = allocateNew(fieldVector, count, 8).asDoubleBuffer();
+        for (int j = from; j < from + count; j++) {
+            buffer.put(column.getDouble(j));
         }
-
-        fieldVector.setValueCount(count);
     }
 
     /** Writes a nullable double column. */
@@ -988,7 +1155,7 @@ public class Arrow {
         Float8Vector vector  = (Float8Vector) fieldVector;
         smile.data.vector.Vector<Double> column = df.vector(fieldVector.getField().getName());
         for (int i = 0, j = from; i < count; i++, j++) {
-            Double x = column.get(i);
+            Double x = column.get(j);
             if (x == null) {
                 vector.setNull(i);
             } else {
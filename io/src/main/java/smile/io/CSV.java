@@ -19,6 +19,7 @@ package smile.io;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -29,7 +30,6 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
@@ -146,31 +146,81 @@ public class CSV {
         return read(Files.newBufferedReader(path, charset), limit);
     }
 
+    /**
+     * Returns an iterator of data frames, each of which has the given
+     * number of records except the last one. The file is read in chunks
+     * that are parsed in parallel. Only the pending chunks are kept in
+     * memory so that the files larger than the heap can be processed
+     * incrementally. The file is closed when the iterator is exhausted.
+     * <p>
+     * All batches have the same schema. The primitive columns with
+     * missing values in the top rows are inferred as boxed types. The
+     * missing values that appear later in a primitive column are NaN
+     * for floating types. For other primitive types, set the schema
+     * with boxed types if there are missing values.
+     *
+     * @param path the input file path.
+     * @param batch the number of records in a data frame.
+     * @throws IOException when fails to read the file.
+     * @throws URISyntaxException when the file path syntax is wrong.
+     * @return the iterator of data frames.
+     */
+    public Iterator<DataFrame> iterator(String path, int batch) throws IOException, URISyntaxException {
+        if (schema == null) {
+            // infer the schema from top 1000 rows.
+            schema = inferSchema(Input.reader(path, charset), 1000);
+        }
+
+        return new CSVReader(Input.reader(path, charset), format, schema, batch, true);
+    }
+
+    /**
+     * Returns an iterator of data frames, each of which has the given
+     * number of records except the last one. The file is read in chunks
+     * that are parsed in parallel. Only the pending chunks are kept in
+     * memory so that the files larger than the heap can be processed
+     * incrementally. The file is closed when the iterator is exhausted.
+     * <p>
+     * All batches have the same schema. The primitive columns with
+     * missing values in the top rows are inferred as boxed types. The
+     * missing values that appear later in a primitive column are NaN
+     * for floating types. For other primitive types, set the schema
+     * with boxed types if there are missing values.
+     *
+     * @param path the input file path.
+     * @param batch the number of records in a data frame.
+     * @throws IOException when fails to read the file.
+     * @return the iterator of data frames.
+     */
+    public Iterator<DataFrame> iterator(Path path, int batch) throws IOException {
+        if (schema == null) {
+            // infer the schema from top 1000 rows.
+            schema = inferSchema(Files.newBufferedReader(path, charset), 1000);
+        }
+
+        return new CSVReader(Files.newBufferedReader(path, charset), format, schema, batch, true);
+    }
+
+    /**
+     * Reads the records in chunks, which are parsed in parallel
+     * into the primitive columns without creating row objects.
+     */
     private DataFrame read(Reader reader, int limit) throws IOException {
         if (schema == null) {
             // infer the schema from top 1000 rows.
             throw new IllegalStateException("The schema is not set or inferred.");
         }
 
-        StructField[] fields = schema.fields();
-        List<Function<String, Object>> parser = schema.parser();
-
-        try (CSVParser csv = CSVParser.parse(reader, format)) {
-            List<Tuple> rows = new ArrayList<>();
-            for (CSVRecord record : csv) {
-                Object[] row = new Object[fields.length];
-                for (int i = 0; i < fields.length; i++) {
-                    String s = record.get(i).trim();
-                    if (!s.isEmpty()) {
-                        row[i] = parser.get(i).apply(s);
-                    }
-                }
-                rows.add(Tuple.of(row, schema));
-                if (rows.size() >= limit) break;
+        try (CSVReader csv = new CSVReader(reader, format, schema, limit, false)) {
+            if (!csv.hasNext()) {
+                return csv.empty();
             }
 
-            schema = schema.boxed(rows);
-            return DataFrame.of(rows, schema);
+            DataFrame data = csv.next();
+            schema = data.schema();
+            return data;
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
     }
 
@@ -191,11 +241,13 @@ public class CSV {
         try (CSVParser parser = CSVParser.parse(reader, format)) {
             String[] names;
             DataType[] types;
+            boolean[] missing;
 
             Map<String, Integer> header = parser.getHeaderMap();
             if (header != null) {
                 names = new String[header.size()];
                 types = new DataType[header.size()];
+                missing = new boolean[header.size()];
                 for (Map.Entry<String, Integer> column : header.entrySet()) {
                     names[column.getValue()] = column.getKey();
                 }
@@ -208,16 +260,21 @@ public class CSV {
                 CSVRecord record = iter.next();
                 names = new String[record.size()];
                 types = new DataType[record.size()];
+                missing = new boolean[record.size()];
                 for (int i = 0; i < names.length; i++) {
                     names[i] = String.format("V%d", i+1);
-                    types[i] = DataType.infer(record.get(i).trim());
+                    String value = record.get(i).trim();
+                    types[i] = DataType.infer(value);
+                    missing[i] = value.isEmpty();
                 }
             }
 
             int k = 0;
             for (CSVRecord record : parser) {
                 for (int i = 0; i < names.length; i++) {
-                    types[i] = DataType.coerce(types[i], DataType.infer(record.get(i).trim()));
+                    String value = record.get(i).trim();
+                    types[i] = DataType.coerce(types[i], DataType.infer(value));
+                    missing[i] |= value.isEmpty();
                 }
 
                 if (++k >= limit) break;
@@ -225,7 +282,9 @@ public class CSV {
 
             StructField[] fields = new StructField[names.length];
             for (int i = 0; i < fields.length; i++) {
-                fields[i] = new StructField(names[i], types[i] == null ? DataTypes.StringType : types[i]);
+                DataType type = types[i] == null ? DataTypes.StringType : types[i];
+                // The columns with missing values are of boxed types.
+                fields[i] = new StructField(names[i], missing[i] ? type.boxed() : type);
             }
             return DataTypes.struct(fields);
         }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import smile.data.DataFrame;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.BaseVector;
+
+/**
+ * The chunked CSV reader. The text is read in large chunks that end
+ * at record boundaries, i.e. the line breaks outside quotes. A group
+ * of chunks is parsed in parallel, each into its own primitive column
+ * builders, so that no row objects are created. The reader returns
+ * the data frames of given number of rows in turn.
+ *
+ * @author Haifeng Li
+ */
+class CSVReader implements Iterator<DataFrame>, AutoCloseable {
+    /** The number of characters in a chunk. */
+    private static final int CHUNK = 1 << 22;
+
+    /** The text reader. */
+    private final Reader reader;
+    /** The format of first chunk that may have the header. */
+    private final CSVFormat head;
+    /** The format of other chunks. */
+    private final CSVFormat format;
+    /** The schema of data. */
+    private final StructType schema;
+    /** The number of rows in a data frame. */
+    private final int batch;
+    /** True if all data frames have the same schema. */
+    private final boolean stable;
+    /** The quote character. */
+    private final Character quote;
+    /** The escape character. */
+    private final Character escape;
+    /** The delimiter character. */
+    private final char delimiter;
+    /** The comment start character. */
+    private final Character comment;
+    /** True if the leading spaces of fields are ignored. */
+    private final boolean trim;
+    /** The text buffer. */
+    private char[] buffer = new char[CHUNK];
+    /** The number of characters in the buffer. */
+    private int length = 0;
+    /** The number of chunks that have been read. */
+    private long chunks = 0;
+    /** True if the end of text is reached. */
+    private boolean eof = false;
+    /** The parsed chunks that are not returned yet. */
+    private final LinkedList<ColumnBuilder[]> parts = new LinkedList<>();
+    /** The index of first pending row in the first part. */
+    private int offset = 0;
+    /** The number of pending rows. */
+    private long pending = 0;
+
+    /**
+     * Constructor.
+     * @param reader the text reader.
+     * @param format the CSV format.
+     * @param schema the schema of data.
+     * @param batch the number of rows in a data frame.
+     * @param stable if true, all data frames have the given schema.
+     *               Otherwise, the primitive columns with missing
+     *               values are of boxed types.
+     */
+    CSVReader(Reader reader, CSVFormat format, StructType schema, int batch, boolean stable) {
+        if (batch <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batch);
+        }
+
+        this.reader = reader;
+        this.head = format;
+        this.format = format.withHeader((String[]) null);
+        this.schema = schema;
+        this.batch = batch;
+        this.stable = stable;
+        this.quote = format.getQuoteCharacter();
+        this.escape = format.getEscapeCharacter();
+        this.delimiter = format.getDelimiter();
+        this.comment = format.getCommentMarker();
+        this.trim = format.getIgnoreSurroundingSpaces();
+    }
+
+    @Override
+    public void close() throws IOException {
+        eof = true;
+        reader.close();
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill(1);
+        return pending > 0;
+    }
+
+    @Override
+    public DataFrame next() {
+        fill(batch);
+        if (pending == 0) {
+            throw new NoSuchElementException();
+        }
+
+        return take((int) Math.min(batch, pending));
+    }
+
+    /**
+     * Returns the data frame of no rows with the schema.
+     * @return the empty data frame.
+     */
+    DataFrame empty() {
+        BaseVector[] vectors = Arrays.stream(schema.fields())
+                .map(field -> new ColumnBuilder(field, 0).toVector())
+                .toArray(BaseVector[]::new);
+        return DataFrame.of(vectors);
+    }
+
+    /**
+     * Reads and parses the chunks until there are enough pending rows
+     * or the end of text is reached.
+     */
+    private void fill(long rows) {
+        try {
+            while (pending < rows && !eof) {
+                for (ColumnBuilder[] part : read()) {
+                    parts.add(part);
+                    pending += part[0].size();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads a group of chunks and parses them in parallel.
+     * @return the parsed chunks.
+     */
+    private List<ColumnBuilder[]> read() throws IOException {
+        int parallelism = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        List<String> texts = new ArrayList<>(parallelism);
+        long first = chunks;
+        for (int i = 0; i < parallelism; i++) {
+            String text = chunk();
+            if (text == null) break;
+            texts.add(text);
+        }
+
+        if (eof) {
+            reader.close();
+        }
+
+        return IntStream.range(0, texts.size()).parallel()
+                .mapToObj(i -> parse(texts.get(i), first + i == 0 ? head : format))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the next chunk of text that ends at a record boundary.
+     * @return the next chunk or null if the end of text is reached.
+     */
+    private String chunk() throws IOException {
+        while (true) {
+            while (!eof && length < buffer.length) {
+                int n = reader.read(buffer, length, buffer.length - length);
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    length += n;
+                }
+            }
+
+            if (length == 0) return null;
+
+            int end = eof ? length : boundary();
+            if (end > 0) {
+                String text = new String(buffer, 0, end);
+                length -= end;
+                System.arraycopy(buffer, end, buffer, 0, length);
+                chunks++;
+                return text;
+            }
+
+            // A record is longer than the buffer.
+            buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+    }
+
+    /**
+     * Returns the position after the last line break outside quotes
+     * in the buffer, or 0 if there is none. The buffer always starts
+     * at a record boundary. As in the CSV parser, a quote starts a
+     * quoted field only at the beginning of field, so that the stray
+     * quotes in unquoted fields, e.g. 5'10", are plain characters.
+     * Two quotes in a quoted field are an escaped quote.
+     */
+    private int boundary() {
+        int end = 0;
+        boolean quoted = false;
+        boolean start = true;
+        boolean lineStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (quoted) {
+                if (escape != null && c == escape) {
+                    i++;
+                } else if (c == quote) {
+                    if (i + 1 < length && buffer[i + 1] == quote) {
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                }
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\n') end = i + 1;
+                start = true;
+                lineStart = true;
+            } else if (lineStart && comment != null && c == comment) {
+                // Skips the comment line.
+                while (i + 1 < length && buffer[i + 1] != '\n') i++;
+            } else if (c == delimiter) {
+                start = true;
+                lineStart = false;
+            } else if (start && trim && (c == ' ' || c == '\t')) {
+                // The leading spaces of field are ignored.
+                lineStart = false;
+            } else {
+                if (start && quote != null && c == quote) {
+                    quoted = true;
+                } else if (escape != null && c == escape) {
+                    i++;
+                }
+                start = false;
+                lineStart = false;
+            }
+        }
+        return end;
+    }
+
+    /** Parses a chunk of text into columns. */
+    private ColumnBuilder[] parse(String text, CSVFormat format) {
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') lines++;
+        }
+
+        StructField[] fields = schema.fields();
+        ColumnBuilder[] columns = new ColumnBuilder[fields.length];
+        for (int j = 0; j < fields.length; j++) {
+            columns[j] = new ColumnBuilder(fields[j], lines);
+        }
+
+        try (CSVParser parser = CSVParser.parse(text, format)) {
+            for (CSVRecord record : parser) {
+                for (int j = 0; j < fields.length; j++) {
+                    columns[j].add(record.get(j).trim());
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return columns;
+    }
+
+    /**
+     * Returns the data frame of the first n pending rows.
+     * The chunks that are consumed are released.
+     */
+    private DataFrame take(int n) {
+        // Plans the ranges of chunks before copying the columns.
+        List<ColumnBuilder[]> slices = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        for (int m = n; m > 0; ) {
+            ColumnBuilder[] part = parts.getFirst();
+            int size = part[0].size();
+            int to = (int) Math.min(size, (long) offset + m);
+            slices.add(part);
+            ranges.add(new int[]{offset, to, size});
+            m -= to - offset;
+
+            if (to == size) {
+                parts.removeFirst();
+                offset = 0;
+            } else {
+                offset = to;
+            }
+        }
+        pending -= n;
+
+        StructField[] fields = schema.fields();
+        BaseVector[] vectors = IntStream.range(0, fields.length).parallel().mapToObj(j -> {
+            ColumnBuilder column = new ColumnBuilder(fields[j], n);
+            for (int k = 0; k < slices.size(); k++) {
+                ColumnBuilder[] part = slices.get(k);
+                int[] range = ranges.get(k);
+                part[j].copyTo(range[0], range[1], column);
+                if (range[1] == range[2]) {
+                    // Releases the consumed chunk as soon as possible.
+                    part[j] = null;
+                }
+            }
+            return column.toVector(stable);
+        }).toArray(BaseVector[]::new);
+
+        return DataFrame.of(vectors);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import smile.data.type.DataType;
+import smile.data.type.StructField;
+import smile.data.vector.*;
+
+/**
+ * A growable column of values parsed from text. The values of primitive
+ * types, including the boxed ones, are stored in primitive arrays and
+ * the missing values are tracked in a bit set, which avoids boxing
+ * every value while parsing.
+ *
+ * @author Haifeng Li
+ */
+class ColumnBuilder {
+    /** The column field. */
+    private final StructField field;
+    /** The type of stored values, i.e. the unboxed type of field. */
+    private final DataType type;
+    /** The primitive array, or Object[] for other types. */
+    private Object values;
+    /** The number of values. */
+    private int size;
+    /** The capacity of array. */
+    private int capacity;
+    /** The rows of missing values. */
+    private final BitSet nulls = new BitSet();
+
+    /**
+     * Constructor.
+     * @param field the column field.
+     * @param capacity the initial capacity.
+     */
+    ColumnBuilder(StructField field, int capacity) {
+        this.field = field;
+        this.type = field.type.unboxed();
+        this.capacity = Math.max(capacity, 1);
+        this.values = allocate(this.capacity);
+    }
+
+    /** Allocates the array of values. */
+    private Object allocate(int n) {
+        switch (type.id()) {
+            case Integer: return new int[n];
+            case Long: return new long[n];
+            case Double: return new double[n];
+            case Float: return new float[n];
+            case Boolean: return new boolean[n];
+            case Byte: return new byte[n];
+            case Short: return new short[n];
+            case Char: return new char[n];
+            case String: return new String[n];
+            default: return new Object[n];
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     * @return the number of values.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Parses and appends a value. An empty string is a missing value.
+     * @param s the string representation of value.
+     */
+    void add(String s) {
+        int i = next();
+        if (s.isEmpty()) {
+            nulls.set(i);
+            return;
+        }
+
+        // The measure may define its own string representation
+        // of values, e.g. the levels of nominal scale.
+        if (field.measure != null) {
+            set(i, field.valueOf(s));
+            return;
+        }
+
+        switch (type.id()) {
+            case Integer: ((int[]) values)[i] = Integer.parseInt(s); break;
+            case Long: ((long[]) values)[i] = Long.parseLong(s); break;
+            case Double: ((double[]) values)[i] = Double.parseDouble(s); break;
+            case Float: ((float[]) values)[i] = Float.parseFloat(s); break;
+            case String: ((String[]) values)[i] = s; break;
+            default: set(i, field.valueOf(s));
+        }
+    }
+
+    /** Makes room for a new value and returns its index. */
+    private int next() {
+        if (size == capacity) {
+            capacity *= 2;
+            values = copyOf(values, capacity);
+        }
+        return size++;
+    }
+
+    /**
+     * Appends a missing value.
+     */
+    void addNull() {
+        nulls.set(next());
+    }
+
+    /**
+     * Appends a value object, which may be null.
+     * @param x the value.
+     */
+    void add(Object x) {
+        set(next(), x);
+    }
+
+    /**
+     * Appends a value to an int column.
+     * @param x the value.
+     */
+    void add(int x) {
+        int i = next();
+        ((int[]) values)[i] = x;
+    }
+
+    /**
+     * Appends a value to a long column.
+     * @param x the value.
+     */
+    void add(long x) {
+        int i = next();
+        ((long[]) values)[i] = x;
+    }
+
+    /**
+     * Appends a value to a float column.
+     * @param x the value.
+     */
+    void add(float x) {
+        int i = next();
+        ((float[]) values)[i] = x;
+    }
+
+    /**
+     * Appends a value to a double column.
+     * @param x the value.
+     */
+    void add(double x) {
+        int i = next();
+        ((double[]) values)[i] = x;
+    }
+
+    /** Sets a value object. */
+    private void set(int i, Object x) {
+        if (x == null) {
+            nulls.set(i);
+            return;
+        }
+
+        switch (type.id()) {
+            case Integer: ((int[]) values)[i] = ((Number) x).intValue(); break;
+            case Long: ((long[]) values)[i] = ((Number) x).longValue(); break;
+            case Double: ((double[]) values)[i] = ((Number) x).doubleValue(); break;
+            case Float: ((float[]) values)[i] = ((Number) x).floatValue(); break;
+            case Boolean: ((boolean[]) values)[i] = (Boolean) x; break;
+            case Byte: ((byte[]) values)[i] = ((Number) x).byteValue(); break;
+            case Short: ((short[]) values)[i] = ((Number) x).shortValue(); break;
+            case Char: ((char[]) values)[i] = (Character) x; break;
+            case String: ((String[]) values)[i] = x.toString(); break;
+            default: ((Object[]) values)[i] = x;
+        }
+    }
+
+    /**
+     * Copies a range of values to the end of another column.
+     * @param from the initial index of the range, inclusive.
+     * @param to the final index of the range, exclusive.
+     * @param dest the destination column.
+     */
+    void copyTo(int from, int to, ColumnBuilder dest) {
+        int n = to - from;
+        if (dest.size + n > dest.capacity) {
+            dest.capacity = Math.max(dest.size + n, 2 * dest.capacity);
+            dest.values = copyOf(dest.values, dest.capacity);
+        }
+
+        System.arraycopy(values, from, dest.values, dest.size, n);
+        for (int i = nulls.nextSetBit(from); i >= 0 && i < to; i = nulls.nextSetBit(i + 1)) {
+            dest.nulls.set(dest.size + i - from);
+        }
+        dest.size += n;
+    }
+
+    /** Returns a copy of the array with the new length. */
+    private static Object copyOf(Object a, int n) {
+        if (a instanceof int[]) return Arrays.copyOf((int[]) a, n);
+        if (a instanceof long[]) return Arrays.copyOf((long[]) a, n);
+        if (a instanceof double[]) return Arrays.copyOf((double[]) a, n);
+        if (a instanceof float[]) return Arrays.copyOf((float[]) a, n);
+        if (a instanceof boolean[]) return Arrays.copyOf((boolean[]) a, n);
+        if (a instanceof byte[]) return Arrays.copyOf((byte[]) a, n);
+        if (a instanceof short[]) return Arrays.copyOf((short[]) a, n);
+        if (a instanceof char[]) return Arrays.copyOf((char[]) a, n);
+        if (a instanceof String[]) return Arrays.copyOf((String[]) a, n);
+        return Arrays.copyOf((Object[]) a, n);
+    }
+
+    /**
+     * Returns true if the column has missing values.
+     * @return true if the column has missing values.
+     */
+    boolean hasNull() {
+        return !nulls.isEmpty();
+    }
+
+    /**
+     * Returns the column vector. The array is not copied if it is full.
+     * A primitive column with missing values is converted to the vector
+     * of boxed type, which is consistent with {@code StructType.boxed()}.
+     *
+     * @return the column vector.
+     */
+    BaseVector toVector() {
+        return toVector(false);
+    }
+
+    /**
+     * Returns the column vector. The array is not copied if it is full.
+     * If the type has to be kept, the missing values of primitive
+     * floating columns are NaN, and the missing values of other
+     * primitive columns are not allowed. Otherwise, a primitive
+     * column with missing values is converted to the vector of
+     * boxed type. A column of boxed type is always of boxed type.
+     *
+     * @param stable the flag if the type of field is kept.
+     * @return the column vector.
+     */
+    BaseVector toVector(boolean stable) {
+        Object a = size == capacity ? values : copyOf(values, size);
+
+        if (field.type.isPrimitive() && hasNull()) {
+            if (!stable) {
+                return boxed(a, new StructField(field.name, field.type.boxed(), field.measure));
+            }
+
+            switch (type.id()) {
+                case Double: {
+                    double[] x = (double[]) a;
+                    for (int i = nulls.nextSetBit(0); i >= 0 && i < size; i = nulls.nextSetBit(i + 1)) {
+                        x[i] = Double.NaN;
+                    }
+                    break;
+                }
+                case Float: {
+                    float[] x = (float[]) a;
+                    for (int i = nulls.nextSetBit(0); i >= 0 && i < size; i = nulls.nextSetBit(i + 1)) {
+                        x[i] = Float.NaN;
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException(String.format(
+                            "Missing value in column %s of type %s. Use the boxed type in the schema instead.",
+                            field.name, field.type));
+            }
+        }
+
+        if (type != field.type) {
+            return boxed(a, field);
+        }
+
+        switch (type.id()) {
+            case Integer: return IntVector.of(field, (int[]) a);
+            case Long: return LongVector.of(field, (long[]) a);
+            case Double: return DoubleVector.of(field, (double[]) a);
+            case Float: return FloatVector.of(field, (float[]) a);
+            case Boolean: return BooleanVector.of(field, (boolean[]) a);
+            case Byte: return ByteVector.of(field, (byte[]) a);
+            case Short: return ShortVector.of(field, (short[]) a);
+            case Char: return CharVector.of(field, (char[]) a);
+            case String: {
+                String[] s = (String[]) a;
+                for (int i = nulls.nextSetBit(0); i >= 0; i = nulls.nextSetBit(i + 1)) {
+                    s[i] = null;
+                }
+                return StringVector.of(field, s);
+            }
+            default: return Vector.of(field, (Object[]) a);
+        }
+    }
+
+    /** Returns the vector of boxed values. */
+    private BaseVector boxed(Object a, StructField field) {
+        Object[] boxed = new Object[size];
+        for (int i = 0; i < size; i++) {
+            if (!nulls.get(i)) {
+                boxed[i] = java.lang.reflect.Array.get(a, i);
+            }
+        }
+        return Vector.of(field, boxed);
+    }
+}
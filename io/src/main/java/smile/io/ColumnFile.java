@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import smile.data.DataFrame;
+import smile.data.measure.Measure;
+import smile.data.type.DataType;
+import smile.data.type.DataTypes;
+import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.*;
+
+/**
+ * Reads and writes the native columnar file format of Smile.
+ * The columns of primitive numeric types are stored as the raw
+ * little-endian values, which are memory-mapped on read. Opening
+ * a file takes constant time regardless of its size. The data are
+ * paged in by the operating system on demand, live outside the Java
+ * heap and are shared by all the processes that map the same file.
+ * <p>
+ * The file layout is
+ * <ol>
+ *  <li>The magic number, the format version, the number of rows,
+ *      the number of columns and the serialized schema.</li>
+ *  <li>The offset and length of each column.</li>
+ *  <li>The column data, each aligned at 8 bytes.</li>
+ * </ol>
+ * The columns of other types (boolean, char, string and objects) are
+ * stored by Java serialization and loaded into the heap on read.
+ * Each memory-mapped column is limited to 2GB, which is the maximum
+ * size of a mapped buffer.
+ *
+ * @author Haifeng Li
+ */
+public class ColumnFile {
+    /** The magic number of file. */
+    private static final byte[] MAGIC = "SMILECOL".getBytes(StandardCharsets.US_ASCII);
+    /** The version of file format. */
+    private static final int VERSION = 1;
+    /** The number of bytes in the write buffer. */
+    private static final int BUFFER = 1 << 16;
+
+    /** Private constructor to prevent object creation. */
+    private ColumnFile() {
+
+    }
+
+    /**
+     * Returns the number of bytes of value if the column is stored
+     * as raw values. Otherwise, returns 0.
+     */
+    private static int width(StructField field) {
+        switch (field.type.id()) {
+            case Double:
+            case Long:
+                return 8;
+            case Float:
+            case Integer:
+                return 4;
+            case Short:
+                return 2;
+            case Byte:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /** Returns the position aligned at 8 bytes. */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Memory-maps a columnar file.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 16).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a Smile columnar file: " + path);
+            }
+
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar file version: " + version);
+            }
+
+            int nrow = header.getInt();
+            int ncol = header.getInt();
+            int length = header.getInt();
+
+            long position = header.capacity();
+            ByteBuffer bytes = ByteBuffer.allocate(length);
+            readFully(channel, bytes, position);
+            StructType schema = schema(bytes.array());
+            position = align(position + length);
+
+            ByteBuffer directory = ByteBuffer.allocate(16 * ncol).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, directory, position);
+            directory.flip();
+
+            BaseVector[] columns = new BaseVector[ncol];
+            for (int j = 0; j < ncol; j++) {
+                StructField field = schema.field(j);
+                long offset = directory.getLong();
+                long size = directory.getLong();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Column too large to map: " + field.name);
+                }
+
+                if (width(field) == 0) {
+                    ByteBuffer data = ByteBuffer.allocate((int) size);
+                    readFully(channel, data, offset);
+                    columns[j] = vector(field, deserialize(data.array()));
+                    continue;
+                }
+
+                // The mapping remains valid after the channel is closed.
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                switch (field.type.id()) {
+                    case Double:
+                        columns[j] = DoubleVector.of(field, buffer.asDoubleBuffer());
+                        break;
+                    case Long:
+                        columns[j] = LongVector.of(field, buffer.asLongBuffer());
+                        break;
+                    case Float:
+                        columns[j] = FloatVector.of(field, buffer.asFloatBuffer());
+                        break;
+                    case Integer:
+                        columns[j] = IntVector.of(field, buffer.asIntBuffer());
+                        break;
+                    case Short:
+                        columns[j] = ShortVector.of(field, buffer.asShortBuffer());
+                        break;
+                    default:
+                        columns[j] = ByteVector.of(field, buffer);
+                        break;
+                }
+
+                if (columns[j].size() != nrow) {
+                    throw new IOException(String.format("Column %s has %d rows, expected %d", field.name, columns[j].size(), nrow));
+                }
+            }
+
+            return DataFrame.of(columns);
+        }
+    }
+
+    /**
+     * Writes a data frame to a columnar file.
+     *
+     * @param data the data frame.
+     * @param path the output file path.
+     * @throws IOException when fails to write the file.
+     */
+    public static void write(DataFrame data, Path path) throws IOException {
+        int nrow = data.nrow();
+        int ncol = data.ncol();
+        StructType schema = data.schema();
+        byte[] struct = serialize(schema);
+
+        // The columns that are not mapped are serialized in advance
+        // to determine their sizes.
+        byte[][] objects = new byte[ncol][];
+        long[] offset = new long[ncol];
+        long[] size = new long[ncol];
+        long headerSize = align(MAGIC.length + 16 + struct.length) + 16L * ncol;
+        long position = headerSize;
+        for (int j = 0; j < ncol; j++) {
+            StructField field = schema.field(j);
+            int width = width(field);
+            if (width == 0) {
+                objects[j] = serialize(values(data.column(j)));
+                size[j] = objects[j].length;
+            } else {
+                size[j] = (long) width * nrow;
+            }
+
+            position = align(position);
+            offset[j] = position;
+            position += size[j];
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate((int) headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(nrow);
+            header.putInt(ncol);
+            header.putInt(struct.length);
+            header.put(struct);
+            header.position((int) align(header.position()));
+            for (int j = 0; j < ncol; j++) {
+                header.putLong(offset[j]);
+                header.putLong(size[j]);
+            }
+            header.flip();
+            writeFully(channel, header, 0);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            for (int j = 0; j < ncol; j++) {
+                if (objects[j] != null) {
+                    writeFully(channel, ByteBuffer.wrap(objects[j]), offset[j]);
+                    continue;
+                }
+
+                BaseVector column = data.column(j);
+                StructField field = schema.field(j);
+                DataType.ID id = field.type.id();
+                int width = width(field);
+                long pos = offset[j];
+                for (int i = 0; i < nrow; ) {
+                    buffer.clear();
+                    for (; i < nrow && buffer.remaining() >= width; i++) {
+                        switch (id) {
+                            case Double: buffer.putDouble(column.getDouble(i)); break;
+                            case Long: buffer.putLong(column.getLong(i)); break;
+                            case Float: buffer.putFloat(column.getFloat(i)); break;
+                            case Integer: buffer.putInt(column.getInt(i)); break;
+                            case Short: buffer.putShort(column.getShort(i)); break;
+                            default: buffer.put(column.getByte(i));
+                        }
+                    }
+                    buffer.flip();
+                    pos += writeFully(channel, buffer, pos);
+                }
+            }
+        }
+    }
+
+    /** Reads bytes from the channel at the position until the buffer is full. */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += n;
+        }
+    }
+
+    /** Writes the remaining bytes of buffer to the channel at the position. */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int size = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the values of a column that is not memory-mapped
+     * in an array, which is serializable.
+     */
+    private static Object values(BaseVector column) {
+        int n = column.size();
+        switch (column.type().id()) {
+            case Boolean: {
+                boolean[] values = new boolean[n];
+                for (int i = 0; i < n; i++) values[i] = ((BooleanVector) column).getBoolean(i);
+                return values;
+            }
+            case Char: {
+                char[] values = new char[n];
+                for (int i = 0; i < n; i++) values[i] = ((CharVector) column).getChar(i);
+                return values;
+            }
+            case String: {
+                String[] values = new String[n];
+                for (int i = 0; i < n; i++) values[i] = (String) column.get(i);
+                return values;
+            }
+            default: {
+                Object[] values = new Object[n];
+                for (int i = 0; i < n; i++) values[i] = column.get(i);
+                return values;
+            }
+        }
+    }
+
+    /** Returns the vector of a column that is not memory-mapped. */
+    private static BaseVector vector(StructField field, Object values) {
+        switch (field.type.id()) {
+            case Boolean: return BooleanVector.of(field, (boolean[]) values);
+            case Char: return CharVector.of(field, (char[]) values);
+            case String: return StringVector.of(field, (String[]) values);
+            default: return Vector.of(field, (Object[]) values);
+        }
+    }
+
+    /**
+     * Serializes the schema. The data types are stored by their names
+     * as some of them are not serializable.
+     */
+    private static byte[] serialize(StructType schema) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(schema.length());
+            for (StructField field : schema.fields()) {
+                out.writeUTF(field.name);
+                out.writeUTF(field.type.name());
+                out.writeObject(field.measure);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Deserializes the schema. */
+    private static StructType schema(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            StructField[] fields = new StructField[in.readInt()];
+            for (int i = 0; i < fields.length; i++) {
+                String name = in.readUTF();
+                DataType type = DataType.of(in.readUTF());
+                Measure measure = (Measure) in.readObject();
+                fields[i] = new StructField(name, type, measure);
+            }
+            return DataTypes.struct(fields);
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /** Serializes an object. */
+    private static byte[] serialize(Object o) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Deserializes an object. */
+    private static Object deserialize(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        } catch (ClassNotFoundException ex) {
+            throw new IOException(ex);
+        }
+    }
+}
@@ -33,8 +33,10 @@ import org.apache.parquet.io.SeekableInputStream;
  * @author Haifeng Li
  */
 class LocalInputFile implements InputFile {
-    /** Local file object. */
-    private final RandomAccessFile input;
+    /** Local file path. */
+    private final Path path;
+    /** The length of file. */
+    private final long length;
 
     /**
      * Constructor.
@@ -42,16 +44,31 @@ class LocalInputFile implements InputFile {
      * @throws FileNotFoundException when file cannot be found.
      */
     public LocalInputFile(Path path) throws FileNotFoundException {
-        input = new RandomAccessFile(path.toFile(), "r");
+        this.path = path;
+        try (RandomAccessFile input = new RandomAccessFile(path.toFile(), "r")) {
+            this.length = input.length();
+        } catch (FileNotFoundException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new FileNotFoundException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public long getLength() {
+        return length;
     }
 
     @Override
-    public long getLength() throws IOException {
-        return input.length();
+    public String toString() {
+        return path.toString();
     }
 
     @Override
     public SeekableInputStream newStream() throws IOException {
+        // Each stream has its own file handle so that
+        // the streams can be read concurrently.
+        RandomAccessFile input = new RandomAccessFile(path.toFile(), "r");
         return new SeekableInputStream() {
             private final byte[] page = new byte[8192];
             private long markPos = 0;
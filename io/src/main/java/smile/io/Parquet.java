@@ -18,6 +18,7 @@
 package smile.io;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URISyntaxException;
@@ -25,19 +26,31 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
 import java.time.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.stream.IntStream;
 
+import org.apache.parquet.ParquetReadOptions;
 import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
 import org.apache.parquet.column.page.PageReadStore;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.ColumnIOFactory;
 import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.MessageColumnIO;
 import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.DecimalMetadata;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.OriginalType;
@@ -46,6 +59,7 @@ import org.apache.parquet.schema.Type;
 import smile.data.DataFrame;
 import smile.data.Tuple;
 import smile.data.type.*;
+import smile.data.vector.BaseVector;
 
 /**
  * Apache Parquet is a columnar storage format that supports
@@ -126,26 +140,296 @@ public class Parquet {
      * @return the data frame.
      */
     public static DataFrame read(InputFile file, int limit) throws IOException {
-        try (ParquetFileReader reader = ParquetFileReader.open(file)) {
+        return read(file, null, null, limit);
+    }
+
+    /**
+     * Reads the selected columns of the records satisfying a filter
+     * from a local parquet file.
+     * @param path the input file path.
+     * @param columns the names of top level fields to read. If null,
+     *                all columns are read.
+     * @param filter the filter predicate, e.g. built with
+     *               {@code org.apache.parquet.filter2.predicate.FilterApi}.
+     *               If null, all records are read.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(Path path, String[] columns, FilterPredicate filter) throws IOException {
+        return read(new LocalInputFile(path), columns, filter);
+    }
+
+    /**
+     * Reads the selected columns of the records satisfying a filter
+     * from a HDFS parquet file.
+     * @param path the input file path.
+     * @param columns the names of top level fields to read. If null,
+     *                all columns are read.
+     * @param filter the filter predicate, e.g. built with
+     *               {@code org.apache.parquet.filter2.predicate.FilterApi}.
+     *               If null, all records are read.
+     * @throws IOException when fails to read the file.
+     * @throws URISyntaxException when the file path syntax is wrong.
+     * @return the data frame.
+     */
+    public static DataFrame read(String path, String[] columns, FilterPredicate filter) throws IOException, URISyntaxException {
+        return read(HadoopInput.file(path), columns, filter);
+    }
+
+    /**
+     * Reads the selected columns of the records satisfying a filter
+     * from a parquet file. Only the column chunks of selected columns
+     * are read and decoded. The row groups that cannot match the filter
+     * are skipped by the statistics in the footer. The remaining row
+     * groups are decoded in parallel into the columnar vectors.
+     *
+     * @param file an interface with the methods needed by Parquet
+     *             to read data files. See HadoopInputFile for example.
+     * @param columns the names of top level fields to read. If null,
+     *                all columns are read.
+     * @param filter the filter predicate, e.g. built with
+     *               {@code org.apache.parquet.filter2.predicate.FilterApi}.
+     *               If null, all records are read.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    public static DataFrame read(InputFile file, String[] columns, FilterPredicate filter) throws IOException {
+        return read(file, columns, filter, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the selected columns of a limited number of records
+     * satisfying a filter from a parquet file.
+     */
+    private static DataFrame read(InputFile file, String[] columns, FilterPredicate filter, int limit) throws IOException {
+        ParquetReadOptions.Builder builder = ParquetReadOptions.builder();
+        if (filter != null) {
+            builder.withRecordFilter(FilterCompat.get(filter));
+        }
+        ParquetReadOptions options = builder.build();
+
+        MessageType schema;
+        List<BlockMetaData> blocks;
+        try (ParquetFileReader reader = ParquetFileReader.open(file, options)) {
             ParquetMetadata footer = reader.getFooter();
-            MessageType schema = footer.getFileMetaData().getSchema();
-            StructType struct = toSmileSchema(schema);
             logger.debug("The meta data of parquet file {}: {}", file.toString(), ParquetMetadata.toPrettyJSON(footer));
+            schema = footer.getFileMetaData().getSchema();
+            // The row groups that pass the statistics filter.
+            blocks = reader.getRowGroups();
+        }
+
+        if (filter == null && limit < Integer.MAX_VALUE) {
+            long rows = 0;
+            int k = 0;
+            while (k < blocks.size() && rows < limit) {
+                rows += blocks.get(k++).getRowCount();
+            }
+            blocks = blocks.subList(0, k);
+        }
+
+        MessageType projection = project(schema, columns, filter);
+        StructType struct = toSmileSchema(projection);
+        logger.info("read {} row groups of {} columns", blocks.size(), struct.length());
+
+        List<BlockMetaData> groups = blocks;
+        DataFrame[] frames;
+        try {
+            frames = IntStream.range(0, groups.size()).parallel()
+                    .mapToObj(i -> readRowGroup(file, options, groups.get(i), projection, struct, filter))
+                    .toArray(DataFrame[]::new);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        DataFrame df;
+        if (frames.length == 0) {
+            df = DataFrame.of(new ArrayList<Tuple>(), struct);
+        } else if (frames.length == 1) {
+            df = frames[0];
+        } else {
+            df = frames[0].union(Arrays.copyOfRange(frames, 1, frames.length));
+        }
+
+        if (columns != null && filter != null) {
+            // Drops the columns that are only used by the filter.
+            Set<String> selected = new HashSet<>(Arrays.asList(columns));
+            df = df.select(Arrays.stream(struct.fields())
+                    .map(field -> field.name)
+                    .filter(name -> selected.contains(name.split("\\.")[0]))
+                    .toArray(String[]::new));
+        }
+
+        return df.nrow() > limit ? df.slice(0, limit) : df;
+    }
+
+    /**
+     * Returns the schema of selected top level fields and the fields
+     * used by the filter.
+     */
+    private static MessageType project(MessageType schema, String[] columns, FilterPredicate filter) {
+        if (columns == null) {
+            return schema;
+        }
+
+        Set<String> names = new LinkedHashSet<>(Arrays.asList(columns));
+        if (filter != null) {
+            ParquetFilter.columns(filter, names);
+        }
+
+        List<Type> fields = new ArrayList<>();
+        for (String name : names) {
+            if (!schema.containsField(name)) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            fields.add(schema.getType(name));
+        }
 
-            int nrow = (int) Math.min(reader.getRecordCount(), limit);
-            List<Tuple> rows = new ArrayList<>(nrow);
+        return new MessageType(schema.getName(), fields);
+    }
+
+    /**
+     * Reads and decodes a row group. Each row group is read by its own
+     * file reader so that row groups can be decoded in parallel.
+     */
+    private static DataFrame readRowGroup(InputFile file, ParquetReadOptions options, BlockMetaData block, MessageType projection, StructType struct, FilterPredicate filter) {
+        long start = block.getStartingPos();
+        ParquetReadOptions range = ParquetReadOptions.builder().copy(options)
+                .withRange(start, start + block.getCompressedSize())
+                .build();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(file, range)) {
+            reader.setRequestedSchema(projection);
+            PageReadStore store = reader.readNextRowGroup();
+            int n = (int) store.getRowCount();
+            List<ColumnDescriptor> columns = projection.getColumns();
+
+            boolean repeated = columns.stream().anyMatch(column -> column.getMaxRepetitionLevel() > 0);
+            if (repeated) {
+                // The record API assembles the repeated values and applies the filter.
+                MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(projection);
+                RecordReader<Group> recordReader = columnIO.getRecordReader(store, new GroupRecordConverter(projection),
+                        filter == null ? FilterCompat.NOOP : FilterCompat.get(filter));
+                List<Tuple> rows = new ArrayList<>();
+                for (int i = 0; i < n; i++) {
+                    Group g = recordReader.read();
+                    if (g != null && !recordReader.shouldSkipCurrentRecord()) {
+                        rows.add(Tuple.of(group2object(g, columns, struct), struct));
+                    }
+                }
+                return DataFrame.of(rows, struct);
+            }
 
-            PageReadStore store;
-            while ((store = reader.readNextRowGroup()) != null) {
-                final long rowCount = store.getRowCount();
-                final MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(schema);
-                final RecordReader<Group> recordReader = columnIO.getRecordReader(store, new GroupRecordConverter(schema));
-                for (int i = 0; i < rowCount && rows.size() < nrow; i++) {
-                    rows.add(Tuple.of(group2object(recordReader.read(), schema.getColumns(), struct), struct));
+            String createdBy = reader.getFooter().getFileMetaData().getCreatedBy();
+            ColumnReadStoreImpl columnStore = new ColumnReadStoreImpl(store, new GroupRecordConverter(projection).getRootConverter(), projection, createdBy);
+            BaseVector[] vectors = new BaseVector[columns.size()];
+            for (int j = 0; j < vectors.length; j++) {
+                ColumnDescriptor column = columns.get(j);
+                StructField field = struct.field(j);
+                ColumnReader columnReader = columnStore.getColumnReader(column);
+                ColumnBuilder builder = new ColumnBuilder(field, n);
+                int maxDefinitionLevel = column.getMaxDefinitionLevel();
+                for (int i = 0; i < n; i++) {
+                    if (columnReader.getCurrentDefinitionLevel() < maxDefinitionLevel) {
+                        builder.addNull();
+                    } else {
+                        switch (field.type.id()) {
+                            case Integer: builder.add(columnReader.getInteger()); break;
+                            case Long: builder.add(columnReader.getLong()); break;
+                            case Float: builder.add(columnReader.getFloat()); break;
+                            case Double: builder.add(columnReader.getDouble()); break;
+                            default: builder.add(value(columnReader, column, field));
+                        }
+                    }
+                    columnReader.consume();
                 }
+                vectors[j] = builder.toVector();
             }
 
-            return DataFrame.of(rows);
+            DataFrame df = DataFrame.of(vectors);
+            if (filter != null) {
+                df = df.of(filter.accept(new ParquetFilter(df)));
+                // Materializes the selected rows.
+                df = DataFrame.of(IntStream.range(0, df.ncol()).mapToObj(df::column).toArray(BaseVector[]::new));
+            }
+            return df;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** Returns the current value of a non-repeated column. */
+    private static Object value(ColumnReader reader, ColumnDescriptor column, StructField field) {
+        PrimitiveType primitiveType = column.getPrimitiveType();
+        OriginalType originalType = primitiveType.getOriginalType();
+
+        switch (primitiveType.getPrimitiveTypeName()) {
+            case BOOLEAN:
+                return reader.getBoolean();
+
+            case INT32: {
+                int x = reader.getInteger();
+                if (originalType == null) return x;
+                switch (originalType) {
+                    case INT_8:
+                        return (byte) x;
+                    case UINT_8:
+                    case INT_16:
+                        return (short) x;
+                    case DECIMAL:
+                        return BigDecimal.valueOf(x, primitiveType.getDecimalMetadata().getScale());
+                    case DATE:
+                        return LocalDate.ofEpochDay(x);
+                    case TIME_MILLIS:
+                        return LocalTime.ofNanoOfDay(x * 1000000L);
+                    default:
+                        return x;
+                }
+            }
+
+            case INT64: {
+                long x = reader.getLong();
+                if (originalType == null) return x;
+                switch (originalType) {
+                    case DECIMAL:
+                        return BigDecimal.valueOf(x, primitiveType.getDecimalMetadata().getScale());
+                    case TIME_MICROS:
+                        return LocalTime.ofNanoOfDay(x * 1000);
+                    case TIMESTAMP_MILLIS:
+                        return LocalDateTime.ofInstant(Instant.ofEpochMilli(x), ZoneOffset.UTC);
+                    case TIMESTAMP_MICROS:
+                        return LocalDateTime.ofEpochSecond(x / 1000000, (int) (x % 1000000) * 1000, ZoneOffset.UTC);
+                    default:
+                        return x;
+                }
+            }
+
+            case INT96: {
+                ByteBuffer buf = reader.getBinary().toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                long nanoOfDay = buf.getLong();
+                int julianDay = buf.getInt();
+                // it's 2440587.5, rounding up to compatible with Hive
+                LocalDate date = LocalDate.ofEpochDay(julianDay - 2440588);
+                LocalTime time = LocalTime.ofNanoOfDay(nanoOfDay);
+                return LocalDateTime.of(date, time);
+            }
+
+            case FLOAT:
+                return reader.getFloat();
+
+            case DOUBLE:
+                return reader.getDouble();
+
+            default: {
+                Binary binary = reader.getBinary();
+                switch (field.type.id()) {
+                    case String:
+                        return binary.toStringUsingUTF8();
+                    case Decimal:
+                        return new BigDecimal(new BigInteger(binary.getBytes()), primitiveType.getDecimalMetadata().getScale());
+                    default:
+                        return binary.getBytes();
+                }
+            }
         }
     }
 
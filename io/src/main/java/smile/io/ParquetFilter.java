@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.util.Set;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
+import org.apache.parquet.io.api.Binary;
+import smile.data.DataFrame;
+import smile.data.vector.BaseVector;
+
+/**
+ * Evaluates a parquet filter predicate on the rows of a data frame.
+ * The values of a column are converted to the java type of parquet
+ * column in the predicate, i.e. Integer, Long, Float, Double, Boolean
+ * or Binary, before comparison. A null value only matches the
+ * equality to null.
+ *
+ * @author Haifeng Li
+ */
+class ParquetFilter implements FilterPredicate.Visitor<boolean[]> {
+    /** The data frame. */
+    private final DataFrame data;
+
+    /**
+     * Constructor.
+     * @param data the data frame.
+     */
+    ParquetFilter(DataFrame data) {
+        this.data = data;
+    }
+
+    /**
+     * Adds the top level field names of the columns in a predicate to a set.
+     * @param predicate the filter predicate.
+     * @param names the set of field names.
+     */
+    static void columns(FilterPredicate predicate, Set<String> names) {
+        if (predicate instanceof Operators.Eq) {
+            names.add(name(((Operators.Eq<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.NotEq) {
+            names.add(name(((Operators.NotEq<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.Lt) {
+            names.add(name(((Operators.Lt<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.LtEq) {
+            names.add(name(((Operators.LtEq<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.Gt) {
+            names.add(name(((Operators.Gt<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.GtEq) {
+            names.add(name(((Operators.GtEq<?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.And) {
+            columns(((Operators.And) predicate).getLeft(), names);
+            columns(((Operators.And) predicate).getRight(), names);
+        } else if (predicate instanceof Operators.Or) {
+            columns(((Operators.Or) predicate).getLeft(), names);
+            columns(((Operators.Or) predicate).getRight(), names);
+        } else if (predicate instanceof Operators.Not) {
+            columns(((Operators.Not) predicate).getPredicate(), names);
+        } else if (predicate instanceof Operators.UserDefined) {
+            names.add(name(((Operators.UserDefined<?, ?>) predicate).getColumn()));
+        } else if (predicate instanceof Operators.LogicalNotUserDefined) {
+            columns(((Operators.LogicalNotUserDefined<?, ?>) predicate).getUserDefined(), names);
+        } else {
+            throw new UnsupportedOperationException("Unsupported filter predicate: " + predicate);
+        }
+    }
+
+    /** Returns the top level field name of a column. */
+    private static String name(Operators.Column<?> column) {
+        return column.getColumnPath().toArray()[0];
+    }
+
+    /** Returns the column of a predicate. */
+    private BaseVector column(Operators.Column<?> column) {
+        return data.column(column.getColumnPath().toDotString());
+    }
+
+    /** Converts a value to the java type of parquet column. */
+    @SuppressWarnings("unchecked")
+    private static <T extends Comparable<T>> T convert(Object x, Class<T> clazz) {
+        if (x == null) return null;
+        if (clazz.isInstance(x)) return (T) x;
+
+        if (clazz == Binary.class) {
+            return (T) (x instanceof byte[] ? Binary.fromConstantByteArray((byte[]) x) : Binary.fromString(x.toString()));
+        }
+
+        if (x instanceof Number) {
+            Number n = (Number) x;
+            if (clazz == Integer.class) return (T) Integer.valueOf(n.intValue());
+            if (clazz == Long.class) return (T) Long.valueOf(n.longValue());
+            if (clazz == Float.class) return (T) Float.valueOf(n.floatValue());
+            if (clazz == Double.class) return (T) Double.valueOf(n.doubleValue());
+        }
+
+        throw new IllegalArgumentException(String.format("Cannot compare %s with %s", x.getClass().getName(), clazz.getName()));
+    }
+
+    /**
+     * Returns the comparison results of a column with the value of
+     * predicate, or Integer.MIN_VALUE for null.
+     */
+    private <T extends Comparable<T>> int[] compare(Operators.Column<T> predicate, T value) {
+        BaseVector column = column(predicate);
+        Class<T> clazz = predicate.getColumnType();
+        int n = data.nrow();
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            T x = convert(column.get(i), clazz);
+            if (x == null || value == null) {
+                result[i] = x == value ? 0 : Integer.MIN_VALUE;
+            } else {
+                result[i] = Integer.signum(x.compareTo(value));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Eq<T> eq) {
+        int[] c = compare(eq.getColumn(), eq.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] == 0;
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.NotEq<T> notEq) {
+        int[] c = compare(notEq.getColumn(), notEq.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] != 0;
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Lt<T> lt) {
+        int[] c = compare(lt.getColumn(), lt.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] == -1;
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.LtEq<T> ltEq) {
+        int[] c = compare(ltEq.getColumn(), ltEq.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] == -1 || c[i] == 0;
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.Gt<T> gt) {
+        int[] c = compare(gt.getColumn(), gt.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] == 1;
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>> boolean[] visit(Operators.GtEq<T> gtEq) {
+        int[] c = compare(gtEq.getColumn(), gtEq.getValue());
+        boolean[] mask = new boolean[c.length];
+        for (int i = 0; i < c.length; i++) mask[i] = c[i] == 1 || c[i] == 0;
+        return mask;
+    }
+
+    @Override
+    public boolean[] visit(Operators.And and) {
+        boolean[] left = and.getLeft().accept(this);
+        boolean[] right = and.getRight().accept(this);
+        for (int i = 0; i < left.length; i++) left[i] &= right[i];
+        return left;
+    }
+
+    @Override
+    public boolean[] visit(Operators.Or or) {
+        boolean[] left = or.getLeft().accept(this);
+        boolean[] right = or.getRight().accept(this);
+        for (int i = 0; i < left.length; i++) left[i] |= right[i];
+        return left;
+    }
+
+    @Override
+    public boolean[] visit(Operators.Not not) {
+        boolean[] mask = not.getPredicate().accept(this);
+        for (int i = 0; i < mask.length; i++) mask[i] = !mask[i];
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> boolean[] visit(Operators.UserDefined<T, U> udp) {
+        BaseVector column = column(udp.getColumn());
+        Class<T> clazz = udp.getColumn().getColumnType();
+        U predicate = udp.getUserDefinedPredicate();
+        int n = data.nrow();
+        boolean[] mask = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            mask[i] = predicate.keep(convert(column.get(i), clazz));
+        }
+        return mask;
+    }
+
+    @Override
+    public <T extends Comparable<T>, U extends UserDefinedPredicate<T>> boolean[] visit(Operators.LogicalNotUserDefined<T, U> udp) {
+        boolean[] mask = udp.getUserDefined().accept(this);
+        for (int i = 0; i < mask.length; i++) mask[i] = !mask[i];
+        return mask;
+    }
+}
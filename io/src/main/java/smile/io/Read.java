@@ -24,15 +24,16 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 import org.apache.commons.csv.CSVFormat;
+import smile.data.CSRDataset;
 import smile.data.DataFrame;
 import smile.data.Dataset;
 import smile.data.Instance;
 import smile.data.type.StructType;
+import smile.util.DoubleArrayList;
+import smile.util.IntArrayList;
 import smile.util.SparseArray;
 import smile.util.Strings;
 
@@ -386,6 +387,18 @@ public interface Read {
         return arrow.read(path);
     }
 
+    /**
+     * Memory-maps a Smile columnar file. The columns of primitive
+     * numeric types are not loaded into the Java heap.
+     *
+     * @param path the input file path.
+     * @throws IOException when fails to read the file.
+     * @return the data frame.
+     */
+    static DataFrame columnar(Path path) throws IOException {
+        return ColumnFile.read(path);
+    }
+
     /**
      * Reads an Apache Avro file.
      *
@@ -524,6 +537,11 @@ public interface Read {
      * is a real number. The indices must be in an ascending order. The labels in
      * the testing data file are only used to calculate accuracy or error. If they
      * are unknown, just fill this column with a number.
+     * <p>
+     * The rows are stored in a {@link CSRDataset} and the instances are
+     * views of rows created on access, which take much less memory than
+     * a sparse array per row. {@code SparseDataset.of(data)} returns
+     * the underlying CSR dataset without copying.
      *
      * @param reader the file reader.
      * @throws IOException when fails to read the file.
@@ -550,12 +568,25 @@ public interface Read {
                 }
             }
 
-            List<Instance<SparseArray>> data = new ArrayList<>();
+            // The rows are stored in compressed sparse row format.
+            IntArrayList rowIndex = new IntArrayList();
+            IntArrayList colIndex = new IntArrayList();
+            DoubleArrayList values = new DoubleArrayList();
+            IntArrayList labels = new IntArrayList();
+            DoubleArrayList response = new DoubleArrayList();
+            int ncol = 0;
+
+            rowIndex.add(0);
             do {
                 String[] tokens = line.trim().split("\\s+");
-                String firstToken = tokens[0];
+                if (classification) {
+                    labels.add(Integer.parseInt(tokens[0]));
+                } else {
+                    response.add(Double.parseDouble(tokens[0]));
+                }
 
-                SparseArray row = new SparseArray();
+                int begin = colIndex.size();
+                boolean sorted = true;
                 for (int k = 1; k < tokens.length; k++) {
                     String[] pair = tokens[k].split(":");
                     if (pair.length != 2) {
@@ -564,41 +595,41 @@ public interface Read {
 
                     int j = Integer.parseInt(pair[0]) - 1;
                     double x = Double.parseDouble(pair[1]);
-                    row.set(j, x);
-                }
-
-                if (classification) {
-                    data.add(new Instance<SparseArray>() {
-                        final int y = Integer.parseInt(firstToken);
-                        @Override
-                        public SparseArray x() {
-                            return row;
+                    if (x != 0.0) {
+                        if (colIndex.size() > begin && j <= colIndex.get(colIndex.size() - 1)) {
+                            sorted = false;
                         }
+                        colIndex.add(j);
+                        values.add(x);
+                        ncol = Math.max(ncol, j + 1);
+                    }
+                }
 
-                        @Override
-                        public int label() {
-                            return y;
-                        }
-                    });
-                } else {
-                    data.add(new Instance<SparseArray>() {
-                        final double y = Double.parseDouble(firstToken);
-                        @Override
-                        public SparseArray x() {
-                            return row;
-                        }
+                if (!sorted) {
+                    // Rare case of unsorted or duplicated indices.
+                    // The later value overrides the earlier one.
+                    SparseArray row = new SparseArray();
+                    for (int k = begin; k < colIndex.size(); k++) {
+                        row.set(colIndex.get(k), values.get(k));
+                    }
+                    row.sort();
 
-                        @Override
-                        public double y() {
-                            return y;
-                        }
-                    });
+                    for (int k = 0; k < row.size(); k++) {
+                        colIndex.set(begin + k, row.index(k));
+                        values.set(begin + k, row.value(k));
+                    }
+                    while (colIndex.size() > begin + row.size()) {
+                        colIndex.remove(colIndex.size() - 1);
+                        values.remove(values.size() - 1);
+                    }
                 }
 
+                rowIndex.add(colIndex.size());
                 line = reader.readLine();
             } while (line != null);
 
-            return Dataset.of(data);
+            CSRDataset data = new CSRDataset(ncol, rowIndex.toArray(), colIndex.toArray(), values.toArray());
+            return classification ? data.withLabels(labels.toArray()) : data.withResponse(response.toArray());
         } finally {
             reader.close();
         }
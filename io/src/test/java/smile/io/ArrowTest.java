@@ -25,12 +25,20 @@ import org.junit.Test;
 import smile.data.DataFrame;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
+import smile.data.type.StructType;
+import smile.data.vector.DoubleVector;
+import smile.data.vector.Vector;
 import smile.math.matrix.Matrix;
 import smile.util.Paths;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.junit.Assert.*;
 
@@ -180,4 +188,80 @@ public class ArrowTest {
         assertEquals(5.94, output.get(2, 0), 1E-10);
         assertEquals(0.99, output.get(3, 0), 1E-10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of streaming write and batch iterator.
+     */
+    @Test
+    public void testIterator() throws Exception {
+        System.out.println("iterator");
+        DataFrame iris = new Arff(Paths.getTestData("weka/iris.arff")).read();
+        Path temp = Files.createTempFile("smile-test-iris", ".arrow");
+        temp.toFile().deleteOnExit();
+
+        Arrow arrow = new Arrow(50);
+        arrow.write(iris.schema(), Stream.of(iris.slice(0, 75), iris.slice(75, 150)), temp);
+
+        int n = 0;
+        int batches = 0;
+        DataFrame last = null;
+        try (Arrow.BatchIterator iterator = arrow.iterator(temp)) {
+            while (iterator.hasNext()) {
+                DataFrame batch = iterator.next();
+                assertEquals(5, batch.ncol());
+                for (int i = 0; i < batch.nrow(); i++) {
+                    for (int j = 0; j < batch.ncol(); j++) {
+                        assertEquals(iris.get(n + i, j), batch.get(i, j));
+                    }
+                }
+
+                double[] x = batch.column("sepallength").toDoubleArray();
+                assertEquals(iris.getDouble(n, "sepallength"), x[0], 1E-10);
+                n += batch.nrow();
+                batches++;
+                last = batch;
+            }
+
+            // The last batch is still valid after the iterator is exhausted.
+            assertFalse(iterator.hasNext());
+            assertEquals(iris.getDouble(149, "sepalwidth"), last.getDouble(last.nrow() - 1, "sepalwidth"), 1E-10);
+        }
+
+        assertEquals(150, n);
+        assertEquals(4, batches);
+    }
+
+    /**
+     * Test of batch schema with and without null values.
+     */
+    @Test
+    public void testBatchSchema() throws Exception {
+        System.out.println("batch schema");
+        DataFrame df = DataFrame.of(
+                DoubleVector.of("x", new double[]{1.0, 2.0, 3.0, 4.0}),
+                Vector.of(new StructField("y", DataTypes.DoubleObjectType), new Double[]{null, 2.0, 3.0, 4.0})
+        );
+        Path temp = Files.createTempFile("smile-test-nulls", ".arrow");
+        temp.toFile().deleteOnExit();
+
+        Arrow arrow = new Arrow(2);
+        arrow.write(df, temp);
+        StructType schema = arrow.read(temp).schema();
+        assertEquals(DataTypes.DoubleType, schema.field("x").type);
+        assertEquals(DataTypes.DoubleObjectType, schema.field("y").type);
+
+        Path copy = Files.createTempFile("smile-test-nulls-copy", ".arrow");
+        copy.toFile().deleteOnExit();
+        try (Arrow.BatchIterator iterator = arrow.iterator(temp)) {
+            // The batches are written one by one with the same schema
+            // as the views are only valid until the next batch is loaded.
+            Stream<DataFrame> batches = StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                    .peek(batch -> assertEquals(schema, batch.schema()));
+            arrow.write(schema, batches, copy);
+            DataFrame result = arrow.read(copy);
+            assertEquals(4, result.nrow());
+            assertNull(result.get(0, 1));
+            assertEquals(4.0, result.getDouble(3, 1), 1E-10);
+        }
+    }
+}
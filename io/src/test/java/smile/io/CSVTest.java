@@ -17,6 +17,9 @@
 
 package smile.io;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
 import org.apache.commons.csv.CSVFormat;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -265,4 +268,116 @@ public class CSVTest {
         assertEquals("Internal Auditor", df.getString(0, 11));
         assertEquals("1E+02", df.getString(0, 12));
     }
+
+    @Test
+    public void testIterator() throws Exception {
+        System.out.println("iterator");
+
+        CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        CSV csv = new CSV(format);
+        DataFrame df = csv.read(Paths.getTestData("kylo/userdata1.csv"));
+
+        int n = 0;
+        Iterator<DataFrame> iter = csv.iterator(Paths.getTestData("kylo/userdata1.csv"), 300);
+        while (iter.hasNext()) {
+            DataFrame batch = iter.next();
+            assertEquals(df.schema(), batch.schema());
+            assertEquals(n < 900 ? 300 : 100, batch.nrow());
+            assertEquals(13, batch.ncol());
+            for (int i = 0; i < batch.nrow(); i++, n++) {
+                assertEquals(df.getInt(n, 1), batch.getInt(i, 1));
+                assertEquals(df.getString(n, 4), batch.getString(i, 4));
+                assertEquals(df.getString(n, 12), batch.getString(i, 12));
+            }
+        }
+        assertEquals(1000, n);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        System.out.println("empty");
+
+        Path temp = Files.createTempFile("smile-test-empty", ".csv");
+        temp.toFile().deleteOnExit();
+        Files.write(temp, "x,y\n".getBytes());
+
+        CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        StructType schema = DataTypes.struct(
+                new StructField("x", DataTypes.DoubleType),
+                new StructField("y", DataTypes.StringType)
+        );
+        CSV csv = new CSV(format).schema(schema);
+        DataFrame df = csv.read(temp);
+        assertEquals(0, df.nrow());
+        assertEquals(schema, df.schema());
+        assertFalse(csv.iterator(temp, 10).hasNext());
+    }
+
+    @Test
+    public void testStableSchema() throws Exception {
+        System.out.println("stable schema");
+
+        Path temp = Files.createTempFile("smile-test-stable", ".csv");
+        temp.toFile().deleteOnExit();
+        Files.write(temp, "x,y,z\n1.5,1,a\n,2,\n2.5,,c\n".getBytes());
+
+        CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        StructType schema = DataTypes.struct(
+                new StructField("x", DataTypes.DoubleType),
+                new StructField("y", DataTypes.IntegerObjectType),
+                new StructField("z", DataTypes.StringType)
+        );
+        CSV csv = new CSV(format).schema(schema);
+        Iterator<DataFrame> iter = csv.iterator(temp, 1);
+        for (int i = 0; i < 3; i++) {
+            DataFrame batch = iter.next();
+            assertEquals(schema, batch.schema());
+        }
+        assertFalse(iter.hasNext());
+
+        csv = new CSV(format);
+        DataFrame df = csv.read(temp);
+        assertEquals(DataTypes.DoubleObjectType, df.schema().field(0).type);
+        assertEquals(DataTypes.IntegerObjectType, df.schema().field(1).type);
+        assertNull(df.get(1, 0));
+        assertNull(df.get(2, 1));
+        assertEquals(2, df.getInt(1, 1));
+
+        iter = csv.iterator(temp, 1);
+        while (iter.hasNext()) {
+            assertEquals(df.schema(), iter.next().schema());
+        }
+    }
+
+    @Test
+    public void testStrayQuotes() throws Exception {
+        System.out.println("stray quotes");
+
+        // The text spans several chunks. The quotes in unquoted fields
+        // don't start quoted fields, in which the line breaks are data.
+        int n = 300000;
+        StringBuilder sb = new StringBuilder("id,height,note\n");
+        for (int i = 0; i < n; i++) {
+            sb.append(i).append(",5'10\",\"line ").append(i).append("\nnext, \"\"line\"\"\"\n");
+        }
+        Path temp = Files.createTempFile("smile-test-quotes", ".csv");
+        temp.toFile().deleteOnExit();
+        Files.write(temp, sb.toString().getBytes());
+
+        CSVFormat format = CSVFormat.DEFAULT.withFirstRecordAsHeader();
+        StructType schema = DataTypes.struct(
+                new StructField("id", DataTypes.IntegerType),
+                new StructField("height", DataTypes.StringType),
+                new StructField("note", DataTypes.StringType)
+        );
+        CSV csv = new CSV(format).schema(schema);
+        DataFrame df = csv.read(temp);
+        assertEquals(n, df.nrow());
+        for (int i = 0; i < n; i += 997) {
+            assertEquals(i, df.getInt(i, 0));
+            assertEquals("5'10\"", df.getString(i, 1));
+            assertEquals("line " + i + "\nnext, \"line\"", df.getString(i, 2));
+        }
+        assertEquals(n - 1, df.getInt(n - 1, 0));
+    }
 }
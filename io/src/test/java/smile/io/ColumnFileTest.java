@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.io;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.apache.commons.csv.CSVFormat;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.data.DataFrame;
+import smile.util.Paths;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class ColumnFileTest {
+
+    public ColumnFileTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testIris() throws Exception {
+        System.out.println("iris");
+        Arff arff = new Arff(Paths.getTestData("weka/iris.arff"));
+        DataFrame iris = arff.read();
+
+        Path temp = Files.createTempFile("smile-test-iris", ".col");
+        temp.toFile().deleteOnExit();
+        ColumnFile.write(iris, temp);
+        DataFrame df = ColumnFile.read(temp);
+        System.out.println(df);
+
+        assertEquals(iris.schema(), df.schema());
+        assertEquals(150, df.nrow());
+        assertEquals(5, df.ncol());
+        assertEquals("Iris-setosa", df.getScale(0, "class"));
+        assertEquals("Iris-virginica", df.getScale(149, "class"));
+        for (int i = 0; i < iris.nrow(); i++) {
+            for (int j = 0; j < iris.ncol(); j++) {
+                assertEquals(iris.get(i, j), df.get(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testUserdata() throws Exception {
+        System.out.println("userdata");
+        CSV csv = new CSV(CSVFormat.DEFAULT.withFirstRecordAsHeader());
+        DataFrame data = csv.read(Paths.getTestData("kylo/userdata1.csv"));
+
+        Path temp = Files.createTempFile("smile-test-userdata", ".col");
+        temp.toFile().deleteOnExit();
+        ColumnFile.write(data, temp);
+        DataFrame df = ColumnFile.read(temp);
+
+        assertEquals(data.schema(), df.schema());
+        assertEquals(1000, df.nrow());
+        for (int i = 0; i < data.nrow(); i++) {
+            for (int j = 0; j < data.ncol(); j++) {
+                assertEquals(data.get(i, j), df.get(i, j));
+            }
+        }
+
+        double[] id = df.column("id").toDoubleArray();
+        assertEquals(1.0, id[0], 1E-10);
+        assertEquals(1000.0, id[999], 1E-10);
+    }
+}
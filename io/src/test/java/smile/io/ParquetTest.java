@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import java.time.LocalDateTime;
+import org.apache.parquet.filter2.predicate.FilterApi;
 import smile.data.DataFrame;
 import smile.data.type.DataTypes;
 import smile.data.type.StructField;
@@ -176,4 +177,28 @@ public class ParquetTest {
         assertEquals(90263.05, output.get(3, 1), 1E-10);
         assertTrue(Double.isNaN(output.get(4, 1)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of read method with column projection and filter.
+     */
+    @Test
+    public void testProjectionFilter() throws Exception {
+        System.out.println("projection and filter");
+        DataFrame data = Parquet.read(Paths.getTestData("kylo/userdata1.parquet"),
+                new String[]{"id", "first_name"},
+                FilterApi.gt(FilterApi.doubleColumn("salary"), 100000.0));
+        System.out.println(data);
+
+        int n = 0;
+        for (int i = 0; i < df.nrow(); i++) {
+            if (!df.isNullAt(i, 10) && df.getDouble(i, 10) > 100000.0) n++;
+        }
+
+        assertEquals(n, data.nrow());
+        assertEquals(2, data.ncol());
+        assertEquals("id", data.schema().field(0).name);
+        assertEquals("first_name", data.schema().field(1).name);
+        assertEquals(2, data.getInt(0, 0));
+        assertEquals("Albert", data.getString(0, 1));
+    }
+}
@@ -0,0 +1,635 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package smile.graph;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import smile.math.MathEx;
+import smile.math.distance.Distance;
+import smile.math.distance.EuclideanDistance;
+import smile.sort.QuickSort;
+
+/**
+ * The k-nearest neighbor graph, of which each vertex links to its
+ * k nearest neighbors. The neighbors of each vertex are sorted by
+ * the distance in ascending order. The exact graph is built by the
+ * brute force search in parallel, which takes O(n<sup>2</sup>) distance
+ * evaluations. For large datasets, the approximate graph can be built
+ * by NN-Descent, which is based on the principle that a neighbor of
+ * a neighbor is likely a neighbor too. Starting from random neighbors,
+ * NN-Descent iteratively improves the graph by comparing the neighbors
+ * of neighbors. Its empirical cost is about O(n<sup>1.14</sup>) and the
+ * recall is typically above 90% after a few iterations.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li> Wei Dong, Moses Charikar, and Kai Li. Efficient k-nearest neighbor graph construction for generic similarity measures. WWW, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class NearestNeighborGraph implements Serializable {
+    private static final long serialVersionUID = 2L;
+    private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(NearestNeighborGraph.class);
+
+    /**
+     * The number of nearest neighbors.
+     */
+    public final int k;
+    /**
+     * The nearest neighbors of each vertex in ascending order of distance.
+     */
+    public final int[][] neighbors;
+    /**
+     * The distances to the nearest neighbors.
+     */
+    public final double[][] distances;
+    /**
+     * The original index of vertices in the dataset.
+     */
+    public final int[] index;
+
+    /**
+     * Constructor.
+     * @param k the number of nearest neighbors.
+     * @param neighbors the nearest neighbors of each vertex.
+     * @param distances the distances to the nearest neighbors.
+     */
+    public NearestNeighborGraph(int k, int[][] neighbors, double[][] distances) {
+        this(k, neighbors, distances, IntStream.range(0, neighbors.length).toArray());
+    }
+
+    /**
+     * Constructor.
+     * @param k the number of nearest neighbors.
+     * @param neighbors the nearest neighbors of each vertex.
+     * @param distances the distances to the nearest neighbors.
+     * @param index the original index of vertices in the dataset.
+     */
+    public NearestNeighborGraph(int k, int[][] neighbors, double[][] distances, int[] index) {
+        if (neighbors.length != distances.length || neighbors.length != index.length) {
+            throw new IllegalArgumentException("The sizes of neighbors, distances and index are different.");
+        }
+
+        this.k = k;
+        this.neighbors = neighbors;
+        this.distances = distances;
+        this.index = index;
+    }
+
+    /**
+     * Returns the number of vertices.
+     * @return the number of vertices.
+     */
+    public int size() {
+        return neighbors.length;
+    }
+
+    /**
+     * Returns the adjacency list of graph with the distances as edge weights.
+     * @param digraph true to create a directed graph.
+     * @return the adjacency list of graph.
+     */
+    public AdjacencyList graph(boolean digraph) {
+        int n = neighbors.length;
+        AdjacencyList graph = new AdjacencyList(n, digraph);
+        for (int i = 0; i < n; i++) {
+            int[] neighbor = neighbors[i];
+            double[] distance = distances[i];
+            for (int j = 0; j < neighbor.length; j++) {
+                graph.setWeight(i, neighbor[j], distance[j]);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the largest connected component of graph. The neighbors
+     * outside the component are removed, and the vertices are renumbered
+     * in the ascending order of original index.
+     * @param digraph true to find the components of directed graph.
+     * @return the largest connected component.
+     */
+    public NearestNeighborGraph largest(boolean digraph) {
+        int[][] cc = graph(digraph).bfs();
+        if (cc.length == 1) {
+            return this;
+        }
+
+        int largest = 0;
+        for (int i = 1; i < cc.length; i++) {
+            if (cc[i].length > cc[largest].length) {
+                largest = i;
+            }
+        }
+
+        int[] vertices = cc[largest];
+        int n = vertices.length;
+        logger.info("{} connected components, largest one has {} samples.", cc.length, n);
+
+        int[] reverse = new int[neighbors.length];
+        Arrays.fill(reverse, -1);
+        for (int i = 0; i < n; i++) {
+            reverse[vertices[i]] = i;
+        }
+
+        int[][] subNeighbors = new int[n][];
+        double[][] subDistances = new double[n][];
+        int[] subIndex = new int[n];
+        for (int i = 0; i < n; i++) {
+            int v = vertices[i];
+            subIndex[i] = index[v];
+            int[] neighbor = neighbors[v];
+            double[] distance = distances[v];
+            int m = 0;
+            subNeighbors[i] = new int[neighbor.length];
+            subDistances[i] = new double[neighbor.length];
+            for (int j = 0; j < neighbor.length; j++) {
+                int u = reverse[neighbor[j]];
+                if (u >= 0) {
+                    subNeighbors[i][m] = u;
+                    subDistances[i][m++] = distance[j];
+                }
+            }
+            subNeighbors[i] = Arrays.copyOf(subNeighbors[i], m);
+            subDistances[i] = Arrays.copyOf(subDistances[i], m);
+        }
+
+        return new NearestNeighborGraph(k, subNeighbors, subDistances, subIndex);
+    }
+
+    /**
+     * Returns the recall of approximate graph, estimated by the exact
+     * nearest neighbors of random vertices.
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param samples the number of random vertices to check.
+     * @param <T> the data type of points.
+     * @return the fraction of exact nearest neighbors in the graph.
+     */
+    public <T> double recall(T[] data, Distance<T> distance, int samples) {
+        int n = neighbors.length;
+        int[] vertices = n <= samples ? IntStream.range(0, n).toArray() : Arrays.copyOf(MathEx.permutate(n), samples);
+        int hit = IntStream.of(vertices).parallel().map(i -> {
+            int[] exact = search(data, distance, index[i], k);
+            int count = 0;
+            for (int v : neighbors[i]) {
+                int original = index[v];
+                for (int e : exact) {
+                    if (e == original) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+            return count;
+        }).sum();
+
+        return (double) hit / (vertices.length * k);
+    }
+
+    /**
+     * Returns the exact k nearest neighbors of a point by brute force.
+     * The neighbors are sorted by distance and then by index. The point
+     * itself (reference equality) is excluded.
+     */
+    private static <T> int[] search(T[] data, Distance<T> distance, int i, int k) {
+        return search(data, distance, i, k, null);
+    }
+
+    /**
+     * Returns the exact k nearest neighbors of a point by brute force.
+     * @param dist the output distances to the neighbors, may be null.
+     */
+    private static <T> int[] search(T[] data, Distance<T> distance, int i, int k, double[] dist) {
+        Heap heap = new Heap(k);
+        T q = data[i];
+        for (int j = 0; j < data.length; j++) {
+            if (data[j] != q) {
+                heap.add(j, distance.d(q, data[j]));
+            }
+        }
+
+        heap.sort();
+        if (dist != null) {
+            System.arraycopy(heap.distance, 0, dist, 0, heap.size);
+        }
+        return Arrays.copyOf(heap.index, heap.size);
+    }
+
+    /**
+     * Creates the exact k-nearest neighbor graph with Euclidean distance.
+     * @param data the dataset.
+     * @param k the number of nearest neighbors.
+     * @return the k-nearest neighbor graph.
+     */
+    public static NearestNeighborGraph of(double[][] data, int k) {
+        return of(data, new EuclideanDistance(), k);
+    }
+
+    /**
+     * Creates the exact k-nearest neighbor graph. The nearest neighbors
+     * of vertices are searched in parallel.
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param k the number of nearest neighbors.
+     * @param <T> the data type of points.
+     * @return the k-nearest neighbor graph.
+     */
+    public static <T> NearestNeighborGraph of(T[] data, Distance<T> distance, int k) {
+        int n = data.length;
+        if (k < 1 || k >= n) {
+            throw new IllegalArgumentException("Invalid number of nearest neighbors: " + k);
+        }
+
+        int[][] neighbors = new int[n][];
+        double[][] distances = new double[n][k];
+        IntStream.range(0, n).parallel().forEach(i -> neighbors[i] = search(data, distance, i, k, distances[i]));
+        return new NearestNeighborGraph(k, neighbors, distances);
+    }
+
+    /**
+     * Creates the approximate k-nearest neighbor graph with Euclidean
+     * distance by NN-Descent.
+     * @param data the dataset.
+     * @param k the number of nearest neighbors.
+     * @return the approximate k-nearest neighbor graph.
+     */
+    public static NearestNeighborGraph descent(double[][] data, int k) {
+        return descent(data, new EuclideanDistance(), k);
+    }
+
+    /**
+     * Creates the approximate k-nearest neighbor graph by NN-Descent.
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param k the number of nearest neighbors.
+     * @param <T> the data type of points.
+     * @return the approximate k-nearest neighbor graph.
+     */
+    public static <T> NearestNeighborGraph descent(T[] data, Distance<T> distance, int k) {
+        return descent(data, distance, k, 50, 0.5, 0.001);
+    }
+
+    /**
+     * Creates the approximate k-nearest neighbor graph by NN-Descent.
+     * The local joins of vertices run in parallel. The number of updates
+     * in each iteration is logged, which indicates the progress of recall.
+     *
+     * @param data the dataset.
+     * @param distance the distance function.
+     * @param k the number of nearest neighbors.
+     * @param maxIter the maximum number of iterations.
+     * @param rho the sample rate of neighbors in the local join. Smaller
+     *            rho is faster per iteration with lower recall.
+     * @param delta the early termination threshold. The iterations stop
+     *              when the number of updates is less than delta * n * k.
+     * @param <T> the data type of points.
+     * @return the approximate k-nearest neighbor graph.
+     */
+    public static <T> NearestNeighborGraph descent(T[] data, Distance<T> distance, int k, int maxIter, double rho, double delta) {
+        int n = data.length;
+        if (k < 1 || k >= n) {
+            throw new IllegalArgumentException("Invalid number of nearest neighbors: " + k);
+        }
+
+        if (maxIter < 1) {
+            throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
+        }
+
+        if (rho <= 0.0 || rho > 1.0) {
+            throw new IllegalArgumentException("Invalid sample rate: " + rho);
+        }
+
+        if (delta < 0.0 || delta >= 1.0) {
+            throw new IllegalArgumentException("Invalid early termination threshold: " + delta);
+        }
+
+        // Random initial neighbors.
+        Heap[] heaps = new Heap[n];
+        for (int i = 0; i < n; i++) {
+            heaps[i] = new Heap(k);
+        }
+
+        // The distinct random neighbors.
+        int[][] random = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] r = new int[k];
+            for (int j = 0; j < k; j++) {
+                boolean duplicate = true;
+                while (duplicate) {
+                    int v = MathEx.randomInt(n - 1);
+                    r[j] = v < i ? v : v + 1;
+                    duplicate = false;
+                    for (int l = 0; l < j; l++) {
+                        if (r[l] == r[j]) {
+                            duplicate = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            random[i] = r;
+        }
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (int j : random[i]) {
+                heaps[i].add(j, distance.d(data[i], data[j]));
+            }
+        });
+
+        int sample = Math.max(1, (int) Math.round(rho * k));
+        for (int iter = 1; iter <= maxIter; iter++) {
+            // The sampled new neighbors and old neighbors.
+            int[][] newNeighbors = new int[n][];
+            int[][] oldNeighbors = new int[n][];
+            for (int i = 0; i < n; i++) {
+                Heap heap = heaps[i];
+                int[] fresh = new int[heap.size];
+                int[] old = new int[heap.size];
+                int m = 0, l = 0;
+                for (int j = 0; j < heap.size; j++) {
+                    if (heap.fresh[j]) {
+                        fresh[m++] = j;
+                    } else {
+                        old[l++] = heap.index[j];
+                    }
+                }
+
+                // Samples the new neighbors and marks them as old.
+                if (m > sample) {
+                    sample(fresh, m, sample);
+                    m = sample;
+                }
+
+                for (int j = 0; j < m; j++) {
+                    heap.fresh[fresh[j]] = false;
+                    fresh[j] = heap.index[fresh[j]];
+                }
+
+                newNeighbors[i] = Arrays.copyOf(fresh, m);
+                oldNeighbors[i] = Arrays.copyOf(old, l);
+            }
+
+            int[][] newCandidates = union(newNeighbors, reverse(newNeighbors, sample));
+            int[][] oldCandidates = union(oldNeighbors, reverse(oldNeighbors, sample));
+
+            // The local join.
+            long updates = IntStream.range(0, n).parallel().mapToLong(i -> {
+                long c = 0;
+                int[] fresh = newCandidates[i];
+                int[] old = oldCandidates[i];
+                for (int p = 0; p < fresh.length; p++) {
+                    int u = fresh[p];
+                    for (int q = p + 1; q < fresh.length; q++) {
+                        c += join(data, distance, heaps, u, fresh[q]);
+                    }
+
+                    for (int v : old) {
+                        c += join(data, distance, heaps, u, v);
+                    }
+                }
+                return c;
+            }).sum();
+
+            logger.info("NN-Descent iteration {}: {} updates", iter, updates);
+            if (updates <= delta * n * k) {
+                break;
+            }
+        }
+
+        int[][] neighbors = new int[n][];
+        double[][] distances = new double[n][];
+        for (int i = 0; i < n; i++) {
+            Heap heap = heaps[i];
+            heap.sort();
+            neighbors[i] = Arrays.copyOf(heap.index, heap.size);
+            distances[i] = Arrays.copyOf(heap.distance, heap.size);
+        }
+
+        return new NearestNeighborGraph(k, neighbors, distances);
+    }
+
+    /**
+     * Tries to add u and v to the neighbors of each other.
+     * @return the number of updates.
+     */
+    private static <T> int join(T[] data, Distance<T> distance, Heap[] heaps, int u, int v) {
+        if (u == v || data[u] == data[v]) return 0;
+
+        double d = distance.d(data[u], data[v]);
+        int c = 0;
+        if (heaps[u].offer(v, d)) c++;
+        if (heaps[v].offer(u, d)) c++;
+        return c;
+    }
+
+    /**
+     * Returns the reverse neighbors, each of which is sampled to at most
+     * the given size.
+     */
+    private static int[][] reverse(int[][] neighbors, int sample) {
+        int n = neighbors.length;
+        int[] size = new int[n];
+        for (int[] neighbor : neighbors) {
+            for (int v : neighbor) {
+                size[v]++;
+            }
+        }
+
+        int[][] reverse = new int[n][];
+        for (int i = 0; i < n; i++) {
+            reverse[i] = new int[size[i]];
+            size[i] = 0;
+        }
+
+        for (int i = 0; i < n; i++) {
+            for (int v : neighbors[i]) {
+                reverse[v][size[v]++] = i;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (size[i] > sample) {
+                sample(reverse[i], size[i], sample);
+                reverse[i] = Arrays.copyOf(reverse[i], sample);
+            }
+        }
+
+        return reverse;
+    }
+
+    /**
+     * Moves a random sample of the first n elements to the front of array
+     * by partial Fisher-Yates shuffle.
+     * @param x the array.
+     * @param n the number of elements to sample from.
+     * @param m the sample size.
+     */
+    private static void sample(int[] x, int n, int m) {
+        for (int i = 0; i < m; i++) {
+            int j = i + MathEx.randomInt(n - i);
+            int t = x[i];
+            x[i] = x[j];
+            x[j] = t;
+        }
+    }
+
+    /** Returns the union of neighbors and reverse neighbors. */
+    private static int[][] union(int[][] neighbors, int[][] reverse) {
+        int n = neighbors.length;
+        int[][] union = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] a = Arrays.copyOf(neighbors[i], neighbors[i].length + reverse[i].length);
+            System.arraycopy(reverse[i], 0, a, neighbors[i].length, reverse[i].length);
+            Arrays.sort(a);
+            int m = 0;
+            for (int j = 0; j < a.length; j++) {
+                if (m == 0 || a[j] != a[m - 1]) {
+                    a[m++] = a[j];
+                }
+            }
+            union[i] = m == a.length ? a : Arrays.copyOf(a, m);
+        }
+        return union;
+    }
+
+    /**
+     * The bounded max-heap of nearest neighbors, ordered by distance
+     * and then by index.
+     */
+    private static class Heap {
+        /** The neighbor indices. */
+        final int[] index;
+        /** The distances. */
+        final double[] distance;
+        /** The flags of new neighbors that have not joined yet. */
+        final boolean[] fresh;
+        /** The number of neighbors. */
+        int size = 0;
+
+        /** Constructor. */
+        Heap(int k) {
+            index = new int[k];
+            distance = new double[k];
+            fresh = new boolean[k];
+        }
+
+        /** Returns true if (d1, i1) is greater than (d2, i2). */
+        private static boolean greater(double d1, int i1, double d2, int i2) {
+            return d1 > d2 || (d1 == d2 && i1 > i2);
+        }
+
+        /**
+         * Adds a neighbor if it is nearer than the farthest one.
+         * The caller should make sure that the neighbor is not
+         * in the heap yet.
+         * @return true if the heap is updated.
+         */
+        boolean add(int i, double d) {
+            if (size < index.length) {
+                // Sifts up.
+                int k = size++;
+                while (k > 0) {
+                    int parent = (k - 1) >>> 1;
+                    if (!greater(d, i, distance[parent], index[parent])) break;
+                    move(parent, k);
+                    k = parent;
+                }
+                set(k, i, d);
+                return true;
+            }
+
+            if (!greater(distance[0], index[0], d, i)) {
+                return false;
+            }
+
+            // Replaces the root and sifts down.
+            int k = 0;
+            int half = size >>> 1;
+            while (k < half) {
+                int child = 2 * k + 1;
+                if (child + 1 < size && greater(distance[child + 1], index[child + 1], distance[child], index[child])) child++;
+                if (!greater(distance[child], index[child], d, i)) break;
+                move(child, k);
+                k = child;
+            }
+            set(k, i, d);
+            return true;
+        }
+
+        /**
+         * Adds a neighbor if it is nearer than the farthest one and
+         * not in the heap yet. This method is thread-safe.
+         * @return true if the heap is updated.
+         */
+        boolean offer(int i, double d) {
+            // The farthest distance only decreases, so that the
+            // unsynchronized check never misses an update.
+            if (size == index.length && d >= distance[0]) {
+                return false;
+            }
+
+            synchronized (this) {
+                for (int j = 0; j < size; j++) {
+                    if (index[j] == i) return false;
+                }
+                return add(i, d);
+            }
+        }
+
+        /** Moves the item from position j to position k. */
+        private void move(int j, int k) {
+            index[k] = index[j];
+            distance[k] = distance[j];
+            fresh[k] = fresh[j];
+        }
+
+        /** Sets the item at position k as a new neighbor. */
+        private void set(int k, int i, double d) {
+            index[k] = i;
+            distance[k] = d;
+            fresh[k] = true;
+        }
+
+        /** Sorts the neighbors in ascending order. */
+        void sort() {
+            // The indices break the ties of distances.
+            int[] order = IntStream.range(0, size).toArray();
+            double[] d = Arrays.copyOf(distance, size);
+            QuickSort.sort(d, order, size);
+            int[] idx = new int[size];
+            for (int j = 0; j < size; j++) {
+                idx[j] = index[order[j]];
+            }
+
+            // Stable order of equal distances by index.
+            for (int lo = 0; lo < size; ) {
+                int hi = lo + 1;
+                while (hi < size && d[hi] == d[lo]) hi++;
+                Arrays.sort(idx, lo, hi);
+                lo = hi;
+            }
+
+            System.arraycopy(idx, 0, index, 0, size);
+            System.arraycopy(d, 0, distance, 0, size);
+        }
+    }
+}
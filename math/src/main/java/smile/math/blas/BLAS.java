@@ -40,7 +40,9 @@ public interface BLAS {
      */
     static BLAS getInstance() {
         BLAS mkl = MKL();
-        return mkl != null ? mkl : new smile.math.blas.openblas.OpenBLAS();
+        BLAS blas = mkl != null ? mkl : new smile.math.blas.openblas.OpenBLAS();
+        // Small operations on Java arrays are faster in Java than through JNI.
+        return new JavaBLAS(blas);
     }
 
     /**
@@ -1997,4 +1999,62 @@ public interface BLAS {
      * @param ldc the leading dimension of C as declared in the caller.
      */
     void symm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, FloatBuffer A, int lda, FloatBuffer B, int ldb, float beta, FloatBuffer C, int ldc);
+
+    /**
+     * Performs the symmetric rank-k update.
+     * <pre>{@code
+     *     C := alpha*A*A' + beta*C
+     * }</pre>
+     * or
+     * <pre>{@code
+     *     C := alpha*A'*A + beta*C
+     * }</pre>
+     * Only the upper or lower triangular part of C is updated.
+     *
+     * @param layout matrix layout.
+     * @param uplo the upper or lower triangular part of the matrix C is
+     *             to be referenced.
+     * @param trans {@code C := alpha*A*A' + beta*C} if normal operation or
+     *              {@code C := alpha*A'*A + beta*C} if transpose operation.
+     * @param n the order of the matrix C.
+     * @param k the number of columns of the matrix A if normal operation,
+     *          or the number of rows of A if transpose operation.
+     * @param alpha the scalar alpha.
+     * @param A the matrix A.
+     * @param lda the leading dimension of A as declared in the caller.
+     * @param beta the scalar beta. When beta is supplied as zero
+     *             then C need not be set on input.
+     * @param C the symmetric matrix C.
+     * @param ldc the leading dimension of C as declared in the caller.
+     */
+    void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, double alpha, double[] A, int lda, double beta, double[] C, int ldc);
+
+    /**
+     * Performs the symmetric rank-k update.
+     * <pre>{@code
+     *     C := alpha*A*A' + beta*C
+     * }</pre>
+     * or
+     * <pre>{@code
+     *     C := alpha*A'*A + beta*C
+     * }</pre>
+     * Only the upper or lower triangular part of C is updated.
+     *
+     * @param layout matrix layout.
+     * @param uplo the upper or lower triangular part of the matrix C is
+     *             to be referenced.
+     * @param trans {@code C := alpha*A*A' + beta*C} if normal operation or
+     *              {@code C := alpha*A'*A + beta*C} if transpose operation.
+     * @param n the order of the matrix C.
+     * @param k the number of columns of the matrix A if normal operation,
+     *          or the number of rows of A if transpose operation.
+     * @param alpha the scalar alpha.
+     * @param A the matrix A.
+     * @param lda the leading dimension of A as declared in the caller.
+     * @param beta the scalar beta. When beta is supplied as zero
+     *             then C need not be set on input.
+     * @param C the symmetric matrix C.
+     * @param ldc the leading dimension of C as declared in the caller.
+     */
+    void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, float alpha, float[] A, int lda, float beta, float[] C, int ldc);
 }
@@ -0,0 +1,979 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.blas;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import org.bytedeco.javacpp.DoublePointer;
+
+/**
+ * BLAS routines on small Java arrays written in pure Java. The native
+ * libraries take the Java arrays through JNI, which copies or pins them
+ * on every call. For small vectors and matrices, the overhead of JNI is
+ * comparable to or larger than the computation itself. This class
+ * computes dot, axpy, gemv, gemm and syrk on Java arrays in Java if
+ * the number of multiply-adds is not larger than a threshold and
+ * delegates other calls to the native BLAS library.
+ * <p>
+ * The Java kernels unroll the inner loops with multiple accumulators
+ * and update four columns at a time so that the JIT compiler may
+ * generate SIMD instructions. The matrix multiplication is blocked to
+ * fit in the cache. As the memory bound level 1 and 2 operations gain
+ * most from avoiding JNI, they have a separate and much larger
+ * threshold than the compute bound level 3 operations, for which the
+ * native libraries are much faster once the matrices are not tiny.
+ * <p>
+ * {@link BLAS#engine} wraps the native library with this class. The
+ * thresholds may be set by the system properties
+ * {@code smile.blas.level2.threshold} and {@code smile.blas.level3.threshold}.
+ * Setting them to 0 disables the Java kernels and a very large value
+ * always uses them for Java arrays.
+ *
+ * @author Haifeng Li
+ */
+public class JavaBLAS implements BLAS {
+    /**
+     * The default threshold of the number of multiply-adds of level 1
+     * and 2 operations, which is the size of 256 x 256 gemv.
+     */
+    public static final long DEFAULT_LEVEL2_THRESHOLD = 256 * 256;
+    /**
+     * The default threshold of the number of multiply-adds of level 3
+     * operations, which is the size of 8 x 8 gemm.
+     */
+    public static final long DEFAULT_LEVEL3_THRESHOLD = 8 * 8 * 8;
+    /** The number of rows of A in a block of matrix multiplication. */
+    private static final int MB = 256;
+    /** The number of columns of A in a block of matrix multiplication. */
+    private static final int KB = 128;
+
+    /** The native BLAS library. */
+    private final BLAS blas;
+    /** The maximum number of multiply-adds of level 1 and 2 operations computed in Java. */
+    private final long level2;
+    /** The maximum number of multiply-adds of level 3 operations computed in Java. */
+    private final long level3;
+
+    /**
+     * Constructor with the thresholds of system properties or the defaults.
+     * @param blas the native BLAS library for large or other operations.
+     */
+    public JavaBLAS(BLAS blas) {
+        this(blas, Long.getLong("smile.blas.level2.threshold", DEFAULT_LEVEL2_THRESHOLD),
+                Long.getLong("smile.blas.level3.threshold", DEFAULT_LEVEL3_THRESHOLD));
+    }
+
+    /**
+     * Constructor.
+     * @param blas the native BLAS library for large or other operations.
+     * @param level2 the maximum number of multiply-adds of level 1 and 2
+     *               operations that are computed in Java.
+     * @param level3 the maximum number of multiply-adds of level 3
+     *               operations that are computed in Java.
+     */
+    public JavaBLAS(BLAS blas, long level2, long level3) {
+        if (level2 < 0 || level3 < 0) {
+            throw new IllegalArgumentException(String.format("Invalid threshold: level2 = %d, level3 = %d", level2, level3));
+        }
+
+        this.blas = blas;
+        this.level2 = level2;
+        this.level3 = level3;
+    }
+
+    @Override
+    public double asum(int n, double[] x, int incx) {
+        return blas.asum(n, x, incx);
+    }
+
+    @Override
+    public float asum(int n, float[] x, int incx) {
+        return blas.asum(n, x, incx);
+    }
+
+    @Override
+    public void axpy(int n, double alpha, double[] x, int incx, double[] y, int incy) {
+        if (n <= level2) {
+            strideAxpy(n, alpha, x, incx, y, incy);
+        } else {
+            blas.axpy(n, alpha, x, incx, y, incy);
+        }
+    }
+
+    @Override
+    public void axpy(int n, float alpha, float[] x, int incx, float[] y, int incy) {
+        if (n <= level2) {
+            strideAxpy(n, alpha, x, incx, y, incy);
+        } else {
+            blas.axpy(n, alpha, x, incx, y, incy);
+        }
+    }
+
+    @Override
+    public double dot(int n, double[] x, int incx, double[] y, int incy) {
+        if (n <= level2) {
+            return strideDot(n, x, incx, y, incy);
+        }
+        return blas.dot(n, x, incx, y, incy);
+    }
+
+    @Override
+    public float dot(int n, float[] x, int incx, float[] y, int incy) {
+        if (n <= level2) {
+            return strideDot(n, x, incx, y, incy);
+        }
+        return blas.dot(n, x, incx, y, incy);
+    }
+
+    @Override
+    public double nrm2(int n, double[] x, int incx) {
+        return blas.nrm2(n, x, incx);
+    }
+
+    @Override
+    public float nrm2(int n, float[] x, int incx) {
+        return blas.nrm2(n, x, incx);
+    }
+
+    @Override
+    public void scal(int n, double alpha, double[] x, int incx) {
+        blas.scal(n, alpha, x, incx);
+    }
+
+    @Override
+    public void scal(int n, float alpha, float[] x, int incx) {
+        blas.scal(n, alpha, x, incx);
+    }
+
+    @Override
+    public void swap(int n, double[] x, int incx, double[] y, int incy) {
+        blas.swap(n, x, incx, y, incy);
+    }
+
+    @Override
+    public void swap(int n, float[] x, int incx, float[] y, int incy) {
+        blas.swap(n, x, incx, y, incy);
+    }
+
+    @Override
+    public long iamax(int n, double[] x, int incx) {
+        return blas.iamax(n, x, incx);
+    }
+
+    @Override
+    public long iamax(int n, float[] x, int incx) {
+        return blas.iamax(n, x, incx);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        if ((long) m * n <= level2) {
+            // A row major matrix is the transpose of column major one.
+            if (layout == Layout.COL_MAJOR) {
+                gemv(trans != Transpose.NO_TRANSPOSE, m, n, alpha, A, lda, x, incx, beta, y, incy);
+            } else {
+                gemv(trans == Transpose.NO_TRANSPOSE, n, m, alpha, A, lda, x, incx, beta, y, incy);
+            }
+        } else {
+            blas.gemv(layout, trans, m, n, alpha, A, lda, x, incx, beta, y, incy);
+        }
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        blas.gemv(layout, trans, m, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, double alpha, DoublePointer A, int lda, DoublePointer x, int incx, double beta, DoublePointer y, int incy) {
+        blas.gemv(layout, trans, m, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        if ((long) m * n <= level2) {
+            // A row major matrix is the transpose of column major one.
+            if (layout == Layout.COL_MAJOR) {
+                gemv(trans != Transpose.NO_TRANSPOSE, m, n, alpha, A, lda, x, incx, beta, y, incy);
+            } else {
+                gemv(trans == Transpose.NO_TRANSPOSE, n, m, alpha, A, lda, x, incx, beta, y, incy);
+            }
+        } else {
+            blas.gemv(layout, trans, m, n, alpha, A, lda, x, incx, beta, y, incy);
+        }
+    }
+
+    @Override
+    public void gemv(Layout layout, Transpose trans, int m, int n, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        blas.gemv(layout, trans, m, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        blas.symv(layout, uplo, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        blas.symv(layout, uplo, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, double alpha, DoublePointer A, int lda, DoublePointer x, int incx, double beta, DoublePointer y, int incy) {
+        blas.symv(layout, uplo, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        blas.symv(layout, uplo, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void symv(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        blas.symv(layout, uplo, n, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, double alpha, double[] A, double[] x, int incx, double beta, double[] y, int incy) {
+        blas.spmv(layout, uplo, n, alpha, A, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer A, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        blas.spmv(layout, uplo, n, alpha, A, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, float alpha, float[] A, float[] x, int incx, float beta, float[] y, int incy) {
+        blas.spmv(layout, uplo, n, alpha, A, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void spmv(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer A, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        blas.spmv(layout, uplo, n, alpha, A, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, int lda, double[] x, int incx) {
+        blas.trmv(layout, uplo, trans, diag, n, A, lda, x, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoubleBuffer A, int lda, DoubleBuffer x, int incx) {
+        blas.trmv(layout, uplo, trans, diag, n, A, lda, x, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoublePointer A, int lda, DoublePointer x, int incx) {
+        blas.trmv(layout, uplo, trans, diag, n, A, lda, x, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, int lda, float[] x, int incx) {
+        blas.trmv(layout, uplo, trans, diag, n, A, lda, x, incx);
+    }
+
+    @Override
+    public void trmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, FloatBuffer A, int lda, FloatBuffer x, int incx) {
+        blas.trmv(layout, uplo, trans, diag, n, A, lda, x, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, double[] A, double[] x, int incx) {
+        blas.tpmv(layout, uplo, trans, diag, n, A, x, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, DoubleBuffer A, DoubleBuffer x, int incx) {
+        blas.tpmv(layout, uplo, trans, diag, n, A, x, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, float[] A, float[] x, int incx) {
+        blas.tpmv(layout, uplo, trans, diag, n, A, x, incx);
+    }
+
+    @Override
+    public void tpmv(Layout layout, UPLO uplo, Transpose trans, Diag diag, int n, FloatBuffer A, FloatBuffer x, int incx) {
+        blas.tpmv(layout, uplo, trans, diag, n, A, x, incx);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        blas.gbmv(layout, trans, m, n, kl, ku, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        blas.gbmv(layout, trans, m, n, kl, ku, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        blas.gbmv(layout, trans, m, n, kl, ku, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void gbmv(Layout layout, Transpose trans, int m, int n, int kl, int ku, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        blas.gbmv(layout, trans, m, n, kl, ku, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        blas.sbmv(layout, uplo, n, k, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, double alpha, DoubleBuffer A, int lda, DoubleBuffer x, int incx, double beta, DoubleBuffer y, int incy) {
+        blas.sbmv(layout, uplo, n, k, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        blas.sbmv(layout, uplo, n, k, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void sbmv(Layout layout, UPLO uplo, int n, int k, float alpha, FloatBuffer A, int lda, FloatBuffer x, int incx, float beta, FloatBuffer y, int incy) {
+        blas.sbmv(layout, uplo, n, k, alpha, A, lda, x, incx, beta, y, incy);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, double[] x, int incx, double[] y, int incy, double[] A, int lda) {
+        blas.ger(layout, m, n, alpha, x, incx, y, incy, A, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer y, int incy, DoubleBuffer A, int lda) {
+        blas.ger(layout, m, n, alpha, x, incx, y, incy, A, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, double alpha, DoublePointer x, int incx, DoublePointer y, int incy, DoublePointer A, int lda) {
+        blas.ger(layout, m, n, alpha, x, incx, y, incy, A, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, float alpha, float[] x, int incx, float[] y, int incy, float[] A, int lda) {
+        blas.ger(layout, m, n, alpha, x, incx, y, incy, A, lda);
+    }
+
+    @Override
+    public void ger(Layout layout, int m, int n, float alpha, FloatBuffer x, int incx, FloatBuffer y, int incy, FloatBuffer A, int lda) {
+        blas.ger(layout, m, n, alpha, x, incx, y, incy, A, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int incx, double[] A, int lda) {
+        blas.syr(layout, uplo, n, alpha, x, incx, A, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer A, int lda) {
+        blas.syr(layout, uplo, n, alpha, x, incx, A, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, double alpha, DoublePointer x, int incx, DoublePointer A, int lda) {
+        blas.syr(layout, uplo, n, alpha, x, incx, A, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int incx, float[] A, int lda) {
+        blas.syr(layout, uplo, n, alpha, x, incx, A, lda);
+    }
+
+    @Override
+    public void syr(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer x, int incx, FloatBuffer A, int lda) {
+        blas.syr(layout, uplo, n, alpha, x, incx, A, lda);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, double alpha, double[] x, int incx, double[] A) {
+        blas.spr(layout, uplo, n, alpha, x, incx, A);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, double alpha, DoubleBuffer x, int incx, DoubleBuffer A) {
+        blas.spr(layout, uplo, n, alpha, x, incx, A);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, float alpha, float[] x, int incx, float[] A) {
+        blas.spr(layout, uplo, n, alpha, x, incx, A);
+    }
+
+    @Override
+    public void spr(Layout layout, UPLO uplo, int n, float alpha, FloatBuffer x, int incx, FloatBuffer A) {
+        blas.spr(layout, uplo, n, alpha, x, incx, A);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, double[] A, int lda, double[] B, int ldb, double beta, double[] C, int ldc) {
+        if ((long) m * n * k <= level3) {
+            // C' = op(B)' * op(A)' in row major layout.
+            if (layout == Layout.COL_MAJOR) {
+                gemm(transA != Transpose.NO_TRANSPOSE, transB != Transpose.NO_TRANSPOSE, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+            } else {
+                gemm(transB != Transpose.NO_TRANSPOSE, transA != Transpose.NO_TRANSPOSE, n, m, k, alpha, B, ldb, A, lda, beta, C, ldc);
+            }
+        } else {
+            blas.gemm(layout, transA, transB, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+        }
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, double beta, DoubleBuffer C, int ldc) {
+        blas.gemm(layout, transA, transB, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, double alpha, DoublePointer A, int lda, DoublePointer B, int ldb, double beta, DoublePointer C, int ldc) {
+        blas.gemm(layout, transA, transB, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, float alpha, float[] A, int lda, float[] B, int ldb, float beta, float[] C, int ldc) {
+        if ((long) m * n * k <= level3) {
+            // C' = op(B)' * op(A)' in row major layout.
+            if (layout == Layout.COL_MAJOR) {
+                gemm(transA != Transpose.NO_TRANSPOSE, transB != Transpose.NO_TRANSPOSE, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+            } else {
+                gemm(transB != Transpose.NO_TRANSPOSE, transA != Transpose.NO_TRANSPOSE, n, m, k, alpha, B, ldb, A, lda, beta, C, ldc);
+            }
+        } else {
+            blas.gemm(layout, transA, transB, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+        }
+    }
+
+    @Override
+    public void gemm(Layout layout, Transpose transA, Transpose transB, int m, int n, int k, float alpha, FloatBuffer A, int lda, FloatBuffer B, int ldb, float beta, FloatBuffer C, int ldc) {
+        blas.gemm(layout, transA, transB, m, n, k, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, double[] A, int lda, double[] B, int ldb, double beta, double[] C, int ldc) {
+        blas.symm(layout, side, uplo, m, n, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, DoubleBuffer A, int lda, DoubleBuffer B, int ldb, double beta, DoubleBuffer C, int ldc) {
+        blas.symm(layout, side, uplo, m, n, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, double alpha, DoublePointer A, int lda, DoublePointer B, int ldb, double beta, DoublePointer C, int ldc) {
+        blas.symm(layout, side, uplo, m, n, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, float[] A, int lda, float[] B, int ldb, float beta, float[] C, int ldc) {
+        blas.symm(layout, side, uplo, m, n, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void symm(Layout layout, Side side, UPLO uplo, int m, int n, float alpha, FloatBuffer A, int lda, FloatBuffer B, int ldb, float beta, FloatBuffer C, int ldc) {
+        blas.symm(layout, side, uplo, m, n, alpha, A, lda, B, ldb, beta, C, ldc);
+    }
+
+    @Override
+    public void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, double alpha, double[] A, int lda, double beta, double[] C, int ldc) {
+        if ((long) n * n * k <= level3) {
+            // The upper triangular of row major matrix is the lower
+            // triangular of column major one.
+            boolean upper = uplo == UPLO.UPPER;
+            boolean t = trans != Transpose.NO_TRANSPOSE;
+            if (layout == Layout.COL_MAJOR) {
+                syrk(upper, t, n, k, alpha, A, lda, beta, C, ldc);
+            } else {
+                syrk(!upper, !t, n, k, alpha, A, lda, beta, C, ldc);
+            }
+        } else {
+            blas.syrk(layout, uplo, trans, n, k, alpha, A, lda, beta, C, ldc);
+        }
+    }
+
+    @Override
+    public void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, float alpha, float[] A, int lda, float beta, float[] C, int ldc) {
+        if ((long) n * n * k <= level3) {
+            // The upper triangular of row major matrix is the lower
+            // triangular of column major one.
+            boolean upper = uplo == UPLO.UPPER;
+            boolean t = trans != Transpose.NO_TRANSPOSE;
+            if (layout == Layout.COL_MAJOR) {
+                syrk(upper, t, n, k, alpha, A, lda, beta, C, ldc);
+            } else {
+                syrk(!upper, !t, n, k, alpha, A, lda, beta, C, ldc);
+            }
+        } else {
+            blas.syrk(layout, uplo, trans, n, k, alpha, A, lda, beta, C, ldc);
+        }
+    }
+
+    /** Returns the start index of a strided vector. */
+    private static int start(int n, int inc) {
+        return inc < 0 ? (1 - n) * inc : 0;
+    }
+
+    /** Returns the dot product of two contiguous vectors. */
+    private static double unitDot(int n, double[] x, int xo, double[] y, int yo) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += x[xo + i] * y[yo + i];
+            s1 += x[xo + i + 1] * y[yo + i + 1];
+            s2 += x[xo + i + 2] * y[yo + i + 2];
+            s3 += x[xo + i + 3] * y[yo + i + 3];
+        }
+
+        for (; i < n; i++) {
+            s0 += x[xo + i] * y[yo + i];
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Computes y += a * x of two contiguous vectors. */
+    private static void unitAxpy(int n, double a, double[] x, int xo, double[] y, int yo) {
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            y[yo + i] += a * x[xo + i];
+            y[yo + i + 1] += a * x[xo + i + 1];
+            y[yo + i + 2] += a * x[xo + i + 2];
+            y[yo + i + 3] += a * x[xo + i + 3];
+        }
+
+        for (; i < n; i++) {
+            y[yo + i] += a * x[xo + i];
+        }
+    }
+
+    /** Computes y += a0 * x0 + a1 * x1 + a2 * x2 + a3 * x3 of contiguous columns. */
+    private static void unitAxpy4(int n, double a0, double a1, double a2, double a3, double[] x, int x0, int ld, double[] y, int yo) {
+        int x1 = x0 + ld, x2 = x1 + ld, x3 = x2 + ld;
+        for (int i = 0; i < n; i++) {
+            y[yo + i] += a0 * x[x0 + i] + a1 * x[x1 + i] + a2 * x[x2 + i] + a3 * x[x3 + i];
+        }
+    }
+
+    /** Scales a column of matrix by beta, which clears the column if beta is zero. */
+    private static void scale(int n, double beta, double[] y, int yo) {
+        if (beta == 0) {
+            Arrays.fill(y, yo, yo + n, 0);
+        } else if (beta != 1) {
+            for (int i = 0; i < n; i++) {
+                y[yo + i] *= beta;
+            }
+        }
+    }
+
+    /** Returns the dot product of two strided vectors. */
+    private static double strideDot(int n, double[] x, int incx, double[] y, int incy) {
+        if (n <= 0) return 0;
+        if (incx == 1 && incy == 1) {
+            return unitDot(n, x, 0, y, 0);
+        }
+
+        double s = 0;
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            s += x[ix] * y[iy];
+        }
+        return s;
+    }
+
+    /** Computes y += alpha * x of two strided vectors. */
+    private static void strideAxpy(int n, double alpha, double[] x, int incx, double[] y, int incy) {
+        if (n <= 0 || alpha == 0) return;
+        if (incx == 1 && incy == 1) {
+            unitAxpy(n, alpha, x, 0, y, 0);
+            return;
+        }
+
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            y[iy] += alpha * x[ix];
+        }
+    }
+
+    /** Matrix-vector product of a column major matrix. */
+    private static void gemv(boolean trans, int m, int n, double alpha, double[] A, int lda, double[] x, int incx, double beta, double[] y, int incy) {
+        int lenx = trans ? m : n;
+        int leny = trans ? n : m;
+        if (m <= 0 || n <= 0 || (alpha == 0 && beta == 1)) return;
+
+        int kx = start(lenx, incx);
+        int ky = start(leny, incy);
+        if (incy == 1) {
+            scale(leny, beta, y, 0);
+        } else if (beta != 1) {
+            for (int i = 0, iy = ky; i < leny; i++, iy += incy) {
+                y[iy] = beta == 0 ? 0 : beta * y[iy];
+            }
+        }
+
+        if (alpha == 0) return;
+
+        if (!trans) {
+            if (incy == 1) {
+                int j = 0;
+                for (; j + 3 < n; j += 4) {
+                    int jx = kx + j * incx;
+                    unitAxpy4(m, alpha * x[jx], alpha * x[jx + incx], alpha * x[jx + 2 * incx], alpha * x[jx + 3 * incx], A, j * lda, lda, y, 0);
+                }
+
+                for (; j < n; j++) {
+                    unitAxpy(m, alpha * x[kx + j * incx], A, j * lda, y, 0);
+                }
+            } else {
+                for (int j = 0, jx = kx; j < n; j++, jx += incx) {
+                    double a = alpha * x[jx];
+                    for (int i = 0, iy = ky, ia = j * lda; i < m; i++, iy += incy, ia++) {
+                        y[iy] += a * A[ia];
+                    }
+                }
+            }
+        } else {
+            for (int j = 0, jy = ky; j < n; j++, jy += incy) {
+                double s;
+                if (incx == 1) {
+                    s = unitDot(m, A, j * lda, x, 0);
+                } else {
+                    s = 0;
+                    for (int i = 0, ix = kx, ia = j * lda; i < m; i++, ix += incx, ia++) {
+                        s += A[ia] * x[ix];
+                    }
+                }
+                y[jy] += alpha * s;
+            }
+        }
+    }
+
+    /** Matrix-matrix product of column major matrices. */
+    private static void gemm(boolean transA, boolean transB, int m, int n, int k, double alpha, double[] A, int lda, double[] B, int ldb, double beta, double[] C, int ldc) {
+        if (m <= 0 || n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            scale(m, beta, C, j * ldc);
+        }
+
+        if (alpha == 0 || k <= 0) return;
+
+        if (transA) {
+            // Packs A' so that the columns of op(A) are contiguous.
+            double[] At = new double[m * k];
+            for (int i = 0; i < m; i++) {
+                for (int p = 0; p < k; p++) {
+                    At[p * m + i] = A[i * lda + p];
+                }
+            }
+            A = At;
+            lda = m;
+        }
+
+        // C(:, j) += sum_p A(:, p) * op(B)(p, j) on blocks
+        // of A that fit in the cache.
+        for (int kk = 0; kk < k; kk += KB) {
+            int ke = Math.min(k, kk + KB);
+            for (int ii = 0; ii < m; ii += MB) {
+                int mb = Math.min(m, ii + MB) - ii;
+                for (int j = 0; j < n; j++) {
+                    int c = j * ldc + ii;
+                    int p = kk;
+                    for (; p + 3 < ke; p += 4) {
+                        double b0, b1, b2, b3;
+                        if (transB) {
+                            b0 = B[j + p * ldb];
+                            b1 = B[j + (p + 1) * ldb];
+                            b2 = B[j + (p + 2) * ldb];
+                            b3 = B[j + (p + 3) * ldb];
+                        } else {
+                            int b = j * ldb + p;
+                            b0 = B[b];
+                            b1 = B[b + 1];
+                            b2 = B[b + 2];
+                            b3 = B[b + 3];
+                        }
+                        unitAxpy4(mb, alpha * b0, alpha * b1, alpha * b2, alpha * b3, A, p * lda + ii, lda, C, c);
+                    }
+
+                    for (; p < ke; p++) {
+                        double b = transB ? B[j + p * ldb] : B[j * ldb + p];
+                        unitAxpy(mb, alpha * b, A, p * lda + ii, C, c);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Symmetric rank-k update of column major matrices. */
+    private static void syrk(boolean upper, boolean trans, int n, int k, double alpha, double[] A, int lda, double beta, double[] C, int ldc) {
+        if (n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            int lo = upper ? 0 : j;
+            int hi = upper ? j + 1 : n;
+            scale(hi - lo, beta, C, j * ldc + lo);
+        }
+
+        if (alpha == 0 || k <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            int lo = upper ? 0 : j;
+            int hi = upper ? j + 1 : n;
+            int c = j * ldc;
+            if (!trans) {
+                // C(lo:hi, j) += alpha * sum_p A(lo:hi, p) * A(j, p)
+                int p = 0;
+                for (; p + 3 < k; p += 4) {
+                    unitAxpy4(hi - lo, alpha * A[j + p * lda], alpha * A[j + (p + 1) * lda], alpha * A[j + (p + 2) * lda], alpha * A[j + (p + 3) * lda], A, p * lda + lo, lda, C, c + lo);
+                }
+
+                for (; p < k; p++) {
+                    unitAxpy(hi - lo, alpha * A[j + p * lda], A, p * lda + lo, C, c + lo);
+                }
+            } else {
+                for (int i = lo; i < hi; i++) {
+                    C[c + i] += alpha * unitDot(k, A, i * lda, A, j * lda);
+                }
+            }
+        }
+    }
+
+    /** Returns the dot product of two contiguous vectors. */
+    private static float unitDot(int n, float[] x, int xo, float[] y, int yo) {
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += x[xo + i] * y[yo + i];
+            s1 += x[xo + i + 1] * y[yo + i + 1];
+            s2 += x[xo + i + 2] * y[yo + i + 2];
+            s3 += x[xo + i + 3] * y[yo + i + 3];
+        }
+
+        for (; i < n; i++) {
+            s0 += x[xo + i] * y[yo + i];
+        }
+
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Computes y += a * x of two contiguous vectors. */
+    private static void unitAxpy(int n, float a, float[] x, int xo, float[] y, int yo) {
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            y[yo + i] += a * x[xo + i];
+            y[yo + i + 1] += a * x[xo + i + 1];
+            y[yo + i + 2] += a * x[xo + i + 2];
+            y[yo + i + 3] += a * x[xo + i + 3];
+        }
+
+        for (; i < n; i++) {
+            y[yo + i] += a * x[xo + i];
+        }
+    }
+
+    /** Computes y += a0 * x0 + a1 * x1 + a2 * x2 + a3 * x3 of contiguous columns. */
+    private static void unitAxpy4(int n, float a0, float a1, float a2, float a3, float[] x, int x0, int ld, float[] y, int yo) {
+        int x1 = x0 + ld, x2 = x1 + ld, x3 = x2 + ld;
+        for (int i = 0; i < n; i++) {
+            y[yo + i] += a0 * x[x0 + i] + a1 * x[x1 + i] + a2 * x[x2 + i] + a3 * x[x3 + i];
+        }
+    }
+
+    /** Scales a column of matrix by beta, which clears the column if beta is zero. */
+    private static void scale(int n, float beta, float[] y, int yo) {
+        if (beta == 0) {
+            Arrays.fill(y, yo, yo + n, 0);
+        } else if (beta != 1) {
+            for (int i = 0; i < n; i++) {
+                y[yo + i] *= beta;
+            }
+        }
+    }
+
+    /** Returns the dot product of two strided vectors. */
+    private static float strideDot(int n, float[] x, int incx, float[] y, int incy) {
+        if (n <= 0) return 0;
+        if (incx == 1 && incy == 1) {
+            return unitDot(n, x, 0, y, 0);
+        }
+
+        float s = 0;
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            s += x[ix] * y[iy];
+        }
+        return s;
+    }
+
+    /** Computes y += alpha * x of two strided vectors. */
+    private static void strideAxpy(int n, float alpha, float[] x, int incx, float[] y, int incy) {
+        if (n <= 0 || alpha == 0) return;
+        if (incx == 1 && incy == 1) {
+            unitAxpy(n, alpha, x, 0, y, 0);
+            return;
+        }
+
+        for (int i = 0, ix = start(n, incx), iy = start(n, incy); i < n; i++, ix += incx, iy += incy) {
+            y[iy] += alpha * x[ix];
+        }
+    }
+
+    /** Matrix-vector product of a column major matrix. */
+    private static void gemv(boolean trans, int m, int n, float alpha, float[] A, int lda, float[] x, int incx, float beta, float[] y, int incy) {
+        int lenx = trans ? m : n;
+        int leny = trans ? n : m;
+        if (m <= 0 || n <= 0 || (alpha == 0 && beta == 1)) return;
+
+        int kx = start(lenx, incx);
+        int ky = start(leny, incy);
+        if (incy == 1) {
+            scale(leny, beta, y, 0);
+        } else if (beta != 1) {
+            for (int i = 0, iy = ky; i < leny; i++, iy += incy) {
+                y[iy] = beta == 0 ? 0 : beta * y[iy];
+            }
+        }
+
+        if (alpha == 0) return;
+
+        if (!trans) {
+            if (incy == 1) {
+                int j = 0;
+                for (; j + 3 < n; j += 4) {
+                    int jx = kx + j * incx;
+                    unitAxpy4(m, alpha * x[jx], alpha * x[jx + incx], alpha * x[jx + 2 * incx], alpha * x[jx + 3 * incx], A, j * lda, lda, y, 0);
+                }
+
+                for (; j < n; j++) {
+                    unitAxpy(m, alpha * x[kx + j * incx], A, j * lda, y, 0);
+                }
+            } else {
+                for (int j = 0, jx = kx; j < n; j++, jx += incx) {
+                    float a = alpha * x[jx];
+                    for (int i = 0, iy = ky, ia = j * lda; i < m; i++, iy += incy, ia++) {
+                        y[iy] += a * A[ia];
+                    }
+                }
+            }
+        } else {
+            for (int j = 0, jy = ky; j < n; j++, jy += incy) {
+                float s;
+                if (incx == 1) {
+                    s = unitDot(m, A, j * lda, x, 0);
+                } else {
+                    s = 0;
+                    for (int i = 0, ix = kx, ia = j * lda; i < m; i++, ix += incx, ia++) {
+                        s += A[ia] * x[ix];
+                    }
+                }
+                y[jy] += alpha * s;
+            }
+        }
+    }
+
+    /** Matrix-matrix product of column major matrices. */
+    private static void gemm(boolean transA, boolean transB, int m, int n, int k, float alpha, float[] A, int lda, float[] B, int ldb, float beta, float[] C, int ldc) {
+        if (m <= 0 || n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            scale(m, beta, C, j * ldc);
+        }
+
+        if (alpha == 0 || k <= 0) return;
+
+        if (transA) {
+            // Packs A' so that the columns of op(A) are contiguous.
+            float[] At = new float[m * k];
+            for (int i = 0; i < m; i++) {
+                for (int p = 0; p < k; p++) {
+                    At[p * m + i] = A[i * lda + p];
+                }
+            }
+            A = At;
+            lda = m;
+        }
+
+        // C(:, j) += sum_p A(:, p) * op(B)(p, j) on blocks
+        // of A that fit in the cache.
+        for (int kk = 0; kk < k; kk += KB) {
+            int ke = Math.min(k, kk + KB);
+            for (int ii = 0; ii < m; ii += MB) {
+                int mb = Math.min(m, ii + MB) - ii;
+                for (int j = 0; j < n; j++) {
+                    int c = j * ldc + ii;
+                    int p = kk;
+                    for (; p + 3 < ke; p += 4) {
+                        float b0, b1, b2, b3;
+                        if (transB) {
+                            b0 = B[j + p * ldb];
+                            b1 = B[j + (p + 1) * ldb];
+                            b2 = B[j + (p + 2) * ldb];
+                            b3 = B[j + (p + 3) * ldb];
+                        } else {
+                            int b = j * ldb + p;
+                            b0 = B[b];
+                            b1 = B[b + 1];
+                            b2 = B[b + 2];
+                            b3 = B[b + 3];
+                        }
+                        unitAxpy4(mb, alpha * b0, alpha * b1, alpha * b2, alpha * b3, A, p * lda + ii, lda, C, c);
+                    }
+
+                    for (; p < ke; p++) {
+                        float b = transB ? B[j + p * ldb] : B[j * ldb + p];
+                        unitAxpy(mb, alpha * b, A, p * lda + ii, C, c);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Symmetric rank-k update of column major matrices. */
+    private static void syrk(boolean upper, boolean trans, int n, int k, float alpha, float[] A, int lda, float beta, float[] C, int ldc) {
+        if (n <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            int lo = upper ? 0 : j;
+            int hi = upper ? j + 1 : n;
+            scale(hi - lo, beta, C, j * ldc + lo);
+        }
+
+        if (alpha == 0 || k <= 0) return;
+
+        for (int j = 0; j < n; j++) {
+            int lo = upper ? 0 : j;
+            int hi = upper ? j + 1 : n;
+            int c = j * ldc;
+            if (!trans) {
+                // C(lo:hi, j) += alpha * sum_p A(lo:hi, p) * A(j, p)
+                int p = 0;
+                for (; p + 3 < k; p += 4) {
+                    unitAxpy4(hi - lo, alpha * A[j + p * lda], alpha * A[j + (p + 1) * lda], alpha * A[j + (p + 2) * lda], alpha * A[j + (p + 3) * lda], A, p * lda + lo, lda, C, c + lo);
+                }
+
+                for (; p < k; p++) {
+                    unitAxpy(hi - lo, alpha * A[j + p * lda], A, p * lda + lo, C, c + lo);
+                }
+            } else {
+                for (int i = lo; i < hi; i++) {
+                    C[c + i] += alpha * unitDot(k, A, i * lda, A, j * lda);
+                }
+            }
+        }
+    }
+}
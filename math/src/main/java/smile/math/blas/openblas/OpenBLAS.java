@@ -376,6 +376,16 @@ public class OpenBLAS implements BLAS, LAPACK {
         cblas_ssymm(layout.blas(), side.blas(), uplo.blas(), m, n, alpha, A, lda, B, ldb, beta, C, ldc);
     }
 
+    @Override
+    public void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, double alpha, double[] A, int lda, double beta, double[] C, int ldc) {
+        cblas_dsyrk(layout.blas(), uplo.blas(), trans.blas(), n, k, alpha, A, lda, beta, C, ldc);
+    }
+
+    @Override
+    public void syrk(Layout layout, UPLO uplo, Transpose trans, int n, int k, float alpha, float[] A, int lda, float beta, float[] C, int ldc) {
+        cblas_ssyrk(layout.blas(), uplo.blas(), trans.blas(), n, k, alpha, A, lda, beta, C, ldc);
+    }
+
     @Override
     public int gesv(Layout layout, int n, int nrhs, double[] A, int lda, int[] ipiv, double[] B, int ldb) {
         return LAPACKE_dgesv(layout.lapack(), n, nrhs, A, lda, ipiv, B, ldb);
@@ -137,6 +137,11 @@ public class ARPACK {
             throw new IllegalArgumentException("Invalid NEV parameter k: " + nev);
         }
 
+        if (A instanceof SparseMatrix) {
+            // The row-compressed format computes the products in parallel.
+            A = ((SparseMatrix) A).toCSR();
+        }
+
         int[] ido = {0};
         int[] info = {0};
         byte[] bmat = {'I'}; // standard eigenvalue problem
@@ -237,6 +242,11 @@ public class ARPACK {
             throw new IllegalArgumentException("Invalid NEV: " + nev);
         }
 
+        if (A instanceof SparseMatrix) {
+            // The row-compressed format computes the products in parallel.
+            A = ((SparseMatrix) A).toCSR();
+        }
+
         int[] ido = {0};
         int[] info = {0};
         byte[] bmat = {'I'}; // standard eigenvalue problem
@@ -332,6 +342,11 @@ public class ARPACK {
         int m = A.nrow();
         int n = A.ncol();
 
+        if (A instanceof SparseMatrix) {
+            // The row-compressed format computes the products in parallel.
+            A = ((SparseMatrix) A).toCSR();
+        }
+
         IMatrix ata = A.square();
         Matrix.EVD eigen = syev(ata, SymmOption.LM, k, ncv, tol);
 
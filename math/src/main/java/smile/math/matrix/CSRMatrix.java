@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.matrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import smile.math.blas.Transpose;
+
+/**
+ * A sparse matrix in compressed sparse row (CSR) format. Nonzero values
+ * are stored row by row. The column indices corresponding to the values
+ * are also stored, together with a list of pointers to where each row
+ * starts. It is the companion of the column-compressed {@link SparseMatrix}
+ * and the conversion between two formats takes O(nnz) time.
+ * <p>
+ * As the rows are independent, the matrix-vector and matrix-matrix
+ * products are computed in parallel by partitioning the rows into
+ * blocks of roughly equal number of nonzeros. For the transposed
+ * products, the column structure of nonzeros is built once on the first
+ * use, so that the columns are processed in the same way without any
+ * partial results. Small matrices are processed in a single block.
+ *
+ * @author Haifeng Li
+ */
+public class CSRMatrix extends IMatrix {
+    private static final long serialVersionUID = 2L;
+    /**
+     * The minimum number of nonzeros per block of rows.
+     */
+    private static final int MIN_BLOCK_SIZE = 8192;
+
+    /**
+     * The number of rows.
+     */
+    private final int m;
+    /**
+     * The number of columns.
+     */
+    private final int n;
+    /**
+     * The index of the start of rows.
+     */
+    private final int[] rowIndex;
+    /**
+     * The column indices of nonzero values.
+     */
+    private final int[] colIndex;
+    /**
+     * The array of nonzero values stored row by row.
+     */
+    private final double[] nonzeros;
+    /**
+     * The start row of blocks for parallel processing.
+     */
+    private final int[] blocks;
+    /**
+     * The column structure of nonzeros for the transposed products,
+     * which is built on the first use.
+     */
+    private transient volatile Columns columns;
+
+    /**
+     * The column structure of nonzeros, i.e. the CSR format of
+     * the transpose without copying the values.
+     */
+    private static class Columns {
+        /** The index of the start of columns. */
+        final int[] colIndex;
+        /** The row indices of nonzero values stored column by column. */
+        final int[] rowIndex;
+        /** The storage index of nonzero values stored column by column. */
+        final int[] position;
+        /** The start column of blocks for parallel processing. */
+        final int[] blocks;
+
+        /**
+         * Constructor.
+         * @param colIndex the index of the start of columns.
+         * @param rowIndex the row indices of nonzero values.
+         * @param position the storage index of nonzero values.
+         * @param blocks the start column of blocks.
+         */
+        Columns(int[] colIndex, int[] rowIndex, int[] position, int[] blocks) {
+            this.colIndex = colIndex;
+            this.rowIndex = rowIndex;
+            this.position = position;
+            this.blocks = blocks;
+        }
+    }
+
+    /**
+     * Constructor.
+     * @param m the number of rows in the matrix.
+     * @param n the number of columns in the matrix.
+     * @param nonzeros the array of nonzero values stored row by row.
+     * @param rowIndex the index of the start of rows.
+     * @param colIndex the column indices of nonzero values.
+     */
+    public CSRMatrix(int m, int n, double[] nonzeros, int[] rowIndex, int[] colIndex) {
+        if (rowIndex.length != m + 1) {
+            throw new IllegalArgumentException(String.format("Invalid row index length: %d, expected %d", rowIndex.length, m + 1));
+        }
+
+        if (colIndex.length < rowIndex[m] || nonzeros.length < rowIndex[m]) {
+            throw new IllegalArgumentException("The number of nonzeros doesn't match the row index");
+        }
+
+        this.m = m;
+        this.n = n;
+        this.rowIndex = rowIndex;
+        this.colIndex = colIndex;
+        this.nonzeros = nonzeros;
+        this.blocks = partition(rowIndex, m);
+    }
+
+    /**
+     * Partitions the rows (or columns) into blocks of roughly equal
+     * number of nonzeros.
+     * @param rowIndex the index of the start of rows.
+     * @param m the number of rows.
+     * @return the start row of blocks, with m as the last element.
+     */
+    private static int[] partition(int[] rowIndex, int m) {
+        int nnz = rowIndex[m];
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int k = Math.max(1, Math.min(Math.min(4 * parallelism, nnz / MIN_BLOCK_SIZE), m));
+
+        int[] blocks = new int[k + 1];
+        blocks[k] = m;
+        for (int b = 1; b < k; b++) {
+            long target = (long) nnz * b / k;
+            int i = Arrays.binarySearch(rowIndex, 0, m + 1, (int) target);
+            if (i < 0) i = -i - 1;
+            // The rows with the same start are empty.
+            while (i > 0 && rowIndex[i - 1] == rowIndex[i]) i--;
+            blocks[b] = Math.max(i, blocks[b - 1]);
+        }
+        return blocks;
+    }
+
+    /**
+     * Returns the number of row blocks for parallel processing.
+     * @return the number of row blocks.
+     */
+    int blocks() {
+        return blocks.length - 1;
+    }
+
+    /**
+     * Returns the column structure of nonzeros, which is built by
+     * counting sort in O(nnz) time on the first call. The nonzeros
+     * of a column are in the ascending order of rows.
+     */
+    private Columns columns() {
+        Columns t = columns;
+        if (t == null) {
+            int nnz = rowIndex[m];
+            int[] colIndex = new int[n + 1];
+            for (int k = 0; k < nnz; k++) {
+                colIndex[this.colIndex[k] + 1]++;
+            }
+
+            for (int j = 0; j < n; j++) {
+                colIndex[j + 1] += colIndex[j];
+            }
+
+            int[] next = Arrays.copyOf(colIndex, n);
+            int[] rowIndex = new int[nnz];
+            int[] position = new int[nnz];
+            for (int i = 0; i < m; i++) {
+                for (int k = this.rowIndex[i]; k < this.rowIndex[i + 1]; k++) {
+                    int l = next[this.colIndex[k]]++;
+                    rowIndex[l] = i;
+                    position[l] = k;
+                }
+            }
+
+            t = new Columns(colIndex, rowIndex, position, partition(colIndex, n));
+            columns = t;
+        }
+        return t;
+    }
+
+    /** Runs a task on each row block, in parallel if there are many. */
+    private void forEachBlock(IntConsumer task) {
+        forEachBlock(blocks, task);
+    }
+
+    /** Runs a task on each block, in parallel if there are many. */
+    private static void forEachBlock(int[] blocks, IntConsumer task) {
+        int k = blocks.length - 1;
+        if (k == 1) {
+            task.accept(0);
+        } else {
+            IntStream.range(0, k).parallel().forEach(task);
+        }
+    }
+
+    @Override
+    public CSRMatrix clone() {
+        return new CSRMatrix(m, n, nonzeros.clone(), rowIndex.clone(), colIndex.clone());
+    }
+
+    @Override
+    public int nrow() {
+        return m;
+    }
+
+    @Override
+    public int ncol() {
+        return n;
+    }
+
+    @Override
+    public long size() {
+        return rowIndex[m];
+    }
+
+    /**
+     * Returns the element at the storage index.
+     * @param index the storage index.
+     * @return the element.
+     */
+    public double get(int index) {
+        return nonzeros[index];
+    }
+
+    /**
+     * Sets the element at the storage index.
+     * @param index the storage index.
+     * @param value the element.
+     */
+    public void set(int index, double value) {
+        nonzeros[index] = value;
+    }
+
+    @Override
+    public double get(int i, int j) {
+        if (i < 0 || i >= m || j < 0 || j >= n) {
+            throw new IllegalArgumentException("Invalid index: row = " + i + " col = " + j);
+        }
+
+        for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+            if (colIndex[k] == j) {
+                return nonzeros[k];
+            }
+        }
+
+        return 0.0;
+    }
+
+    @Override
+    public void mv(Transpose trans, double alpha, double[] x, double beta, double[] y) {
+        if (trans == Transpose.NO_TRANSPOSE) {
+            forEachBlock(b -> {
+                for (int i = blocks[b]; i < blocks[b + 1]; i++) {
+                    double ax = 0.0;
+                    for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                        ax += nonzeros[k] * x[colIndex[k]];
+                    }
+                    y[i] = beta == 0.0 ? alpha * ax : alpha * ax + beta * y[i];
+                }
+            });
+        } else {
+            Columns t = columns();
+            forEachBlock(t.blocks, b -> {
+                for (int j = t.blocks[b]; j < t.blocks[b + 1]; j++) {
+                    double ax = 0.0;
+                    for (int k = t.colIndex[j]; k < t.colIndex[j + 1]; k++) {
+                        ax += nonzeros[t.position[k]] * x[t.rowIndex[k]];
+                    }
+                    y[j] = beta == 0.0 ? alpha * ax : alpha * ax + beta * y[j];
+                }
+            });
+        }
+    }
+
+    @Override
+    public void mv(double[] work, int inputOffset, int outputOffset) {
+        forEachBlock(b -> {
+            for (int i = blocks[b]; i < blocks[b + 1]; i++) {
+                double ax = 0.0;
+                for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                    ax += nonzeros[k] * work[inputOffset + colIndex[k]];
+                }
+                work[outputOffset + i] = ax;
+            }
+        });
+    }
+
+    @Override
+    public void tv(double[] work, int inputOffset, int outputOffset) {
+        Columns t = columns();
+        forEachBlock(t.blocks, b -> {
+            for (int j = t.blocks[b]; j < t.blocks[b + 1]; j++) {
+                double ax = 0.0;
+                for (int k = t.colIndex[j]; k < t.colIndex[j + 1]; k++) {
+                    ax += nonzeros[t.position[k]] * work[inputOffset + t.rowIndex[k]];
+                }
+                work[outputOffset + j] = ax;
+            }
+        });
+    }
+
+    /**
+     * Returns the matrix multiplication C = A * B with a dense matrix.
+     * @param B the operand.
+     * @return the multiplication.
+     */
+    public Matrix mm(Matrix B) {
+        if (n != B.nrow()) {
+            throw new IllegalArgumentException(String.format("Matrix dimensions do not match for matrix multiplication: %d x %d vs %d x %d", nrow(), ncol(), B.nrow(), B.ncol()));
+        }
+
+        int p = B.ncol();
+        Matrix C = new Matrix(m, p);
+        forEachBlock(b -> {
+            for (int j = 0; j < p; j++) {
+                for (int i = blocks[b]; i < blocks[b + 1]; i++) {
+                    double cij = 0.0;
+                    for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                        cij += nonzeros[k] * B.get(colIndex[k], j);
+                    }
+                    C.set(i, j, cij);
+                }
+            }
+        });
+        return C;
+    }
+
+    /**
+     * Returns the matrix multiplication C = A * B. The rows of C are
+     * computed in parallel by Gustavson's algorithm, in two passes of
+     * counting and filling the nonzeros. The column indices of each
+     * row of C are sorted.
+     *
+     * @param B the operand.
+     * @return the multiplication.
+     */
+    public CSRMatrix mm(CSRMatrix B) {
+        if (n != B.m) {
+            throw new IllegalArgumentException(String.format("Matrix dimensions do not match for matrix multiplication: %d x %d vs %d x %d", nrow(), ncol(), B.nrow(), B.ncol()));
+        }
+
+        int p = B.n;
+        int[] Bp = B.rowIndex;
+        int[] Bj = B.colIndex;
+        double[] Bx = B.nonzeros;
+
+        // The first pass counts the nonzeros of each row.
+        int[] Cp = new int[m + 1];
+        forEachBlock(b -> {
+            int[] mark = new int[p];
+            Arrays.fill(mark, -1);
+            for (int i = blocks[b]; i < blocks[b + 1]; i++) {
+                int nz = 0;
+                for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                    int r = colIndex[k];
+                    for (int l = Bp[r]; l < Bp[r + 1]; l++) {
+                        int j = Bj[l];
+                        if (mark[j] != i) {
+                            mark[j] = i;
+                            nz++;
+                        }
+                    }
+                }
+                Cp[i + 1] = nz;
+            }
+        });
+
+        for (int i = 0; i < m; i++) {
+            Cp[i + 1] += Cp[i];
+        }
+
+        // The second pass fills the column indices and values.
+        int[] Cj = new int[Cp[m]];
+        double[] Cx = new double[Cp[m]];
+        forEachBlock(b -> {
+            int[] mark = new int[p];
+            Arrays.fill(mark, -1);
+            double[] acc = new double[p];
+            for (int i = blocks[b]; i < blocks[b + 1]; i++) {
+                int nz = Cp[i];
+                for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                    int r = colIndex[k];
+                    double a = nonzeros[k];
+                    for (int l = Bp[r]; l < Bp[r + 1]; l++) {
+                        int j = Bj[l];
+                        if (mark[j] != i) {
+                            mark[j] = i;
+                            Cj[nz++] = j;
+                            acc[j] = a * Bx[l];
+                        } else {
+                            acc[j] += a * Bx[l];
+                        }
+                    }
+                }
+
+                Arrays.sort(Cj, Cp[i], nz);
+                for (int l = Cp[i]; l < nz; l++) {
+                    Cx[l] = acc[Cj[l]];
+                }
+            }
+        });
+
+        return new CSRMatrix(m, p, Cx, Cp, Cj);
+    }
+
+    /**
+     * Returns the transpose of matrix.
+     * @return the transpose of matrix.
+     */
+    public CSRMatrix transpose() {
+        int nnz = rowIndex[m];
+        int[] Tp = new int[n + 1];
+        for (int k = 0; k < nnz; k++) {
+            Tp[colIndex[k] + 1]++;
+        }
+
+        for (int j = 0; j < n; j++) {
+            Tp[j + 1] += Tp[j];
+        }
+
+        int[] next = Arrays.copyOf(Tp, n);
+        int[] Tj = new int[nnz];
+        double[] Tx = new double[nnz];
+        for (int i = 0; i < m; i++) {
+            for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                int index = next[colIndex[k]]++;
+                Tj[index] = i;
+                Tx[index] = nonzeros[k];
+            }
+        }
+
+        return new CSRMatrix(n, m, Tx, Tp, Tj);
+    }
+
+    /**
+     * Returns the matrix in the column-compressed format.
+     * @return the matrix in the column-compressed format.
+     */
+    public SparseMatrix toCSC() {
+        // The CSR arrays of A' are the CSC arrays of A.
+        CSRMatrix t = transpose();
+        return new SparseMatrix(m, n, t.nonzeros, t.colIndex, t.rowIndex);
+    }
+
+    @Override
+    public double[] diag() {
+        int n = Math.min(nrow(), ncol());
+        double[] d = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            for (int k = rowIndex[i]; k < rowIndex[i + 1]; k++) {
+                if (colIndex[k] == i) {
+                    d[i] = nonzeros[k];
+                    break;
+                }
+            }
+        }
+
+        return d;
+    }
+}
@@ -75,6 +75,11 @@ public class Lanczos {
             maxIter = 10 * A.nrow();
         }
 
+        if (A instanceof SparseMatrix) {
+            // The row-compressed format computes the products in parallel.
+            A = ((SparseMatrix) A).toCSR();
+        }
+
         int n = A.nrow();
         int intro = 0;
 
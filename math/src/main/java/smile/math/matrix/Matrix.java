@@ -1558,8 +1558,11 @@ public class Matrix extends IMatrix {
      * @return {@code A' * A}.
      */
     public Matrix ata() {
+        // The symmetric rank-k update takes half of the flops of gemm.
         Matrix C = new Matrix(n, n);
-        C.mm(TRANSPOSE, this, NO_TRANSPOSE, this);
+        Transpose trans = layout() == COL_MAJOR ? TRANSPOSE : NO_TRANSPOSE;
+        BLAS.engine.syrk(COL_MAJOR, LOWER, trans, n, m, 1.0, A, ld, 0.0, C.A, C.ld);
+        C.copyLowerToUpper();
         C.uplo(LOWER);
         return C;
     }
@@ -1570,11 +1573,25 @@ public class Matrix extends IMatrix {
      */
     public Matrix aat() {
         Matrix C = new Matrix(m, m);
-        C.mm(NO_TRANSPOSE, this, TRANSPOSE, this);
+        Transpose trans = layout() == COL_MAJOR ? NO_TRANSPOSE : TRANSPOSE;
+        BLAS.engine.syrk(COL_MAJOR, LOWER, trans, m, n, 1.0, A, ld, 0.0, C.A, C.ld);
+        C.copyLowerToUpper();
         C.uplo(LOWER);
         return C;
     }
 
+    /**
+     * Copies the lower triangular part of a column major square
+     * matrix to the upper triangular part.
+     */
+    private void copyLowerToUpper() {
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < j; i++) {
+                A[j * ld + i] = A[i * ld + j];
+            }
+        }
+    }
+
     /**
      * Returns {@code A * D * B}, where D is a diagonal matrix.
      * @param transA normal, transpose, or conjugate transpose
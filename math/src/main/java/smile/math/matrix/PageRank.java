@@ -85,6 +85,11 @@ public class PageRank {
             throw new IllegalArgumentException("Invalid maximum number of iterations: " + maxIter);
         }
 
+        if (A instanceof SparseMatrix) {
+            // The row-compressed format computes the products in parallel.
+            A = ((SparseMatrix) A).toCSR();
+        }
+
         int n = A.nrow();
         tol = Math.max(tol, MathEx.EPSILON * n);
 
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.matrix;
+
+import java.util.Arrays;
+import org.bytedeco.javacpp.DoublePointer;
+
+/**
+ * Randomized truncated singular value decomposition. Instead of decomposing
+ * the full matrix, it computes an orthonormal basis Q whose range
+ * approximates the range of A by multiplying A with a small random
+ * Gaussian matrix. The SVD of the small matrix {@code B = Q' * A} then
+ * gives the top singular triples of A. A few power iterations, with
+ * re-orthonormalization in between, sharpen the approximation when the
+ * singular values decay slowly.
+ * <p>
+ * The algorithm accesses A only through matrix-matrix products, which
+ * are BLAS level 3 operations. For k singular triples of an m-by-n
+ * matrix, it takes {@code O(mnk)} time instead of {@code O(mn min(m, n))}
+ * of the full SVD.
+ *
+ * <h2>References</h2>
+ * <ol>
+ * <li>N. Halko, P. G. Martinsson and J. A. Tropp. Finding structure with randomness: probabilistic algorithms for constructing approximate matrix decompositions. SIAM Review 53(2):217-288, 2011.</li>
+ * </ol>
+ *
+ * @author Haifeng Li
+ */
+public class RandomizedSVD {
+    /** Private constructor to prevent instance creation. */
+    private RandomizedSVD() {
+
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix
+     * with 10 oversamples and 2 power iterations.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @return the singular value decomposition.
+     */
+    public static Matrix.SVD svd(Matrix A, int k) {
+        return svd(A, k, 10, 2);
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @param oversamples the number of additional random vectors to
+     *                    sample the range of A.
+     * @param iterations the number of power iterations.
+     * @return the singular value decomposition.
+     */
+    public static Matrix.SVD svd(Matrix A, int k, int oversamples, int iterations) {
+        int m = A.nrow();
+        int n = A.ncol();
+        int l = size(m, n, k, oversamples, iterations);
+
+        // Y = A * Omega
+        Matrix Q = A.mm(Matrix.randn(n, l)).qr(true).Q();
+        for (int iter = 0; iter < iterations; iter++) {
+            Matrix Z = A.tm(Q).qr(true).Q();
+            Q = A.mm(Z).qr(true).Q();
+        }
+
+        // B = Q' * A is l x n.
+        Matrix.SVD svd = Q.tm(A).svd(true, true);
+        Matrix U = Q.mm(svd.U).submatrix(0, 0, m - 1, k - 1);
+        Matrix V = svd.V.submatrix(0, 0, n - 1, k - 1);
+        double[] s = Arrays.copyOf(svd.s, k);
+        return new Matrix.SVD(s, U, V);
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix
+     * with 10 oversamples and 2 power iterations.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @return the singular value decomposition.
+     */
+    public static BigMatrix.SVD svd(BigMatrix A, int k) {
+        return svd(A, k, 10, 2);
+    }
+
+    /**
+     * Computes k largest approximate singular triples of a matrix.
+     *
+     * @param A the matrix to decompose.
+     * @param k the number of singular triples to compute.
+     * @param oversamples the number of additional random vectors to
+     *                    sample the range of A.
+     * @param iterations the number of power iterations.
+     * @return the singular value decomposition.
+     */
+    public static BigMatrix.SVD svd(BigMatrix A, int k, int oversamples, int iterations) {
+        int m = A.nrow();
+        int n = A.ncol();
+        int l = size(m, n, k, oversamples, iterations);
+
+        // Y = A * Omega
+        BigMatrix Q = A.mm(BigMatrix.randn(n, l)).qr(true).Q();
+        for (int iter = 0; iter < iterations; iter++) {
+            BigMatrix Z = A.tm(Q).qr(true).Q();
+            Q = A.mm(Z).qr(true).Q();
+        }
+
+        // B = Q' * A is l x n.
+        BigMatrix.SVD svd = Q.tm(A).svd(true, true);
+        BigMatrix U = Q.mm(svd.U).submatrix(0, 0, m - 1, k - 1);
+        BigMatrix V = svd.V.submatrix(0, 0, n - 1, k - 1);
+        DoublePointer s = new DoublePointer(k);
+        for (int i = 0; i < k; i++) {
+            s.put(i, svd.s.get(i));
+        }
+        return new BigMatrix.SVD(s, U, V);
+    }
+
+    /**
+     * Validates the parameters and returns the number of random vectors.
+     */
+    private static int size(int m, int n, int k, int oversamples, int iterations) {
+        int r = Math.min(m, n);
+        if (k < 1 || k > r) {
+            throw new IllegalArgumentException("Invalid number of singular triples: " + k);
+        }
+
+        if (oversamples < 0) {
+            throw new IllegalArgumentException("Invalid number of oversamples: " + oversamples);
+        }
+
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Invalid number of power iterations: " + iterations);
+        }
+
+        return Math.min(k + oversamples, r);
+    }
+}
@@ -49,7 +49,9 @@ import static java.util.Spliterator.*;
  * also stored. Besides, a list of pointers are indexes where each column
  * starts. This format is efficient for arithmetic operations, column slicing,
  * and matrix-vector products. One typically uses SparseDataset for
- * construction of SparseMatrix.
+ * construction of SparseMatrix. For repeated matrix-vector products,
+ * e.g. in iterative eigen solvers, {@link #toCSR()} converts the matrix
+ * to the row-compressed format that computes the products in parallel.
  * <p>
  * For iteration through the elements of a matrix, this class provides
  * a functional API to iterate through the non-zero elements. This iteration
@@ -456,6 +458,17 @@ public class SparseMatrix extends IMatrix implements Iterable<SparseMatrix.Entry
         return trans;
     }
 
+    /**
+     * Returns the matrix in the compressed sparse row format, which
+     * supports parallel matrix-vector products.
+     * @return the matrix in the compressed sparse row format.
+     */
+    public CSRMatrix toCSR() {
+        // The CSC arrays of A' are the CSR arrays of A.
+        SparseMatrix t = transpose();
+        return new CSRMatrix(m, n, t.nonzeros, t.colIndex, t.rowIndex);
+    }
+
     /**
      * Returns the matrix multiplication C = A * B.
      * @param B the operand.
@@ -52,7 +52,7 @@ public class ExponentialFamilyMixture extends Mixture {
      * @param L the log-likelihood.
      * @param n the number of samples to fit the distribution.
      */
-    ExponentialFamilyMixture(double L, int n, Component... components) {
+    ExponentialFamilyMixture(double L, long n, Component... components) {
         super(components);
 
         for (Component component : components) {
@@ -30,6 +30,11 @@ public class GaussianMixture extends ExponentialFamilyMixture {
     private static final long serialVersionUID = 2L;
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(GaussianMixture.class);
 
+    /**
+     * The number of samples to fit the distribution.
+     */
+    private final long n;
+
     /**
      * Constructor.
      * @param components a list of multivariate Gaussian distributions.
@@ -44,8 +49,9 @@ public class GaussianMixture extends ExponentialFamilyMixture {
      * @param L the log-likelihood.
      * @param n the number of samples to fit the distribution.
      */
-    private GaussianMixture(double L, int n, Component... components) {
+    private GaussianMixture(double L, long n, Component... components) {
         super(L, n, components);
+        this.n = n;
 
         for (Component component : components) {
             if (!(component.distribution instanceof GaussianDistribution)) {
@@ -105,6 +111,79 @@ public class GaussianMixture extends ExponentialFamilyMixture {
         return mixture;
     }
 
+    /**
+     * Updates the mixture with a mini-batch of new samples by one step of
+     * incremental EM. The sufficient statistics of the samples seen so far
+     * are recovered from the parameters and the number of samples, and are
+     * merged with the expected sufficient statistics of new samples given
+     * the current parameters. The cost is O(m k) for a batch of m samples,
+     * independent of the number of samples seen so far. As the mixture is
+     * immutable, the update is safe to call from multiple threads.
+     * <p>
+     * The log-likelihood accumulates that of new samples given the current
+     * parameters. A mixture created by the constructor is assumed to be fit
+     * on one sample.
+     *
+     * @param x the new samples.
+     * @return the updated mixture.
+     */
+    public GaussianMixture update(double[] x) {
+        int k = components.length;
+
+        // The weighted sums and squared sums of deviations from the current means.
+        double[] s0 = new double[k];
+        double[] s1 = new double[k];
+        double[] s2 = new double[k];
+        double[] posteriori = new double[k];
+        double L = 0.0;
+        for (double xi : x) {
+            double p = 0.0;
+            for (int i = 0; i < k; i++) {
+                Component c = components[i];
+                posteriori[i] = c.priori * c.distribution.p(xi);
+                p += posteriori[i];
+            }
+
+            if (p > 0) {
+                L += Math.log(p);
+                for (int i = 0; i < k; i++) {
+                    double r = posteriori[i] / p;
+                    double d = xi - components[i].distribution.mean();
+                    s0[i] += r;
+                    s1[i] += r * d;
+                    s2[i] += r * d * d;
+                }
+            }
+        }
+
+        // The variances are floored for numerical stability, in case
+        // that a component collapses to a single point.
+        double floor = MathEx.EPSILON;
+        for (Component c : components) {
+            floor = Math.max(floor, 1E-9 * c.distribution.variance());
+        }
+
+        double size = n + MathEx.sum(s0);
+        Component[] mixture = new Component[k];
+        for (int i = 0; i < k; i++) {
+            Component c = components[i];
+            double w = n * c.priori;
+            double alpha = w + s0[i];
+            if (alpha == 0.0) {
+                // The component has neither history nor new samples.
+                mixture[i] = c;
+                continue;
+            }
+
+            double mu = c.distribution.mean() + s1[i] / alpha;
+            double M2 = w * c.distribution.variance() + s2[i] - s1[i] * s1[i] / alpha;
+            double variance = Math.max(M2 / alpha, floor);
+            mixture[i] = new Component(alpha / size, new GaussianDistribution(mu, Math.sqrt(variance)));
+        }
+
+        return new GaussianMixture(this.L + L, n + x.length, mixture);
+    }
+
     /**
      * Split the most heterogeneous cluster along its main direction (eigenvector).
      */
@@ -111,6 +111,20 @@ public class SparseArray implements Iterable<SparseArray.Entry>, Serializable {
         }
     }
 
+    /**
+     * Constructor.
+     * @param index the index of nonzero entries.
+     * @param value the value of nonzero entries.
+     */
+    public SparseArray(int[] index, double[] value) {
+        if (index.length != value.length) {
+            throw new IllegalArgumentException(String.format("The sizes of index and value don't match: %d != %d", index.length, value.length));
+        }
+
+        this.index = new IntArrayList(index);
+        this.value = new DoubleArrayList(value);
+    }
+
     /**
      * Constructor.
      * @param stream the stream of nonzero entries.
@@ -156,6 +170,79 @@ public class SparseArray implements Iterable<SparseArray.Entry>, Serializable {
         };
     }
 
+    /**
+     * Returns the index of k-th nonzero entry. Together with
+     * {@link #value(int)}, it iterates the nonzero entries
+     * without allocating entry objects.
+     * @param k the position of nonzero entry in the internal storage.
+     * @return the index of nonzero entry.
+     */
+    public int index(int k) {
+        return index.get(k);
+    }
+
+    /**
+     * Returns the value of k-th nonzero entry.
+     * @param k the position of nonzero entry in the internal storage.
+     * @return the value of nonzero entry.
+     */
+    public double value(int k) {
+        return value.get(k);
+    }
+
+    /**
+     * Returns the dot product with a dense vector.
+     * @param x the dense vector.
+     * @return the dot product.
+     */
+    public double dot(double[] x) {
+        return dot(x, 0);
+    }
+
+    /**
+     * Returns the dot product with a dense vector that starts at
+     * the given offset of an array, i.e. the entry i is multiplied
+     * by {@code x[offset + i]}.
+     * @param x the array of dense vector.
+     * @param offset the offset of dense vector in the array.
+     * @return the dot product.
+     */
+    public double dot(double[] x, int offset) {
+        int[] idx = index.data;
+        double[] val = value.data;
+        double dot = 0.0;
+        for (int k = 0, n = size(); k < n; k++) {
+            dot += val[k] * x[offset + idx[k]];
+        }
+        return dot;
+    }
+
+    /**
+     * Computes a constant times this array plus a dense vector
+     * {@code y += a * this}.
+     * @param a the scalar.
+     * @param y the dense vector to update.
+     */
+    public void axpy(double a, double[] y) {
+        axpy(a, y, 0);
+    }
+
+    /**
+     * Computes a constant times this array plus a dense vector that
+     * starts at the given offset of an array, i.e.
+     * {@code y[offset + i] += a * this[i]}.
+     * @param a the scalar.
+     * @param y the array of dense vector to update.
+     * @param offset the offset of dense vector in the array.
+     */
+    public void axpy(double a, double[] y, int offset) {
+        int[] idx = index.data;
+        double[] val = value.data;
+        for (int k = 0, n = size(); k < n; k++) {
+            y[offset + idx[k]] += a * val[k];
+        }
+    }
+
     /**
      * Returns the stream of nonzero entries.
      * @return the stream of nonzero entries.
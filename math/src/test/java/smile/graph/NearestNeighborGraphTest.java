@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.graph;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import smile.math.MathEx;
+import smile.math.distance.EuclideanDistance;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class NearestNeighborGraphTest {
+    double[][] data;
+
+    public NearestNeighborGraphTest() {
+        MathEx.setSeed(19650218); // to get repeatable results.
+        data = new double[2000][];
+        for (int i = 0; i < data.length; i++) {
+            double[] x = new double[10];
+            double mu = 5.0 * (i % 4);
+            for (int j = 0; j < x.length; j++) {
+                x[j] = mu + MathEx.random();
+            }
+            data[i] = x;
+        }
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testExact() {
+        System.out.println("exact");
+        NearestNeighborGraph nng = NearestNeighborGraph.of(data, 7);
+        assertEquals(data.length, nng.size());
+        assertEquals(1.0, nng.recall(data, new EuclideanDistance(), 100), 1E-10);
+
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(7, nng.neighbors[i].length);
+            for (int j = 0; j < 7; j++) {
+                assertNotEquals(i, nng.neighbors[i][j]);
+                assertEquals(MathEx.distance(data[i], data[nng.neighbors[i][j]]), nng.distances[i][j], 1E-10);
+                if (j > 0) {
+                    assertTrue(nng.distances[i][j-1] <= nng.distances[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDescent() {
+        System.out.println("NN-Descent");
+        MathEx.setSeed(19650218); // to get repeatable results.
+        NearestNeighborGraph nng = NearestNeighborGraph.descent(data, 7);
+        assertEquals(data.length, nng.size());
+
+        double recall = nng.recall(data, new EuclideanDistance(), data.length);
+        System.out.format("NN-Descent recall = %.2f%%%n", 100 * recall);
+        assertTrue(recall > 0.9);
+
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(7, nng.neighbors[i].length);
+            for (int j = 0; j < 7; j++) {
+                assertNotEquals(i, nng.neighbors[i][j]);
+                for (int l = 0; l < j; l++) {
+                    assertNotEquals(nng.neighbors[i][l], nng.neighbors[i][j]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLargest() {
+        System.out.println("largest");
+        NearestNeighborGraph nng = NearestNeighborGraph.of(data, 7);
+        NearestNeighborGraph cc = nng.largest(false);
+        // 4 well separated clusters
+        assertEquals(500, cc.size());
+        for (int i = 0; i < cc.size(); i++) {
+            for (int j : cc.neighbors[i]) {
+                assertEquals(cc.index[i] % 4, cc.index[j] % 4);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.blas;
+
+import smile.math.MathEx;
+import smile.math.blas.openblas.OpenBLAS;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class JavaBLASTest {
+    BLAS openblas = new OpenBLAS();
+    BLAS java = new JavaBLAS(openblas, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    public JavaBLASTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+        MathEx.setSeed(19650218);
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Returns a random array. */
+    private static double[] random(int n) {
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = MathEx.random() - 0.5;
+        }
+        return x;
+    }
+
+    /** Returns a float copy of array. */
+    private static float[] toFloat(double[] x) {
+        float[] y = new float[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = (float) x[i];
+        }
+        return y;
+    }
+
+    @Test
+    public void testDotAxpy() {
+        System.out.println("dot and axpy");
+        for (int n : new int[]{0, 1, 3, 4, 7, 64, 1001}) {
+            for (int[] inc : new int[][]{{1, 1}, {2, 1}, {1, -3}, {-2, -1}}) {
+                int lenx = Math.max(1, 1 + (n - 1) * Math.abs(inc[0]));
+                int leny = Math.max(1, 1 + (n - 1) * Math.abs(inc[1]));
+                double[] x = random(lenx);
+                double[] y = random(leny);
+                assertEquals(openblas.dot(n, x, inc[0], y, inc[1]), java.dot(n, x, inc[0], y, inc[1]), 1E-12);
+                assertEquals(openblas.dot(n, toFloat(x), inc[0], toFloat(y), inc[1]), java.dot(n, toFloat(x), inc[0], toFloat(y), inc[1]), 1E-4);
+
+                double[] y1 = y.clone();
+                double[] y2 = y.clone();
+                openblas.axpy(n, 0.7, x, inc[0], y1, inc[1]);
+                java.axpy(n, 0.7, x, inc[0], y2, inc[1]);
+                assertArrayEquals(y1, y2, 1E-14);
+            }
+        }
+    }
+
+    @Test
+    public void testGemv() {
+        System.out.println("gemv");
+        for (Layout layout : Layout.values()) {
+            for (Transpose trans : new Transpose[]{Transpose.NO_TRANSPOSE, Transpose.TRANSPOSE}) {
+                for (int[] size : new int[][]{{1, 1}, {5, 3}, {3, 5}, {64, 64}, {67, 130}}) {
+                    int m = size[0], n = size[1];
+                    int lda = (layout == Layout.COL_MAJOR ? m : n) + 2;
+                    double[] A = random(lda * Math.max(m, n));
+                    int lenx = trans == Transpose.NO_TRANSPOSE ? n : m;
+                    int leny = trans == Transpose.NO_TRANSPOSE ? m : n;
+                    for (int incy : new int[]{1, -2}) {
+                        double[] x = random(lenx);
+                        double[] y = random(leny * Math.abs(incy));
+                        for (double beta : new double[]{0.0, 1.0, 0.5}) {
+                            double[] y1 = y.clone();
+                            double[] y2 = y.clone();
+                            openblas.gemv(layout, trans, m, n, 1.5, A, lda, x, 1, beta, y1, incy);
+                            java.gemv(layout, trans, m, n, 1.5, A, lda, x, 1, beta, y2, incy);
+                            assertArrayEquals(y1, y2, 1E-12);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGemm() {
+        System.out.println("gemm");
+        Transpose[] ops = {Transpose.NO_TRANSPOSE, Transpose.TRANSPOSE};
+        for (Layout layout : Layout.values()) {
+            for (Transpose transA : ops) {
+                for (Transpose transB : ops) {
+                    for (int[] size : new int[][]{{1, 1, 1}, {5, 3, 7}, {64, 64, 64}, {300, 20, 270}}) {
+                        int m = size[0], n = size[1], k = size[2];
+                        boolean col = layout == Layout.COL_MAJOR;
+                        int ra = transA == Transpose.NO_TRANSPOSE ? m : k;
+                        int ca = transA == Transpose.NO_TRANSPOSE ? k : m;
+                        int rb = transB == Transpose.NO_TRANSPOSE ? k : n;
+                        int cb = transB == Transpose.NO_TRANSPOSE ? n : k;
+                        int lda = (col ? ra : ca) + 1;
+                        int ldb = (col ? rb : cb) + 3;
+                        int ldc = (col ? m : n) + 2;
+                        double[] A = random(lda * (col ? ca : ra));
+                        double[] B = random(ldb * (col ? cb : rb));
+                        double[] C = random(ldc * (col ? n : m));
+                        for (double beta : new double[]{0.0, 1.0, -0.5}) {
+                            double[] C1 = C.clone();
+                            double[] C2 = C.clone();
+                            openblas.gemm(layout, transA, transB, m, n, k, 0.8, A, lda, B, ldb, beta, C1, ldc);
+                            java.gemm(layout, transA, transB, m, n, k, 0.8, A, lda, B, ldb, beta, C2, ldc);
+                            assertArrayEquals(C1, C2, 1E-11);
+
+                            float[] F1 = toFloat(C);
+                            float[] F2 = toFloat(C);
+                            openblas.gemm(layout, transA, transB, m, n, k, 0.8f, toFloat(A), lda, toFloat(B), ldb, (float) beta, F1, ldc);
+                            java.gemm(layout, transA, transB, m, n, k, 0.8f, toFloat(A), lda, toFloat(B), ldb, (float) beta, F2, ldc);
+                            assertArrayEquals(F1, F2, 1E-3f);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSyrk() {
+        System.out.println("syrk");
+        for (Layout layout : Layout.values()) {
+            for (UPLO uplo : UPLO.values()) {
+                for (Transpose trans : new Transpose[]{Transpose.NO_TRANSPOSE, Transpose.TRANSPOSE}) {
+                    for (int[] size : new int[][]{{1, 1}, {5, 9}, {64, 64}, {70, 130}}) {
+                        int n = size[0], k = size[1];
+                        boolean col = layout == Layout.COL_MAJOR;
+                        int ra = trans == Transpose.NO_TRANSPOSE ? n : k;
+                        int ca = trans == Transpose.NO_TRANSPOSE ? k : n;
+                        int lda = (col ? ra : ca) + 1;
+                        int ldc = n + 2;
+                        double[] A = random(lda * (col ? ca : ra));
+                        double[] C = random(ldc * n);
+                        for (double beta : new double[]{0.0, 0.5}) {
+                            double[] C1 = C.clone();
+                            double[] C2 = C.clone();
+                            openblas.syrk(layout, uplo, trans, n, k, 1.2, A, lda, beta, C1, ldc);
+                            java.syrk(layout, uplo, trans, n, k, 1.2, A, lda, beta, C2, ldc);
+                            assertArrayEquals(C1, C2, 1E-11);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.matrix;
+
+import java.util.Arrays;
+import smile.math.MathEx;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static smile.math.blas.Transpose.NO_TRANSPOSE;
+import static smile.math.blas.Transpose.TRANSPOSE;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class CSRMatrixTest {
+
+    double[][] A = {
+            {0.9000, 0.4000, 0.0000},
+            {0.4000, 0.5000, 0.3000},
+            {0.0000, 0.3000, 0.8000}
+    };
+    double[] b = {0.5, 0.5, 0.5};
+    double[][] C = {
+            {0.97, 0.56, 0.12},
+            {0.56, 0.50, 0.39},
+            {0.12, 0.39, 0.73}
+    };
+
+    CSRMatrix sparse = new SparseMatrix(A, 1E-8).toCSR();
+
+    public CSRMatrixTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /** Returns a random sparse matrix. */
+    private static SparseMatrix random(int m, int n, double density) {
+        MathEx.setSeed(19650218);
+        double[][] x = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                if (MathEx.random() < density) {
+                    x[i][j] = MathEx.random() - 0.5;
+                }
+            }
+        }
+        return new SparseMatrix(x, 1E-8);
+    }
+
+    @Test
+    public void testGet() {
+        System.out.println("get");
+        assertEquals(3, sparse.nrow());
+        assertEquals(3, sparse.ncol());
+        assertEquals(7, sparse.size());
+        assertEquals(0.9, sparse.get(0, 0), 1E-7);
+        assertEquals(0.8, sparse.get(2, 2), 1E-7);
+        assertEquals(0.5, sparse.get(1, 1), 1E-7);
+        assertEquals(0.0, sparse.get(2, 0), 1E-7);
+        assertEquals(0.0, sparse.get(0, 2), 1E-7);
+        assertEquals(0.4, sparse.get(0, 1), 1E-7);
+    }
+
+    @Test
+    public void testAxpy() {
+        System.out.println("axpy");
+        double[] d = new double[sparse.nrow()];
+        sparse.mv(b, d);
+        assertEquals(0.65, d[0], 1E-7);
+        assertEquals(0.60, d[1], 1E-7);
+        assertEquals(0.55, d[2], 1E-7);
+
+        Arrays.fill(d, 1.0);
+        sparse.mv(NO_TRANSPOSE, 1.0, b, 2.0, d);
+        assertEquals(2.65, d[0], 1E-7);
+        assertEquals(2.60, d[1], 1E-7);
+        assertEquals(2.55, d[2], 1E-7);
+
+        Arrays.fill(d, 1.0);
+        sparse.mv(TRANSPOSE, 1.0, b, 2.0, d);
+        assertEquals(2.65, d[0], 1E-7);
+        assertEquals(2.60, d[1], 1E-7);
+        assertEquals(2.55, d[2], 1E-7);
+    }
+
+    @Test
+    public void testMm() {
+        System.out.println("mm");
+        CSRMatrix AA = sparse.mm(sparse);
+        for (int i = 0; i < C.length; i++) {
+            for (int j = 0; j < C[i].length; j++) {
+                assertEquals(C[i][j], AA.get(i, j), 1E-7);
+            }
+        }
+
+        Matrix dense = sparse.mm(Matrix.of(A));
+        for (int i = 0; i < C.length; i++) {
+            for (int j = 0; j < C[i].length; j++) {
+                assertEquals(C[i][j], dense.get(i, j), 1E-7);
+            }
+        }
+    }
+
+    @Test
+    public void testConversion() {
+        System.out.println("conversion");
+        SparseMatrix csc = random(300, 200, 0.1);
+        CSRMatrix csr = csc.toCSR();
+        SparseMatrix back = csr.toCSC();
+        CSRMatrix t = csr.transpose();
+        assertEquals(csc.size(), csr.size());
+        assertEquals(csc.size(), back.size());
+        for (int i = 0; i < 300; i++) {
+            for (int j = 0; j < 200; j++) {
+                assertEquals(csc.get(i, j), csr.get(i, j), 1E-15);
+                assertEquals(csc.get(i, j), back.get(i, j), 1E-15);
+                assertEquals(csc.get(i, j), t.get(j, i), 1E-15);
+            }
+        }
+    }
+
+    @Test
+    public void testParallel() {
+        System.out.println("parallel");
+        SparseMatrix csc = random(600, 500, 0.1);
+        CSRMatrix csr = csc.toCSR();
+        assertTrue(csr.blocks() > 1);
+
+        double[] x = new double[500];
+        double[] z = new double[600];
+        for (int i = 0; i < x.length; i++) x[i] = MathEx.random();
+        for (int i = 0; i < z.length; i++) z[i] = MathEx.random();
+
+        double[] y1 = csc.mv(x);
+        double[] y2 = csr.mv(x);
+        assertArrayEquals(y1, y2, 1E-10);
+
+        y1 = csc.tv(z);
+        y2 = csr.tv(z);
+        assertArrayEquals(y1, y2, 1E-10);
+
+        double[] work = new double[1100];
+        System.arraycopy(x, 0, work, 0, 500);
+        csr.mv(work, 0, 500);
+        assertArrayEquals(csc.mv(x), Arrays.copyOfRange(work, 500, 1100), 1E-10);
+
+        System.arraycopy(z, 0, work, 0, 600);
+        csr.tv(work, 0, 600);
+        assertArrayEquals(csc.tv(z), Arrays.copyOfRange(work, 600, 1100), 1E-10);
+
+        // The transposed products read the current values.
+        csr.set(0, csr.get(0) + 1.0);
+        double[] atz = new double[500];
+        for (int i = 0; i < 600; i++) {
+            for (int j = 0; j < 500; j++) {
+                atz[j] += csr.get(i, j) * z[i];
+            }
+        }
+        assertArrayEquals(atz, csr.tv(z), 1E-10);
+        csr.set(0, csr.get(0) - 1.0);
+
+        SparseMatrix ata = csc.ata();
+        CSRMatrix ata2 = csr.transpose().mm(csr);
+        assertEquals(ata.size(), ata2.size());
+        for (int i = 0; i < 500; i++) {
+            for (int j = 0; j < 500; j++) {
+                assertEquals(ata.get(i, j), ata2.get(i, j), 1E-10);
+            }
+        }
+    }
+}
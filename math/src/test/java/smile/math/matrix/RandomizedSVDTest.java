@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2010-2021 Haifeng Li. All rights reserved.
+ *
+ * Smile is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Smile is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Smile.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package smile.math.matrix;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import smile.math.MathEx;
+
+/**
+ *
+ * @author Haifeng Li
+ */
+public class RandomizedSVDTest {
+
+    public RandomizedSVDTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testSVD() {
+        System.out.println("svd");
+        MathEx.setSeed(19650218);
+        // A low rank matrix plus small noise.
+        Matrix A = Matrix.randn(300, 10).mt(Matrix.randn(200, 10));
+        A.add(Matrix.rand(300, 200, -0.01, 0.01));
+
+        Matrix.SVD svd = A.svd();
+        Matrix.SVD rsvd = RandomizedSVD.svd(A, 5);
+        assertEquals(5, rsvd.s.length);
+        assertEquals(300, rsvd.U.nrow());
+        assertEquals(200, rsvd.V.nrow());
+        for (int j = 0; j < 5; j++) {
+            assertEquals(svd.s[j], rsvd.s[j], 1E-6 * svd.s[j]);
+            for (int i = 0; i < 200; i++) {
+                assertEquals(Math.abs(svd.V.get(i, j)), Math.abs(rsvd.V.get(i, j)), 1E-6);
+            }
+            for (int i = 0; i < 300; i++) {
+                assertEquals(Math.abs(svd.U.get(i, j)), Math.abs(rsvd.U.get(i, j)), 1E-6);
+            }
+        }
+    }
+
+    @Test
+    public void testBigMatrix() {
+        System.out.println("big matrix");
+        MathEx.setSeed(19650218);
+        BigMatrix A = BigMatrix.randn(300, 10).mt(BigMatrix.randn(200, 10));
+
+        BigMatrix.SVD svd = A.svd();
+        BigMatrix.SVD rsvd = RandomizedSVD.svd(A, 5);
+        for (int j = 0; j < 5; j++) {
+            assertEquals(svd.s.get(j), rsvd.s.get(j), 1E-8 * svd.s.get(j));
+            for (int i = 0; i < 200; i++) {
+                assertEquals(Math.abs(svd.V.get(i, j)), Math.abs(rsvd.V.get(i, j)), 1E-7);
+            }
+        }
+    }
+}
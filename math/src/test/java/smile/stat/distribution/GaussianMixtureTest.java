@@ -17,6 +17,8 @@
 
 package smile.stat.distribution;
 
+import java.util.Arrays;
+import smile.math.MathEx;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -97,4 +99,66 @@ public class GaussianMixtureTest {
         GaussianMixture mixture = GaussianMixture.fit(data);
         System.out.println(mixture);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdate() {
+        System.out.println("update");
+        MathEx.setSeed(19650218); // to get repeatable results.
+
+        GaussianDistribution[] g = {
+            new GaussianDistribution(-5.0, 1.0),
+            new GaussianDistribution(5.0, 1.0),
+            new GaussianDistribution(15.0, 2.0)
+        };
+
+        double[] data = new double[30000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = g[MathEx.randomInt(3)].rand();
+        }
+
+        // The initial guess, which is taken as the fit of one sample.
+        GaussianMixture mixture = new GaussianMixture(
+                new Mixture.Component(0.3, new GaussianDistribution(-4.0, 2.0)),
+                new Mixture.Component(0.3, new GaussianDistribution(4.0, 2.0)),
+                new Mixture.Component(0.4, new GaussianDistribution(12.0, 2.0))
+        );
+
+        for (int i = 0; i < data.length; i += 1000) {
+            mixture = mixture.update(Arrays.copyOfRange(data, i, i + 1000));
+        }
+        System.out.println(mixture);
+
+        for (int i = 0; i < 3; i++) {
+            Mixture.Component c = mixture.components[i];
+            assertEquals(1.0 / 3, c.priori, 0.01);
+            assertEquals(g[i].mean(), c.distribution.mean(), 0.05);
+            assertEquals(g[i].sd(), c.distribution.sd(), 0.05);
+        }
+    }
+
+    @Test
+    public void testUpdateDegenerate() {
+        System.out.println("update degenerate");
+
+        // The second component has no history and gets no responsibility.
+        GaussianMixture mixture = new GaussianMixture(
+                new Mixture.Component(1.0, new GaussianDistribution(1.0, 1E-10)),
+                new Mixture.Component(0.0, new GaussianDistribution(100.0, 1.0))
+        );
+
+        mixture = mixture.update(new double[]{1.0, 1.0});
+        System.out.println(mixture);
+
+        Mixture.Component c = mixture.components[0];
+        assertEquals(1.0, c.priori, 1E-10);
+        assertEquals(1.0, c.distribution.mean(), 1E-10);
+        // The variance of collapsed component is floored.
+        assertTrue(c.distribution.variance() >= MathEx.EPSILON);
+
+        c = mixture.components[1];
+        assertEquals(0.0, c.priori, 1E-10);
+        assertEquals(100.0, c.distribution.mean(), 1E-10);
+        assertEquals(1.0, c.distribution.sd(), 1E-10);
+        assertFalse(Double.isNaN(mixture.p(1.0)));
+    }
+}
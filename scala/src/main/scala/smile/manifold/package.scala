@@ -164,9 +164,11 @@ package object manifold {
     * @param perplexity the perplexity of the conditional distribution.
     * @param eta        the learning rate.
     * @param iterations the number of iterations.
+    * @param theta      the accuracy/speed trade-off parameter of Barnes-Hut approximation.
+    *                   If theta is 0, the exact gradient is computed.
     */
-  def tsne(X: Array[Array[Double]], d: Int = 2, perplexity: Double = 20.0, eta: Double = 200.0, iterations: Int = 1000): TSNE = time("t-SNE") {
-    new TSNE(X, d, perplexity, eta, iterations)
+  def tsne(X: Array[Array[Double]], d: Int = 2, perplexity: Double = 20.0, eta: Double = 200.0, iterations: Int = 1000, theta: Double = 0.0): TSNE = time("t-SNE") {
+    new TSNE(X, d, perplexity, eta, iterations, theta)
   }
 
   /**